@@ -1,21 +1,58 @@
 package ee.openeid.siga.auth;
 
+import com.google.common.cache.CacheBuilder;
+import ee.openeid.siga.common.configuration.ConditionalOnEmbeddedSessionStore;
+import ee.openeid.siga.common.configuration.ConditionalOnIgniteSessionStore;
 import org.apache.ignite.cache.spring.SpringCacheManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
-import org.springframework.cache.annotation.CachingConfigurer;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @EnableCaching
-public class IgniteCacheConfiguration implements CachingConfigurer {
+public class IgniteCacheConfiguration {
 
     @Bean
-    @Override
+    @ConditionalOnIgniteSessionStore
     public CacheManager cacheManager() {
         final SpringCacheManager springCacheManager = new SpringCacheManager();
         springCacheManager.setIgniteInstanceName("siga-ignite");
         return springCacheManager;
     }
+
+    /**
+     * Entries expire after the configured container session time to idle of the embedded session store.
+     */
+    @Bean
+    @ConditionalOnEmbeddedSessionStore
+    public CacheManager embeddedCacheManager(
+            @Value("${siga.session-store.embedded.container-time-to-idle:PT300S}") Duration timeToLive) {
+        return new EmbeddedCacheManager(timeToLive);
+    }
+
+    /**
+     * Caches in the memory of the SiGa node, used when sessions are not stored in Ignite.
+     */
+    private static class EmbeddedCacheManager extends ConcurrentMapCacheManager {
+        private final Duration timeToLive;
+
+        EmbeddedCacheManager(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        @Override
+        protected Cache createConcurrentMapCache(String name) {
+            return new ConcurrentMapCache(name, CacheBuilder.newBuilder()
+                    .expireAfterWrite(timeToLive)
+                    .build()
+                    .asMap(), isAllowNullValues());
+        }
+    }
 }
@@ -0,0 +1,19 @@
+package ee.openeid.siga.common.configuration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Matches when sessions are stored in the Ignite cluster, which is the default.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+@ConditionalOnProperty(name = "siga.session-store.type", havingValue = "ignite", matchIfMissing = true)
+public @interface ConditionalOnIgniteSessionStore {
+}
@@ -2,8 +2,10 @@ package ee.openeid.siga.common.model;
 
 import lombok.Data;
 
+import java.io.Serializable;
+
 @Data
-public class HashcodeDataFile {
+public class HashcodeDataFile implements Serializable {
 
     private String fileName;
     private String fileHashSha256;
@@ -2,12 +2,24 @@ package ee.openeid.siga.common.model;
 
 import lombok.Data;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
 @Data
-public class HashcodeSignatureWrapper {
+public class HashcodeSignatureWrapper implements Serializable {
     private String generatedSignatureId;
     private byte[] signature;
     private List<SignatureHashcodeDataFile> dataFiles = new ArrayList<>();
+    /*
+        Summary of the signature, stored when the signature is added to the container so that listing signatures
+        does not have to parse them. Not set for signatures that could not be parsed or were stored by earlier versions.
+     */
+    private String id;
+    private String signatureProfile;
+    private String signerInfo;
+
+    public boolean hasSummary() {
+        return signatureProfile != null;
+    }
 }
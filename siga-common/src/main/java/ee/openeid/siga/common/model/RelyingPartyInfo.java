@@ -4,9 +4,11 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NonNull;
 
+import java.io.Serializable;
+
 @Data
 @Builder
-public class RelyingPartyInfo {
+public class RelyingPartyInfo implements Serializable {
     @NonNull
     private String name;
     @NonNull
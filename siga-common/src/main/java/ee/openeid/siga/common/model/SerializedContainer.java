@@ -0,0 +1,16 @@
+package ee.openeid.siga.common.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Serialized container with a strong entity tag identifying its exact bytes.
+ */
+@Getter
+@RequiredArgsConstructor
+public class SerializedContainer implements Serializable {
+    private final byte[] container;
+    private final String eTag;
+}
@@ -2,8 +2,10 @@ package ee.openeid.siga.common.model;
 
 import lombok.Data;
 
+import java.io.Serializable;
+
 @Data
-public class SignatureHashcodeDataFile {
+public class SignatureHashcodeDataFile implements Serializable {
     private String fileName;
     private String hashAlgo;
 }
@@ -2,17 +2,23 @@ package ee.openeid.siga.common.session;
 
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ignite.binary.BinaryReader;
+import org.apache.ignite.binary.BinaryWriter;
+import org.apache.ignite.binary.Binarylizable;
 
 import java.security.cert.X509Certificate;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Function;
 
 @Slf4j
 @Getter
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-public class AsicContainerSession implements Session {
+public class AsicContainerSession implements Session, Binarylizable {
+    private static final byte FORMAT_VERSION = 4;
+
     @NonNull
     private String containerName;
     @NonNull
@@ -23,9 +29,30 @@ public class AsicContainerSession implements Session {
     private String serviceUuid;
     @NonNull
     private String sessionId;
+    @Setter
+    private long version;
+    /**
+     * SHA-256 digest of the stored container. Container bytes are stored separately and are not serialized
+     * with the session.
+     */
+    @Setter
+    private String containerDigest;
+    /**
+     * Reference to the stored container, added by the session write that stored the container.
+     */
+    @Setter
+    private String containerReference;
+    /**
+     * Order independent fingerprint of the data files of the container, see {@link DataFilesFingerprint}.
+     * Not set for sessions stored by earlier versions.
+     */
+    @Setter
+    private String dataFilesFingerprint;
     @NonNull
     @Setter
     private byte [] container;
+    @Setter
+    private transient Function<String, byte[]> containerLoader;
     @Builder.Default
     private Map<String, Integer> signatureIdHolder = new HashMap<>();
 
@@ -39,6 +66,20 @@ public class AsicContainerSession implements Session {
     @Builder.Default
     private Map<String, X509Certificate> certificateHolder = new HashMap<>();
 
+    /**
+     * @return container bytes, loaded by container digest on first access after deserialization
+     */
+    public byte[] getContainer() {
+        if (container == null && containerDigest != null) {
+            container = containerLoader.apply(containerDigest);
+        }
+        return container;
+    }
+
+    public boolean isContainerLoaded() {
+        return container != null;
+    }
+
     @Override
     public void addSignatureSession(String signatureId, SignatureSession signatureSession) {
         signatureSessions.put(signatureId, signatureSession);
@@ -101,4 +142,43 @@ public class AsicContainerSession implements Session {
         return certificateHolder.remove(documentNumber);
     }
 
+    @Override
+    public void writeBinary(BinaryWriter writer) {
+        SessionBinaryFormat.writeVersion(writer, FORMAT_VERSION);
+        writer.writeString("containerName", containerName);
+        writer.writeString("clientName", clientName);
+        writer.writeString("serviceName", serviceName);
+        writer.writeString("serviceUuid", serviceUuid);
+        writer.writeString("sessionId", sessionId);
+        writer.writeLong("version", version);
+        writer.writeString("containerDigest", containerDigest);
+        writer.writeString("containerReference", containerReference);
+        writer.writeString("dataFilesFingerprint", dataFilesFingerprint);
+        writer.writeMap("signatureIdHolder", signatureIdHolder);
+        SessionBinaryFormat.writeCertificates(writer, "certificateHolder", certificateHolder);
+    }
+
+    @Override
+    public void readBinary(BinaryReader reader) {
+        byte formatVersion = SessionBinaryFormat.readVersion(reader, FORMAT_VERSION, AsicContainerSession.class);
+        containerName = reader.readString("containerName");
+        clientName = reader.readString("clientName");
+        serviceName = reader.readString("serviceName");
+        serviceUuid = reader.readString("serviceUuid");
+        sessionId = reader.readString("sessionId");
+        version = formatVersion > 1 ? reader.readLong("version") : 0;
+        containerDigest = reader.readString("containerDigest");
+        containerReference = formatVersion > 3 ? reader.readString("containerReference") : null;
+        dataFilesFingerprint = formatVersion > 2 ? reader.readString("dataFilesFingerprint") : null;
+        signatureIdHolder = reader.readMap("signatureIdHolder");
+        if (formatVersion == SessionBinaryFormat.LEGACY_VERSION) {
+            // Container bytes are stored inline and are moved to the blob store on the next write
+            container = reader.readByteArray("container");
+            certificateHolder = SessionBinaryFormat.readLegacyCertificates(reader, "certificateHolder");
+        } else {
+            certificateHolder = SessionBinaryFormat.readCertificates(reader, "certificateHolder");
+        }
+        signatureSessions = new HashMap<>();
+        certificateSessions = new HashMap<>();
+    }
 }
@@ -3,10 +3,17 @@ package ee.openeid.siga.common.session;
 import ee.openeid.siga.common.model.RelyingPartyInfo;
 import lombok.Builder;
 import lombok.Data;
+import org.apache.ignite.binary.BinaryReader;
+import org.apache.ignite.binary.BinaryWriter;
+import org.apache.ignite.binary.Binarylizable;
+
+import java.io.Serializable;
 
 @Data
 @Builder
-public class CertificateSession {
+public class CertificateSession implements Binarylizable, Serializable {
+    private static final byte FORMAT_VERSION = 1;
+
     private RelyingPartyInfo relyingPartyInfo;
     private String sessionCode;
     private String documentNumber;
@@ -16,4 +23,24 @@ public class CertificateSession {
     public void setPollingStatus(ProcessingStatus status) {
         sessionStatus.setProcessingStatus(status);
     }
+
+    @Override
+    public void writeBinary(BinaryWriter writer) {
+        SessionBinaryFormat.writeVersion(writer, FORMAT_VERSION);
+        SessionBinaryFormat.writeRelyingPartyInfo(writer, relyingPartyInfo);
+        writer.writeString("sessionCode", sessionCode);
+        writer.writeString("documentNumber", documentNumber);
+        writer.writeObject("sessionStatus", sessionStatus);
+    }
+
+    @Override
+    public void readBinary(BinaryReader reader) {
+        byte formatVersion = SessionBinaryFormat.readVersion(reader, FORMAT_VERSION, CertificateSession.class);
+        relyingPartyInfo = formatVersion == SessionBinaryFormat.LEGACY_VERSION
+                ? reader.readObject("relyingPartyInfo")
+                : SessionBinaryFormat.readRelyingPartyInfo(reader);
+        sessionCode = reader.readString("sessionCode");
+        documentNumber = reader.readString("documentNumber");
+        sessionStatus = reader.readObject("sessionStatus");
+    }
 }
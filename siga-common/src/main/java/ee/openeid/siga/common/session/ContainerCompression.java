@@ -0,0 +1,71 @@
+package ee.openeid.siga.common.session;
+
+import com.github.luben.zstd.Zstd;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Zstandard compression of ASiC container bytes stored in Ignite.
+ * <p>
+ * Compressed bytes are recognized by the Zstandard frame magic number, which never starts a ZIP container.
+ * Containers that happen to start with it are always compressed, so that stored bytes remain unambiguous.
+ */
+public final class ContainerCompression {
+    private static final byte[] FRAME_MAGIC = {0x28, (byte) 0xB5, 0x2F, (byte) 0xFD};
+    private static final LongAdder uncompressedBytes = new LongAdder();
+    private static final LongAdder storedBytes = new LongAdder();
+    private static volatile Settings settings = new Settings(false, 0, Zstd.defaultCompressionLevel());
+
+    private ContainerCompression() {
+    }
+
+    public static void configure(boolean enabled, int threshold, int level) {
+        settings = new Settings(enabled, threshold, level);
+    }
+
+    /**
+     * @return total size of containers considered for compression
+     */
+    public static long getUncompressedBytes() {
+        return uncompressedBytes.sum();
+    }
+
+    /**
+     * @return total stored size of containers considered for compression
+     */
+    public static long getStoredBytes() {
+        return storedBytes.sum();
+    }
+
+    public static boolean isCompressed(byte[] bytes) {
+        if (bytes == null || bytes.length < FRAME_MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < FRAME_MAGIC.length; i++) {
+            if (bytes[i] != FRAME_MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static byte[] compress(byte[] container) {
+        Settings currentSettings = settings;
+        boolean ambiguous = isCompressed(container);
+        if (!ambiguous && (!currentSettings.enabled() || container.length < currentSettings.threshold())) {
+            return container;
+        }
+        byte[] compressed = Zstd.compress(container, currentSettings.level());
+        byte[] stored = ambiguous || compressed.length < container.length ? compressed : container;
+        uncompressedBytes.add(container.length);
+        storedBytes.add(stored.length);
+        return stored;
+    }
+
+    public static byte[] decompress(byte[] compressed) {
+        return Zstd.decompress(compressed, (int) Zstd.decompressedSize(compressed));
+    }
+
+    private record Settings(boolean enabled, int threshold, int level) {
+    }
+}
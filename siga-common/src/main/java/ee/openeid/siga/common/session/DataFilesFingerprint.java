@@ -0,0 +1,73 @@
+package ee.openeid.siga.common.session;
+
+import lombok.SneakyThrows;
+import lombok.experimental.UtilityClass;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.regex.Pattern;
+
+/**
+ * Order independent fingerprint of the data files of a container, kept with the session and updated as data files
+ * are added and removed.
+ * <p>
+ * The fingerprint is the sum of the SHA-256 digests of the data file entries modulo 2<sup>256</sup>. Adding or
+ * removing a data file is therefore constant time, and the data files do not have to be read again to check whether
+ * they have been changed. Unlike XOR, the sum does not cancel out equal entries.
+ */
+@UtilityClass
+public class DataFilesFingerprint {
+    private static final BigInteger MODULUS = BigInteger.ONE.shiftLeft(256);
+    private static final Pattern FINGERPRINT_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    public static final String EMPTY = format(BigInteger.ZERO);
+
+    /**
+     * @param fileDigests digests of the data file content, {@code null} digests are included as empty
+     */
+    public static String add(String fingerprint, String fileName, String... fileDigests) {
+        return format(parse(fingerprint).add(digestEntry(fileName, fileDigests)).mod(MODULUS));
+    }
+
+    /**
+     * @param fileDigests digests of the data file content, same as given when the data file was added
+     */
+    public static String remove(String fingerprint, String fileName, String... fileDigests) {
+        return format(parse(fingerprint).subtract(digestEntry(fileName, fileDigests)).mod(MODULUS));
+    }
+
+    /**
+     * Data files hashes of signing sessions started before the fingerprint was introduced are raw SHA-256 digests
+     * decoded as a string, which are shorter than a fingerprint.
+     *
+     * @return {@code true} if the data files hash is a fingerprint, not a hash in the legacy format
+     */
+    public static boolean isFingerprint(String dataFilesHash) {
+        return dataFilesHash != null && FINGERPRINT_PATTERN.matcher(dataFilesHash).matches();
+    }
+
+    @SneakyThrows
+    private static BigInteger digestEntry(String fileName, String... fileDigests) {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        update(digest, fileName);
+        for (String fileDigest : fileDigests) {
+            update(digest, fileDigest);
+        }
+        return new BigInteger(1, digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value != null) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) 0);
+    }
+
+    private static BigInteger parse(String fingerprint) {
+        return new BigInteger(fingerprint, 16);
+    }
+
+    private static String format(BigInteger fingerprint) {
+        return String.format("%064x", fingerprint);
+    }
+}
@@ -3,10 +3,15 @@ package ee.openeid.siga.common.session;
 import ee.openeid.siga.common.model.HashcodeDataFile;
 import ee.openeid.siga.common.model.HashcodeSignatureWrapper;
 import lombok.*;
+import org.apache.ignite.binary.BinaryReader;
+import org.apache.ignite.binary.BinaryWriter;
+import org.apache.ignite.binary.Binarylizable;
 
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -14,7 +19,9 @@ import java.util.Map;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-public class HashcodeContainerSession implements Session {
+public class HashcodeContainerSession implements Session, Binarylizable {
+    private static final byte FORMAT_VERSION = 3;
+
     @NonNull
     private String clientName;
     @NonNull
@@ -23,7 +30,11 @@ public class HashcodeContainerSession implements Session {
     private String serviceUuid;
     @NonNull
     private String sessionId;
+    @Setter
+    private long version;
     private List<HashcodeDataFile> dataFiles;
+    @Getter(AccessLevel.NONE)
+    private String dataFilesFingerprint;
     @Builder.Default
     private List<HashcodeSignatureWrapper> signatures = new ArrayList<>();
 
@@ -91,4 +102,87 @@ public class HashcodeContainerSession implements Session {
     public X509Certificate clearCertificate(String documentNumber){
         return certificateHolder.remove(documentNumber);
     }
+
+    /**
+     * @return order independent fingerprint of the data files, see {@link DataFilesFingerprint}
+     */
+    public String getDataFilesFingerprint() {
+        if (dataFilesFingerprint == null) {
+            String fingerprint = DataFilesFingerprint.EMPTY;
+            if (dataFiles != null) {
+                for (HashcodeDataFile dataFile : dataFiles) {
+                    fingerprint = addToFingerprint(fingerprint, dataFile);
+                }
+            }
+            dataFilesFingerprint = fingerprint;
+        }
+        return dataFilesFingerprint;
+    }
+
+    public void addDataFiles(Collection<HashcodeDataFile> dataFilesToAdd) {
+        String fingerprint = getDataFilesFingerprint();
+        for (HashcodeDataFile dataFile : dataFilesToAdd) {
+            fingerprint = addToFingerprint(fingerprint, dataFile);
+        }
+        dataFiles.addAll(dataFilesToAdd);
+        dataFilesFingerprint = fingerprint;
+    }
+
+    /**
+     * @return {@code false} if there is no data file with the given name
+     */
+    public boolean removeDataFile(String fileName) {
+        String fingerprint = getDataFilesFingerprint();
+        boolean removed = false;
+        for (Iterator<HashcodeDataFile> iterator = dataFiles.iterator(); iterator.hasNext(); ) {
+            HashcodeDataFile dataFile = iterator.next();
+            if (dataFile.getFileName().equals(fileName)) {
+                iterator.remove();
+                fingerprint = DataFilesFingerprint.remove(fingerprint, dataFile.getFileName(),
+                        dataFile.getFileHashSha256(), dataFile.getFileHashSha512());
+                removed = true;
+            }
+        }
+        dataFilesFingerprint = fingerprint;
+        return removed;
+    }
+
+    private static String addToFingerprint(String fingerprint, HashcodeDataFile dataFile) {
+        return DataFilesFingerprint.add(fingerprint, dataFile.getFileName(),
+                dataFile.getFileHashSha256(), dataFile.getFileHashSha512());
+    }
+
+    @Override
+    public void writeBinary(BinaryWriter writer) {
+        SessionBinaryFormat.writeVersion(writer, FORMAT_VERSION);
+        writer.writeString("clientName", clientName);
+        writer.writeString("serviceName", serviceName);
+        writer.writeString("serviceUuid", serviceUuid);
+        writer.writeString("sessionId", sessionId);
+        writer.writeLong("version", version);
+        writer.writeCollection("dataFiles", dataFiles);
+        writer.writeCollection("signatures", signatures);
+        SessionBinaryFormat.writeCertificates(writer, "certificateHolder", certificateHolder);
+        writer.writeString("dataFilesFingerprint", dataFilesFingerprint);
+    }
+
+    @Override
+    public void readBinary(BinaryReader reader) {
+        byte formatVersion = SessionBinaryFormat.readVersion(reader, FORMAT_VERSION, HashcodeContainerSession.class);
+        clientName = reader.readString("clientName");
+        serviceName = reader.readString("serviceName");
+        serviceUuid = reader.readString("serviceUuid");
+        sessionId = reader.readString("sessionId");
+        version = formatVersion > 1 ? reader.readLong("version") : 0;
+        Collection<HashcodeDataFile> storedDataFiles = reader.readCollection("dataFiles");
+        dataFiles = storedDataFiles == null ? null : new ArrayList<>(storedDataFiles);
+        Collection<HashcodeSignatureWrapper> storedSignatures = reader.readCollection("signatures");
+        signatures = storedSignatures == null ? new ArrayList<>() : new ArrayList<>(storedSignatures);
+        certificateHolder = formatVersion == SessionBinaryFormat.LEGACY_VERSION
+                ? SessionBinaryFormat.readLegacyCertificates(reader, "certificateHolder")
+                : SessionBinaryFormat.readCertificates(reader, "certificateHolder");
+        dataFilesFingerprint = formatVersion > 2 ? reader.readString("dataFilesFingerprint") : null;
+        signatureSessions = new HashMap<>();
+        certificateSessions = new HashMap<>();
+    }
 }
@@ -0,0 +1,49 @@
+package ee.openeid.siga.common.session;
+
+import eu.europa.esig.dss.model.DSSDocument;
+import org.digidoc4j.DataToSign;
+import org.digidoc4j.Signature;
+import org.digidoc4j.SignatureParameters;
+import org.digidoc4j.impl.SignatureFinalizer;
+
+import java.util.Collections;
+
+/**
+ * Data to sign read from its compact binary form. Holds the data to be signed and the signature parameters, but
+ * no signature finalizer, which must be rebuilt from the session with {@link #withSignatureFinalizer} before
+ * the signature can be finalized.
+ */
+class RestoredDataToSign extends DataToSign {
+
+    RestoredDataToSign(byte[] dataToBeSigned, SignatureParameters signatureParameters) {
+        super(dataToBeSigned, new UnavailableSignatureFinalizer(dataToBeSigned, signatureParameters));
+    }
+
+    DataToSign withSignatureFinalizer(SignatureFinalizer signatureFinalizer) {
+        return new DataToSign(getDataToSign(), signatureFinalizer);
+    }
+
+    private static class UnavailableSignatureFinalizer extends SignatureFinalizer {
+        private final byte[] dataToBeSigned;
+
+        UnavailableSignatureFinalizer(byte[] dataToBeSigned, SignatureParameters signatureParameters) {
+            super(Collections.emptyList(), signatureParameters, null);
+            this.dataToBeSigned = dataToBeSigned;
+        }
+
+        @Override
+        public Signature finalizeSignature(byte[] signatureValue) {
+            throw new IllegalStateException("Signature finalizer has not been rebuilt for restored data to sign");
+        }
+
+        @Override
+        public Signature createSignature(DSSDocument signatureDocument) {
+            throw new IllegalStateException("Signature finalizer has not been rebuilt for restored data to sign");
+        }
+
+        @Override
+        public byte[] getDataToBeSigned() {
+            return dataToBeSigned;
+        }
+    }
+}
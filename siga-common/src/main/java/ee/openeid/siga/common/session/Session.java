@@ -1,9 +1,13 @@
 package ee.openeid.siga.common.session;
 
+import java.io.Serializable;
 import java.security.cert.X509Certificate;
 import java.util.Map;
 
-public interface Session {
+/**
+ * Sessions are serializable, so that the embedded session store can keep copies of them.
+ */
+public interface Session extends Serializable {
     String getClientName();
 
     String getServiceName();
@@ -12,6 +16,13 @@ public interface Session {
 
     String getSessionId();
 
+    /**
+     * @return version of the stored session, incremented on every update of the container session
+     */
+    long getVersion();
+
+    void setVersion(long version);
+
     void addSignatureSession(String signatureId, SignatureSession signatureSession);
 
     void addCertificateSession(String certificateId, CertificateSession certificateSession);
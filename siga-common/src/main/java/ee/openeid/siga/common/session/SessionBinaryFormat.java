@@ -0,0 +1,87 @@
+package ee.openeid.siga.common.session;
+
+import ee.openeid.siga.common.model.RelyingPartyInfo;
+import ee.openeid.siga.common.util.CertificateUtil;
+import lombok.SneakyThrows;
+import lombok.experimental.UtilityClass;
+import org.apache.ignite.binary.BinaryObjectException;
+import org.apache.ignite.binary.BinaryReader;
+import org.apache.ignite.binary.BinaryWriter;
+
+import java.security.cert.X509Certificate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Helpers shared by the binary formats of session model classes.
+ * <p>
+ * Every session class writes its format version first, so that the format can be changed without breaking
+ * sessions written by other SiGa nodes. Sessions written before the format version was introduced have no version
+ * field and are read as version {@value #LEGACY_VERSION}, in the layout of the reflective Ignite serialization.
+ * Fields of the legacy layout must not be rewritten with a different type under the same name, because Ignite
+ * rejects changing the type of a registered field. Certificates are stored as DER encoded bytes.
+ */
+@UtilityClass
+public class SessionBinaryFormat {
+    public static final String VERSION_FIELD = "formatVersion";
+    public static final byte LEGACY_VERSION = 0;
+
+    public static void writeVersion(BinaryWriter writer, byte version) {
+        writer.writeByte(VERSION_FIELD, version);
+    }
+
+    /**
+     * @return format version of the object, which may be older than the supported version, or
+     * {@link #LEGACY_VERSION} if the object has no version field
+     */
+    public static byte readVersion(BinaryReader reader, byte supportedVersion, Class<?> type) {
+        byte version = reader.readByte(VERSION_FIELD);
+        if (version < LEGACY_VERSION || version > supportedVersion) {
+            throw new BinaryObjectException("Unsupported " + type.getSimpleName() + " format version: " + version);
+        }
+        return version;
+    }
+
+    public static void writeRelyingPartyInfo(BinaryWriter writer, RelyingPartyInfo relyingPartyInfo) {
+        writer.writeString("relyingPartyName", relyingPartyInfo == null ? null : relyingPartyInfo.getName());
+        writer.writeString("relyingPartyUuid", relyingPartyInfo == null ? null : relyingPartyInfo.getUuid());
+    }
+
+    public static RelyingPartyInfo readRelyingPartyInfo(BinaryReader reader) {
+        String name = reader.readString("relyingPartyName");
+        String uuid = reader.readString("relyingPartyUuid");
+        return name == null || uuid == null ? null : RelyingPartyInfo.builder()
+                .name(name)
+                .uuid(uuid)
+                .build();
+    }
+
+    @SneakyThrows
+    public static byte[] encodeCertificate(X509Certificate certificate) {
+        return certificate == null ? null : certificate.getEncoded();
+    }
+
+    public static X509Certificate decodeCertificate(byte[] certificate) {
+        return certificate == null ? null : CertificateUtil.createX509Certificate(certificate);
+    }
+
+    public static void writeCertificates(BinaryWriter writer, String fieldName, Map<String, X509Certificate> certificates) {
+        Map<String, byte[]> encodedCertificates = new HashMap<>();
+        certificates.forEach((key, certificate) -> encodedCertificates.put(key, encodeCertificate(certificate)));
+        writer.writeMap(fieldName, encodedCertificates);
+    }
+
+    public static Map<String, X509Certificate> readLegacyCertificates(BinaryReader reader, String fieldName) {
+        Map<String, X509Certificate> certificates = reader.readMap(fieldName);
+        return certificates == null ? new HashMap<>() : new HashMap<>(certificates);
+    }
+
+    public static Map<String, X509Certificate> readCertificates(BinaryReader reader, String fieldName) {
+        Map<String, byte[]> encodedCertificates = reader.readMap(fieldName);
+        Map<String, X509Certificate> certificates = new HashMap<>();
+        if (encodedCertificates != null) {
+            encodedCertificates.forEach((key, certificate) -> certificates.put(key, decodeCertificate(certificate)));
+        }
+        return certificates;
+    }
+}
@@ -1,15 +1,30 @@
 package ee.openeid.siga.common.session;
 
 import lombok.*;
+import org.apache.ignite.binary.BinaryReader;
+import org.apache.ignite.binary.BinaryWriter;
+import org.apache.ignite.binary.Binarylizable;
 
+import java.io.Serializable;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 import static ee.openeid.siga.common.session.ProcessingStatus.PROCESSING;
 import static ee.openeid.siga.common.session.ProcessingStatus.RESULT;
 
 @Data
 @Builder
-public class SessionStatus {
+public class SessionStatus implements Binarylizable, Serializable {
+    private static final byte FORMAT_VERSION = 2;
+    /**
+     * Processing status timestamp as epoch milliseconds. Named differently from the {@link LocalDateTime} field
+     * of the legacy format, because Ignite does not allow changing the type of a field.
+     */
+    public static final String PROCESSING_STATUS_TIMESTAMP_FIELD = "processingStatusTimestampMillis";
+    private static final String LEGACY_PROCESSING_STATUS_TIMESTAMP_FIELD = "processingStatusTimestamp";
+    public static final String REVISION_FIELD = "revision";
+
     private String status;
     private StatusError statusError;
     @Builder.Default
@@ -18,10 +33,17 @@ public class SessionStatus {
     @Setter(AccessLevel.PRIVATE)
     @Builder.Default
     private LocalDateTime processingStatusTimestamp = LocalDateTime.now();
+    /**
+     * Incremented on every processing status change, so that concurrent changes of the status can be ordered
+     * without comparing timestamps of different SiGa nodes.
+     */
+    @Setter(AccessLevel.PRIVATE)
+    private long revision;
 
     public void setProcessingStatus(ProcessingStatus processingStatus) {
         this.processingStatus = processingStatus;
         this.processingStatusTimestamp = LocalDateTime.now();
+        revision++;
         if (processingStatus != RESULT) {
             processingCounter++;
         }
@@ -34,9 +56,58 @@ public class SessionStatus {
                 .build();
     }
 
+    /**
+     * @return processing status timestamp as epoch milliseconds, the form in which it is stored in Ignite
+     */
+    public long getProcessingStatusTimestampMillis() {
+        return processingStatusTimestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @Override
+    public void writeBinary(BinaryWriter writer) {
+        SessionBinaryFormat.writeVersion(writer, FORMAT_VERSION);
+        writer.writeString("status", status);
+        writer.writeString("statusErrorCode", statusError == null ? null : statusError.getErrorCode());
+        writer.writeString("statusErrorMessage", statusError == null ? null : statusError.getErrorMessage());
+        writer.writeEnum("processingStatus", processingStatus);
+        writer.writeInt("processingCounter", processingCounter);
+        writer.writeLong(PROCESSING_STATUS_TIMESTAMP_FIELD, getProcessingStatusTimestampMillis());
+        writer.writeLong(REVISION_FIELD, revision);
+    }
+
+    @Override
+    public void readBinary(BinaryReader reader) {
+        byte formatVersion = SessionBinaryFormat.readVersion(reader, FORMAT_VERSION, SessionStatus.class);
+        if (formatVersion == SessionBinaryFormat.LEGACY_VERSION) {
+            readLegacyBinary(reader);
+            return;
+        }
+        status = reader.readString("status");
+        String statusErrorCode = reader.readString("statusErrorCode");
+        String statusErrorMessage = reader.readString("statusErrorMessage");
+        statusError = statusErrorCode == null && statusErrorMessage == null ? null : StatusError.builder()
+                .errorCode(statusErrorCode)
+                .errorMessage(statusErrorMessage)
+                .build();
+        processingStatus = reader.readEnum("processingStatus");
+        processingCounter = reader.readInt("processingCounter");
+        processingStatusTimestamp = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(reader.readLong(PROCESSING_STATUS_TIMESTAMP_FIELD)), ZoneId.systemDefault());
+        revision = formatVersion > 1 ? reader.readLong(REVISION_FIELD) : 0;
+    }
+
+    private void readLegacyBinary(BinaryReader reader) {
+        status = reader.readString("status");
+        statusError = reader.readObject("statusError");
+        processingStatus = reader.readEnum("processingStatus");
+        processingCounter = reader.readInt("processingCounter");
+        LocalDateTime legacyTimestamp = reader.readObject(LEGACY_PROCESSING_STATUS_TIMESTAMP_FIELD);
+        processingStatusTimestamp = legacyTimestamp == null ? LocalDateTime.now() : legacyTimestamp;
+    }
+
     @Value
     @Builder
-    public static class StatusError {
+    public static class StatusError implements Serializable {
         String errorCode;
         String errorMessage;
     }
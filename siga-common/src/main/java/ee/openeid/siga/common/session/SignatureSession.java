@@ -2,18 +2,31 @@ package ee.openeid.siga.common.session;
 
 import ee.openeid.siga.common.model.RelyingPartyInfo;
 import ee.openeid.siga.common.model.SigningType;
+import eu.europa.esig.dss.enumerations.ObjectIdentifierQualifier;
+import eu.europa.esig.dss.model.Policy;
 import lombok.Builder;
 import lombok.Data;
-import lombok.SneakyThrows;
 import org.apache.commons.lang3.SerializationUtils;
 import org.apache.ignite.binary.BinaryReader;
 import org.apache.ignite.binary.BinaryWriter;
 import org.apache.ignite.binary.Binarylizable;
 import org.digidoc4j.DataToSign;
+import org.digidoc4j.DigestAlgorithm;
+import org.digidoc4j.EncryptionAlgorithm;
+import org.digidoc4j.SignatureParameters;
+import org.digidoc4j.SignatureProfile;
+import org.digidoc4j.impl.SignatureFinalizer;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Function;
 
 @Data
 @Builder
-public class SignatureSession implements Binarylizable {
+public class SignatureSession implements Binarylizable, Serializable {
+    private static final byte FORMAT_VERSION = 1;
+
     private String sessionCode;
     private byte[] signature;
     @Builder.Default
@@ -23,30 +36,141 @@ public class SignatureSession implements Binarylizable {
     private String dataFilesHash;
     private RelyingPartyInfo relyingPartyInfo;
 
+    /**
+     * Data to sign is stored without its signature finalizer, which holds the container or its data files.
+     * After the session has been read from Ignite, the finalizer is rebuilt by the given factory from the
+     * stored signature parameters.
+     *
+     * @return data to sign that can be finalized
+     */
+    public DataToSign getDataToSign(Function<SignatureParameters, SignatureFinalizer> signatureFinalizerFactory) {
+        if (dataToSign instanceof RestoredDataToSign restoredDataToSign) {
+            dataToSign = restoredDataToSign.withSignatureFinalizer(
+                    signatureFinalizerFactory.apply(restoredDataToSign.getSignatureParameters()));
+        }
+        return dataToSign;
+    }
+
     @Override
-    @SneakyThrows
     public void writeBinary(BinaryWriter writer) {
+        SessionBinaryFormat.writeVersion(writer, FORMAT_VERSION);
         writer.writeString("sessionCode", sessionCode);
         writer.writeByteArray("signature", signature);
         writer.writeObject("sessionStatus", sessionStatus);
-        writer.writeByteArray("dataToSignSerialized", SerializationUtils.serialize(dataToSign));
+        writer.writeByteArray("dataToBeSigned", dataToSign == null ? null : dataToSign.getDataToSign());
+        writeSignatureParameters(writer, dataToSign == null ? null : dataToSign.getSignatureParameters());
         writer.writeObject("signingType", signingType);
         writer.writeString("dataFilesHash", dataFilesHash);
-        writer.writeObject("relyingPartyInfo", relyingPartyInfo);
+        SessionBinaryFormat.writeRelyingPartyInfo(writer, relyingPartyInfo);
     }
 
     @Override
-    @SneakyThrows
     public void readBinary(BinaryReader reader) {
+        byte formatVersion = SessionBinaryFormat.readVersion(reader, FORMAT_VERSION, SignatureSession.class);
+        if (formatVersion == SessionBinaryFormat.LEGACY_VERSION) {
+            readLegacyBinary(reader);
+            return;
+        }
+        sessionCode = reader.readString("sessionCode");
+        signature = reader.readByteArray("signature");
+        sessionStatus = reader.readObject("sessionStatus");
+        byte[] dataToBeSigned = reader.readByteArray("dataToBeSigned");
+        SignatureParameters signatureParameters = readSignatureParameters(reader);
+        dataToSign = dataToBeSigned == null ? null : new RestoredDataToSign(dataToBeSigned, signatureParameters);
+        signingType = reader.readObject("signingType");
+        dataFilesHash = reader.readString("dataFilesHash");
+        relyingPartyInfo = SessionBinaryFormat.readRelyingPartyInfo(reader);
+    }
+
+    /**
+     * Reads the legacy format, in which data to sign is stored Java serialized together with its signature finalizer.
+     */
+    private void readLegacyBinary(BinaryReader reader) {
         sessionCode = reader.readString("sessionCode");
         signature = reader.readByteArray("signature");
         sessionStatus = reader.readObject("sessionStatus");
-        dataToSign = SerializationUtils.deserialize(reader.readByteArray("dataToSignSerialized"));
+        byte[] dataToSignSerialized = reader.readByteArray("dataToSignSerialized");
+        dataToSign = dataToSignSerialized == null ? null : SerializationUtils.deserialize(dataToSignSerialized);
         signingType = reader.readObject("signingType");
         dataFilesHash = reader.readString("dataFilesHash");
         relyingPartyInfo = reader.readObject("relyingPartyInfo");
     }
+
     public void setPollingStatus(ProcessingStatus status) {
         sessionStatus.setProcessingStatus(status);
     }
+
+    private static void writeSignatureParameters(BinaryWriter writer, SignatureParameters parameters) {
+        boolean present = parameters != null;
+        writer.writeString("signatureId", present ? parameters.getSignatureId() : null);
+        writer.writeString("signatureProfile", present ? name(parameters.getSignatureProfile()) : null);
+        writer.writeString("signatureDigestAlgorithm", present ? name(parameters.getSignatureDigestAlgorithm()) : null);
+        writer.writeString("dataFileDigestAlgorithm", present ? name(parameters.getDataFileDigestAlgorithm()) : null);
+        writer.writeString("encryptionAlgorithm", present ? name(parameters.getEncryptionAlgorithm()) : null);
+        writer.writeByteArray("signingCertificate", present ? SessionBinaryFormat.encodeCertificate(parameters.getSigningCertificate()) : null);
+        writer.writeDate("claimedSigningDate", present ? parameters.getClaimedSigningDate() : null);
+        writer.writeString("city", present ? parameters.getCity() : null);
+        writer.writeString("stateOrProvince", present ? parameters.getStateOrProvince() : null);
+        writer.writeString("postalCode", present ? parameters.getPostalCode() : null);
+        writer.writeString("country", present ? parameters.getCountry() : null);
+        writer.writeStringArray("roles", present && parameters.getRoles() != null ? parameters.getRoles().toArray(String[]::new) : null);
+        writePolicy(writer, present ? parameters.getPolicy() : null);
+    }
+
+    private static SignatureParameters readSignatureParameters(BinaryReader reader) {
+        SignatureParameters parameters = new SignatureParameters();
+        parameters.setSignatureId(reader.readString("signatureId"));
+        String signatureProfile = reader.readString("signatureProfile");
+        parameters.setSignatureProfile(signatureProfile == null ? null : SignatureProfile.valueOf(signatureProfile));
+        String signatureDigestAlgorithm = reader.readString("signatureDigestAlgorithm");
+        parameters.setSignatureDigestAlgorithm(signatureDigestAlgorithm == null ? null : DigestAlgorithm.valueOf(signatureDigestAlgorithm));
+        String dataFileDigestAlgorithm = reader.readString("dataFileDigestAlgorithm");
+        parameters.setDataFileDigestAlgorithm(dataFileDigestAlgorithm == null ? null : DigestAlgorithm.valueOf(dataFileDigestAlgorithm));
+        String encryptionAlgorithm = reader.readString("encryptionAlgorithm");
+        parameters.setEncryptionAlgorithm(encryptionAlgorithm == null ? null : EncryptionAlgorithm.valueOf(encryptionAlgorithm));
+        parameters.setSigningCertificate(SessionBinaryFormat.decodeCertificate(reader.readByteArray("signingCertificate")));
+        parameters.setClaimedSigningDate(reader.readDate("claimedSigningDate"));
+        parameters.setCity(reader.readString("city"));
+        parameters.setStateOrProvince(reader.readString("stateOrProvince"));
+        parameters.setPostalCode(reader.readString("postalCode"));
+        parameters.setCountry(reader.readString("country"));
+        String[] roles = reader.readStringArray("roles");
+        if (roles != null) {
+            parameters.setRoles(new ArrayList<>(Arrays.asList(roles)));
+        }
+        parameters.setPolicy(readPolicy(reader));
+        return parameters;
+    }
+
+    /**
+     * Stores the fields of the signature policy set by digidoc4j, other fields of the policy are not restored.
+     */
+    private static void writePolicy(BinaryWriter writer, Policy policy) {
+        boolean present = policy != null;
+        writer.writeBoolean("policyPresent", present);
+        writer.writeString("policyId", present ? policy.getId() : null);
+        writer.writeString("policyDigestAlgorithm", present ? name(policy.getDigestAlgorithm()) : null);
+        writer.writeByteArray("policyDigestValue", present ? policy.getDigestValue() : null);
+        writer.writeString("policySpuri", present ? policy.getSpuri() : null);
+        writer.writeString("policyQualifier", present ? name(policy.getQualifier()) : null);
+    }
+
+    private static Policy readPolicy(BinaryReader reader) {
+        if (!reader.readBoolean("policyPresent")) {
+            return null;
+        }
+        Policy policy = new Policy();
+        policy.setId(reader.readString("policyId"));
+        String digestAlgorithm = reader.readString("policyDigestAlgorithm");
+        policy.setDigestAlgorithm(digestAlgorithm == null ? null : eu.europa.esig.dss.enumerations.DigestAlgorithm.valueOf(digestAlgorithm));
+        policy.setDigestValue(reader.readByteArray("policyDigestValue"));
+        policy.setSpuri(reader.readString("policySpuri"));
+        String qualifier = reader.readString("policyQualifier");
+        policy.setQualifier(qualifier == null ? null : ObjectIdentifierQualifier.valueOf(qualifier));
+        return policy;
+    }
+
+    private static String name(Enum<?> value) {
+        return value == null ? null : value.name();
+    }
 }
@@ -0,0 +1,63 @@
+package ee.openeid.siga.common.session;
+
+import com.github.luben.zstd.Zstd;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContainerCompressionTest {
+    private static final byte[] CONTAINER = "PK".concat("mimetypeapplication/vnd.etsi.asic-e+zip".repeat(100))
+            .getBytes(StandardCharsets.UTF_8);
+
+    @AfterEach
+    void resetConfiguration() {
+        ContainerCompression.configure(false, 0, Zstd.defaultCompressionLevel());
+    }
+
+    @Test
+    void compress_WhenDisabled_ReturnsContainerAsIs() {
+        assertSame(CONTAINER, ContainerCompression.compress(CONTAINER));
+    }
+
+    @Test
+    void compress_WhenContainerBelowThreshold_ReturnsContainerAsIs() {
+        ContainerCompression.configure(true, CONTAINER.length + 1, 3);
+
+        assertSame(CONTAINER, ContainerCompression.compress(CONTAINER));
+    }
+
+    @Test
+    void compress_WhenEnabled_ReturnsCompressedContainerThatDecompressesToOriginal() {
+        ContainerCompression.configure(true, 0, 3);
+        long uncompressedBytesBefore = ContainerCompression.getUncompressedBytes();
+
+        byte[] compressed = ContainerCompression.compress(CONTAINER);
+
+        assertTrue(ContainerCompression.isCompressed(compressed));
+        assertTrue(compressed.length < CONTAINER.length);
+        assertTrue(ContainerCompression.getUncompressedBytes() >= uncompressedBytesBefore + CONTAINER.length);
+        assertArrayEquals(CONTAINER, ContainerCompression.decompress(compressed));
+    }
+
+    @Test
+    void compress_WhenDisabledAndContainerStartsWithFrameMagic_ReturnsCompressedContainer() {
+        byte[] container = {0x28, (byte) 0xB5, 0x2F, (byte) 0xFD, 1};
+
+        byte[] compressed = ContainerCompression.compress(container);
+
+        assertTrue(ContainerCompression.isCompressed(compressed));
+        assertArrayEquals(container, ContainerCompression.decompress(compressed));
+    }
+
+    @Test
+    void isCompressed_WhenZipContainer_ReturnsFalse() {
+        assertFalse(ContainerCompression.isCompressed(CONTAINER));
+        assertFalse(ContainerCompression.isCompressed(new byte[]{0x28}));
+    }
+}
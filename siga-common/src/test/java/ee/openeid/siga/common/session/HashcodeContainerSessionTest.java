@@ -8,12 +8,17 @@ import org.digidoc4j.DataToSign;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class HashcodeContainerSessionTest {
 
@@ -116,6 +121,45 @@ class HashcodeContainerSessionTest {
         assertEquals("SHA512", signatureWrapper.getDataFiles().get(0).getHashAlgo());
     }
 
+    @Test
+    void addDataFiles_UpdatesDataFilesFingerprintIndependentOfOrder() {
+        HashcodeDataFile secondDataFile = generateDefaultHashcodeDataFile();
+        secondDataFile.setFileName("second datafile.txt");
+        HashcodeContainerSession sessionHolder = generateSessionHolderWithDataFiles(generateDefaultHashcodeDataFile());
+        HashcodeContainerSession reorderedSessionHolder = generateSessionHolderWithDataFiles(secondDataFile);
+
+        sessionHolder.addDataFiles(List.of(secondDataFile));
+        reorderedSessionHolder.addDataFiles(List.of(generateDefaultHashcodeDataFile()));
+
+        assertEquals(sessionHolder.getDataFilesFingerprint(), reorderedSessionHolder.getDataFilesFingerprint());
+        assertEquals(sessionHolder.getDataFilesFingerprint(),
+                generateSessionHolderWithDataFiles(secondDataFile, generateDefaultHashcodeDataFile()).getDataFilesFingerprint());
+    }
+
+    @Test
+    void removeDataFile_RestoresDataFilesFingerprint() {
+        HashcodeContainerSession sessionHolder = generateSessionHolderWithDataFiles(generateDefaultHashcodeDataFile());
+        String fingerprint = sessionHolder.getDataFilesFingerprint();
+        HashcodeDataFile secondDataFile = generateDefaultHashcodeDataFile();
+        secondDataFile.setFileName("second datafile.txt");
+
+        sessionHolder.addDataFiles(List.of(secondDataFile));
+        assertNotEquals(fingerprint, sessionHolder.getDataFilesFingerprint());
+        assertTrue(sessionHolder.removeDataFile("second datafile.txt"));
+
+        assertEquals(fingerprint, sessionHolder.getDataFilesFingerprint());
+        assertFalse(sessionHolder.removeDataFile("second datafile.txt"));
+    }
+
+    @Test
+    void removeDataFile_WhenAllRemoved_ReturnsEmptyFingerprint() {
+        HashcodeContainerSession sessionHolder = generateSessionHolderWithDataFiles(generateDefaultHashcodeDataFile());
+
+        sessionHolder.removeDataFile("first datafile.txt");
+
+        assertEquals(DataFilesFingerprint.EMPTY, sessionHolder.getDataFilesFingerprint());
+    }
+
     @Test
     void addDataToSignToContainerSession() {
         HashcodeContainerSession sessionHolder = generateDefaultSessionHolder();
@@ -158,6 +202,17 @@ class HashcodeContainerSessionTest {
                 .build();
     }
 
+    private HashcodeContainerSession generateSessionHolderWithDataFiles(HashcodeDataFile... dataFiles) {
+        return HashcodeContainerSession
+                .builder()
+                .clientName(DEFAULT_MOCK_CLIENT_NAME)
+                .serviceName(DEFAULT_MOCK_SERVICE_NAME)
+                .serviceUuid(DEFAULT_MOCK_SERVICE_UUID)
+                .sessionId(DEFAULT_MOCK_SESSION_ID)
+                .dataFiles(new ArrayList<>(List.of(dataFiles)))
+                .build();
+    }
+
     private HashcodeSignatureWrapper generateDefaultSignatureWrapper() {
         SignatureHashcodeDataFile signatureHashcodeDataFile = new SignatureHashcodeDataFile();
         signatureHashcodeDataFile.setFileName("first datafile.txt");
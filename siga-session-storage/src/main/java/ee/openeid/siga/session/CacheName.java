@@ -3,5 +3,8 @@ package ee.openeid.siga.session;
 public enum CacheName {
     CONTAINER_SESSION,
     SIGNATURE_SESSION,
-    CERTIFICATE_SESSION
+    CERTIFICATE_SESSION,
+    CONTAINER_BLOB,
+    SIGNING_LOCK,
+    SERIALIZED_CONTAINER
 }
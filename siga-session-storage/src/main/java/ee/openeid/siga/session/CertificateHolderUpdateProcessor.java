@@ -0,0 +1,42 @@
+package ee.openeid.siga.session;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.binary.BinaryObjectBuilder;
+import org.apache.ignite.cache.CacheEntryProcessor;
+
+import javax.cache.processor.MutableEntry;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Adds a DER encoded certificate to the certificate holder of the binary container session and increments
+ * the session version, so that concurrent versioned updates of the session do not overwrite the certificate.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+@RequiredArgsConstructor
+class CertificateHolderUpdateProcessor implements CacheEntryProcessor<String, BinaryObject, Boolean> {
+    private final String documentNumber;
+    private final byte[] certificate;
+
+    @Override
+    public Boolean process(MutableEntry<String, BinaryObject> entry, Object... arguments) {
+        BinaryObject container = entry.getValue();
+        if (container == null) {
+            return false;
+        }
+        BinaryObjectBuilder containerBuilder = container.toBuilder();
+        Map<String, Object> certificateHolder = containerBuilder.getField("certificateHolder");
+        if (certificateHolder == null) {
+            certificateHolder = new HashMap<>();
+            containerBuilder.setField("certificateHolder", certificateHolder);
+        }
+        certificateHolder.put(documentNumber, certificate);
+        containerBuilder.setField(ContainerSessionCompareAndSetProcessor.VERSION_FIELD,
+                ContainerSessionCompareAndSetProcessor.getVersion(container) + 1, Long.class);
+        entry.setValue(containerBuilder.build());
+        return true;
+    }
+}
@@ -0,0 +1,38 @@
+package ee.openeid.siga.session;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.lang.IgniteCallable;
+import org.apache.ignite.resources.IgniteInstanceResource;
+
+import java.util.Map;
+
+/**
+ * Adds certificate to the container session and updates status of the certificate session on the primary node of
+ * the session key, so that both updates are local to the node owning the session.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+@RequiredArgsConstructor
+class CertificateStatusUpdateJob implements IgniteCallable<Boolean> {
+    private final String sessionId;
+    private final CertificateHolderUpdateProcessor certificateHolderUpdateProcessor;
+    private final SessionStatusUpdateProcessor statusUpdateProcessor;
+    @IgniteInstanceResource
+    private transient Ignite ignite;
+
+    @Override
+    public Boolean call() {
+        Boolean certificateAdded = ignite.cache(CacheName.CONTAINER_SESSION.name())
+                .<String, BinaryObject>withKeepBinary()
+                .invoke(sessionId, certificateHolderUpdateProcessor);
+        if (!Boolean.TRUE.equals(certificateAdded)) {
+            return false;
+        }
+        return ignite.cache(CacheName.CERTIFICATE_SESSION.name())
+                .<String, Map<String, BinaryObject>>withKeepBinary()
+                .invoke(sessionId, statusUpdateProcessor);
+    }
+}
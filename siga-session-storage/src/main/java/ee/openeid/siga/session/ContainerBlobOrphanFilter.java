@@ -0,0 +1,46 @@
+package ee.openeid.siga.session;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.lang.IgniteBiPredicate;
+import org.apache.ignite.lang.IgniteClosure;
+
+import javax.cache.Cache;
+import java.util.AbstractMap;
+import java.util.List;
+import java.util.Map;
+
+import static ee.openeid.siga.session.ContainerBlobReferenceProcessor.REFERENCES_FIELD;
+
+/**
+ * Matches container blobs having references added longer than the grace period ago and transforms them into
+ * the digest and those references, without transferring the container content. Newer references may belong to
+ * writes that have stored the blob but not yet the session.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+@RequiredArgsConstructor
+class ContainerBlobOrphanFilter implements IgniteBiPredicate<String, BinaryObject>,
+        IgniteClosure<Cache.Entry<String, BinaryObject>, Map.Entry<String, List<String>>> {
+    private final long gracePeriodMillis;
+
+    @Override
+    public boolean apply(String digest, BinaryObject blob) {
+        return !getExpiredReferences(blob).isEmpty();
+    }
+
+    @Override
+    public Map.Entry<String, List<String>> apply(Cache.Entry<String, BinaryObject> entry) {
+        return new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), getExpiredReferences(entry.getValue()));
+    }
+
+    private List<String> getExpiredReferences(BinaryObject blob) {
+        long addedBefore = System.currentTimeMillis() - gracePeriodMillis;
+        Map<String, Long> references = blob.field(REFERENCES_FIELD);
+        return references == null ? List.of() : references.entrySet().stream()
+                .filter(reference -> reference.getValue() < addedBefore)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+}
@@ -0,0 +1,42 @@
+package ee.openeid.siga.session;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.CacheEntryProcessor;
+
+import javax.cache.processor.MutableEntry;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Adds a reference to the binary container blob, recording when it was added. If the blob does not exist, the given
+ * blob, which already holds the reference, is stored instead.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+@RequiredArgsConstructor
+class ContainerBlobReferenceProcessor implements CacheEntryProcessor<String, BinaryObject, Boolean> {
+    static final String REFERENCES_FIELD = "references";
+    private final String reference;
+    private final BinaryObject newBlob;
+
+    @Override
+    public Boolean process(MutableEntry<String, BinaryObject> entry, Object... arguments) {
+        BinaryObject blob = entry.getValue();
+        if (blob == null) {
+            if (newBlob == null) {
+                return false;
+            }
+            entry.setValue(newBlob.toBuilder()
+                    .setField(REFERENCES_FIELD, new HashMap<>(Map.of(reference, System.currentTimeMillis())))
+                    .build());
+            return true;
+        }
+        Map<String, Long> references = new HashMap<>(blob.field(REFERENCES_FIELD));
+        if (references.putIfAbsent(reference, System.currentTimeMillis()) == null) {
+            entry.setValue(blob.toBuilder().setField(REFERENCES_FIELD, references).build());
+        }
+        return true;
+    }
+}
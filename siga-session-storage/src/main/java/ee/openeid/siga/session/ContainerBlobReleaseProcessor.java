@@ -0,0 +1,41 @@
+package ee.openeid.siga.session;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.CacheEntryProcessor;
+
+import javax.cache.processor.MutableEntry;
+import java.util.HashMap;
+import java.util.Map;
+
+import static ee.openeid.siga.session.ContainerBlobReferenceProcessor.REFERENCES_FIELD;
+
+/**
+ * Removes a reference from the binary container blob and removes the blob when it is no longer referenced.
+ * Releasing an already released reference has no effect.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+@RequiredArgsConstructor
+class ContainerBlobReleaseProcessor implements CacheEntryProcessor<String, BinaryObject, Boolean> {
+    private final String reference;
+
+    @Override
+    public Boolean process(MutableEntry<String, BinaryObject> entry, Object... arguments) {
+        BinaryObject blob = entry.getValue();
+        if (blob == null) {
+            return false;
+        }
+        Map<String, Long> references = new HashMap<>(blob.field(REFERENCES_FIELD));
+        if (references.remove(reference) == null) {
+            return false;
+        }
+        if (references.isEmpty()) {
+            entry.remove();
+        } else {
+            entry.setValue(blob.toBuilder().setField(REFERENCES_FIELD, references).build());
+        }
+        return true;
+    }
+}
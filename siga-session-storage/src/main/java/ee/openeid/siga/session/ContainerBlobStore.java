@@ -0,0 +1,153 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.configuration.ConditionalOnIgniteSessionStore;
+import ee.openeid.siga.common.exception.InvalidSessionDataException;
+import ee.openeid.siga.common.session.ContainerCompression;
+import ee.openeid.siga.session.configuration.SessionConfigurationProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.ScanQuery;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.cache.expiry.Duration;
+import javax.cache.expiry.ModifiedExpiryPolicy;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static ee.openeid.siga.session.SessionWriteJob.CONTAINER_DIGEST_FIELD;
+import static ee.openeid.siga.session.SessionWriteJob.CONTAINER_REFERENCE_FIELD;
+
+/**
+ * Content-addressed store of container payloads, keyed by SHA-256 digest of the container.
+ * <p>
+ * Each blob holds the references of the session writes that stored it and is removed when the last reference is
+ * released. Every write storing a changed container adds a new reference, so that a write can release exactly
+ * the reference it added without affecting concurrent writes of the same container. Releasing the same reference
+ * several times, e.g. by every SiGa node receiving the same expiry event, has no further effect.
+ * References not held by their session, e.g. after a missed expiry event or a SiGa node failing between storing
+ * the container and the session, are released by {@link #releaseOrphanedReferences()}.
+ */
+@Slf4j
+@Component
+@ConditionalOnIgniteSessionStore
+@RequiredArgsConstructor
+public class ContainerBlobStore {
+    static final String BLOB_TYPE_NAME = "ContainerBlob";
+    static final String CONTENT_FIELD = "content";
+    private static final char REFERENCE_SEPARATOR = '/';
+
+    private final Ignite ignite;
+    private final SessionConfigurationProperties sessionConfigurationProperties;
+
+    @SneakyThrows
+    public String digest(byte[] container) {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(container));
+    }
+
+    /**
+     * @return new reference of a session write, holding the session ID
+     */
+    public String createReference(String sessionId) {
+        return sessionId + REFERENCE_SEPARATOR + UUID.randomUUID();
+    }
+
+    /**
+     * Adds reference to the blob with the given digest. Container is transferred only if the blob is not stored yet.
+     */
+    public void store(String digest, String reference, byte[] container) {
+        IgniteCache<String, BinaryObject> cache = getCache();
+        if (Boolean.TRUE.equals(cache.invoke(digest, new ContainerBlobReferenceProcessor(reference, null)))) {
+            log.debug("Added reference {} to existing container blob {}", reference, digest);
+            return;
+        }
+        BinaryObject blob = ignite.binary().builder(BLOB_TYPE_NAME)
+                .setField(CONTENT_FIELD, ContainerCompression.compress(container))
+                .build();
+        cache.invoke(digest, new ContainerBlobReferenceProcessor(reference, blob));
+    }
+
+    public byte[] get(String digest) {
+        BinaryObject blob = getCache().get(digest);
+        if (blob == null) {
+            throw new InvalidSessionDataException("Container content not found");
+        }
+        byte[] content = blob.field(CONTENT_FIELD);
+        return ContainerCompression.isCompressed(content) ? ContainerCompression.decompress(content) : content;
+    }
+
+    public void release(String digest, String reference) {
+        if (Boolean.TRUE.equals(getCache().invoke(digest, new ContainerBlobReleaseProcessor(reference)))) {
+            log.debug("Released reference {} to container blob {}", reference, digest);
+        }
+    }
+
+    /**
+     * Releases the reference without waiting for the result, e.g. on Ignite event threads that must not block on
+     * cache operations. References left by a failed release are released by {@link #releaseOrphanedReferences()}.
+     */
+    public void releaseAsync(String digest, String reference) {
+        getCache().invokeAsync(digest, new ContainerBlobReleaseProcessor(reference)).listen(future -> {
+            try {
+                if (Boolean.TRUE.equals(future.get())) {
+                    log.debug("Released reference {} to container blob {}", reference, digest);
+                }
+            } catch (Exception e) {
+                log.warn("Unable to release reference {} to container blob {}: {}", reference, digest, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Releases references older than the grace period that are not held by the session they were added for.
+     */
+    @Scheduled(fixedDelayString = "${siga.ignite.container-blob-sweep.interval:PT10M}",
+            initialDelayString = "${siga.ignite.container-blob-sweep.interval:PT10M}")
+    public void releaseOrphanedReferences() {
+        ContainerBlobOrphanFilter filter = new ContainerBlobOrphanFilter(
+                sessionConfigurationProperties.getContainerBlobSweep().getGracePeriod().toMillis());
+        // Reading sessions with a policy that does not change expiry on access, so that the sweep keeps no session alive
+        IgniteCache<String, BinaryObject> containerSessions = ignite.cache(CacheName.CONTAINER_SESSION.name())
+                .withExpiryPolicy(new ModifiedExpiryPolicy(Duration.ETERNAL))
+                .withKeepBinary();
+        int released = 0;
+        try (QueryCursor<Map.Entry<String, List<String>>> queryCursor = getCache().query(new ScanQuery<>(filter), filter)) {
+            for (Map.Entry<String, List<String>> blobReferences : queryCursor) {
+                String digest = blobReferences.getKey();
+                for (String reference : blobReferences.getValue()) {
+                    BinaryObject container = containerSessions.get(getSessionId(reference));
+                    if (!isHeldBy(container, digest, reference)) {
+                        release(digest, reference);
+                        released++;
+                    }
+                }
+            }
+        }
+        if (released > 0) {
+            log.warn("Released {} orphaned container blob references", released);
+        }
+    }
+
+    private static boolean isHeldBy(BinaryObject container, String digest, String reference) {
+        return container != null
+                && container.hasField(CONTAINER_REFERENCE_FIELD)
+                && digest.equals(container.field(CONTAINER_DIGEST_FIELD))
+                && reference.equals(container.field(CONTAINER_REFERENCE_FIELD));
+    }
+
+    private static String getSessionId(String reference) {
+        return reference.substring(0, reference.lastIndexOf(REFERENCE_SEPARATOR));
+    }
+
+    private IgniteCache<String, BinaryObject> getCache() {
+        return ignite.cache(CacheName.CONTAINER_BLOB.name()).withKeepBinary();
+    }
+}
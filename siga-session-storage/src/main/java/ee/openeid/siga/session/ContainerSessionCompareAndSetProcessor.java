@@ -0,0 +1,35 @@
+package ee.openeid.siga.session;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.CacheEntryProcessor;
+
+import javax.cache.processor.MutableEntry;
+
+/**
+ * Replaces the binary container session only if the stored session has the expected version.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+@RequiredArgsConstructor
+class ContainerSessionCompareAndSetProcessor implements CacheEntryProcessor<String, BinaryObject, Boolean> {
+    static final String VERSION_FIELD = "version";
+    private final long expectedVersion;
+    private final BinaryObject container;
+
+    @Override
+    public Boolean process(MutableEntry<String, BinaryObject> entry, Object... arguments) {
+        BinaryObject storedContainer = entry.getValue();
+        if (storedContainer == null || getVersion(storedContainer) != expectedVersion) {
+            return false;
+        }
+        entry.setValue(container);
+        return true;
+    }
+
+    static long getVersion(BinaryObject container) {
+        Long version = container.hasField(VERSION_FIELD) ? container.field(VERSION_FIELD) : null;
+        return version == null ? 0 : version;
+    }
+}
@@ -0,0 +1,32 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.configuration.ConditionalOnEmbeddedSessionStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Locks held in the memory of the SiGa node, for use with {@link EmbeddedSessionStore}.
+ */
+@Component
+@ConditionalOnEmbeddedSessionStore
+public class EmbeddedSessionLockService extends MeteredSessionLockService {
+    private final Set<String> lockedNames = ConcurrentHashMap.newKeySet();
+
+    @Override
+    protected Optional<Runnable> acquire(String name) {
+        return lockedNames.add(name) ? Optional.of(() -> lockedNames.remove(name)) : Optional.empty();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        super.bindTo(registry);
+        Gauge.builder(METRIC_NAME + ".live", lockedNames, Set::size)
+                .description("Number of signing locks held in the session store")
+                .register(registry);
+    }
+}
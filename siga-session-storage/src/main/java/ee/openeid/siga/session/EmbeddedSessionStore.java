@@ -0,0 +1,427 @@
+package ee.openeid.siga.session;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import ee.openeid.siga.common.configuration.ConditionalOnEmbeddedSessionStore;
+import ee.openeid.siga.common.exception.TechnicalException;
+import ee.openeid.siga.common.model.SerializedContainer;
+import ee.openeid.siga.common.session.CertificateSession;
+import ee.openeid.siga.common.session.ProcessingStatus;
+import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.common.session.SessionStatus;
+import ee.openeid.siga.common.session.SignatureSession;
+import ee.openeid.siga.session.configuration.SessionStoreProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.SerializationUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Stores sessions in the memory of a single SiGa node, for deployments and tests without an Ignite cluster.
+ * <p>
+ * Sessions are stored and returned as copies made by Java serialization, so that concurrent requests of the same
+ * container do not share session objects and changes of a failed request are not stored. Container sessions expire
+ * when not accessed, signature and certificate sessions expire when not modified, like in the Ignite cache
+ * configuration. Connection data of expired container sessions is removed by {@link ExpiredSessionCleaner}.
+ * Sessions are not evicted before they expire. Storing a new session fails when the store is full.
+ */
+@Slf4j
+@Component
+@ConditionalOnEmbeddedSessionStore
+public class EmbeddedSessionStore implements SessionStore, MeterBinder {
+    private static final String METRIC_NAME = "siga.session.embedded";
+
+    private final ExpiredSessionCleaner expiredSessionCleaner;
+    private final long maxSize;
+    private final Cache<String, Session> containerSessions;
+    private final Cache<String, Map<String, SignatureSession>> signatureSessions;
+    private final Cache<String, Map<String, CertificateSession>> certificateSessions;
+    private final Cache<String, SerializedContainer> serializedContainers;
+    private final List<Consumer<UnfinishedStatusSessions>> signatureSessionListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<UnfinishedStatusSessions>> certificateSessionListeners = new CopyOnWriteArrayList<>();
+
+    public EmbeddedSessionStore(SessionStoreProperties sessionStoreProperties, ExpiredSessionCleaner expiredSessionCleaner) {
+        this.expiredSessionCleaner = expiredSessionCleaner;
+        SessionStoreProperties.Embedded embedded = sessionStoreProperties.getEmbedded();
+        this.maxSize = embedded.getMaxSize();
+        this.containerSessions = CacheBuilder.newBuilder()
+                .expireAfterAccess(embedded.getContainerTimeToIdle())
+                .removalListener(this::onContainerSessionRemoval)
+                .recordStats()
+                .build();
+        this.signatureSessions = CacheBuilder.newBuilder()
+                .expireAfterWrite(embedded.getStatusTimeToLive())
+                .<String, Map<String, SignatureSession>>removalListener(
+                        notification -> onStatusSessionsRemoval(notification, signatureSessionListeners))
+                .build();
+        this.certificateSessions = CacheBuilder.newBuilder()
+                .expireAfterWrite(embedded.getStatusTimeToLive())
+                .<String, Map<String, CertificateSession>>removalListener(
+                        notification -> onStatusSessionsRemoval(notification, certificateSessionListeners))
+                .build();
+        this.serializedContainers = CacheBuilder.newBuilder()
+                .expireAfterWrite(sessionStoreProperties.getSerializedContainer().getTimeToLive())
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    @Override
+    public Session get(String sessionId) {
+        Session storedSession = containerSessions.getIfPresent(sessionId);
+        if (storedSession == null) {
+            return null;
+        }
+        Session container = copy(storedSession);
+        container.setSignatureSessions(copy(signatureSessions.getIfPresent(sessionId)));
+        container.setCertificateSessions(copy(certificateSessions.getIfPresent(sessionId)));
+        return container;
+    }
+
+    @Override
+    public void put(Session session) {
+        String sessionId = session.getSessionId();
+        Session storedSession = copy(session);
+        containerSessions.asMap().compute(sessionId, (id, previousSession) -> {
+            checkCapacity(previousSession);
+            return storedSession;
+        });
+        putStatusSessions(session, false);
+    }
+
+    /**
+     * The session is written only if the stored session has the expected version. Status sessions are merged with
+     * the stored ones.
+     */
+    @Override
+    public boolean put(Session session, long expectedVersion) {
+        String sessionId = session.getSessionId();
+        boolean[] updated = new boolean[1];
+        containerSessions.asMap().computeIfPresent(sessionId, (id, storedSession) -> {
+            if (storedSession.getVersion() != expectedVersion) {
+                return storedSession;
+            }
+            Session updatedSession = copy(session);
+            updatedSession.setVersion(expectedVersion + 1);
+            updated[0] = true;
+            return updatedSession;
+        });
+        if (updated[0]) {
+            session.setVersion(expectedVersion + 1);
+            putStatusSessions(session, true);
+        }
+        return updated[0];
+    }
+
+    private void checkCapacity(Session previousSession) {
+        if (previousSession == null && containerSessions.size() >= maxSize) {
+            throw new TechnicalException("Embedded session store is full, unable to store more than " + maxSize + " sessions");
+        }
+    }
+
+    private void putStatusSessions(Session session, boolean merge) {
+        String sessionId = session.getSessionId();
+        putStatusSessions(signatureSessions, signatureSessionListeners, SignatureSession::getSessionStatus,
+                signatureSession -> signatureSession.getDataToSign() == null, sessionId, session.getSignatureSessions(), merge);
+        putStatusSessions(certificateSessions, certificateSessionListeners, CertificateSession::getSessionStatus,
+                certificateSession -> false, sessionId, session.getCertificateSessions(), merge);
+    }
+
+    /**
+     * When merged, status sessions whose stored status has a higher revision than the written one, for example
+     * because of status polling, are kept as stored, unless the written one has been cleared, like in
+     * {@link StatusSessionsMergeProcessor}.
+     */
+    private static <T extends Serializable> void putStatusSessions(Cache<String, Map<String, T>> cache, List<Consumer<UnfinishedStatusSessions>> listeners,
+                                                                   Function<T, SessionStatus> sessionStatusGetter, Predicate<T> cleared,
+                                                                   String sessionId, Map<String, T> writtenStatusSessions, boolean merge) {
+        Map<String, T> statusSessions = cache.asMap().compute(sessionId, (id, storedStatusSessions) -> {
+            Map<String, T> mergedStatusSessions = copy(writtenStatusSessions);
+            if (merge && storedStatusSessions != null) {
+                mergedStatusSessions.replaceAll((statusSessionId, statusSession) -> {
+                    T storedStatusSession = storedStatusSessions.get(statusSessionId);
+                    return storedStatusSession != null && !cleared.test(statusSession)
+                            && sessionStatusGetter.apply(storedStatusSession).getRevision() > sessionStatusGetter.apply(statusSession).getRevision()
+                            ? storedStatusSession
+                            : statusSession;
+                });
+            }
+            return mergedStatusSessions;
+        });
+        notifyListeners(listeners, sessionId, statusSessions, sessionStatusGetter);
+    }
+
+    @Override
+    public void remove(String sessionId) {
+        containerSessions.invalidate(sessionId);
+        signatureSessions.invalidate(sessionId);
+        certificateSessions.invalidate(sessionId);
+    }
+
+    @Override
+    public SignatureSession getSignatureSessionStatus(String sessionId, String signatureId) {
+        return getStatusSession(signatureSessions, sessionId, signatureId);
+    }
+
+    @Override
+    public CertificateSession getCertificateSessionStatus(String sessionId, String certificateId) {
+        return getStatusSession(certificateSessions, sessionId, certificateId);
+    }
+
+    private static <T extends Serializable> T getStatusSession(Cache<String, Map<String, T>> cache, String sessionId, String statusSessionId) {
+        Map<String, T> statusSessions = cache.getIfPresent(sessionId);
+        T statusSession = statusSessions == null ? null : statusSessions.get(statusSessionId);
+        return statusSession == null ? null : SerializationUtils.clone(statusSession);
+    }
+
+    @Override
+    public boolean updateSignatureSessionStatus(String sessionId, String signatureId, SessionStatusUpdate statusUpdate) {
+        return updateStatusSession(signatureSessions, signatureSessionListeners, SignatureSession::getSessionStatus,
+                sessionId, signatureId, signatureSession -> {
+            if (signatureSession.getDataToSign() == null) {
+                return null;
+            }
+            if (statusUpdate.getSignature() != null) {
+                signatureSession.setSignature(statusUpdate.getSignature());
+            }
+            return signatureSession.getSessionStatus();
+        }, statusUpdate);
+    }
+
+    @Override
+    public boolean updateCertificateSessionStatus(String sessionId, String certificateId, SessionStatusUpdate statusUpdate) {
+        if (statusUpdate.getCertificate() != null
+                && !addCertificate(sessionId, statusUpdate.getDocumentNumber(), statusUpdate.getCertificate())) {
+            return false;
+        }
+        return updateStatusSession(certificateSessions, certificateSessionListeners, CertificateSession::getSessionStatus,
+                sessionId, certificateId, certificateSession -> {
+            if (statusUpdate.getDocumentNumber() != null) {
+                certificateSession.setDocumentNumber(statusUpdate.getDocumentNumber());
+            }
+            return certificateSession.getSessionStatus();
+        }, statusUpdate);
+    }
+
+    /**
+     * Status sessions of a session are replaced by an updated copy on every change, so that stored status sessions
+     * are never modified.
+     */
+    private static <T extends Serializable> boolean updateStatusSession(Cache<String, Map<String, T>> cache, List<Consumer<UnfinishedStatusSessions>> listeners,
+                                                   Function<T, SessionStatus> sessionStatusGetter, String sessionId, String statusSessionId,
+                                                   Function<T, SessionStatus> sessionUpdate, SessionStatusUpdate statusUpdate) {
+        Map<String, Map<String, T>> sessions = cache.asMap();
+        List<Map<String, T>> updated = new ArrayList<>(1);
+        sessions.computeIfPresent(sessionId, (id, statusSessions) -> {
+            if (!statusSessions.containsKey(statusSessionId)) {
+                return statusSessions;
+            }
+            Map<String, T> updatedStatusSessions = copy(statusSessions);
+            SessionStatus sessionStatus = sessionUpdate.apply(updatedStatusSessions.get(statusSessionId));
+            if (sessionStatus == null) {
+                return statusSessions;
+            }
+            applyStatusUpdate(sessionStatus, statusUpdate);
+            updated.add(updatedStatusSessions);
+            return updatedStatusSessions;
+        });
+        if (updated.isEmpty()) {
+            return false;
+        }
+        notifyListeners(listeners, sessionId, updated.get(0), sessionStatusGetter);
+        return true;
+    }
+
+    private static void applyStatusUpdate(SessionStatus sessionStatus, SessionStatusUpdate statusUpdate) {
+        sessionStatus.setProcessingStatus(statusUpdate.getProcessingStatus());
+        if (statusUpdate.getStatus() != null) {
+            sessionStatus.setStatus(statusUpdate.getStatus());
+        }
+        sessionStatus.setStatusError(statusUpdate.getStatusError());
+    }
+
+    @Override
+    public boolean addCertificate(String sessionId, String documentNumber, X509Certificate certificate) {
+        Session updatedSession = containerSessions.asMap().computeIfPresent(sessionId, (id, storedSession) -> {
+            Session container = copy(storedSession);
+            container.addCertificate(documentNumber, certificate);
+            container.setVersion(storedSession.getVersion() + 1);
+            return container;
+        });
+        return updatedSession != null;
+    }
+
+    @Override
+    public List<String> findSessionIdsBySignatureStatus(SessionStatusPredicate predicate) {
+        return findSessionIds(signatureSessions, predicate, SignatureSession::getSessionStatus);
+    }
+
+    @Override
+    public List<String> findSessionIdsByCertificateStatus(SessionStatusPredicate predicate) {
+        return findSessionIds(certificateSessions, predicate, CertificateSession::getSessionStatus);
+    }
+
+    private static <T> List<String> findSessionIds(Cache<String, Map<String, T>> cache, SessionStatusPredicate predicate,
+                                                   Function<T, SessionStatus> sessionStatus) {
+        return cache.asMap().entrySet().stream()
+                .filter(entry -> entry.getValue().values().stream()
+                        .map(sessionStatus)
+                        .anyMatch(status -> status != null && predicate.test(status.getProcessingStatus(),
+                                status.getProcessingStatusTimestampMillis(), status.getProcessingCounter())))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    @Override
+    public Runnable listenUnfinishedSignatureSessions(Consumer<UnfinishedStatusSessions> listener) {
+        return listenUnfinishedStatusSessions(signatureSessions, signatureSessionListeners, SignatureSession::getSessionStatus, listener);
+    }
+
+    @Override
+    public Runnable listenUnfinishedCertificateSessions(Consumer<UnfinishedStatusSessions> listener) {
+        return listenUnfinishedStatusSessions(certificateSessions, certificateSessionListeners, CertificateSession::getSessionStatus, listener);
+    }
+
+    private static <T> Runnable listenUnfinishedStatusSessions(Cache<String, Map<String, T>> cache, List<Consumer<UnfinishedStatusSessions>> listeners,
+                                                               Function<T, SessionStatus> sessionStatusGetter,
+                                                               Consumer<UnfinishedStatusSessions> listener) {
+        listeners.add(listener);
+        cache.asMap().forEach((sessionId, statusSessions) -> {
+            UnfinishedStatusSessions unfinishedStatusSessions = toUnfinishedStatusSessions(sessionId, statusSessions, sessionStatusGetter);
+            if (!unfinishedStatusSessions.getStatusSessions().isEmpty()) {
+                listener.accept(unfinishedStatusSessions);
+            }
+        });
+        return () -> listeners.remove(listener);
+    }
+
+    private static <T> void notifyListeners(List<Consumer<UnfinishedStatusSessions>> listeners, String sessionId,
+                                            Map<String, T> statusSessions, Function<T, SessionStatus> sessionStatusGetter) {
+        if (!listeners.isEmpty()) {
+            UnfinishedStatusSessions unfinishedStatusSessions = toUnfinishedStatusSessions(sessionId, statusSessions, sessionStatusGetter);
+            listeners.forEach(listener -> listener.accept(unfinishedStatusSessions));
+        }
+    }
+
+    private static <T> UnfinishedStatusSessions toUnfinishedStatusSessions(String sessionId, Map<String, T> statusSessions,
+                                                                          Function<T, SessionStatus> sessionStatusGetter) {
+        List<UnfinishedStatusSession> unfinishedStatusSessions = new ArrayList<>();
+        statusSessions.forEach((statusSessionId, statusSession) -> {
+            SessionStatus status = sessionStatusGetter.apply(statusSession);
+            if (status != null && status.getProcessingStatus() != ProcessingStatus.RESULT) {
+                unfinishedStatusSessions.add(new UnfinishedStatusSession(statusSessionId, status.getProcessingStatus(),
+                        status.getProcessingStatusTimestampMillis(), status.getProcessingCounter()));
+            }
+        });
+        return new UnfinishedStatusSessions(sessionId, unfinishedStatusSessions);
+    }
+
+    private static void onStatusSessionsRemoval(RemovalNotification<String, ?> notification,
+                                                List<Consumer<UnfinishedStatusSessions>> listeners) {
+        if (notification.getCause() != RemovalCause.REPLACED) {
+            UnfinishedStatusSessions removed = new UnfinishedStatusSessions(notification.getKey(), List.of());
+            listeners.forEach(listener -> listener.accept(removed));
+        }
+    }
+
+    /**
+     * Embedded sessions are only visible to this node, so all of them are assigned to it.
+     */
+    @Override
+    public boolean isAssignedToLocalNode(String sessionId) {
+        return true;
+    }
+
+    /**
+     * Embedded sessions are not visible to other nodes, so status polls cannot be handed over.
+     */
+    @Override
+    public boolean isStatusPollHandOverAvailable() {
+        return false;
+    }
+
+    /**
+     * Not called, because hand-over is never available. Polls stay with this node, which is the only one.
+     */
+    @Override
+    public void handOverStatusPolls(List<StatusPollHandOver> polls) {
+    }
+
+    @Override
+    public Runnable listenHandedOverStatusPolls(Consumer<List<StatusPollHandOver>> listener) {
+        return () -> {
+        };
+    }
+
+    @Override
+    public SerializedContainer getSerializedContainer(String sessionId, long version) {
+        return serializedContainers.getIfPresent(sessionId + "/" + version);
+    }
+
+    /**
+     * Unlike sessions, serialized containers are evicted when the cache is full, they are serialized again then.
+     */
+    @Override
+    public SerializedContainer putSerializedContainer(String sessionId, long version, SerializedContainer container) {
+        SerializedContainer cachedContainer = serializedContainers.asMap().putIfAbsent(sessionId + "/" + version, container);
+        return cachedContainer == null ? container : cachedContainer;
+    }
+
+    @Override
+    public int size() {
+        return (int) containerSessions.size();
+    }
+
+    /**
+     * Expired entries are otherwise removed only when the caches are accessed.
+     */
+    @Scheduled(fixedDelayString = "${siga.session-store.embedded.clean-up-interval:PT1M}")
+    public void cleanUp() {
+        containerSessions.cleanUp();
+        signatureSessions.cleanUp();
+        certificateSessions.cleanUp();
+    }
+
+    private void onContainerSessionRemoval(RemovalNotification<String, Session> notification) {
+        if (!notification.wasEvicted()) {
+            return;
+        }
+        String sessionId = notification.getKey();
+        log.info("Embedded session expired: key={}, cause={}", sessionId, notification.getCause());
+        signatureSessions.invalidate(sessionId);
+        certificateSessions.invalidate(sessionId);
+        try {
+            expiredSessionCleaner.removeContainerConnectionData(sessionId);
+        } catch (Exception e) {
+            log.warn("Unable to remove connection data of expired session [{}]: {}", sessionId, e.getMessage());
+        }
+    }
+
+    private static Session copy(Session session) {
+        return SerializationUtils.clone(session);
+    }
+
+    private static <T extends Serializable> Map<String, T> copy(Map<String, T> sessions) {
+        return sessions == null ? new HashMap<>() : SerializationUtils.clone(new HashMap<>(sessions));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        GuavaCacheMetrics.monitor(registry, containerSessions, METRIC_NAME);
+    }
+}
@@ -0,0 +1,214 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.auth.model.SigaService;
+import ee.openeid.siga.auth.repository.ConnectionRepository;
+import ee.openeid.siga.auth.repository.ServiceRepository;
+import ee.openeid.siga.session.configuration.SessionStoreProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Removes data kept outside of the session store for expired container sessions.
+ * <p>
+ * Expired sessions are queued and their connections are deleted by a background thread, one statement per
+ * service and batch. A batch is flushed when it is full or when the flush interval has passed since its first
+ * session was taken from the queue. Sessions are expired on Ignite event threads, which must not block on the
+ * database: when the queue stays full for the offer timeout, the session is dropped and counted, its connections
+ * are not deleted.
+ */
+@Slf4j
+@Component
+public class ExpiredSessionCleaner implements MeterBinder {
+    private static final String METRIC_NAME = "siga.session.expired.clean.up";
+
+    private final ConnectionRepository connectionRepository;
+    private final ServiceRepository serviceRepository;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutNanos;
+    private final BlockingQueue<ExpiredContainer> queue;
+    private final Map<String, Integer> serviceIds = new ConcurrentHashMap<>();
+    private final LongAdder deletedConnections = new LongAdder();
+    private final LongAdder droppedSessions = new LongAdder();
+    private final LongAdder flushCount = new LongAdder();
+    private final LongAdder flushTimeNanos = new LongAdder();
+    private Thread worker;
+    private volatile boolean running;
+
+    public ExpiredSessionCleaner(ConnectionRepository connectionRepository, ServiceRepository serviceRepository,
+                                 SessionStoreProperties sessionStoreProperties) {
+        this.connectionRepository = connectionRepository;
+        this.serviceRepository = serviceRepository;
+        SessionStoreProperties.ExpiredSessionCleanUp cleanUp = sessionStoreProperties.getExpiredSessionCleanUp();
+        this.batchSize = cleanUp.getBatchSize();
+        this.flushIntervalNanos = cleanUp.getFlushInterval().toNanos();
+        this.offerTimeoutNanos = cleanUp.getOfferTimeout().toNanos();
+        this.queue = new LinkedBlockingQueue<>(cleanUp.getQueueCapacity());
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::processQueue, "siga-expired-session-cleaner");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 5000);
+        }
+        List<ExpiredContainer> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            log.info("Removing connection data of {} expired session(s) on shutdown", remaining.size());
+            flush(remaining);
+        }
+    }
+
+    public void removeContainerConnectionData(String sessionId) {
+        if (sessionId == null) {
+            log.debug("Session with ID " + sessionId + " not found. No need to delete it.");
+            return;
+        }
+        ExpiredContainer expiredContainer = new ExpiredContainer(SessionService.parseServiceUuid(sessionId),
+                SessionService.parseContainerId(sessionId), System.nanoTime());
+        try {
+            if (!queue.offer(expiredContainer, offerTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                log.warn("Expired session queue is full. Connection data of session {} is not removed", sessionId);
+                droppedSessions.increment();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while queueing expired session. Connection data of session {} is not removed", sessionId);
+            droppedSessions.increment();
+        }
+    }
+
+    private void processQueue() {
+        while (running) {
+            try {
+                List<ExpiredContainer> batch = nextBatch();
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Unable to remove connection data of expired sessions", e);
+            }
+        }
+    }
+
+    private List<ExpiredContainer> nextBatch() throws InterruptedException {
+        List<ExpiredContainer> batch = new ArrayList<>(batchSize);
+        ExpiredContainer first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remainingNanos = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remainingNanos <= 0) {
+                break;
+            }
+            ExpiredContainer next = queue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private void flush(List<ExpiredContainer> batch) {
+        long start = System.nanoTime();
+        Map<String, List<String>> containerIdsByService = new LinkedHashMap<>();
+        batch.forEach(container -> containerIdsByService
+                .computeIfAbsent(container.serviceUuid(), uuid -> new ArrayList<>())
+                .add(container.containerId()));
+        containerIdsByService.forEach(this::deleteConnections);
+        flushCount.increment();
+        flushTimeNanos.add(System.nanoTime() - start);
+    }
+
+    private void deleteConnections(String serviceUuid, List<String> containerIds) {
+        try {
+            findServiceId(serviceUuid).ifPresentOrElse(
+                    serviceId -> {
+                        int count = connectionRepository.deleteByContainerIdsAndServiceId(containerIds, serviceId);
+                        deletedConnections.add(count);
+                        log.debug("Deleted " + count + " connection(s) by " + containerIds.size() + " container id(s) and service ID " + serviceId);
+                    },
+                    () -> log.debug("Service with UUID " + serviceUuid + " not found. No need to delete it.")
+            );
+        } catch (Exception e) {
+            log.warn("Unable to remove connection data of {} expired session(s) of service {}: {}",
+                    containerIds.size(), serviceUuid, e.getMessage());
+        }
+    }
+
+    private Optional<Integer> findServiceId(String serviceUuid) {
+        Integer serviceId = serviceIds.get(serviceUuid);
+        if (serviceId != null) {
+            return Optional.of(serviceId);
+        }
+        Optional<Integer> foundServiceId = serviceRepository.findByUuid(serviceUuid).map(SigaService::getId);
+        foundServiceId.ifPresent(id -> serviceIds.put(serviceUuid, id));
+        return foundServiceId;
+    }
+
+    private double getQueueLagSeconds() {
+        ExpiredContainer oldest = queue.peek();
+        return oldest == null ? 0 : (System.nanoTime() - oldest.enqueuedNanos()) / 1e9;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(METRIC_NAME + ".queue.size", queue, BlockingQueue::size)
+                .description("Number of expired sessions waiting for their connection data to be removed")
+                .register(registry);
+        Gauge.builder(METRIC_NAME + ".queue.lag", this, ExpiredSessionCleaner::getQueueLagSeconds)
+                .description("Time the oldest expired session has been waiting in the queue")
+                .baseUnit("seconds")
+                .register(registry);
+        FunctionCounter.builder(METRIC_NAME + ".deleted", deletedConnections, LongAdder::sum)
+                .description("Number of deleted connections of expired sessions")
+                .register(registry);
+        FunctionCounter.builder(METRIC_NAME + ".dropped", droppedSessions, LongAdder::sum)
+                .description("Number of expired sessions whose connection data was not removed because the queue was full")
+                .register(registry);
+        FunctionTimer.builder(METRIC_NAME + ".flush", this,
+                        cleaner -> cleaner.flushCount.sum(),
+                        cleaner -> cleaner.flushTimeNanos.sum(),
+                        TimeUnit.NANOSECONDS)
+                .description("Time spent deleting connections of expired sessions")
+                .register(registry);
+    }
+
+    private record ExpiredContainer(String serviceUuid, String containerId, long enqueuedNanos) {
+    }
+}
@@ -0,0 +1,113 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.configuration.ConditionalOnIgniteSessionStore;
+import ee.openeid.siga.session.configuration.SessionStoreProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.cache.CachePeekMode;
+import org.springframework.stereotype.Component;
+
+import javax.cache.expiry.Duration;
+import javax.cache.expiry.ModifiedExpiryPolicy;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Locks stored as entries of the {@link CacheName#SIGNING_LOCK} cache, one entry per held lock.
+ * <p>
+ * The entry holds the ID of the SiGa node holding the lock and a token of the acquisition, and is removed when the
+ * lock is released. Locks of nodes that have left the cluster are taken over, locks of expired sessions are removed
+ * by {@link #removeLocksAsync} and every lock expires after the configured lease time as a last resort.
+ */
+@Slf4j
+@Component
+@ConditionalOnIgniteSessionStore
+public class IgniteSessionLockService extends MeteredSessionLockService {
+    private static final String HOLDER_SEPARATOR = ":";
+
+    private final Ignite ignite;
+    private final Duration lease;
+    private final LongAdder takenOverLocks = new LongAdder();
+
+    public IgniteSessionLockService(Ignite ignite, SessionStoreProperties sessionStoreProperties) {
+        this.ignite = ignite;
+        this.lease = new Duration(TimeUnit.MILLISECONDS, sessionStoreProperties.getSigningLock().getLease().toMillis());
+    }
+
+    @Override
+    protected Optional<Runnable> acquire(String name) {
+        IgniteCache<String, String> cache = getCache();
+        String holder = ignite.cluster().localNode().id() + HOLDER_SEPARATOR + UUID.randomUUID();
+        if (cache.putIfAbsent(name, holder) || takeOverStaleLock(cache, name, holder)) {
+            return Optional.of(() -> cache.remove(name, holder));
+        }
+        return Optional.empty();
+    }
+
+    private boolean takeOverStaleLock(IgniteCache<String, String> cache, String name, String holder) {
+        String currentHolder = cache.get(name);
+        if (currentHolder == null) {
+            return cache.putIfAbsent(name, holder);
+        }
+        String nodeId = currentHolder.substring(0, currentHolder.indexOf(HOLDER_SEPARATOR));
+        if (ignite.cluster().node(UUID.fromString(nodeId)) != null) {
+            return false;
+        }
+        if (cache.replace(name, currentHolder, holder)) {
+            log.info("Took over lock {} of node {}, which has left the cluster", name, nodeId);
+            takenOverLocks.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes the locks regardless of their holders, e.g. when the signing sessions they protect have expired.
+     * Does not wait for the removal, so that Ignite event threads do not block on cache operations. Locks left by
+     * a failed removal expire after the lease time.
+     */
+    public void removeLocksAsync(Collection<String> names) {
+        if (!names.isEmpty()) {
+            getCache().removeAllAsync(new HashSet<>(names)).listen(future -> {
+                try {
+                    future.get();
+                } catch (Exception e) {
+                    log.warn("Unable to remove signing locks {}: {}", names, e.getMessage());
+                }
+            });
+        }
+    }
+
+    private IgniteCache<String, String> getCache() {
+        return ignite.<String, String>cache(CacheName.SIGNING_LOCK.name())
+                .withExpiryPolicy(new ModifiedExpiryPolicy(lease));
+    }
+
+    private double getLiveLockCount() {
+        try {
+            return ignite.cache(CacheName.SIGNING_LOCK.name()).sizeLong(CachePeekMode.PRIMARY);
+        } catch (Exception e) {
+            log.debug("Unable to count signing locks: {}", e.getMessage());
+            return Double.NaN;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        super.bindTo(registry);
+        Gauge.builder(METRIC_NAME + ".live", this, IgniteSessionLockService::getLiveLockCount)
+                .description("Number of signing locks held in the session store")
+                .register(registry);
+        FunctionCounter.builder(METRIC_NAME + ".taken.over", takenOverLocks, LongAdder::sum)
+                .description("Number of signing locks taken over from nodes that have left the cluster")
+                .register(registry);
+    }
+}
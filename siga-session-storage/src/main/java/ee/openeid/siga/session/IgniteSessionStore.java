@@ -0,0 +1,406 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.configuration.ConditionalOnIgniteSessionStore;
+import ee.openeid.siga.common.model.SerializedContainer;
+import ee.openeid.siga.common.session.AsicContainerSession;
+import ee.openeid.siga.common.session.CertificateSession;
+import ee.openeid.siga.common.session.ProcessingStatus;
+import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.common.session.SessionBinaryFormat;
+import ee.openeid.siga.common.session.SessionStatus.StatusError;
+import ee.openeid.siga.common.session.SignatureSession;
+import ee.openeid.siga.session.configuration.SessionStoreProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.CachePeekMode;
+import org.apache.ignite.cache.query.ContinuousQueryWithTransformer;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.ScanQuery;
+import org.apache.ignite.lang.IgniteBiPredicate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import javax.cache.configuration.FactoryBuilder;
+import javax.cache.expiry.CreatedExpiryPolicy;
+import javax.cache.expiry.Duration;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Stores sessions in the Ignite cluster. Container, signature and certificate sessions are kept in separate caches
+ * under the same key and are accessed on the primary node of the key.
+ */
+@Slf4j
+@Component
+@ConditionalOnIgniteSessionStore
+@RequiredArgsConstructor
+public class IgniteSessionStore implements SessionStore {
+    static final String STATUS_POLL_HAND_OVER_TOPIC = "SIGA_STATUS_POLL_HAND_OVER";
+    private static final List<String> SESSION_CACHE_NAMES = Stream.of(CacheName.CONTAINER_SESSION, CacheName.SIGNATURE_SESSION, CacheName.CERTIFICATE_SESSION)
+            .map(CacheName::name)
+            .toList();
+
+    private final Ignite ignite;
+    private final SessionNearCache sessionNearCache;
+    private final ContainerBlobStore containerBlobStore;
+    private final SessionPartitionAssignment sessionPartitionAssignment;
+    private final SessionStoreProperties sessionStoreProperties;
+
+    @Override
+    public Session get(String sessionId) {
+        SessionEntries entries = sessionNearCache.get(sessionId,
+                () -> ignite.compute().affinityCall(SESSION_CACHE_NAMES, sessionId, new SessionReadJob(sessionId)),
+                () -> touch(sessionId));
+        if (entries == null) {
+            return null;
+        }
+        Session container = entries.getContainer().deserialize();
+        if (container instanceof AsicContainerSession asicContainerSession) {
+            asicContainerSession.setContainerLoader(containerBlobStore::get);
+        }
+        container.setSignatureSessions(deserialize(entries.getSignatureSessions()));
+        container.setCertificateSessions(deserialize(entries.getCertificateSessions()));
+        return container;
+    }
+
+    private void touch(String sessionId) {
+        ignite.compute().affinityRunAsync(SESSION_CACHE_NAMES, sessionId, new SessionTouchJob(sessionId))
+                .listen(future -> {
+                    try {
+                        future.get();
+                    } catch (Exception e) {
+                        log.warn("Unable to renew expiry of session [{}]: {}", sessionId, e.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Writes container, signature and certificate session parts with a single request to the primary node of the session.
+     * Changed ASiC container bytes are stored in {@link ContainerBlobStore} beforehand. The reference to the replaced
+     * container is released by the write.
+     */
+    @Override
+    public void put(Session session) {
+        storeContainer(session);
+        SessionEntries entries = new SessionEntries(
+                ignite.binary().toBinary(session),
+                ignite.binary().toBinary(session.getSignatureSessions()),
+                ignite.binary().toBinary(session.getCertificateSessions()));
+        ignite.compute().affinityRun(SESSION_CACHE_NAMES, session.getSessionId(), new SessionWriteJob(session.getSessionId(), entries));
+        sessionNearCache.put(session.getSessionId(), entries);
+    }
+
+    /**
+     * Writes session parts with a single request to the primary node of the session, if the stored container session
+     * has the expected version. The container reference added beforehand is released again when the session is not
+     * written. It belongs to this write only, so concurrent writes of the same container are not affected.
+     */
+    @Override
+    public boolean put(Session session, long expectedVersion) {
+        String sessionId = session.getSessionId();
+        String previousContainerDigest = getContainerDigest(session);
+        String previousContainerReference = getContainerReference(session);
+        boolean containerStored = storeContainer(session);
+        session.setVersion(expectedVersion + 1);
+        SessionEntries entries = new SessionEntries(
+                ignite.binary().toBinary(session),
+                ignite.binary().toBinary(session.getSignatureSessions()),
+                ignite.binary().toBinary(session.getCertificateSessions()));
+        Boolean updated = ignite.compute().affinityCall(SESSION_CACHE_NAMES, sessionId, new SessionCompareAndSetJob(sessionId, expectedVersion, entries));
+        sessionNearCache.invalidate(sessionId);
+        if (Boolean.TRUE.equals(updated)) {
+            return true;
+        }
+        session.setVersion(expectedVersion);
+        if (containerStored) {
+            AsicContainerSession asicContainerSession = (AsicContainerSession) session;
+            containerBlobStore.release(asicContainerSession.getContainerDigest(), asicContainerSession.getContainerReference());
+            asicContainerSession.setContainerDigest(previousContainerDigest);
+            asicContainerSession.setContainerReference(previousContainerReference);
+        }
+        return false;
+    }
+
+    private static String getContainerDigest(Session session) {
+        return session instanceof AsicContainerSession asicContainerSession ? asicContainerSession.getContainerDigest() : null;
+    }
+
+    private static String getContainerReference(Session session) {
+        return session instanceof AsicContainerSession asicContainerSession ? asicContainerSession.getContainerReference() : null;
+    }
+
+    /**
+     * Stores a changed ASiC container with a new reference of this write.
+     *
+     * @return whether the container was stored
+     */
+    private boolean storeContainer(Session session) {
+        if (!(session instanceof AsicContainerSession asicContainerSession) || !asicContainerSession.isContainerLoaded()) {
+            return false;
+        }
+        String digest = containerBlobStore.digest(asicContainerSession.getContainer());
+        if (digest.equals(asicContainerSession.getContainerDigest()) && asicContainerSession.getContainerReference() != null) {
+            return false;
+        }
+        String reference = containerBlobStore.createReference(session.getSessionId());
+        containerBlobStore.store(digest, reference, asicContainerSession.getContainer());
+        asicContainerSession.setContainerDigest(digest);
+        asicContainerSession.setContainerReference(reference);
+        return true;
+    }
+
+    @Override
+    public void remove(String sessionId) {
+        ignite.compute().affinityRun(SESSION_CACHE_NAMES, sessionId, new SessionWriteJob(sessionId, null));
+        sessionNearCache.invalidate(sessionId);
+    }
+
+    @Override
+    public SignatureSession getSignatureSessionStatus(String sessionId, String signatureId) {
+        return getStatusSession(CacheName.SIGNATURE_SESSION, sessionId,
+                new StatusSessionReadProcessor(signatureId, new String[]{"dataToBeSigned", "dataToSignSerialized", "signingCertificate", "signature"}));
+    }
+
+    @Override
+    public CertificateSession getCertificateSessionStatus(String sessionId, String certificateId) {
+        return getStatusSession(CacheName.CERTIFICATE_SESSION, sessionId,
+                new StatusSessionReadProcessor(certificateId, new String[0]));
+    }
+
+    private <T> T getStatusSession(CacheName cacheName, String sessionId, StatusSessionReadProcessor processor) {
+        BinaryObject statusSession = ignite.cache(cacheName.name())
+                .<String, Map<String, BinaryObject>>withKeepBinary()
+                .invoke(sessionId, processor);
+        return statusSession == null ? null : statusSession.deserialize();
+    }
+
+    /**
+     * Updates status of a single signature session on the primary node of the session, without transferring
+     * the rest of the session.
+     */
+    @Override
+    public boolean updateSignatureSessionStatus(String sessionId, String signatureId, SessionStatusUpdate statusUpdate) {
+        Map<String, Object> sessionFields = new HashMap<>();
+        if (statusUpdate.getSignature() != null) {
+            sessionFields.put("signature", statusUpdate.getSignature());
+        }
+        return updateSessionStatus(CacheName.SIGNATURE_SESSION, sessionId,
+                createStatusUpdateProcessor(signatureId, SessionStatusFields.SIGNATURE_DATA_FIELDS, statusUpdate, sessionFields));
+    }
+
+    /**
+     * Updates status of a single certificate session on the primary node of the session, without transferring
+     * the rest of the session. A certificate is added to the container session by the same job on that node.
+     */
+    @Override
+    public boolean updateCertificateSessionStatus(String sessionId, String certificateId, SessionStatusUpdate statusUpdate) {
+        Map<String, Object> sessionFields = new HashMap<>();
+        if (statusUpdate.getDocumentNumber() != null) {
+            sessionFields.put("documentNumber", statusUpdate.getDocumentNumber());
+        }
+        SessionStatusUpdateProcessor processor = createStatusUpdateProcessor(certificateId, new String[0], statusUpdate, sessionFields);
+        if (statusUpdate.getCertificate() == null) {
+            return updateSessionStatus(CacheName.CERTIFICATE_SESSION, sessionId, processor);
+        }
+        CertificateHolderUpdateProcessor certificateHolderUpdateProcessor = new CertificateHolderUpdateProcessor(
+                statusUpdate.getDocumentNumber(), SessionBinaryFormat.encodeCertificate(statusUpdate.getCertificate()));
+        Boolean updated = ignite.compute().affinityCall(SESSION_CACHE_NAMES, sessionId,
+                new CertificateStatusUpdateJob(sessionId, certificateHolderUpdateProcessor, processor));
+        sessionNearCache.invalidate(sessionId);
+        return Boolean.TRUE.equals(updated);
+    }
+
+    /**
+     * Adds certificate to the container session on the primary node of the session, without transferring
+     * the rest of the session.
+     */
+    @Override
+    public boolean addCertificate(String sessionId, String documentNumber, X509Certificate certificate) {
+        Boolean updated = ignite.cache(CacheName.CONTAINER_SESSION.name())
+                .<String, BinaryObject>withKeepBinary()
+                .invoke(sessionId, new CertificateHolderUpdateProcessor(documentNumber, SessionBinaryFormat.encodeCertificate(certificate)));
+        sessionNearCache.invalidate(sessionId);
+        return Boolean.TRUE.equals(updated);
+    }
+
+    @Override
+    public List<String> findSessionIdsBySignatureStatus(SessionStatusPredicate predicate) {
+        return findSessionIds(CacheName.SIGNATURE_SESSION, predicate);
+    }
+
+    @Override
+    public List<String> findSessionIdsByCertificateStatus(SessionStatusPredicate predicate) {
+        return findSessionIds(CacheName.CERTIFICATE_SESSION, predicate);
+    }
+
+    private List<String> findSessionIds(CacheName cacheName, SessionStatusPredicate predicate) {
+        ScanQuery<String, Map<String, BinaryObject>> query = new ScanQuery<>(new StatusSessionScanFilter(predicate));
+        List<String> sessionIds = new ArrayList<>();
+        try (QueryCursor<String> queryCursor = ignite.cache(cacheName.name())
+                .<String, Map<String, BinaryObject>>withKeepBinary()
+                .query(query, new SessionIdQueryTransformer())) {
+            queryCursor.forEach(sessionIds::add);
+        }
+        return sessionIds;
+    }
+
+    @Override
+    public Runnable listenUnfinishedSignatureSessions(Consumer<UnfinishedStatusSessions> listener) {
+        return listenUnfinishedStatusSessions(CacheName.SIGNATURE_SESSION, listener);
+    }
+
+    @Override
+    public Runnable listenUnfinishedCertificateSessions(Consumer<UnfinishedStatusSessions> listener) {
+        return listenUnfinishedStatusSessions(CacheName.CERTIFICATE_SESSION, listener);
+    }
+
+    /**
+     * Registers a continuous query, which filters and transforms changes on the nodes storing the sessions, so that
+     * only statuses of sessions with unfinished status sessions are sent to this node. Sessions already having
+     * unfinished status sessions are scanned after the query has been registered, so that no change is missed.
+     */
+    private Runnable listenUnfinishedStatusSessions(CacheName cacheName, Consumer<UnfinishedStatusSessions> listener) {
+        UnfinishedStatusSessionsEventFilter eventFilter = new UnfinishedStatusSessionsEventFilter();
+        ContinuousQueryWithTransformer<String, Map<String, BinaryObject>, UnfinishedStatusSessions> continuousQuery =
+                new ContinuousQueryWithTransformer<>();
+        continuousQuery.setRemoteFilterFactory(FactoryBuilder.factoryOf(eventFilter));
+        continuousQuery.setRemoteTransformerFactory(FactoryBuilder.factoryOf(eventFilter));
+        continuousQuery.setLocalListener(events -> events.forEach(listener));
+        continuousQuery.setIncludeExpired(true);
+        IgniteCache<String, Map<String, BinaryObject>> cache = ignite.cache(cacheName.name()).withKeepBinary();
+        QueryCursor<?> continuousQueryCursor = cache.query(continuousQuery);
+
+        UnfinishedStatusSessionsScanFilter scanFilter = new UnfinishedStatusSessionsScanFilter();
+        try (QueryCursor<UnfinishedStatusSessions> queryCursor = cache.query(new ScanQuery<>(scanFilter), scanFilter)) {
+            queryCursor.forEach(listener);
+        } catch (RuntimeException e) {
+            continuousQueryCursor.close();
+            throw e;
+        }
+        return continuousQueryCursor::close;
+    }
+
+    @Override
+    public boolean isAssignedToLocalNode(String sessionId) {
+        return sessionPartitionAssignment.isAssignedToLocalNode(sessionId);
+    }
+
+    @Override
+    public boolean isStatusPollHandOverAvailable() {
+        return sessionPartitionAssignment.hasRemoteSigaNodes();
+    }
+
+    /**
+     * Polls are grouped by the node they are assigned to and sent to each node with a single message.
+     */
+    @Override
+    public void handOverStatusPolls(List<StatusPollHandOver> polls) {
+        Map<UUID, List<StatusPollHandOver>> pollsByNode = new HashMap<>();
+        for (StatusPollHandOver poll : polls) {
+            UUID nodeId = sessionPartitionAssignment.getAssignedRemoteNode(poll.getSessionId());
+            if (nodeId == null) {
+                log.warn("No SiGa node to hand status poll over to. Session: {}, status session: {}",
+                        poll.getSessionId(), poll.getStatusSessionId());
+            } else {
+                pollsByNode.computeIfAbsent(nodeId, id -> new ArrayList<>()).add(poll);
+            }
+        }
+        pollsByNode.forEach((nodeId, nodePolls) -> {
+            try {
+                ignite.message(ignite.cluster().forNodeId(nodeId)).send(STATUS_POLL_HAND_OVER_TOPIC, new ArrayList<>(nodePolls));
+                log.info("Handed {} status polls over to node {}", nodePolls.size(), nodeId);
+            } catch (Exception e) {
+                log.warn("Unable to hand status polls of sessions {} over to node {}: {}", nodePolls.stream()
+                        .map(StatusPollHandOver::getSessionId)
+                        .collect(Collectors.toSet()), nodeId, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public Runnable listenHandedOverStatusPolls(Consumer<List<StatusPollHandOver>> listener) {
+        IgniteBiPredicate<UUID, List<StatusPollHandOver>> messageListener = (nodeId, polls) -> {
+            listener.accept(polls);
+            return true;
+        };
+        ignite.message().localListen(STATUS_POLL_HAND_OVER_TOPIC, messageListener);
+        return () -> ignite.message().stopLocalListen(STATUS_POLL_HAND_OVER_TOPIC, messageListener);
+    }
+
+    @Override
+    public SerializedContainer getSerializedContainer(String sessionId, long version) {
+        return getSerializedContainerCache().get(sessionId + "/" + version);
+    }
+
+    @Override
+    public SerializedContainer putSerializedContainer(String sessionId, long version, SerializedContainer container) {
+        SerializedContainer cachedContainer = getSerializedContainerCache().getAndPutIfAbsent(sessionId + "/" + version, container);
+        return cachedContainer == null ? container : cachedContainer;
+    }
+
+    /**
+     * Serialized containers expire after they are created, reading them does not extend their expiry. Containers
+     * serialized from earlier versions of a session are not removed, they expire.
+     */
+    private IgniteCache<String, SerializedContainer> getSerializedContainerCache() {
+        long timeToLiveMillis = sessionStoreProperties.getSerializedContainer().getTimeToLive().toMillis();
+        return ignite.<String, SerializedContainer>cache(CacheName.SERIALIZED_CONTAINER.name())
+                .withExpiryPolicy(new CreatedExpiryPolicy(new Duration(TimeUnit.MILLISECONDS, timeToLiveMillis)));
+    }
+
+    @Override
+    public int size() {
+        return ignite.cache(CacheName.CONTAINER_SESSION.name()).size(CachePeekMode.ALL);
+    }
+
+    private boolean updateSessionStatus(CacheName cacheName, String sessionId, SessionStatusUpdateProcessor processor) {
+        Boolean updated = ignite.cache(cacheName.name())
+                .<String, Map<String, BinaryObject>>withKeepBinary()
+                .invoke(sessionId, processor);
+        sessionNearCache.invalidate(sessionId);
+        return Boolean.TRUE.equals(updated);
+    }
+
+    private SessionStatusUpdateProcessor createStatusUpdateProcessor(String statusSessionId, String[] requiredFields,
+                                                                     SessionStatusUpdate statusUpdate, Map<String, Object> sessionFields) {
+        ProcessingStatus processingStatus = statusUpdate.getProcessingStatus();
+        StatusError statusError = statusUpdate.getStatusError();
+        return new SessionStatusUpdateProcessor(
+                statusSessionId,
+                requiredFields,
+                ignite.binary().buildEnum(ProcessingStatus.class.getName(), processingStatus.ordinal()),
+                processingStatus != ProcessingStatus.RESULT,
+                System.currentTimeMillis(),
+                statusUpdate.getStatus(),
+                statusError == null ? null : statusError.getErrorCode(),
+                statusError == null ? null : statusError.getErrorMessage(),
+                sessionFields);
+    }
+
+    @PostConstruct
+    void createCaches() {
+        SESSION_CACHE_NAMES.forEach(ignite::getOrCreateCache);
+        ignite.getOrCreateCache(CacheName.CONTAINER_BLOB.name());
+        ignite.getOrCreateCache(CacheName.SIGNING_LOCK.name());
+        ignite.getOrCreateCache(CacheName.SERIALIZED_CONTAINER.name());
+    }
+
+    private static <T> Map<String, T> deserialize(Map<String, BinaryObject> binarySessions) {
+        Map<String, T> sessions = new HashMap<>();
+        if (binarySessions != null) {
+            binarySessions.forEach((id, binarySession) -> sessions.put(id, binarySession.deserialize()));
+        }
+        return sessions;
+    }
+}
@@ -0,0 +1,77 @@
+package ee.openeid.siga.session;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Base of {@link SessionLockService} implementations, which records the number of locks held by this SiGa node and
+ * the time spent acquiring locks.
+ */
+public abstract class MeteredSessionLockService implements SessionLockService, MeterBinder {
+    protected static final String METRIC_NAME = "siga.session.lock";
+
+    private final AtomicInteger heldLocks = new AtomicInteger();
+    private final LongAdder acquiredCount = new LongAdder();
+    private final LongAdder acquiredTimeNanos = new LongAdder();
+    private final LongAdder busyCount = new LongAdder();
+    private final LongAdder busyTimeNanos = new LongAdder();
+
+    @Override
+    public Optional<SessionLock> tryLock(String name) {
+        long start = System.nanoTime();
+        Optional<Runnable> release = acquire(name);
+        long elapsedNanos = System.nanoTime() - start;
+        if (release.isEmpty()) {
+            busyCount.increment();
+            busyTimeNanos.add(elapsedNanos);
+            return Optional.empty();
+        }
+        acquiredCount.increment();
+        acquiredTimeNanos.add(elapsedNanos);
+        heldLocks.incrementAndGet();
+        AtomicBoolean released = new AtomicBoolean();
+        return Optional.of(() -> {
+            if (released.compareAndSet(false, true)) {
+                try {
+                    release.get().run();
+                } finally {
+                    heldLocks.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    /**
+     * @return action releasing the acquired lock or empty if the lock is held by someone else
+     */
+    protected abstract Optional<Runnable> acquire(String name);
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(METRIC_NAME + ".held", heldLocks, AtomicInteger::get)
+                .description("Number of signing locks held by this node")
+                .register(registry);
+        FunctionTimer.builder(METRIC_NAME + ".acquire", this,
+                        service -> service.acquiredCount.sum(),
+                        service -> service.acquiredTimeNanos.sum(),
+                        TimeUnit.NANOSECONDS)
+                .tag("result", "acquired")
+                .description("Time spent acquiring signing locks")
+                .register(registry);
+        FunctionTimer.builder(METRIC_NAME + ".acquire", this,
+                        service -> service.busyCount.sum(),
+                        service -> service.busyTimeNanos.sum(),
+                        TimeUnit.NANOSECONDS)
+                .tag("result", "busy")
+                .description("Time spent acquiring signing locks")
+                .register(registry);
+    }
+}
@@ -0,0 +1,48 @@
+package ee.openeid.siga.session;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.lang.IgniteCallable;
+import org.apache.ignite.resources.IgniteInstanceResource;
+
+import java.util.Map;
+
+/**
+ * Writes all session parts on the primary node of the session key if the stored container session has
+ * the expected version. Status sessions are merged with the stored ones by {@link StatusSessionsMergeProcessor}.
+ * The container blob reference of the replaced container session is released like by {@link SessionWriteJob}.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+@RequiredArgsConstructor
+class SessionCompareAndSetJob implements IgniteCallable<Boolean> {
+    private final String sessionId;
+    private final long expectedVersion;
+    private final SessionEntries entries;
+    @IgniteInstanceResource
+    private transient Ignite ignite;
+
+    @Override
+    public Boolean call() {
+        synchronized (SessionKeyLocks.get(sessionId)) {
+            IgniteCache<String, BinaryObject> containerCache = ignite.cache(CacheName.CONTAINER_SESSION.name()).withKeepBinary();
+            BinaryObject replacedContainer = containerCache.get(sessionId);
+            Boolean updated = containerCache
+                    .invoke(sessionId, new ContainerSessionCompareAndSetProcessor(expectedVersion, entries.getContainer()));
+            if (!Boolean.TRUE.equals(updated)) {
+                return false;
+            }
+            SessionWriteJob.releaseReplacedContainer(ignite, replacedContainer, entries.getContainer());
+            ignite.cache(CacheName.SIGNATURE_SESSION.name())
+                    .<String, Map<String, BinaryObject>>withKeepBinary()
+                    .invoke(sessionId, new StatusSessionsMergeProcessor(entries.getSignatureSessions(), SessionStatusFields.SIGNATURE_DATA_FIELDS));
+            ignite.cache(CacheName.CERTIFICATE_SESSION.name())
+                    .<String, Map<String, BinaryObject>>withKeepBinary()
+                    .invoke(sessionId, new StatusSessionsMergeProcessor(entries.getCertificateSessions(), new String[0]));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.session.ContainerCompression;
+import ee.openeid.siga.session.configuration.SessionConfigurationProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Applies container compression configuration and exposes the achieved compression ratio.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SessionContainerCompression implements MeterBinder {
+    private static final String METRIC_NAME = "siga.session.container.compression";
+
+    private final SessionConfigurationProperties sessionConfigurationProperties;
+
+    @PostConstruct
+    void configure() {
+        SessionConfigurationProperties.ContainerCompression properties = sessionConfigurationProperties.getContainerCompression();
+        ContainerCompression.configure(properties.isEnabled(), properties.getThreshold(), properties.getLevel());
+        log.info("Container compression enabled: {}, threshold: {} bytes, level: {}",
+                properties.isEnabled(), properties.getThreshold(), properties.getLevel());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(METRIC_NAME + ".uncompressed", ContainerCompression.class, c -> ContainerCompression.getUncompressedBytes())
+                .description("Total size of containers considered for compression")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder(METRIC_NAME + ".stored", ContainerCompression.class, c -> ContainerCompression.getStoredBytes())
+                .description("Total stored size of containers considered for compression")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder(METRIC_NAME + ".ratio", ContainerCompression.class, c -> getCompressionRatio())
+                .description("Ratio of uncompressed to stored container size")
+                .register(registry);
+    }
+
+    private static double getCompressionRatio() {
+        long storedBytes = ContainerCompression.getStoredBytes();
+        return storedBytes == 0 ? 1.0 : (double) ContainerCompression.getUncompressedBytes() / storedBytes;
+    }
+}
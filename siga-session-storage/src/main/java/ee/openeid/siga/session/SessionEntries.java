@@ -0,0 +1,21 @@
+package ee.openeid.siga.session;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.binary.BinaryObject;
+
+import java.util.Map;
+
+/**
+ * Binary form of the container, signature and certificate session parts stored under the same session ID.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+@Getter
+@RequiredArgsConstructor
+class SessionEntries {
+    private final BinaryObject container;
+    private final Map<String, BinaryObject> signatureSessions;
+    private final Map<String, BinaryObject> certificateSessions;
+}
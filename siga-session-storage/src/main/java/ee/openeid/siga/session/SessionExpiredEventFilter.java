@@ -0,0 +1,25 @@
+package ee.openeid.siga.session;
+
+import org.apache.ignite.events.CacheEvent;
+import org.apache.ignite.lang.IgnitePredicate;
+
+import java.util.Set;
+
+/**
+ * Passes expiry events of session caches only, so that expired entries of other caches, e.g. serialized containers
+ * or signing lock leases, are not sent to the listening SiGa nodes.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+public class SessionExpiredEventFilter implements IgnitePredicate<CacheEvent> {
+    private static final Set<String> SESSION_CACHE_NAMES = Set.of(
+            CacheName.CONTAINER_SESSION.name(),
+            CacheName.SIGNATURE_SESSION.name(),
+            CacheName.CERTIFICATE_SESSION.name());
+
+    @Override
+    public boolean apply(CacheEvent event) {
+        return SESSION_CACHE_NAMES.contains(event.cacheName());
+    }
+}
@@ -0,0 +1,25 @@
+package ee.openeid.siga.session;
+
+/**
+ * Striped monitors of session keys on the primary node of the session. Jobs reading or writing several session
+ * parts hold the monitor of the session key, so that parts written by one job are read together by other jobs.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+final class SessionKeyLocks {
+    private static final Object[] LOCKS = new Object[256];
+
+    static {
+        for (int i = 0; i < LOCKS.length; i++) {
+            LOCKS[i] = new Object();
+        }
+    }
+
+    private SessionKeyLocks() {
+    }
+
+    static Object get(String sessionId) {
+        return LOCKS[Math.floorMod(sessionId.hashCode(), LOCKS.length)];
+    }
+}
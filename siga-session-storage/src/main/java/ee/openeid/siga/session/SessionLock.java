@@ -0,0 +1,10 @@
+package ee.openeid.siga.session;
+
+/**
+ * Exclusive lock acquired with {@link SessionLockService#tryLock}. Closing the lock releases it.
+ */
+public interface SessionLock extends AutoCloseable {
+
+    @Override
+    void close();
+}
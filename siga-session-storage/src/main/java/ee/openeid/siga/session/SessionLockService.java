@@ -0,0 +1,14 @@
+package ee.openeid.siga.session;
+
+import java.util.Optional;
+
+/**
+ * Named exclusive locks shared by the SiGa nodes using the same {@link SessionStore}.
+ */
+public interface SessionLockService {
+
+    /**
+     * @return acquired lock or empty if the lock is held by someone else
+     */
+    Optional<SessionLock> tryLock(String name);
+}
@@ -0,0 +1,141 @@
+package ee.openeid.siga.session;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import ee.openeid.siga.common.configuration.ConditionalOnIgniteSessionStore;
+import ee.openeid.siga.session.configuration.SessionConfigurationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.cluster.ClusterGroup;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Optional local cache of session entries on the SiGa node. Sessions updated or removed by this node are
+ * invalidated on other SiGa nodes by a message sent to {@link #INVALIDATION_TOPIC}.
+ * <p>
+ * Reading a session from the local cache does not renew its {@code TouchedExpiryPolicy} in the cluster. Therefore a
+ * local read touches the session in the cluster asynchronously, at most once per touch interval, and entries expire
+ * after write, so that the session is regularly read from the cluster again.
+ */
+@Slf4j
+@Component
+@ConditionalOnIgniteSessionStore
+public class SessionNearCache implements MeterBinder {
+    static final String INVALIDATION_TOPIC = "SIGA_SESSION_INVALIDATION";
+    private static final String METRIC_NAME = "siga.session.near-cache";
+
+    private final Ignite ignite;
+    private final Cache<String, CachedEntries> cache;
+    private final long touchIntervalNanos;
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    public SessionNearCache(Ignite ignite, SessionConfigurationProperties sessionConfigurationProperties) {
+        this.ignite = ignite;
+        SessionConfigurationProperties.NearCache nearCache = sessionConfigurationProperties.getNearCache();
+        this.cache = nearCache.isEnabled()
+                ? CacheBuilder.newBuilder()
+                .maximumSize(nearCache.getMaxSize())
+                .expireAfterWrite(nearCache.getTimeToLive())
+                .recordStats()
+                .build()
+                : null;
+        this.touchIntervalNanos = nearCache.getTouchInterval().toNanos();
+    }
+
+    @PostConstruct
+    void listenInvalidations() {
+        if (cache != null) {
+            ignite.message().localListen(INVALIDATION_TOPIC, (UUID nodeId, String sessionId) -> {
+                invalidateLocally(sessionId);
+                return true;
+            });
+        }
+    }
+
+    /**
+     * @param toucher renews the expiry of the session in the cluster without waiting for it, run when the session
+     *                is read from the local cache and has not been touched for the touch interval
+     */
+    SessionEntries get(String sessionId, Supplier<SessionEntries> loader, Runnable toucher) {
+        if (cache == null) {
+            return loader.get();
+        }
+        CachedEntries cachedEntries = cache.getIfPresent(sessionId);
+        if (cachedEntries != null) {
+            touchIfDue(sessionId, cachedEntries, toucher);
+            return cachedEntries.entries();
+        }
+        long invalidationCountBeforeLoad = invalidationCount.get();
+        SessionEntries entries = loader.get();
+        if (entries != null && invalidationCountBeforeLoad == invalidationCount.get()) {
+            cache.put(sessionId, new CachedEntries(entries, new AtomicLong(System.nanoTime())));
+        }
+        return entries;
+    }
+
+    void put(String sessionId, SessionEntries entries) {
+        if (cache != null) {
+            invalidateLocally(sessionId);
+            cache.put(sessionId, new CachedEntries(entries, new AtomicLong(System.nanoTime())));
+            invalidateRemotely(sessionId);
+        }
+    }
+
+    void invalidate(String sessionId) {
+        if (cache != null) {
+            invalidateLocally(sessionId);
+            invalidateRemotely(sessionId);
+        }
+    }
+
+    private void touchIfDue(String sessionId, CachedEntries cachedEntries, Runnable toucher) {
+        long now = System.nanoTime();
+        long touchedNanos = cachedEntries.touchedNanos().get();
+        if (now - touchedNanos < touchIntervalNanos || !cachedEntries.touchedNanos().compareAndSet(touchedNanos, now)) {
+            return;
+        }
+        try {
+            toucher.run();
+        } catch (Exception e) {
+            log.warn("Unable to renew expiry of locally cached session [{}]: {}", sessionId, e.getMessage());
+        }
+    }
+
+    private void invalidateLocally(String sessionId) {
+        invalidationCount.incrementAndGet();
+        cache.invalidate(sessionId);
+    }
+
+    private void invalidateRemotely(String sessionId) {
+        ClusterGroup otherClientNodes = ignite.cluster().forClients().forRemotes();
+        if (otherClientNodes.nodes().isEmpty()) {
+            return;
+        }
+        try {
+            ignite.message(otherClientNodes).send(INVALIDATION_TOPIC, sessionId);
+        } catch (Exception e) {
+            log.warn("Unable to send near cache invalidation for session [{}]: {}", sessionId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (cache != null) {
+            GuavaCacheMetrics.monitor(registry, cache, METRIC_NAME);
+        }
+    }
+
+    /**
+     * @param touchedNanos time the session was last read from, written to or touched in the cluster
+     */
+    private record CachedEntries(SessionEntries entries, AtomicLong touchedNanos) {
+    }
+}
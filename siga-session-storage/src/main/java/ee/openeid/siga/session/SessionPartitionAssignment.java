@@ -0,0 +1,109 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.configuration.ConditionalOnIgniteSessionStore;
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.cache.affinity.Affinity;
+import org.apache.ignite.cluster.ClusterNode;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Assigns partitions of the session caches to SiGa nodes by rendezvous hashing, so that every partition is assigned to
+ * exactly one SiGa node of the current topology and only partitions of joining or leaving nodes change their node.
+ * <p>
+ * SiGa nodes are told apart from Ignite server nodes and other clients by the {@value #SIGA_NODE_ATTRIBUTE} user
+ * attribute, set when the node is started. The local node is always a SiGa node, also if started without the attribute.
+ */
+@Component
+@ConditionalOnIgniteSessionStore
+@RequiredArgsConstructor
+public class SessionPartitionAssignment {
+    public static final String SIGA_NODE_ATTRIBUTE = "siga.node";
+
+    private final Ignite ignite;
+    private volatile Assignment assignment;
+
+    public boolean isAssignedToLocalNode(String sessionId) {
+        Affinity<String> affinity = ignite.affinity(CacheName.CONTAINER_SESSION.name());
+        return getAssignment(affinity.partitions()).localPartitions().get(affinity.partition(sessionId));
+    }
+
+    /**
+     * @return ID of the SiGa node the session would be assigned to if this node left the cluster, or {@code null} if
+     * there is no other SiGa node
+     */
+    public UUID getAssignedRemoteNode(String sessionId) {
+        UUID localNodeId = ignite.cluster().localNode().id();
+        List<UUID> remoteNodeIds = getSigaNodeIds().stream()
+                .filter(nodeId -> !nodeId.equals(localNodeId))
+                .toList();
+        return getAssignedNode(remoteNodeIds, ignite.affinity(CacheName.CONTAINER_SESSION.name()).partition(sessionId));
+    }
+
+    public boolean hasRemoteSigaNodes() {
+        return getSigaNodeIds().size() > 1;
+    }
+
+    private Assignment getAssignment(int partitions) {
+        long topologyVersion = ignite.cluster().topologyVersion();
+        Assignment current = assignment;
+        if (current == null || current.topologyVersion() != topologyVersion || current.partitions() != partitions) {
+            current = new Assignment(topologyVersion, partitions,
+                    getLocalPartitions(getSigaNodeIds(), ignite.cluster().localNode().id(), partitions));
+            assignment = current;
+        }
+        return current;
+    }
+
+    private List<UUID> getSigaNodeIds() {
+        UUID localNodeId = ignite.cluster().localNode().id();
+        List<UUID> nodeIds = new ArrayList<>(List.of(localNodeId));
+        ignite.cluster().forAttribute(SIGA_NODE_ATTRIBUTE, Boolean.TRUE).nodes().stream()
+                .map(ClusterNode::id)
+                .filter(nodeId -> !nodeId.equals(localNodeId))
+                .forEach(nodeIds::add);
+        return nodeIds;
+    }
+
+    static BitSet getLocalPartitions(Collection<UUID> nodeIds, UUID localNodeId, int partitions) {
+        BitSet localPartitions = new BitSet(partitions);
+        for (int partition = 0; partition < partitions; partition++) {
+            if (localNodeId.equals(getAssignedNode(nodeIds, partition))) {
+                localPartitions.set(partition);
+            }
+        }
+        return localPartitions;
+    }
+
+    static UUID getAssignedNode(Collection<UUID> nodeIds, int partition) {
+        UUID assignedNode = null;
+        long maxWeight = Long.MIN_VALUE;
+        for (UUID nodeId : nodeIds) {
+            long weight = getWeight(nodeId, partition);
+            if (assignedNode == null || weight > maxWeight || (weight == maxWeight && nodeId.compareTo(assignedNode) > 0)) {
+                assignedNode = nodeId;
+                maxWeight = weight;
+            }
+        }
+        return assignedNode;
+    }
+
+    private static long getWeight(UUID nodeId, int partition) {
+        long hash = nodeId.getMostSignificantBits() * 31 + nodeId.getLeastSignificantBits();
+        hash ^= partition * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    private record Assignment(long topologyVersion, int partitions, BitSet localPartitions) {
+    }
+}
@@ -2,29 +2,30 @@ package ee.openeid.siga.session;
 
 import ee.openeid.siga.common.exception.InvalidSessionDataException;
 import ee.openeid.siga.common.exception.ResourceNotFoundException;
+import ee.openeid.siga.common.model.SerializedContainer;
 import ee.openeid.siga.common.session.CertificateSession;
 import ee.openeid.siga.common.session.Session;
 import ee.openeid.siga.common.session.SignatureSession;
 import ee.openeid.siga.session.configuration.SessionConfigurationProperties;
+import ee.openeid.siga.session.configuration.SessionStoreProperties;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.ignite.Ignite;
-import org.apache.ignite.cache.CachePeekMode;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
-import javax.cache.Cache;
-import java.util.HashMap;
-import java.util.Map;
+import java.security.cert.X509Certificate;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Slf4j
 @Component
-@EnableConfigurationProperties({SessionConfigurationProperties.class})
+@EnableConfigurationProperties({SessionConfigurationProperties.class, SessionStoreProperties.class})
 @RequiredArgsConstructor
 public class SessionService {
-    private final Ignite ignite;
+    static final int MAX_UPDATE_ATTEMPTS = 5;
+    private final SessionStore sessionStore;
     private final SessionConfigurationProperties sessionConfigurationProperties;
 
     public Session getContainer(String containerId) {
@@ -33,22 +34,76 @@ public class SessionService {
     }
 
     public Session getContainerBySessionId(String sessionId) {
-        Session container = Optional.ofNullable(getContainerCache().get(sessionId))
+        Session container = Optional.ofNullable(sessionStore.get(sessionId))
                 .orElseThrow(() -> new ResourceNotFoundException("Session not found"));
         log.info("Found container with container ID [{}]", container.getSessionId());
-        container.setSignatureSessions(Optional
-                .ofNullable(getSignatureSessionCache().get(sessionId))
-                .orElseGet(HashMap::new));
-        container.setCertificateSessions(Optional
-                .ofNullable(getCertificateSessionCache().get(sessionId))
-                .orElseGet(HashMap::new));
         return container;
     }
 
+    /**
+     * Reads a single signature session for status checks, without reading the rest of the session.
+     * Data to sign and signature value are not read.
+     *
+     * @return signature session or {@code null} if session or signature session does not exist
+     */
+    public SignatureSession getSignatureSessionStatus(String sessionId, String signatureId) {
+        return sessionStore.getSignatureSessionStatus(sessionId, signatureId);
+    }
+
+    /**
+     * Reads a single certificate session for status checks, without reading the rest of the session.
+     *
+     * @return certificate session or {@code null} if session or certificate session does not exist
+     */
+    public CertificateSession getCertificateSessionStatus(String sessionId, String certificateId) {
+        return sessionStore.getCertificateSessionStatus(sessionId, certificateId);
+    }
+
+    /**
+     * Stores a new session. Session ID of a new session is generated for it, so there is no stored session that
+     * could be overwritten. Stored sessions are changed with {@link #update(Session, Consumer)}.
+     */
+    public void create(Session session) {
+        update(session);
+    }
+
     public void update(Session session) {
-        getContainerCache().put(session.getSessionId(), session);
-        getSignatureSessionCache().put(session.getSessionId(), session.getSignatureSessions());
-        getCertificateSessionCache().put(session.getSessionId(), session.getCertificateSessions());
+        session.setVersion(session.getVersion() + 1);
+        sessionStore.put(session);
+    }
+
+    /**
+     * Updates the session only if it has not been changed since it was read with the expected version.
+     * Status sessions changed in the meantime by status polling are kept.
+     *
+     * @return {@code false} if the session has been changed or removed in the meantime
+     */
+    public boolean update(Session session, long expectedVersion) {
+        return sessionStore.put(session, expectedVersion);
+    }
+
+    /**
+     * Applies the change to the session and updates it, if the session has not been changed since it was read.
+     * Otherwise the session is read again and the change is applied to the read session, up to
+     * {@value #MAX_UPDATE_ATTEMPTS} times. The change must therefore depend only on the session it is given.
+     *
+     * @return updated session
+     * @throws InvalidSessionDataException if the session keeps being changed concurrently
+     */
+    public Session update(Session session, Consumer<Session> change) {
+        Session currentSession = session;
+        for (int attempt = 1; ; attempt++) {
+            long version = currentSession.getVersion();
+            change.accept(currentSession);
+            if (update(currentSession, version)) {
+                return currentSession;
+            }
+            if (attempt == MAX_UPDATE_ATTEMPTS) {
+                throw new InvalidSessionDataException("Session was changed concurrently. Repeat the request");
+            }
+            log.debug("Session [{}] was changed concurrently, retrying update", currentSession.getSessionId());
+            currentSession = getContainerBySessionId(currentSession.getSessionId());
+        }
     }
 
     public void removeByContainerId(String containerId) {
@@ -57,25 +112,104 @@ public class SessionService {
     }
 
     public void removeBySessionId(String sessionId) {
-        getContainerCache().remove(sessionId);
-        getSignatureSessionCache().remove(sessionId);
-        getCertificateSessionCache().remove(sessionId);
+        sessionStore.remove(sessionId);
+    }
+
+    /**
+     * Updates status of a single signature session, without transferring the rest of the session.
+     *
+     * @return {@code false} if signature session does not exist or has been cleared
+     */
+    public boolean updateSignatureSessionStatus(String sessionId, String signatureId, SessionStatusUpdate statusUpdate) {
+        return sessionStore.updateSignatureSessionStatus(sessionId, signatureId, statusUpdate);
+    }
+
+    /**
+     * Updates status of a single certificate session, without transferring the rest of the session.
+     * Certificate of the status update is added to the container session together with the status change.
+     *
+     * @return {@code false} if certificate session does not exist, or container session does not exist
+     * when certificate is added
+     */
+    public boolean updateCertificateSessionStatus(String sessionId, String certificateId, SessionStatusUpdate statusUpdate) {
+        return sessionStore.updateCertificateSessionStatus(sessionId, certificateId, statusUpdate);
+    }
+
+    /**
+     * Adds certificate to the container session, without transferring the rest of the session.
+     *
+     * @return {@code false} if container session does not exist
+     */
+    public boolean addCertificate(String sessionId, String documentNumber, X509Certificate certificate) {
+        return sessionStore.addCertificate(sessionId, documentNumber, certificate);
+    }
+
+    public List<String> findSessionIdsBySignatureStatus(SessionStatusPredicate predicate) {
+        return sessionStore.findSessionIdsBySignatureStatus(predicate);
+    }
+
+    public List<String> findSessionIdsByCertificateStatus(SessionStatusPredicate predicate) {
+        return sessionStore.findSessionIdsByCertificateStatus(predicate);
+    }
+
+    /**
+     * @see SessionStore#listenUnfinishedSignatureSessions(Consumer)
+     */
+    public Runnable listenUnfinishedSignatureSessions(Consumer<UnfinishedStatusSessions> listener) {
+        return sessionStore.listenUnfinishedSignatureSessions(listener);
+    }
+
+    /**
+     * @see SessionStore#listenUnfinishedCertificateSessions(Consumer)
+     */
+    public Runnable listenUnfinishedCertificateSessions(Consumer<UnfinishedStatusSessions> listener) {
+        return sessionStore.listenUnfinishedCertificateSessions(listener);
+    }
+
+    /**
+     * @see SessionStore#isAssignedToLocalNode(String)
+     */
+    public boolean isAssignedToLocalNode(String sessionId) {
+        return sessionStore.isAssignedToLocalNode(sessionId);
+    }
+
+    /**
+     * @see SessionStore#isStatusPollHandOverAvailable()
+     */
+    public boolean isStatusPollHandOverAvailable() {
+        return sessionStore.isStatusPollHandOverAvailable();
+    }
+
+    /**
+     * @see SessionStore#handOverStatusPolls(List)
+     */
+    public void handOverStatusPolls(List<StatusPollHandOver> polls) {
+        sessionStore.handOverStatusPolls(polls);
     }
 
-    private Cache<String, Session> getContainerCache() {
-        return ignite.getOrCreateCache(CacheName.CONTAINER_SESSION.name());
+    /**
+     * @see SessionStore#listenHandedOverStatusPolls(Consumer)
+     */
+    public Runnable listenHandedOverStatusPolls(Consumer<List<StatusPollHandOver>> listener) {
+        return sessionStore.listenHandedOverStatusPolls(listener);
     }
 
-    private Cache<String, Map<String, SignatureSession>> getSignatureSessionCache() {
-        return ignite.getOrCreateCache(CacheName.SIGNATURE_SESSION.name());
+    /**
+     * @see SessionStore#getSerializedContainer(String, long)
+     */
+    public SerializedContainer getSerializedContainer(String sessionId, long version) {
+        return sessionStore.getSerializedContainer(sessionId, version);
     }
 
-    private Cache<String, Map<String, CertificateSession>> getCertificateSessionCache() {
-        return ignite.getOrCreateCache(CacheName.CERTIFICATE_SESSION.name());
+    /**
+     * @see SessionStore#putSerializedContainer(String, long, SerializedContainer)
+     */
+    public SerializedContainer putSerializedContainer(String sessionId, long version, SerializedContainer container) {
+        return sessionStore.putSerializedContainer(sessionId, version, container);
     }
 
     public int getCacheSize() {
-        return ignite.cache(CacheName.CONTAINER_SESSION.name()).size(CachePeekMode.ALL);
+        return sessionStore.size();
     }
 
     public String getSessionId(String containerId) {
@@ -0,0 +1,82 @@
+package ee.openeid.siga.session;
+
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.binary.BinaryObjectBuilder;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Accesses fields of binary {@code SessionStatus} objects, including the legacy format written before format
+ * versions were introduced, in which the processing status timestamp is a {@link LocalDateTime}, and the first
+ * format, which has no revision.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+final class SessionStatusFields {
+    static final String PROCESSING_STATUS_TIMESTAMP = "processingStatusTimestampMillis";
+    static final String REVISION = "revision";
+    /**
+     * Fields of a signature session holding its data to sign, in the current and in the legacy format. A signature
+     * session without any of them has been cleared.
+     */
+    static final String[] SIGNATURE_DATA_FIELDS = {"dataToBeSigned", "dataToSignSerialized"};
+    private static final String FORMAT_VERSION = "formatVersion";
+    private static final byte CURRENT_FORMAT_VERSION = 2;
+    private static final String LEGACY_PROCESSING_STATUS_TIMESTAMP = "processingStatusTimestamp";
+    private static final String LEGACY_STATUS_ERROR = "statusError";
+
+    private SessionStatusFields() {
+    }
+
+    /**
+     * @return processing status timestamp as epoch milliseconds, or 0 if the status has no timestamp
+     */
+    static long getProcessingStatusTimestamp(BinaryObject sessionStatus) {
+        if (sessionStatus == null) {
+            return 0;
+        }
+        if (sessionStatus.hasField(PROCESSING_STATUS_TIMESTAMP)) {
+            Long timestamp = sessionStatus.field(PROCESSING_STATUS_TIMESTAMP);
+            return timestamp == null ? 0 : timestamp;
+        }
+        Object legacyTimestamp = sessionStatus.field(LEGACY_PROCESSING_STATUS_TIMESTAMP);
+        if (legacyTimestamp instanceof BinaryObject binaryTimestamp) {
+            legacyTimestamp = binaryTimestamp.deserialize();
+        }
+        return legacyTimestamp instanceof LocalDateTime localDateTime
+                ? localDateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : 0;
+    }
+
+    /**
+     * @return revision of the status, or 0 if the status was written in a format without revision
+     */
+    static long getRevision(BinaryObject sessionStatus) {
+        if (sessionStatus == null || !sessionStatus.hasField(REVISION)) {
+            return 0;
+        }
+        Long revision = sessionStatus.field(REVISION);
+        return revision == null ? 0 : revision;
+    }
+
+    /**
+     * @return revision of the status being built, or 0 if the status was written in a format without revision
+     */
+    static long getRevision(BinaryObjectBuilder statusBuilder) {
+        Long revision = statusBuilder.getField(REVISION);
+        return revision == null ? 0 : revision;
+    }
+
+    /**
+     * Converts an older status to the current format, before its fields are set in the current format.
+     */
+    static void upgradeFormat(BinaryObjectBuilder statusBuilder) {
+        if (statusBuilder.getField(FORMAT_VERSION) == null) {
+            statusBuilder.removeField(LEGACY_STATUS_ERROR);
+            statusBuilder.removeField(LEGACY_PROCESSING_STATUS_TIMESTAMP);
+        }
+        statusBuilder.setField(FORMAT_VERSION, CURRENT_FORMAT_VERSION);
+    }
+}
@@ -0,0 +1,18 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.session.ProcessingStatus;
+
+import java.io.Serializable;
+
+/**
+ * Predicate on the status of a signature or certificate session. Processing status timestamp is given in epoch
+ * milliseconds.
+ * <p>
+ * NB: Implementations are loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in implementations and in their dependencies!
+ */
+@FunctionalInterface
+public interface SessionStatusPredicate extends Serializable {
+
+    boolean test(ProcessingStatus processingStatus, long processingStatusTimestamp, int processingCounter);
+}
@@ -0,0 +1,26 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.session.ProcessingStatus;
+import ee.openeid.siga.common.session.SessionStatus.StatusError;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.security.cert.X509Certificate;
+
+/**
+ * Status change of a single signature or certificate session. Status error is always replaced,
+ * other fields that are {@code null} are left unchanged. Certificate is added to the certificate holder of the
+ * container session under the document number.
+ */
+@Getter
+@Builder
+public class SessionStatusUpdate {
+    @NonNull
+    private ProcessingStatus processingStatus;
+    private String status;
+    private StatusError statusError;
+    private byte[] signature;
+    private String documentNumber;
+    private X509Certificate certificate;
+}
@@ -0,0 +1,76 @@
+package ee.openeid.siga.session;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.binary.BinaryObjectBuilder;
+import org.apache.ignite.cache.CacheEntryProcessor;
+
+import javax.cache.processor.MutableEntry;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Applies status change to a single signature or certificate session in the binary map of status sessions
+ * stored under the container session ID. Mirrors {@code SessionStatus.setProcessingStatus}.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+@RequiredArgsConstructor
+class SessionStatusUpdateProcessor implements CacheEntryProcessor<String, Map<String, BinaryObject>, Boolean> {
+    private final String statusSessionId;
+    private final String[] requiredFields;
+    private final BinaryObject processingStatus;
+    private final boolean incrementProcessingCounter;
+    private final long processingStatusTimestamp;
+    private final String status;
+    private final String statusErrorCode;
+    private final String statusErrorMessage;
+    private final Map<String, Object> sessionFields;
+
+    @Override
+    public Boolean process(MutableEntry<String, Map<String, BinaryObject>> entry, Object... arguments) {
+        Map<String, BinaryObject> statusSessions = entry.getValue();
+        BinaryObject statusSession = statusSessions == null ? null : statusSessions.get(statusSessionId);
+        if (statusSession == null || !hasRequiredField(statusSession)) {
+            return false;
+        }
+        BinaryObjectBuilder sessionBuilder = statusSession.toBuilder();
+        BinaryObjectBuilder statusBuilder = sessionBuilder.getField("sessionStatus");
+        long revision = SessionStatusFields.getRevision(statusBuilder);
+        SessionStatusFields.upgradeFormat(statusBuilder);
+        statusBuilder.setField("processingStatus", processingStatus);
+        statusBuilder.setField(SessionStatusFields.REVISION, revision + 1);
+        statusBuilder.setField(SessionStatusFields.PROCESSING_STATUS_TIMESTAMP, processingStatusTimestamp);
+        if (incrementProcessingCounter) {
+            int processingCounter = statusBuilder.getField("processingCounter");
+            statusBuilder.setField("processingCounter", processingCounter + 1);
+        }
+        if (status != null) {
+            statusBuilder.setField("status", status);
+        }
+        statusBuilder.setField("statusErrorCode", statusErrorCode, String.class);
+        statusBuilder.setField("statusErrorMessage", statusErrorMessage, String.class);
+        sessionFields.forEach(sessionBuilder::setField);
+
+        Map<String, BinaryObject> updatedStatusSessions = new HashMap<>(statusSessions);
+        updatedStatusSessions.put(statusSessionId, sessionBuilder.build());
+        entry.setValue(updatedStatusSessions);
+        return true;
+    }
+
+    /**
+     * @return whether the session has any of the required fields, which may be named differently in the legacy format
+     */
+    private boolean hasRequiredField(BinaryObject statusSession) {
+        if (requiredFields.length == 0) {
+            return true;
+        }
+        for (String requiredField : requiredFields) {
+            if (statusSession.field(requiredField) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,139 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.model.SerializedContainer;
+import ee.openeid.siga.common.session.CertificateSession;
+import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.common.session.SignatureSession;
+
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Storage of container sessions together with their signature and certificate sessions.
+ * <p>
+ * Container sessions expire when not accessed, signature and certificate sessions expire when not modified.
+ * Implementation is selected with {@code siga.session-store.type}.
+ */
+public interface SessionStore {
+
+    /**
+     * @return session with its signature and certificate sessions or {@code null} if session does not exist
+     */
+    Session get(String sessionId);
+
+    void put(Session session);
+
+    /**
+     * Writes the session with the next version, if the stored container session has the expected version.
+     * Status sessions changed after the written ones are kept as stored.
+     *
+     * @return {@code false} if the session does not exist or has been changed since the expected version
+     */
+    boolean put(Session session, long expectedVersion);
+
+    void remove(String sessionId);
+
+    /**
+     * Reads a single signature session without data to sign, signing certificate and signature value.
+     *
+     * @return signature session or {@code null} if session or signature session does not exist
+     */
+    SignatureSession getSignatureSessionStatus(String sessionId, String signatureId);
+
+    /**
+     * @return certificate session or {@code null} if session or certificate session does not exist
+     */
+    CertificateSession getCertificateSessionStatus(String sessionId, String certificateId);
+
+    /**
+     * @return {@code false} if signature session does not exist or has been cleared
+     */
+    boolean updateSignatureSessionStatus(String sessionId, String signatureId, SessionStatusUpdate statusUpdate);
+
+    /**
+     * Certificate of the status update is added to the container session together with the status change.
+     *
+     * @return {@code false} if certificate session does not exist, or container session does not exist
+     * when certificate is added
+     */
+    boolean updateCertificateSessionStatus(String sessionId, String certificateId, SessionStatusUpdate statusUpdate);
+
+    /**
+     * @return {@code false} if container session does not exist
+     */
+    boolean addCertificate(String sessionId, String documentNumber, X509Certificate certificate);
+
+    /**
+     * @return IDs of sessions having a signature session with status matching the predicate
+     */
+    List<String> findSessionIdsBySignatureStatus(SessionStatusPredicate predicate);
+
+    /**
+     * @return IDs of sessions having a certificate session with status matching the predicate
+     */
+    List<String> findSessionIdsByCertificateStatus(SessionStatusPredicate predicate);
+
+    /**
+     * Notifies the listener of all sessions currently having an unfinished signature session and of every later change
+     * of signature sessions of sessions that have or had an unfinished signature session. Sessions whose signature
+     * sessions are all finished or that have been removed are notified with no status sessions.
+     * <p>
+     * Notifications may be repeated or, for concurrent changes of the same session, arrive out of order.
+     *
+     * @return action that stops notifying the listener
+     */
+    Runnable listenUnfinishedSignatureSessions(Consumer<UnfinishedStatusSessions> listener);
+
+    /**
+     * Like {@link #listenUnfinishedSignatureSessions(Consumer)}, for certificate sessions.
+     *
+     * @return action that stops notifying the listener
+     */
+    Runnable listenUnfinishedCertificateSessions(Consumer<UnfinishedStatusSessions> listener);
+
+    /**
+     * Sessions are divided between the SiGa nodes, so that work done for every session, like reprocessing of its
+     * statuses, is done by a single node. The assignment may change when SiGa nodes join or leave.
+     *
+     * @return {@code true} if the session is currently assigned to this SiGa node
+     */
+    boolean isAssignedToLocalNode(String sessionId);
+
+    /**
+     * @return {@code true} if there is another SiGa node that status polls of this node can be handed over to
+     */
+    boolean isStatusPollHandOverAvailable();
+
+    /**
+     * Hands the status polls over to other SiGa nodes, which are notified by the listener registered with
+     * {@link #listenHandedOverStatusPolls(Consumer)}. Each poll is handed over to the node that the session would be
+     * assigned to without this node.
+     */
+    void handOverStatusPolls(List<StatusPollHandOver> polls);
+
+    /**
+     * Notifies the listener of status polls handed over to this SiGa node by other nodes.
+     *
+     * @return action that stops notifying the listener
+     */
+    Runnable listenHandedOverStatusPolls(Consumer<List<StatusPollHandOver>> listener);
+
+    /**
+     * @return container serialized from the given version of the session, or {@code null} if it is not cached
+     */
+    SerializedContainer getSerializedContainer(String sessionId, long version);
+
+    /**
+     * Caches the container serialized from the given version of the session, separately from the session. Cached
+     * containers expire after {@code siga.session-store.serialized-container.time-to-live}.
+     *
+     * @return container cached for the version, which is the given one unless another one has been cached first
+     */
+    SerializedContainer putSerializedContainer(String sessionId, long version, SerializedContainer container);
+
+    /**
+     * @return number of stored container sessions
+     */
+    int size();
+}
@@ -0,0 +1,25 @@
+package ee.openeid.siga.session;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.lang.IgniteRunnable;
+import org.apache.ignite.resources.IgniteInstanceResource;
+
+/**
+ * Reads the container session on the primary node of the session key, so that its {@code TouchedExpiryPolicy} is
+ * renewed without sending the session to the SiGa node. Used when the session is read from {@link SessionNearCache}.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+@RequiredArgsConstructor
+class SessionTouchJob implements IgniteRunnable {
+    private final String sessionId;
+    @IgniteInstanceResource
+    private transient Ignite ignite;
+
+    @Override
+    public void run() {
+        ignite.cache(CacheName.CONTAINER_SESSION.name()).withKeepBinary().get(sessionId);
+    }
+}
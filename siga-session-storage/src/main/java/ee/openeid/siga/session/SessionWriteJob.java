@@ -0,0 +1,68 @@
+package ee.openeid.siga.session;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.lang.IgniteRunnable;
+import org.apache.ignite.resources.IgniteInstanceResource;
+
+import java.util.Map;
+
+/**
+ * Writes all session parts on the primary node of the session key. A {@code null} entries holder removes the session.
+ * The container blob reference held by the replaced or removed container session is released, unless the written
+ * container session holds the same reference.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+@RequiredArgsConstructor
+class SessionWriteJob implements IgniteRunnable {
+    static final String CONTAINER_DIGEST_FIELD = "containerDigest";
+    static final String CONTAINER_REFERENCE_FIELD = "containerReference";
+    private final String sessionId;
+    private final SessionEntries entries;
+    @IgniteInstanceResource
+    private transient Ignite ignite;
+
+    @Override
+    public void run() {
+        synchronized (SessionKeyLocks.get(sessionId)) {
+            if (entries == null) {
+                BinaryObject container = ignite.cache(CacheName.CONTAINER_SESSION.name())
+                        .<String, BinaryObject>withKeepBinary()
+                        .getAndRemove(sessionId);
+                releaseReplacedContainer(ignite, container, null);
+                ignite.cache(CacheName.SIGNATURE_SESSION.name()).remove(sessionId);
+                ignite.cache(CacheName.CERTIFICATE_SESSION.name()).remove(sessionId);
+            } else {
+                BinaryObject replacedContainer = ignite.cache(CacheName.CONTAINER_SESSION.name())
+                        .<String, BinaryObject>withKeepBinary()
+                        .getAndPut(sessionId, entries.getContainer());
+                releaseReplacedContainer(ignite, replacedContainer, entries.getContainer());
+                ignite.cache(CacheName.SIGNATURE_SESSION.name())
+                        .<String, Map<String, BinaryObject>>withKeepBinary()
+                        .put(sessionId, entries.getSignatureSessions());
+                ignite.cache(CacheName.CERTIFICATE_SESSION.name())
+                        .<String, Map<String, BinaryObject>>withKeepBinary()
+                        .put(sessionId, entries.getCertificateSessions());
+            }
+        }
+    }
+
+    static void releaseReplacedContainer(Ignite ignite, BinaryObject replacedContainer, BinaryObject container) {
+        String replacedReference = getContainerReference(replacedContainer);
+        if (replacedReference == null || replacedReference.equals(getContainerReference(container))) {
+            return;
+        }
+        ignite.cache(CacheName.CONTAINER_BLOB.name())
+                .<String, BinaryObject>withKeepBinary()
+                .invoke(replacedContainer.field(CONTAINER_DIGEST_FIELD), new ContainerBlobReleaseProcessor(replacedReference));
+    }
+
+    private static String getContainerReference(BinaryObject container) {
+        return container != null && container.hasField(CONTAINER_REFERENCE_FIELD) && container.field(CONTAINER_DIGEST_FIELD) != null
+                ? container.field(CONTAINER_REFERENCE_FIELD)
+                : null;
+    }
+}
@@ -0,0 +1,18 @@
+package ee.openeid.siga.session;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * MID or Smart-ID status poll of a signature or certificate session, handed over to another SiGa node by a node that
+ * is shutting down. Due time is given in epoch milliseconds.
+ */
+@Getter
+@RequiredArgsConstructor
+public class StatusPollHandOver implements Serializable {
+    private final String sessionId;
+    private final String statusSessionId;
+    private final long dueTime;
+}
@@ -0,0 +1,36 @@
+package ee.openeid.siga.session;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.binary.BinaryObjectBuilder;
+import org.apache.ignite.cache.CacheEntryProcessor;
+
+import javax.cache.processor.MutableEntry;
+import java.util.Map;
+
+/**
+ * Reads a single signature or certificate session from the binary session map, without transferring the other
+ * sessions of the container. Excluded fields are left out of the returned session.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+@RequiredArgsConstructor
+class StatusSessionReadProcessor implements CacheEntryProcessor<String, Map<String, BinaryObject>, BinaryObject> {
+    private final String statusSessionId;
+    private final String[] excludedFields;
+
+    @Override
+    public BinaryObject process(MutableEntry<String, Map<String, BinaryObject>> entry, Object... arguments) {
+        Map<String, BinaryObject> statusSessions = entry.getValue();
+        BinaryObject statusSession = statusSessions == null ? null : statusSessions.get(statusSessionId);
+        if (statusSession == null || excludedFields.length == 0) {
+            return statusSession;
+        }
+        BinaryObjectBuilder statusSessionBuilder = statusSession.toBuilder();
+        for (String excludedField : excludedFields) {
+            statusSessionBuilder.removeField(excludedField);
+        }
+        return statusSessionBuilder.build();
+    }
+}
@@ -0,0 +1,33 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.session.ProcessingStatus;
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.internal.binary.BinaryEnumObjectImpl;
+import org.apache.ignite.lang.IgniteBiPredicate;
+
+import java.util.Map;
+
+/**
+ * Matches binary maps of signature or certificate sessions having at least one session with status matching
+ * the predicate.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+@RequiredArgsConstructor
+class StatusSessionScanFilter implements IgniteBiPredicate<String, Map<String, BinaryObject>> {
+    private final SessionStatusPredicate predicate;
+
+    @Override
+    public boolean apply(String sessionId, Map<String, BinaryObject> statusSessions) {
+        return statusSessions.values().stream()
+                .map(s -> (BinaryObject) s.field("sessionStatus"))
+                .anyMatch(sessionStatus -> {
+                    int statusOrdinal = sessionStatus.<BinaryEnumObjectImpl>field("processingStatus").enumOrdinal();
+                    long statusTimestamp = SessionStatusFields.getProcessingStatusTimestamp(sessionStatus);
+                    int processingCounter = sessionStatus.field("processingCounter");
+                    return predicate.test(ProcessingStatus.values()[statusOrdinal], statusTimestamp, processingCounter);
+                });
+    }
+}
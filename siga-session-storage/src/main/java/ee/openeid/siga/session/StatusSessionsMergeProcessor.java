@@ -0,0 +1,58 @@
+package ee.openeid.siga.session;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.CacheEntryProcessor;
+
+import javax.cache.processor.MutableEntry;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Replaces the binary map of status sessions stored under the container session ID. Status sessions whose stored
+ * status has a higher revision than the written one, because it has been changed after the written one was read,
+ * for example by status polling, are kept as stored. Revisions are compared instead of status timestamps, which
+ * are taken from the clocks of different SiGa nodes. Status sessions written without any of the data fields, like
+ * cleared signing sessions, are always written.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+@RequiredArgsConstructor
+class StatusSessionsMergeProcessor implements CacheEntryProcessor<String, Map<String, BinaryObject>, Void> {
+    private final Map<String, BinaryObject> statusSessions;
+    private final String[] dataFields;
+
+    @Override
+    public Void process(MutableEntry<String, Map<String, BinaryObject>> entry, Object... arguments) {
+        Map<String, BinaryObject> storedStatusSessions = entry.getValue();
+        Map<String, BinaryObject> mergedStatusSessions = statusSessions == null ? new HashMap<>() : new HashMap<>(statusSessions);
+        if (storedStatusSessions != null) {
+            mergedStatusSessions.replaceAll((id, statusSession) -> {
+                BinaryObject storedStatusSession = storedStatusSessions.get(id);
+                return storedStatusSession != null && hasDataField(statusSession)
+                        && getRevision(storedStatusSession) > getRevision(statusSession)
+                        ? storedStatusSession
+                        : statusSession;
+            });
+        }
+        entry.setValue(mergedStatusSessions);
+        return null;
+    }
+
+    private boolean hasDataField(BinaryObject statusSession) {
+        if (dataFields.length == 0) {
+            return true;
+        }
+        for (String dataField : dataFields) {
+            if (statusSession.field(dataField) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long getRevision(BinaryObject statusSession) {
+        return SessionStatusFields.getRevision(statusSession.field("sessionStatus"));
+    }
+}
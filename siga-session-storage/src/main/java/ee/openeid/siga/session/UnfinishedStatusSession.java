@@ -0,0 +1,23 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.session.ProcessingStatus;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Status of a signature or certificate session that is still processing or has failed. Processing status timestamp
+ * is given in epoch milliseconds.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+@Getter
+@RequiredArgsConstructor
+public class UnfinishedStatusSession implements Serializable {
+    private final String statusSessionId;
+    private final ProcessingStatus processingStatus;
+    private final long processingStatusTimestamp;
+    private final int processingCounter;
+}
@@ -0,0 +1,52 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.session.ProcessingStatus;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.internal.binary.BinaryEnumObjectImpl;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Signature or certificate sessions of a container session that are still processing or have failed. Empty when
+ * all status sessions of the container session have a result or the container session has been removed.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+@Getter
+@RequiredArgsConstructor
+public class UnfinishedStatusSessions implements Serializable {
+    private final String sessionId;
+    private final List<UnfinishedStatusSession> statusSessions;
+
+    static UnfinishedStatusSessions of(String sessionId, Map<String, BinaryObject> statusSessions) {
+        List<UnfinishedStatusSession> unfinishedStatusSessions = new ArrayList<>();
+        if (statusSessions != null) {
+            statusSessions.forEach((statusSessionId, statusSession) -> {
+                BinaryObject sessionStatus = statusSession.field("sessionStatus");
+                ProcessingStatus processingStatus = getProcessingStatus(sessionStatus);
+                if (processingStatus != null && processingStatus != ProcessingStatus.RESULT) {
+                    unfinishedStatusSessions.add(new UnfinishedStatusSession(statusSessionId, processingStatus,
+                            SessionStatusFields.getProcessingStatusTimestamp(sessionStatus), sessionStatus.field("processingCounter")));
+                }
+            });
+        }
+        return new UnfinishedStatusSessions(sessionId, unfinishedStatusSessions);
+    }
+
+    static boolean hasUnfinished(Map<String, BinaryObject> statusSessions) {
+        return statusSessions != null && statusSessions.values().stream()
+                .map(statusSession -> getProcessingStatus(statusSession.field("sessionStatus")))
+                .anyMatch(processingStatus -> processingStatus != null && processingStatus != ProcessingStatus.RESULT);
+    }
+
+    private static ProcessingStatus getProcessingStatus(BinaryObject sessionStatus) {
+        BinaryEnumObjectImpl processingStatus = sessionStatus == null ? null : sessionStatus.field("processingStatus");
+        return processingStatus == null ? null : ProcessingStatus.values()[processingStatus.enumOrdinal()];
+    }
+}
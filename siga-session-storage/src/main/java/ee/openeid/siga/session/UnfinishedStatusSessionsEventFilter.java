@@ -0,0 +1,39 @@
+package ee.openeid.siga.session;
+
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.cache.CacheEntryEventSerializableFilter;
+import org.apache.ignite.lang.IgniteClosure;
+
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.EventType;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Passes changes of binary maps of signature or certificate sessions that have an unfinished status session before
+ * or after the change, and transforms them into {@link UnfinishedStatusSessions}, so that only the statuses are sent
+ * to the listening SiGa nodes. Removed and expired maps are transformed into empty ones.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+class UnfinishedStatusSessionsEventFilter implements CacheEntryEventSerializableFilter<String, Map<String, BinaryObject>>,
+        IgniteClosure<CacheEntryEvent<? extends String, ? extends Map<String, BinaryObject>>, UnfinishedStatusSessions> {
+
+    @Override
+    public boolean evaluate(CacheEntryEvent<? extends String, ? extends Map<String, BinaryObject>> event) {
+        return UnfinishedStatusSessions.hasUnfinished(event.getValue())
+                || (event.isOldValueAvailable() && UnfinishedStatusSessions.hasUnfinished(event.getOldValue()));
+    }
+
+    @Override
+    public UnfinishedStatusSessions apply(CacheEntryEvent<? extends String, ? extends Map<String, BinaryObject>> event) {
+        return isRemoval(event)
+                ? new UnfinishedStatusSessions(event.getKey(), List.of())
+                : UnfinishedStatusSessions.of(event.getKey(), event.getValue());
+    }
+
+    private static boolean isRemoval(CacheEntryEvent<?, ?> event) {
+        return event.getEventType() == EventType.REMOVED || event.getEventType() == EventType.EXPIRED;
+    }
+}
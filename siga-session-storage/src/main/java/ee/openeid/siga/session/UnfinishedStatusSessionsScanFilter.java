@@ -0,0 +1,29 @@
+package ee.openeid.siga.session;
+
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.lang.IgniteBiPredicate;
+import org.apache.ignite.lang.IgniteClosure;
+
+import javax.cache.Cache;
+import java.util.Map;
+
+/**
+ * Matches binary maps of signature or certificate sessions having an unfinished status session and transforms them
+ * into {@link UnfinishedStatusSessions}.
+ * <p>
+ * NB: This class is loaded into Ignite server nodes via peer class loading.
+ * If possible, avoid making changes in this class and in its dependencies!
+ */
+class UnfinishedStatusSessionsScanFilter implements IgniteBiPredicate<String, Map<String, BinaryObject>>,
+        IgniteClosure<Cache.Entry<String, Map<String, BinaryObject>>, UnfinishedStatusSessions> {
+
+    @Override
+    public boolean apply(String sessionId, Map<String, BinaryObject> statusSessions) {
+        return UnfinishedStatusSessions.hasUnfinished(statusSessions);
+    }
+
+    @Override
+    public UnfinishedStatusSessions apply(Cache.Entry<String, Map<String, BinaryObject>> entry) {
+        return UnfinishedStatusSessions.of(entry.getKey(), entry.getValue());
+    }
+}
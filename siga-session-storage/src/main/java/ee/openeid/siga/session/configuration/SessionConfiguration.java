@@ -1,24 +1,33 @@
 package ee.openeid.siga.session.configuration;
 
-import ee.openeid.siga.auth.model.SigaService;
-import ee.openeid.siga.auth.repository.ConnectionRepository;
-import ee.openeid.siga.auth.repository.ServiceRepository;
+import ee.openeid.siga.common.configuration.ConditionalOnIgniteSessionStore;
 import ee.openeid.siga.session.CacheName;
-import ee.openeid.siga.session.SessionService;
+import ee.openeid.siga.session.ContainerBlobStore;
+import ee.openeid.siga.session.ExpiredSessionCleaner;
+import ee.openeid.siga.session.IgniteSessionLockService;
+import ee.openeid.siga.session.SessionExpiredEventFilter;
+import ee.openeid.siga.session.SessionPartitionAssignment;
 import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.ignite.Ignite;
 import org.apache.ignite.Ignition;
 import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.binary.BinaryObjectBuilder;
+import org.apache.ignite.configuration.IgniteConfiguration;
 import org.apache.ignite.events.CacheEvent;
 import org.apache.ignite.events.EventType;
+import org.apache.ignite.internal.IgnitionEx;
 import org.apache.ignite.internal.binary.builder.BinaryObjectBuilderImpl;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.SpringBootConfiguration;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Profile;
+import org.springframework.util.StringUtils;
 
-import java.util.Optional;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.apache.ignite.IgniteSystemProperties.IGNITE_NO_SHUTDOWN_HOOK;
@@ -26,45 +35,62 @@ import static org.apache.ignite.IgniteSystemProperties.IGNITE_NO_SHUTDOWN_HOOK;
 @Slf4j
 @Profile("!test")
 @SpringBootConfiguration
+@ConditionalOnIgniteSessionStore
 @EnableConfigurationProperties({SessionConfigurationProperties.class})
 @RequiredArgsConstructor
 public class SessionConfiguration {
     private final SessionConfigurationProperties sessionConfigurationProperties;
-    private final ConnectionRepository connectionRepository;
-    private final ServiceRepository serviceRepository;
+    private final ObjectProvider<ExpiredSessionCleaner> expiredSessionCleaner;
+    private final ObjectProvider<ContainerBlobStore> containerBlobStore;
+    private final ObjectProvider<IgniteSessionLockService> sessionLockService;
 
     @Bean(destroyMethod = "close")
     public Ignite ignite() {
         System.setProperty(IGNITE_NO_SHUTDOWN_HOOK, "true"); // Graceful shutdown is controlled by SessionStatusService
+        if (!StringUtils.hasText(sessionConfigurationProperties.getConfigurationLocation())) {
+            throw new IllegalStateException("siga.ignite.configuration-location property must be set");
+        }
+        IgniteConfiguration configuration = loadConfiguration(sessionConfigurationProperties.getConfigurationLocation());
+        Map<String, Object> userAttributes = configuration.getUserAttributes() == null
+                ? new HashMap<>()
+                : new HashMap<>(configuration.getUserAttributes());
+        userAttributes.put(SessionPartitionAssignment.SIGA_NODE_ATTRIBUTE, Boolean.TRUE);
+        configuration.setUserAttributes(userAttributes);
         Ignition.setClientMode(true);
-        Ignite ignite = Ignition.start(sessionConfigurationProperties.getConfigurationLocation());
+        Ignite ignite = Ignition.start(configuration);
 
         ignite.events(ignite.cluster().forCacheNodes(CacheName.CONTAINER_SESSION.name())).remoteListen((UUID uuid, CacheEvent event) -> {
-            log.info(String.format("CACHE_OBJECT_EXPIRED event received: cacheName=%s, key=%s", event.cacheName(), event.key().toString()));
+            log.debug("CACHE_OBJECT_EXPIRED event received: cacheName={}, key={}", event.cacheName(), event.key());
             if (CacheName.CONTAINER_SESSION.name().equals(event.cacheName())) {
-                removeContainerConnectionData((BinaryObject) event.oldValue());
+                BinaryObjectBuilder sessionObject = BinaryObjectBuilderImpl.wrap((BinaryObject) event.oldValue());
+                expiredSessionCleaner.getObject().removeContainerConnectionData(sessionObject.getField("sessionId"));
+                releaseContainerBlob(sessionObject);
+            } else if (CacheName.SIGNATURE_SESSION.name().equals(event.cacheName())
+                    || CacheName.CERTIFICATE_SESSION.name().equals(event.cacheName())) {
+                removeSigningLocks(event.oldValue());
             }
             return true;
-        }, null, EventType.EVT_CACHE_OBJECT_EXPIRED);
+        }, new SessionExpiredEventFilter(), EventType.EVT_CACHE_OBJECT_EXPIRED);
 
         return ignite;
     }
 
-    private void removeContainerConnectionData(BinaryObject sessionObject) {
-        String sessionId = BinaryObjectBuilderImpl.wrap(sessionObject).getField("sessionId");
-        if (sessionId == null) {
-            log.debug("Session with ID " + sessionId + " not found. No need to delete it.");
-            return;
+    @SneakyThrows
+    private static IgniteConfiguration loadConfiguration(String configurationLocation) {
+        return IgnitionEx.loadConfiguration(configurationLocation).get1();
+    }
+
+    private void removeSigningLocks(Object statusSessions) {
+        if (statusSessions instanceof Map<?, ?> sessions) {
+            sessionLockService.getObject().removeLocksAsync(sessions.keySet().stream().map(String::valueOf).toList());
+        }
+    }
+
+    private void releaseContainerBlob(BinaryObjectBuilder sessionObject) {
+        String containerDigest = sessionObject.getField("containerDigest");
+        String containerReference = sessionObject.getField("containerReference");
+        if (containerDigest != null && containerReference != null) {
+            containerBlobStore.getObject().releaseAsync(containerDigest, containerReference);
         }
-        String containerId = SessionService.parseContainerId(sessionId);
-        String serviceUuid = SessionService.parseServiceUuid(sessionId);
-        serviceRepository.findByUuid(serviceUuid)
-                .ifPresentOrElse(
-                    service -> {
-                        int count = connectionRepository.deleteByContainerIdAndServiceId(containerId, service.getId());
-                        log.debug("Deleted " + count + " connection(s) by container id " + containerId + " and service ID " + service.getId());
-                    },
-                    () -> log.debug("Service with UUID " + serviceUuid + " not found. No need to delete it.")
-                );
     }
 }
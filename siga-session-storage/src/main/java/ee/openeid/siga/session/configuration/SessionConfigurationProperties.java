@@ -5,7 +5,14 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import java.time.Duration;
 
 @Getter
 @Setter
@@ -13,8 +20,48 @@ import jakarta.validation.constraints.NotBlank;
 @Validated
 @ConfigurationProperties(prefix = "siga.ignite")
 public class SessionConfigurationProperties {
-    @NotBlank(message = "siga.ignite.configuration-location propery must be set")
+    /**
+     * Required when sessions are stored in Ignite, checked by {@link SessionConfiguration}.
+     */
     private String configurationLocation;
     @NotBlank(message = "siga.ignite.application-cache-version propery must be set")
     private String applicationCacheVersion;
+    @Valid
+    private NearCache nearCache = new NearCache();
+    @Valid
+    private ContainerCompression containerCompression = new ContainerCompression();
+    @Valid
+    private ContainerBlobSweep containerBlobSweep = new ContainerBlobSweep();
+
+    @Getter
+    @Setter
+    public static class NearCache {
+        private boolean enabled = false;
+        @Positive
+        private long maxSize = 1000;
+        @NotNull
+        private Duration timeToLive = Duration.ofSeconds(30);
+        @NotNull
+        private Duration touchInterval = Duration.ofSeconds(5);
+    }
+
+    @Getter
+    @Setter
+    public static class ContainerCompression {
+        private boolean enabled = false;
+        @PositiveOrZero
+        private int threshold = 16384;
+        @Min(1)
+        @Max(22)
+        private int level = 3;
+    }
+
+    @Getter
+    @Setter
+    public static class ContainerBlobSweep {
+        @NotNull
+        private Duration interval = Duration.ofMinutes(10);
+        @NotNull
+        private Duration gracePeriod = Duration.ofMinutes(10);
+    }
 }
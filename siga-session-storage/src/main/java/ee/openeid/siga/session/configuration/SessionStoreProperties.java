@@ -0,0 +1,73 @@
+package ee.openeid.siga.session.configuration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.time.Duration;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "siga.session-store")
+public class SessionStoreProperties {
+    @NotNull
+    private Type type = Type.IGNITE;
+    @Valid
+    private Embedded embedded = new Embedded();
+    @Valid
+    private ExpiredSessionCleanUp expiredSessionCleanUp = new ExpiredSessionCleanUp();
+    @Valid
+    private SigningLock signingLock = new SigningLock();
+    @Valid
+    private SerializedContainer serializedContainer = new SerializedContainer();
+
+    public enum Type {
+        IGNITE,
+        EMBEDDED
+    }
+
+    @Getter
+    @Setter
+    public static class Embedded {
+        @Positive
+        private long maxSize = 10000;
+        @NotNull
+        private Duration containerTimeToIdle = Duration.ofSeconds(300);
+        @NotNull
+        private Duration statusTimeToLive = Duration.ofSeconds(300);
+        @NotNull
+        private Duration cleanUpInterval = Duration.ofMinutes(1);
+    }
+
+    @Getter
+    @Setter
+    public static class ExpiredSessionCleanUp {
+        @Positive
+        private int queueCapacity = 10000;
+        @Positive
+        private int batchSize = 100;
+        @NotNull
+        private Duration flushInterval = Duration.ofSeconds(1);
+        @NotNull
+        private Duration offerTimeout = Duration.ofMillis(100);
+    }
+
+    @Getter
+    @Setter
+    public static class SigningLock {
+        @NotNull
+        private Duration lease = Duration.ofSeconds(300);
+    }
+
+    @Getter
+    @Setter
+    public static class SerializedContainer {
+        @NotNull
+        private Duration timeToLive = Duration.ofSeconds(60);
+    }
+}
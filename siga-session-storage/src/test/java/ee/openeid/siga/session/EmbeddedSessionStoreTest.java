@@ -0,0 +1,277 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.exception.TechnicalException;
+import ee.openeid.siga.common.model.SigningType;
+import ee.openeid.siga.common.session.CertificateSession;
+import ee.openeid.siga.common.session.HashcodeContainerSession;
+import ee.openeid.siga.common.session.ProcessingStatus;
+import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.common.session.SessionStatus.StatusError;
+import ee.openeid.siga.common.session.SignatureSession;
+import ee.openeid.siga.session.configuration.SessionStoreProperties;
+import org.digidoc4j.DataToSign;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class EmbeddedSessionStoreTest {
+    private static final String SESSION_ID = "v1_service-uuid_container1";
+    private static final String SIGNATURE_ID = "signature1";
+    private static final String CERTIFICATE_ID = "certificate1";
+
+    @Mock
+    private ExpiredSessionCleaner expiredSessionCleaner;
+    private final SessionStoreProperties properties = new SessionStoreProperties();
+    private EmbeddedSessionStore sessionStore;
+
+    @BeforeEach
+    void setUp() {
+        sessionStore = new EmbeddedSessionStore(properties, expiredSessionCleaner);
+    }
+
+    @Test
+    void get_WhenSessionStored_ReturnsAllSessionParts() {
+        sessionStore.put(createSession(SESSION_ID));
+
+        Session session = sessionStore.get(SESSION_ID);
+
+        assertEquals(SESSION_ID, session.getSessionId());
+        assertEquals("mid-session-code", session.getSignatureSession(SIGNATURE_ID).getSessionCode());
+        assertEquals("sid-session-code", session.getCertificateSession(CERTIFICATE_ID).getSessionCode());
+        assertEquals(1, sessionStore.size());
+    }
+
+    @Test
+    void get_WhenSessionRemoved_ReturnsNull() {
+        sessionStore.put(createSession(SESSION_ID));
+
+        sessionStore.remove(SESSION_ID);
+
+        assertNull(sessionStore.get(SESSION_ID));
+        assertNull(sessionStore.getSignatureSessionStatus(SESSION_ID, SIGNATURE_ID));
+        verify(expiredSessionCleaner, never()).removeContainerConnectionData(SESSION_ID);
+    }
+
+    @Test
+    void updateSignatureSessionStatus_WhenSignatureSessionExists_UpdatesStatusAndSignature() {
+        sessionStore.put(createSession(SESSION_ID));
+
+        assertTrue(sessionStore.updateSignatureSessionStatus(SESSION_ID, SIGNATURE_ID, SessionStatusUpdate.builder()
+                .processingStatus(ProcessingStatus.RESULT)
+                .status("SIGNATURE")
+                .signature(new byte[]{1, 2, 3})
+                .build()));
+
+        SignatureSession signatureSession = sessionStore.getSignatureSessionStatus(SESSION_ID, SIGNATURE_ID);
+        assertEquals(ProcessingStatus.RESULT, signatureSession.getSessionStatus().getProcessingStatus());
+        assertEquals("SIGNATURE", signatureSession.getSessionStatus().getStatus());
+        assertArrayEquals(new byte[]{1, 2, 3}, signatureSession.getSignature());
+    }
+
+    @Test
+    void updateSignatureSessionStatus_WhenSigningSessionCleared_ReturnsFalse() {
+        Session session = createSession(SESSION_ID);
+        session.clearSigningSession(SIGNATURE_ID);
+        sessionStore.put(session);
+
+        assertFalse(sessionStore.updateSignatureSessionStatus(SESSION_ID, SIGNATURE_ID, SessionStatusUpdate.builder()
+                .processingStatus(ProcessingStatus.RESULT)
+                .build()));
+    }
+
+    @Test
+    void updateCertificateSessionStatus_WhenCertificateSessionExists_UpdatesStatusAndDocumentNumber() {
+        sessionStore.put(createSession(SESSION_ID));
+
+        assertTrue(sessionStore.updateCertificateSessionStatus(SESSION_ID, CERTIFICATE_ID, SessionStatusUpdate.builder()
+                .processingStatus(ProcessingStatus.EXCEPTION)
+                .statusError(StatusError.builder().errorCode("CODE").errorMessage("message").build())
+                .documentNumber("PNOEE-123456789-QWER")
+                .build()));
+
+        CertificateSession certificateSession = sessionStore.getCertificateSessionStatus(SESSION_ID, CERTIFICATE_ID);
+        assertEquals(ProcessingStatus.EXCEPTION, certificateSession.getSessionStatus().getProcessingStatus());
+        assertEquals("CODE", certificateSession.getSessionStatus().getStatusError().getErrorCode());
+        assertEquals("PNOEE-123456789-QWER", certificateSession.getDocumentNumber());
+        assertFalse(sessionStore.updateCertificateSessionStatus("unknown", CERTIFICATE_ID, SessionStatusUpdate.builder()
+                .processingStatus(ProcessingStatus.RESULT)
+                .build()));
+    }
+
+    @Test
+    void findSessionIdsBySignatureStatus_ReturnsSessionsWithMatchingSignatureStatus() {
+        sessionStore.put(createSession(SESSION_ID));
+
+        assertEquals(List.of(SESSION_ID), sessionStore.findSessionIdsBySignatureStatus(
+                (processingStatus, timestamp, counter) -> processingStatus == ProcessingStatus.PROCESSING));
+        assertEquals(List.of(), sessionStore.findSessionIdsByCertificateStatus(
+                (processingStatus, timestamp, counter) -> processingStatus == ProcessingStatus.EXCEPTION));
+    }
+
+    @Test
+    void listenUnfinishedSignatureSessions_NotifiesStoredAndChangedUnfinishedSessions() {
+        sessionStore.put(createSession(SESSION_ID));
+        List<UnfinishedStatusSessions> notified = new ArrayList<>();
+
+        Runnable listenerRemoval = sessionStore.listenUnfinishedSignatureSessions(notified::add);
+        sessionStore.updateSignatureSessionStatus(SESSION_ID, SIGNATURE_ID, SessionStatusUpdate.builder()
+                .processingStatus(ProcessingStatus.EXCEPTION)
+                .build());
+        sessionStore.updateSignatureSessionStatus(SESSION_ID, SIGNATURE_ID, SessionStatusUpdate.builder()
+                .processingStatus(ProcessingStatus.RESULT)
+                .build());
+        listenerRemoval.run();
+        sessionStore.put(createSession(SESSION_ID));
+
+        assertEquals(3, notified.size());
+        assertEquals(ProcessingStatus.PROCESSING, notified.get(0).getStatusSessions().get(0).getProcessingStatus());
+        UnfinishedStatusSession failedSession = notified.get(1).getStatusSessions().get(0);
+        assertEquals(SIGNATURE_ID, failedSession.getStatusSessionId());
+        assertEquals(ProcessingStatus.EXCEPTION, failedSession.getProcessingStatus());
+        assertEquals(1, failedSession.getProcessingCounter());
+        assertEquals(SESSION_ID, notified.get(2).getSessionId());
+        assertTrue(notified.get(2).getStatusSessions().isEmpty());
+    }
+
+    @Test
+    void listenUnfinishedCertificateSessions_WhenSessionRemoved_NotifiesNoStatusSessions() {
+        List<UnfinishedStatusSessions> notified = new ArrayList<>();
+        sessionStore.listenUnfinishedCertificateSessions(notified::add);
+
+        sessionStore.put(createSession(SESSION_ID));
+        sessionStore.remove(SESSION_ID);
+
+        assertEquals(2, notified.size());
+        assertEquals(CERTIFICATE_ID, notified.get(0).getStatusSessions().get(0).getStatusSessionId());
+        assertTrue(notified.get(1).getStatusSessions().isEmpty());
+    }
+
+    @Test
+    void put_WhenExpectedVersionIsStale_ReturnsFalseAndKeepsStoredSession() {
+        sessionStore.put(createSession(SESSION_ID));
+        Session session = createSession(SESSION_ID);
+        session.setVersion(5);
+
+        assertFalse(sessionStore.put(session, 5));
+
+        assertNotSame(session, sessionStore.get(SESSION_ID));
+    }
+
+    @Test
+    void put_WhenExpectedVersionMatches_StoresSessionWithNextVersion() {
+        sessionStore.put(createSession(SESSION_ID));
+        Session session = createSession(SESSION_ID);
+
+        assertTrue(sessionStore.put(session, 0));
+
+        assertEquals(1, session.getVersion());
+        assertEquals(1, sessionStore.get(SESSION_ID).getVersion());
+    }
+
+    @Test
+    void put_WhenSessionReadFromStoreIsStale_ReturnsFalse() {
+        sessionStore.put(createSession(SESSION_ID));
+        Session firstRead = sessionStore.get(SESSION_ID);
+        Session secondRead = sessionStore.get(SESSION_ID);
+        assertTrue(sessionStore.put(firstRead, 0));
+
+        assertFalse(sessionStore.put(secondRead, 0));
+
+        assertEquals(1, sessionStore.get(SESSION_ID).getVersion());
+    }
+
+    @Test
+    void put_WhenStatusUpdatedSinceRead_KeepsUpdatedStatus() {
+        sessionStore.put(createSession(SESSION_ID));
+        Session session = sessionStore.get(SESSION_ID);
+        sessionStore.updateSignatureSessionStatus(SESSION_ID, SIGNATURE_ID, SessionStatusUpdate.builder()
+                .processingStatus(ProcessingStatus.RESULT)
+                .status("SIGNATURE")
+                .build());
+
+        assertTrue(sessionStore.put(session, session.getVersion()));
+
+        assertEquals("SIGNATURE", sessionStore.getSignatureSessionStatus(SESSION_ID, SIGNATURE_ID).getSessionStatus().getStatus());
+    }
+
+    @Test
+    void put_WhenSigningSessionClearedAfterStatusUpdatedSinceRead_KeepsSigningSessionCleared() {
+        sessionStore.put(createSession(SESSION_ID));
+        Session session = sessionStore.get(SESSION_ID);
+        sessionStore.updateSignatureSessionStatus(SESSION_ID, SIGNATURE_ID, SessionStatusUpdate.builder()
+                .processingStatus(ProcessingStatus.EXCEPTION)
+                .build());
+        session.clearSigningSession(SIGNATURE_ID);
+
+        assertTrue(sessionStore.put(session, session.getVersion()));
+
+        assertNull(sessionStore.get(SESSION_ID).getSignatureSession(SIGNATURE_ID));
+    }
+
+    @Test
+    void get_WhenReturnedSessionChanged_KeepsStoredSession() {
+        sessionStore.put(createSession(SESSION_ID));
+        Session session = sessionStore.get(SESSION_ID);
+
+        session.addCertificate("PNOEE-123456789-QWER", mock(X509Certificate.class));
+        session.getSignatureSession(SIGNATURE_ID).setPollingStatus(ProcessingStatus.RESULT);
+        session.removeCertificateSession(CERTIFICATE_ID);
+
+        Session storedSession = sessionStore.get(SESSION_ID);
+        assertNotSame(session, storedSession);
+        assertNull(storedSession.getCertificate("PNOEE-123456789-QWER"));
+        assertEquals(ProcessingStatus.PROCESSING, storedSession.getSignatureSessionStatus(SIGNATURE_ID).getProcessingStatus());
+        assertEquals("sid-session-code", storedSession.getCertificateSession(CERTIFICATE_ID).getSessionCode());
+    }
+
+    @Test
+    void put_WhenMaxSizeReached_ThrowsAndKeepsStoredSessions() {
+        properties.getEmbedded().setMaxSize(1);
+        sessionStore = new EmbeddedSessionStore(properties, expiredSessionCleaner);
+        sessionStore.put(createSession(SESSION_ID));
+
+        assertThrows(TechnicalException.class, () -> sessionStore.put(createSession("v1_service-uuid_container2")));
+
+        assertNull(sessionStore.get("v1_service-uuid_container2"));
+        assertEquals(SESSION_ID, sessionStore.get(SESSION_ID).getSessionId());
+        sessionStore.put(createSession(SESSION_ID));
+        verify(expiredSessionCleaner, never()).removeContainerConnectionData(SESSION_ID);
+    }
+
+    private static Session createSession(String sessionId) {
+        HashcodeContainerSession session = HashcodeContainerSession.builder()
+                .sessionId(sessionId)
+                .clientName("client")
+                .serviceName("service")
+                .serviceUuid("service-uuid")
+                .dataFiles(List.of())
+                .build();
+        session.addSignatureSession(SIGNATURE_ID, SignatureSession.builder()
+                .sessionCode("mid-session-code")
+                .signingType(SigningType.MOBILE_ID)
+                .dataToSign(new DataToSign(new byte[]{1, 2, 3}, null))
+                .build());
+        session.addCertificateSession(CERTIFICATE_ID, CertificateSession.builder()
+                .sessionCode("sid-session-code")
+                .build());
+        return session;
+    }
+}
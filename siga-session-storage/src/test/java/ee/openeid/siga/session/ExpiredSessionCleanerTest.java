@@ -0,0 +1,150 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.auth.model.SigaService;
+import ee.openeid.siga.auth.repository.ConnectionRepository;
+import ee.openeid.siga.auth.repository.ServiceRepository;
+import ee.openeid.siga.session.configuration.SessionStoreProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ExpiredSessionCleanerTest {
+    private static final String SERVICE_UUID = "service-uuid";
+    private static final int SERVICE_ID = 7;
+
+    @Mock
+    private ConnectionRepository connectionRepository;
+    @Mock
+    private ServiceRepository serviceRepository;
+    private final SessionStoreProperties properties = new SessionStoreProperties();
+    private ExpiredSessionCleaner expiredSessionCleaner;
+
+    @BeforeEach
+    void setUp() {
+        properties.getExpiredSessionCleanUp().setBatchSize(2);
+        properties.getExpiredSessionCleanUp().setFlushInterval(Duration.ofMillis(200));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        expiredSessionCleaner.stop();
+    }
+
+    @Test
+    void removeContainerConnectionData_WhenBatchIsFull_DeletesConnectionsWithOneStatement() {
+        mockService();
+        startCleaner();
+
+        expiredSessionCleaner.removeContainerConnectionData("v1_" + SERVICE_UUID + "_container1");
+        expiredSessionCleaner.removeContainerConnectionData("v1_" + SERVICE_UUID + "_container2");
+
+        verify(connectionRepository, timeout(5000)).deleteByContainerIdsAndServiceId(List.of("container1", "container2"), SERVICE_ID);
+    }
+
+    @Test
+    void removeContainerConnectionData_WhenFlushIntervalPasses_DeletesPartialBatch() {
+        mockService();
+        startCleaner();
+
+        expiredSessionCleaner.removeContainerConnectionData("v1_" + SERVICE_UUID + "_container1");
+
+        verify(connectionRepository, timeout(5000)).deleteByContainerIdsAndServiceId(List.of("container1"), SERVICE_ID);
+    }
+
+    @Test
+    void removeContainerConnectionData_WhenServiceAlreadyFound_ReusesServiceId() {
+        mockService();
+        startCleaner();
+
+        expiredSessionCleaner.removeContainerConnectionData("v1_" + SERVICE_UUID + "_container1");
+        verify(connectionRepository, timeout(5000)).deleteByContainerIdsAndServiceId(List.of("container1"), SERVICE_ID);
+        expiredSessionCleaner.removeContainerConnectionData("v1_" + SERVICE_UUID + "_container2");
+        verify(connectionRepository, timeout(5000)).deleteByContainerIdsAndServiceId(List.of("container2"), SERVICE_ID);
+
+        verify(serviceRepository, times(1)).findByUuid(SERVICE_UUID);
+    }
+
+    @Test
+    void removeContainerConnectionData_WhenServiceNotFound_DeletesNothing() {
+        when(serviceRepository.findByUuid("unknown-uuid")).thenReturn(Optional.empty());
+        startCleaner();
+
+        expiredSessionCleaner.removeContainerConnectionData("v1_unknown-uuid_container1");
+
+        verify(serviceRepository, timeout(5000)).findByUuid("unknown-uuid");
+        verify(connectionRepository, never()).deleteByContainerIdsAndServiceId(any(), anyInt());
+    }
+
+    @Test
+    void removeContainerConnectionData_WhenQueueStaysFull_DropsSessionWithoutDeletingConnections() {
+        mockService();
+        properties.getExpiredSessionCleanUp().setQueueCapacity(1);
+        properties.getExpiredSessionCleanUp().setOfferTimeout(Duration.ofMillis(10));
+        expiredSessionCleaner = new ExpiredSessionCleaner(connectionRepository, serviceRepository, properties);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        expiredSessionCleaner.bindTo(registry);
+
+        expiredSessionCleaner.removeContainerConnectionData("v1_" + SERVICE_UUID + "_container1");
+        expiredSessionCleaner.removeContainerConnectionData("v1_" + SERVICE_UUID + "_container2");
+
+        verifyNoInteractions(connectionRepository, serviceRepository);
+        assertEquals(1, registry.get("siga.session.expired.clean.up.dropped").functionCounter().count());
+        assertEquals(1, registry.get("siga.session.expired.clean.up.queue.size").gauge().value());
+    }
+
+    @Test
+    void removeContainerConnectionData_WhenQueueFreesUpWithinOfferTimeout_QueuesSession() {
+        mockService();
+        properties.getExpiredSessionCleanUp().setQueueCapacity(1);
+        properties.getExpiredSessionCleanUp().setBatchSize(1);
+        properties.getExpiredSessionCleanUp().setOfferTimeout(Duration.ofSeconds(5));
+        startCleaner();
+
+        expiredSessionCleaner.removeContainerConnectionData("v1_" + SERVICE_UUID + "_container1");
+        expiredSessionCleaner.removeContainerConnectionData("v1_" + SERVICE_UUID + "_container2");
+        expiredSessionCleaner.removeContainerConnectionData("v1_" + SERVICE_UUID + "_container3");
+
+        verify(connectionRepository, timeout(5000)).deleteByContainerIdsAndServiceId(List.of("container3"), SERVICE_ID);
+    }
+
+    @Test
+    void stop_WhenSessionsQueued_DeletesTheirConnections() throws InterruptedException {
+        mockService();
+        expiredSessionCleaner = new ExpiredSessionCleaner(connectionRepository, serviceRepository, properties);
+        expiredSessionCleaner.removeContainerConnectionData("v1_" + SERVICE_UUID + "_container1");
+
+        expiredSessionCleaner.stop();
+
+        verify(connectionRepository).deleteByContainerIdsAndServiceId(List.of("container1"), SERVICE_ID);
+    }
+
+    private void startCleaner() {
+        expiredSessionCleaner = new ExpiredSessionCleaner(connectionRepository, serviceRepository, properties);
+        expiredSessionCleaner.start();
+    }
+
+    private void mockService() {
+        SigaService service = new SigaService();
+        service.setId(SERVICE_ID);
+        when(serviceRepository.findByUuid(SERVICE_UUID)).thenReturn(Optional.of(service));
+    }
+}
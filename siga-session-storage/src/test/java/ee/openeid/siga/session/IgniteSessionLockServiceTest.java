@@ -0,0 +1,123 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.session.configuration.SessionStoreProperties;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.apache.ignite.spi.discovery.tcp.ipfinder.vm.TcpDiscoveryVmIpFinder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IgniteSessionLockServiceTest {
+    private static Ignite ignite;
+    private static IgniteCache<String, String> lockCache;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private IgniteSessionLockService sessionLockService;
+    private String lockName;
+
+    @TempDir
+    static Path igniteWorkDirectory;
+
+    @BeforeAll
+    static void startIgnite() {
+        ignite = Ignition.start(new IgniteConfiguration()
+                .setIgniteInstanceName("siga-session-lock-test")
+                .setWorkDirectory(igniteWorkDirectory.toString())
+                .setDiscoverySpi(new TcpDiscoverySpi()
+                        .setIpFinder(new TcpDiscoveryVmIpFinder().setAddresses(List.of("127.0.0.1:47500..47509")))));
+        lockCache = ignite.getOrCreateCache(CacheName.SIGNING_LOCK.name());
+    }
+
+    @AfterAll
+    static void stopIgnite() {
+        ignite.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        sessionLockService = new IgniteSessionLockService(ignite, new SessionStoreProperties());
+        sessionLockService.bindTo(meterRegistry);
+        lockName = UUID.randomUUID().toString();
+    }
+
+    @Test
+    void tryLock_WhenLockNotHeld_AcquiresLock() {
+        Optional<SessionLock> lock = sessionLockService.tryLock(lockName);
+
+        assertTrue(lock.isPresent());
+        assertTrue(lockCache.containsKey(lockName));
+        assertEquals(1, meterRegistry.get("siga.session.lock.held").gauge().value());
+        assertEquals(1, meterRegistry.get("siga.session.lock.acquire").tag("result", "acquired").functionTimer().count());
+    }
+
+    @Test
+    void tryLock_WhenLockHeld_ReturnsEmpty() {
+        try (SessionLock ignored = sessionLockService.tryLock(lockName).orElseThrow()) {
+            assertTrue(sessionLockService.tryLock(lockName).isEmpty());
+        }
+        FunctionTimer busyTimer = meterRegistry.get("siga.session.lock.acquire").tag("result", "busy").functionTimer();
+        assertEquals(1, busyTimer.count());
+    }
+
+    @Test
+    void close_RemovesLockEntry() {
+        sessionLockService.tryLock(lockName).orElseThrow().close();
+
+        assertFalse(lockCache.containsKey(lockName));
+        assertEquals(0, meterRegistry.get("siga.session.lock.held").gauge().value());
+        assertTrue(sessionLockService.tryLock(lockName).isPresent());
+    }
+
+    @Test
+    void close_WhenLockTakenOver_KeepsLockOfNewHolder() {
+        SessionLock lock = sessionLockService.tryLock(lockName).orElseThrow();
+        lockCache.put(lockName, UUID.randomUUID() + ":" + UUID.randomUUID());
+        SessionLock takenOverLock = sessionLockService.tryLock(lockName).orElseThrow();
+
+        lock.close();
+
+        assertTrue(lockCache.containsKey(lockName));
+        takenOverLock.close();
+        assertFalse(lockCache.containsKey(lockName));
+    }
+
+    @Test
+    void tryLock_WhenLockHeldByNodeThatLeftCluster_TakesOverLock() {
+        lockCache.put(lockName, UUID.randomUUID() + ":" + UUID.randomUUID());
+
+        assertTrue(sessionLockService.tryLock(lockName).isPresent());
+        assertTrue(lockCache.get(lockName).startsWith(ignite.cluster().localNode().id().toString()));
+        assertEquals(1, meterRegistry.get("siga.session.lock.taken.over").functionCounter().count());
+    }
+
+    @Test
+    void removeLocksAsync_RemovesLocksRegardlessOfHolder() {
+        String otherLockName = UUID.randomUUID().toString();
+        sessionLockService.tryLock(lockName).orElseThrow();
+        sessionLockService.tryLock(otherLockName).orElseThrow();
+
+        sessionLockService.removeLocksAsync(List.of(lockName, otherLockName));
+
+        await().atMost(5, TimeUnit.SECONDS)
+                .until(() -> !lockCache.containsKey(lockName) && !lockCache.containsKey(otherLockName));
+        assertTrue(sessionLockService.tryLock(lockName).isPresent());
+    }
+}
@@ -0,0 +1,32 @@
+package ee.openeid.siga.session;
+
+import org.apache.ignite.events.CacheEvent;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SessionExpiredEventFilterTest {
+    private final SessionExpiredEventFilter filter = new SessionExpiredEventFilter();
+
+    @ParameterizedTest
+    @EnumSource(value = CacheName.class, names = {"CONTAINER_SESSION", "SIGNATURE_SESSION", "CERTIFICATE_SESSION"})
+    void apply_WhenSessionCache_PassesEvent(CacheName cacheName) {
+        assertTrue(filter.apply(createEvent(cacheName)));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = CacheName.class, names = {"CONTAINER_BLOB", "SIGNING_LOCK", "SERIALIZED_CONTAINER"})
+    void apply_WhenOtherCache_DropsEvent(CacheName cacheName) {
+        assertFalse(filter.apply(createEvent(cacheName)));
+    }
+
+    private static CacheEvent createEvent(CacheName cacheName) {
+        CacheEvent event = mock(CacheEvent.class);
+        when(event.cacheName()).thenReturn(cacheName.name());
+        return event;
+    }
+}
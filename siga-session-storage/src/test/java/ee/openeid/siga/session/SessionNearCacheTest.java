@@ -0,0 +1,199 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.session.configuration.SessionConfigurationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteMessaging;
+import org.apache.ignite.cluster.ClusterGroup;
+import org.apache.ignite.cluster.ClusterNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SessionNearCacheTest {
+    private static final String SESSION_ID = "v1_service_CONTAINER_container1";
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private Ignite ignite;
+    @Mock
+    private ClusterGroup otherClientNodes;
+    @Mock
+    private IgniteMessaging messaging;
+    private final SessionConfigurationProperties properties = new SessionConfigurationProperties();
+    private final AtomicInteger loadCount = new AtomicInteger();
+    private final AtomicInteger touchCount = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        when(ignite.cluster().forClients().forRemotes()).thenReturn(otherClientNodes);
+        when(ignite.message(otherClientNodes)).thenReturn(messaging);
+    }
+
+    @Test
+    void get_WhenDisabled_AlwaysLoadsFromCluster() {
+        SessionNearCache nearCache = new SessionNearCache(ignite, properties);
+        SessionEntries entries = createEntries();
+
+        nearCache.get(SESSION_ID, () -> load(entries), this::touch);
+        nearCache.get(SESSION_ID, () -> load(entries), this::touch);
+
+        assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    void get_WhenEnabled_ReturnsLocallyCachedEntriesAndRecordsHitsAndMisses() {
+        SessionNearCache nearCache = createEnabledNearCache();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        nearCache.bindTo(registry);
+        SessionEntries entries = createEntries();
+
+        nearCache.get(SESSION_ID, () -> load(entries), this::touch);
+        SessionEntries cachedEntries = nearCache.get(SESSION_ID, () -> load(entries), this::touch);
+
+        assertSame(entries, cachedEntries);
+        assertEquals(1, loadCount.get());
+        assertEquals(1, registry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void get_WhenLoadedFromCluster_DoesNotTouchSession() {
+        SessionNearCache nearCache = createEnabledNearCache(Duration.ZERO);
+
+        nearCache.get(SESSION_ID, () -> load(createEntries()), this::touch);
+
+        assertEquals(0, touchCount.get());
+    }
+
+    @Test
+    void get_WhenReadLocallyAfterTouchInterval_TouchesSessionInCluster() {
+        SessionNearCache nearCache = createEnabledNearCache(Duration.ZERO);
+        SessionEntries entries = createEntries();
+
+        nearCache.get(SESSION_ID, () -> load(entries), this::touch);
+        nearCache.get(SESSION_ID, () -> load(entries), this::touch);
+        nearCache.get(SESSION_ID, () -> load(entries), this::touch);
+
+        assertEquals(1, loadCount.get());
+        assertEquals(2, touchCount.get());
+    }
+
+    @Test
+    void get_WhenReadLocallyWithinTouchInterval_DoesNotTouchSession() {
+        SessionNearCache nearCache = createEnabledNearCache(Duration.ofMinutes(1));
+        SessionEntries entries = createEntries();
+
+        nearCache.get(SESSION_ID, () -> load(entries), this::touch);
+        nearCache.get(SESSION_ID, () -> load(entries), this::touch);
+
+        assertEquals(1, loadCount.get());
+        assertEquals(0, touchCount.get());
+    }
+
+    @Test
+    void get_WhenTouchFails_ReturnsLocallyCachedEntries() {
+        SessionNearCache nearCache = createEnabledNearCache(Duration.ZERO);
+        SessionEntries entries = createEntries();
+        nearCache.get(SESSION_ID, () -> load(entries), this::touch);
+
+        SessionEntries cachedEntries = nearCache.get(SESSION_ID, () -> load(entries), () -> {
+            throw new IllegalStateException("Cluster unavailable");
+        });
+
+        assertSame(entries, cachedEntries);
+        assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    void get_WhenSessionNotFound_DoesNotCacheResult() {
+        SessionNearCache nearCache = createEnabledNearCache();
+
+        assertNull(nearCache.get(SESSION_ID, () -> load(null), this::touch));
+        assertNull(nearCache.get(SESSION_ID, () -> load(null), this::touch));
+
+        assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    void get_WhenInvalidatedDuringLoad_DoesNotCacheLoadedEntries() {
+        SessionNearCache nearCache = createEnabledNearCache();
+        SessionEntries entries = createEntries();
+
+        nearCache.get(SESSION_ID, () -> {
+            nearCache.invalidate(SESSION_ID);
+            return load(entries);
+        }, this::touch);
+        nearCache.get(SESSION_ID, () -> load(entries), this::touch);
+
+        assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    void put_WhenOtherClientNodesPresent_SendsInvalidationAndCachesEntriesLocally() {
+        SessionNearCache nearCache = createEnabledNearCache();
+        when(otherClientNodes.nodes()).thenReturn(List.of(mock(ClusterNode.class)));
+        SessionEntries entries = createEntries();
+
+        nearCache.put(SESSION_ID, entries);
+
+        assertSame(entries, nearCache.get(SESSION_ID, () -> load(null), this::touch));
+        assertEquals(0, loadCount.get());
+        verify(messaging).send(SessionNearCache.INVALIDATION_TOPIC, SESSION_ID);
+    }
+
+    @Test
+    void invalidate_WhenNoOtherClientNodes_RemovesLocalEntryWithoutSendingMessage() {
+        SessionNearCache nearCache = createEnabledNearCache();
+        when(otherClientNodes.nodes()).thenReturn(List.of());
+        SessionEntries entries = createEntries();
+        nearCache.put(SESSION_ID, entries);
+
+        nearCache.invalidate(SESSION_ID);
+
+        assertNull(nearCache.get(SESSION_ID, () -> load(null), this::touch));
+        verify(messaging, never()).send(any(), any());
+    }
+
+    private SessionNearCache createEnabledNearCache() {
+        properties.getNearCache().setEnabled(true);
+        return new SessionNearCache(ignite, properties);
+    }
+
+    private SessionNearCache createEnabledNearCache(Duration touchInterval) {
+        properties.getNearCache().setTouchInterval(touchInterval);
+        return createEnabledNearCache();
+    }
+
+    private SessionEntries load(SessionEntries entries) {
+        loadCount.incrementAndGet();
+        return entries;
+    }
+
+    private void touch() {
+        touchCount.incrementAndGet();
+    }
+
+    private static SessionEntries createEntries() {
+        return new SessionEntries(null, Map.of(), Map.of());
+    }
+}
@@ -0,0 +1,49 @@
+package ee.openeid.siga.session;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionPartitionAssignmentTest {
+    private static final int PARTITIONS = 1024;
+
+    @Test
+    void getLocalPartitions_AssignsEveryPartitionToExactlyOneNode() {
+        List<UUID> nodeIds = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        BitSet assigned = new BitSet(PARTITIONS);
+        int assignedCount = 0;
+        for (UUID nodeId : nodeIds) {
+            BitSet localPartitions = SessionPartitionAssignment.getLocalPartitions(nodeIds, nodeId, PARTITIONS);
+            assertTrue(localPartitions.cardinality() > PARTITIONS / 6);
+            assigned.or(localPartitions);
+            assignedCount += localPartitions.cardinality();
+        }
+
+        assertEquals(PARTITIONS, assigned.cardinality());
+        assertEquals(PARTITIONS, assignedCount);
+    }
+
+    @Test
+    void getAssignedNode_WhenNodeLeaves_ReassignsOnlyItsPartitions() {
+        List<UUID> nodeIds = new ArrayList<>(List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()));
+        UUID[] assignedNodes = new UUID[PARTITIONS];
+        for (int partition = 0; partition < PARTITIONS; partition++) {
+            assignedNodes[partition] = SessionPartitionAssignment.getAssignedNode(nodeIds, partition);
+        }
+
+        UUID leavingNode = nodeIds.remove(0);
+
+        for (int partition = 0; partition < PARTITIONS; partition++) {
+            if (!leavingNode.equals(assignedNodes[partition])) {
+                assertEquals(assignedNodes[partition], SessionPartitionAssignment.getAssignedNode(nodeIds, partition));
+            }
+        }
+    }
+}
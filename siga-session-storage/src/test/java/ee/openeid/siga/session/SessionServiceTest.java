@@ -0,0 +1,865 @@
+package ee.openeid.siga.session;
+
+import ee.openeid.siga.common.exception.ResourceNotFoundException;
+import ee.openeid.siga.common.model.RelyingPartyInfo;
+import ee.openeid.siga.common.model.SigningType;
+import ee.openeid.siga.common.session.AsicContainerSession;
+import ee.openeid.siga.common.session.CertificateSession;
+import ee.openeid.siga.common.session.ContainerCompression;
+import ee.openeid.siga.common.session.HashcodeContainerSession;
+import ee.openeid.siga.common.session.ProcessingStatus;
+import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.common.session.SessionStatus;
+import ee.openeid.siga.common.session.SessionStatus.StatusError;
+import ee.openeid.siga.common.session.SignatureSession;
+import ee.openeid.siga.common.util.UUIDGenerator;
+import ee.openeid.siga.session.configuration.SessionConfigurationProperties;
+import ee.openeid.siga.session.configuration.SessionStoreProperties;
+import eu.europa.esig.dss.enumerations.ObjectIdentifierQualifier;
+import eu.europa.esig.dss.model.DSSDocument;
+import eu.europa.esig.dss.model.Policy;
+import lombok.SneakyThrows;
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.binary.BinaryObjectBuilder;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.apache.ignite.spi.discovery.tcp.ipfinder.vm.TcpDiscoveryVmIpFinder;
+import org.digidoc4j.Configuration;
+import org.digidoc4j.DataFile;
+import org.digidoc4j.DataToSign;
+import org.digidoc4j.DigestAlgorithm;
+import org.digidoc4j.Signature;
+import org.digidoc4j.SignatureParameters;
+import org.digidoc4j.SignatureProfile;
+import org.digidoc4j.impl.SignatureFinalizer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionServiceTest {
+    private static final String SIGNATURE_ID = "signature1";
+    private static final String CERTIFICATE_ID = "certificate1";
+    private static final String DOCUMENT_NUMBER = "PNOEE-123456789-QWER";
+    private static Ignite ignite;
+    private SessionService sessionService;
+    private SessionConfigurationProperties properties;
+    private ContainerBlobStore containerBlobStore;
+    private String sessionId;
+
+    @TempDir
+    static Path igniteWorkDirectory;
+
+    @BeforeAll
+    static void startIgnite() {
+        ignite = Ignition.start(new IgniteConfiguration()
+                .setIgniteInstanceName("siga-session-storage-test")
+                .setWorkDirectory(igniteWorkDirectory.toString())
+                .setDiscoverySpi(new TcpDiscoverySpi()
+                        .setIpFinder(new TcpDiscoveryVmIpFinder().setAddresses(List.of("127.0.0.1:47500..47509")))));
+    }
+
+    @AfterAll
+    static void stopIgnite() {
+        ignite.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        properties = new SessionConfigurationProperties();
+        properties.setApplicationCacheVersion("v1");
+        containerBlobStore = new ContainerBlobStore(ignite, properties);
+        IgniteSessionStore sessionStore = new IgniteSessionStore(ignite, new SessionNearCache(ignite, properties), containerBlobStore,
+                new SessionPartitionAssignment(ignite), new SessionStoreProperties());
+        sessionStore.createCaches();
+        sessionService = new SessionService(sessionStore, properties);
+        sessionId = "v1_service-uuid_" + UUIDGenerator.generateUUID();
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("service-uuid", null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void getContainer_WhenSessionUpdated_ReturnsSessionOfAuthenticatedService() {
+        String containerId = UUIDGenerator.generateUUID();
+        sessionId = sessionService.getSessionId(containerId);
+        sessionService.update(createSession());
+
+        Session session = sessionService.getContainer(containerId);
+
+        assertEquals("v1_service-uuid_" + containerId, session.getSessionId());
+        assertEquals("client", session.getClientName());
+        assertEquals("service", session.getServiceName());
+        assertEquals("service-uuid", session.getServiceUuid());
+    }
+
+    @Test
+    void getContainer_WhenNoSession_ThrowsResourceNotFound() {
+        String containerId = UUIDGenerator.generateUUID();
+
+        assertThrows(ResourceNotFoundException.class, () -> sessionService.getContainer(containerId));
+    }
+
+    @Test
+    void getCacheSize_WhenSessionsUpdatedAndRemoved_CountsStoredSessions() {
+        int initialCacheSize = sessionService.getCacheSize();
+        sessionService.update(createSession());
+        sessionService.update(createAsicSession("v1_service-uuid_" + UUIDGenerator.generateUUID(), new byte[]{1}));
+        assertEquals(initialCacheSize + 2, sessionService.getCacheSize());
+
+        sessionService.removeBySessionId(sessionId);
+
+        assertEquals(initialCacheSize + 1, sessionService.getCacheSize());
+    }
+
+    @Test
+    void getContainerBySessionId_WhenSessionUpdated_ReturnsAllSessionParts() {
+        sessionService.update(createSession());
+
+        Session session = sessionService.getContainerBySessionId(sessionId);
+
+        assertEquals(sessionId, session.getSessionId());
+        assertNotNull(session.getSignatureSession(SIGNATURE_ID).getDataToSign());
+        assertEquals("sid-session-code", session.getCertificateSession(CERTIFICATE_ID).getSessionCode());
+    }
+
+    @Test
+    void getContainerBySessionId_WhenDataToSignStored_RestoresSignatureParametersWithoutFinalizer() {
+        X509Certificate certificate = readCertificate();
+        SignatureParameters signatureParameters = new SignatureParameters();
+        signatureParameters.setSignatureId("S-123");
+        signatureParameters.setSignatureProfile(SignatureProfile.LT);
+        signatureParameters.setSignatureDigestAlgorithm(DigestAlgorithm.SHA512);
+        signatureParameters.setSigningCertificate(certificate);
+        signatureParameters.setClaimedSigningDate(new Date(1700000000000L));
+        signatureParameters.setCountry("Estonia");
+        signatureParameters.setRoles(List.of("Manager"));
+        Policy policy = new Policy();
+        policy.setId("1.3.6.1.4.1.10015.1000.3.2.1");
+        policy.setDigestAlgorithm(eu.europa.esig.dss.enumerations.DigestAlgorithm.SHA256);
+        policy.setDigestValue(new byte[]{7, 8, 9});
+        policy.setSpuri("https://www.sk.ee/repository/bdoc-spec21.pdf");
+        policy.setQualifier(ObjectIdentifierQualifier.OID_AS_URN);
+        signatureParameters.setPolicy(policy);
+        Session originalSession = createSession();
+        originalSession.getSignatureSession(SIGNATURE_ID)
+                .setDataToSign(new DataToSign(new byte[]{4, 5, 6}, new TestSignatureFinalizer(signatureParameters)));
+        sessionService.update(originalSession);
+
+        SignatureSession signatureSession = sessionService.getContainerBySessionId(sessionId).getSignatureSession(SIGNATURE_ID);
+
+        DataToSign restoredDataToSign = signatureSession.getDataToSign();
+        assertArrayEquals(new byte[]{4, 5, 6}, restoredDataToSign.getDataToSign());
+        assertThrows(IllegalStateException.class, () -> restoredDataToSign.finalize(new byte[]{1}));
+        SignatureParameters restoredParameters = restoredDataToSign.getSignatureParameters();
+        assertEquals("S-123", restoredParameters.getSignatureId());
+        assertEquals(SignatureProfile.LT, restoredParameters.getSignatureProfile());
+        assertEquals(DigestAlgorithm.SHA512, restoredParameters.getSignatureDigestAlgorithm());
+        assertEquals(certificate, restoredParameters.getSigningCertificate());
+        assertEquals(new Date(1700000000000L), restoredParameters.getClaimedSigningDate());
+        assertEquals("Estonia", restoredParameters.getCountry());
+        assertEquals(List.of("Manager"), restoredParameters.getRoles());
+        Policy restoredPolicy = restoredParameters.getPolicy();
+        assertEquals("1.3.6.1.4.1.10015.1000.3.2.1", restoredPolicy.getId());
+        assertEquals(eu.europa.esig.dss.enumerations.DigestAlgorithm.SHA256, restoredPolicy.getDigestAlgorithm());
+        assertArrayEquals(new byte[]{7, 8, 9}, restoredPolicy.getDigestValue());
+        assertEquals("https://www.sk.ee/repository/bdoc-spec21.pdf", restoredPolicy.getSpuri());
+        assertEquals(ObjectIdentifierQualifier.OID_AS_URN, restoredPolicy.getQualifier());
+        TestSignatureFinalizer rebuiltFinalizer = new TestSignatureFinalizer(restoredParameters);
+        DataToSign dataToSign = signatureSession.getDataToSign(parameters -> rebuiltFinalizer);
+        assertArrayEquals(new byte[]{4, 5, 6}, dataToSign.getDataToSign());
+        assertThrows(UnsupportedOperationException.class, () -> dataToSign.finalize(new byte[]{1}));
+    }
+
+    @Test
+    void findSessionIdsBySignatureStatus_ReturnsSessionsWithMatchingSignatureStatus() {
+        sessionService.update(createSession());
+
+        assertTrue(sessionService.findSessionIdsBySignatureStatus(
+                (processingStatus, timestamp, counter) -> processingStatus == ProcessingStatus.PROCESSING).contains(sessionId));
+        assertFalse(sessionService.findSessionIdsBySignatureStatus(
+                (processingStatus, timestamp, counter) -> processingStatus == ProcessingStatus.EXCEPTION).contains(sessionId));
+        assertTrue(sessionService.findSessionIdsByCertificateStatus(
+                (processingStatus, timestamp, counter) -> counter == 0).contains(sessionId));
+    }
+
+    @Test
+    void isAssignedToLocalNode_WhenOnlySigaNode_ReturnsTrue() {
+        assertTrue(sessionService.isAssignedToLocalNode(sessionId));
+    }
+
+    @Test
+    void isStatusPollHandOverAvailable_WhenOnlySigaNode_ReturnsFalse() {
+        assertFalse(sessionService.isStatusPollHandOverAvailable());
+    }
+
+    @Test
+    void listenUnfinishedSignatureSessions_NotifiesStoredAndChangedUnfinishedSessions() {
+        sessionService.update(createSession());
+        Map<String, UnfinishedStatusSessions> notified = new ConcurrentHashMap<>();
+
+        Runnable listenerRemoval = sessionService.listenUnfinishedSignatureSessions(
+                unfinishedSessions -> notified.put(unfinishedSessions.getSessionId(), unfinishedSessions));
+        try {
+            UnfinishedStatusSession statusSession = notified.get(sessionId).getStatusSessions().get(0);
+            assertEquals(SIGNATURE_ID, statusSession.getStatusSessionId());
+            assertEquals(ProcessingStatus.PROCESSING, statusSession.getProcessingStatus());
+
+            sessionService.updateSignatureSessionStatus(sessionId, SIGNATURE_ID, SessionStatusUpdate.builder()
+                    .processingStatus(ProcessingStatus.EXCEPTION)
+                    .build());
+            await().atMost(5, TimeUnit.SECONDS).until(() -> notified.get(sessionId).getStatusSessions().stream()
+                    .anyMatch(session -> session.getProcessingStatus() == ProcessingStatus.EXCEPTION && session.getProcessingCounter() == 1));
+
+            sessionService.updateSignatureSessionStatus(sessionId, SIGNATURE_ID, SessionStatusUpdate.builder()
+                    .processingStatus(ProcessingStatus.RESULT)
+                    .build());
+            await().atMost(5, TimeUnit.SECONDS).until(() -> notified.get(sessionId).getStatusSessions().isEmpty());
+        } finally {
+            listenerRemoval.run();
+        }
+    }
+
+    @Test
+    void listenUnfinishedCertificateSessions_WhenSessionRemoved_NotifiesNoStatusSessions() {
+        sessionService.update(createSession());
+        Map<String, UnfinishedStatusSessions> notified = new ConcurrentHashMap<>();
+
+        Runnable listenerRemoval = sessionService.listenUnfinishedCertificateSessions(
+                unfinishedSessions -> notified.put(unfinishedSessions.getSessionId(), unfinishedSessions));
+        try {
+            assertEquals(CERTIFICATE_ID, notified.get(sessionId).getStatusSessions().get(0).getStatusSessionId());
+
+            sessionService.removeBySessionId(sessionId);
+            await().atMost(5, TimeUnit.SECONDS).until(() -> notified.get(sessionId).getStatusSessions().isEmpty());
+        } finally {
+            listenerRemoval.run();
+        }
+    }
+
+    @Test
+    void getContainerBySessionId_WhenSessionRemoved_ThrowsResourceNotFound() {
+        sessionService.update(createSession());
+
+        sessionService.removeBySessionId(sessionId);
+
+        assertThrows(ResourceNotFoundException.class, () -> sessionService.getContainerBySessionId(sessionId));
+    }
+
+    @Test
+    void updateSignatureSessionStatus_WhenResult_UpdatesOnlySignatureSessionStatus() {
+        Session originalSession = createSession();
+        originalSession.getSignatureSession(SIGNATURE_ID).getSessionStatus().setStatusError("INTERNAL_SERVER_ERROR", "error");
+        sessionService.update(originalSession);
+
+        boolean updated = sessionService.updateSignatureSessionStatus(sessionId, SIGNATURE_ID, SessionStatusUpdate.builder()
+                .processingStatus(ProcessingStatus.RESULT)
+                .status("SIGNATURE")
+                .signature(new byte[]{1, 2, 3})
+                .build());
+
+        assertTrue(updated);
+        Session session = sessionService.getContainerBySessionId(sessionId);
+        SignatureSession signatureSession = session.getSignatureSession(SIGNATURE_ID);
+        SessionStatus sessionStatus = signatureSession.getSessionStatus();
+        assertEquals(ProcessingStatus.RESULT, sessionStatus.getProcessingStatus());
+        assertEquals("SIGNATURE", sessionStatus.getStatus());
+        assertNull(sessionStatus.getStatusError());
+        assertEquals(0, sessionStatus.getProcessingCounter());
+        assertArrayEquals(new byte[]{1, 2, 3}, signatureSession.getSignature());
+        assertEquals("mid-session-code", signatureSession.getSessionCode());
+        assertNotNull(signatureSession.getDataToSign());
+        assertEquals(ProcessingStatus.PROCESSING, session.getCertificateSession(CERTIFICATE_ID).getSessionStatus().getProcessingStatus());
+    }
+
+    @Test
+    void updateSignatureSessionStatus_WhenException_IncrementsProcessingCounterAndSetsStatusError() {
+        sessionService.update(createSession());
+        SessionStatusUpdate statusUpdate = SessionStatusUpdate.builder()
+                .processingStatus(ProcessingStatus.EXCEPTION)
+                .statusError(StatusError.builder().errorCode("INTERNAL_SERVER_ERROR").errorMessage("error").build())
+                .build();
+
+        sessionService.updateSignatureSessionStatus(sessionId, SIGNATURE_ID, statusUpdate);
+        sessionService.updateSignatureSessionStatus(sessionId, SIGNATURE_ID, statusUpdate);
+
+        SessionStatus sessionStatus = sessionService.getContainerBySessionId(sessionId).getSignatureSessionStatus(SIGNATURE_ID);
+        assertEquals(ProcessingStatus.EXCEPTION, sessionStatus.getProcessingStatus());
+        assertEquals(2, sessionStatus.getProcessingCounter());
+        assertEquals("INTERNAL_SERVER_ERROR", sessionStatus.getStatusError().getErrorCode());
+        assertEquals("error", sessionStatus.getStatusError().getErrorMessage());
+        assertNull(sessionStatus.getStatus());
+    }
+
+    @Test
+    void updateSignatureSessionStatus_WhenSigningSessionCleared_ReturnsFalse() {
+        Session session = createSession();
+        session.clearSigningSession(SIGNATURE_ID);
+        sessionService.update(session);
+
+        boolean updated = sessionService.updateSignatureSessionStatus(sessionId, SIGNATURE_ID, SessionStatusUpdate.builder()
+                .processingStatus(ProcessingStatus.RESULT)
+                .build());
+
+        assertFalse(updated);
+    }
+
+    @Test
+    void updateSignatureSessionStatus_WhenSessionNotFound_ReturnsFalse() {
+        boolean updated = sessionService.updateSignatureSessionStatus(sessionId, SIGNATURE_ID, SessionStatusUpdate.builder()
+                .processingStatus(ProcessingStatus.RESULT)
+                .build());
+
+        assertFalse(updated);
+    }
+
+    @Test
+    void updateCertificateSessionStatus_WhenResult_SetsDocumentNumber() {
+        sessionService.update(createSession());
+
+        boolean updated = sessionService.updateCertificateSessionStatus(sessionId, CERTIFICATE_ID, SessionStatusUpdate.builder()
+                .processingStatus(ProcessingStatus.RESULT)
+                .status("OK")
+                .documentNumber(DOCUMENT_NUMBER)
+                .build());
+
+        assertTrue(updated);
+        CertificateSession certificateSession = sessionService.getContainerBySessionId(sessionId).getCertificateSession(CERTIFICATE_ID);
+        assertEquals(DOCUMENT_NUMBER, certificateSession.getDocumentNumber());
+        assertEquals("OK", certificateSession.getSessionStatus().getStatus());
+        assertEquals(ProcessingStatus.RESULT, certificateSession.getSessionStatus().getProcessingStatus());
+    }
+
+    @Test
+    void updateCertificateSessionStatus_WhenCertificateGiven_AddsCertificateAndUpdatesStatus() {
+        sessionService.update(createSession());
+        X509Certificate certificate = readCertificate();
+
+        boolean updated = sessionService.updateCertificateSessionStatus(sessionId, CERTIFICATE_ID, SessionStatusUpdate.builder()
+                .processingStatus(ProcessingStatus.RESULT)
+                .status("OK")
+                .documentNumber(DOCUMENT_NUMBER)
+                .certificate(certificate)
+                .build());
+
+        assertTrue(updated);
+        Session session = sessionService.getContainerBySessionId(sessionId);
+        assertEquals(certificate, session.getCertificate(DOCUMENT_NUMBER));
+        assertEquals(DOCUMENT_NUMBER, session.getCertificateSession(CERTIFICATE_ID).getDocumentNumber());
+        assertEquals(ProcessingStatus.RESULT, session.getCertificateSession(CERTIFICATE_ID).getSessionStatus().getProcessingStatus());
+    }
+
+    @Test
+    void updateCertificateSessionStatus_WhenCertificateGivenAndSessionNotFound_ReturnsFalse() {
+        assertFalse(sessionService.updateCertificateSessionStatus(sessionId, CERTIFICATE_ID, SessionStatusUpdate.builder()
+                .processingStatus(ProcessingStatus.RESULT)
+                .documentNumber(DOCUMENT_NUMBER)
+                .certificate(readCertificate())
+                .build()));
+    }
+
+    @Test
+    void getSignatureSessionStatus_WhenSignatureSessionExists_ReturnsStatusWithoutDataToSignAndSignature() {
+        Session originalSession = createSession();
+        originalSession.getSignatureSession(SIGNATURE_ID).setSignature(new byte[]{1, 2, 3});
+        sessionService.update(originalSession);
+
+        SignatureSession signatureSession = sessionService.getSignatureSessionStatus(sessionId, SIGNATURE_ID);
+
+        assertEquals(ProcessingStatus.PROCESSING, signatureSession.getSessionStatus().getProcessingStatus());
+        assertEquals(SigningType.MOBILE_ID, signatureSession.getSigningType());
+        assertEquals("mid-session-code", signatureSession.getSessionCode());
+        assertNull(signatureSession.getDataToSign());
+        assertNull(signatureSession.getSignature());
+    }
+
+    @Test
+    void getSignatureSessionStatus_WhenSessionNotFound_ReturnsNull() {
+        assertNull(sessionService.getSignatureSessionStatus(sessionId, SIGNATURE_ID));
+    }
+
+    @Test
+    void getCertificateSessionStatus_WhenCertificateSessionExists_ReturnsCertificateSession() {
+        sessionService.update(createSession());
+
+        CertificateSession certificateSession = sessionService.getCertificateSessionStatus(sessionId, CERTIFICATE_ID);
+
+        assertEquals("sid-session-code", certificateSession.getSessionCode());
+        assertNull(sessionService.getCertificateSessionStatus(sessionId, "unknown"));
+    }
+
+    @Test
+    void addCertificate_WhenSessionExists_AddsCertificateToContainerSession() {
+        sessionService.update(createSession());
+        X509Certificate certificate = readCertificate();
+
+        boolean updated = sessionService.addCertificate(sessionId, DOCUMENT_NUMBER, certificate);
+
+        assertTrue(updated);
+        Session session = sessionService.getContainerBySessionId(sessionId);
+        assertEquals(certificate, session.getCertificate(DOCUMENT_NUMBER));
+        assertEquals("client", session.getClientName());
+    }
+
+    @Test
+    void addCertificate_WhenSessionNotFound_ReturnsFalse() {
+        assertFalse(sessionService.addCertificate(sessionId, DOCUMENT_NUMBER, readCertificate()));
+    }
+
+    @Test
+    void getContainerBySessionId_WhenContainerCompressed_ReturnsOriginalContainer() {
+        ContainerCompression.configure(true, 0, 3);
+        byte[] container = "PK".concat("container".repeat(1000)).getBytes(StandardCharsets.UTF_8);
+        try {
+            sessionService.update(createAsicSession(sessionId, container));
+            sessionService.addCertificate(sessionId, DOCUMENT_NUMBER, readCertificate());
+
+            AsicContainerSession session = (AsicContainerSession) sessionService.getContainerBySessionId(sessionId);
+
+            assertArrayEquals(container, session.getContainer());
+            assertNotNull(session.getCertificate(DOCUMENT_NUMBER));
+            assertTrue(ContainerCompression.getStoredBytes() < ContainerCompression.getUncompressedBytes());
+        } finally {
+            ContainerCompression.configure(false, 0, 3);
+        }
+    }
+
+    @Test
+    void getContainerBySessionId_WhenAsicSession_LoadsContainerOnlyWhenAccessed() {
+        byte[] container = "container".getBytes(StandardCharsets.UTF_8);
+        sessionService.update(createAsicSession(sessionId, container));
+
+        AsicContainerSession session = (AsicContainerSession) sessionService.getContainerBySessionId(sessionId);
+
+        assertFalse(session.isContainerLoaded());
+        assertEquals(containerBlobStore.digest(container), session.getContainerDigest());
+        assertArrayEquals(container, session.getContainer());
+        assertTrue(session.isContainerLoaded());
+    }
+
+    @Test
+    void update_WhenSessionsHaveIdenticalContainers_StoresContainerOnceUntilAllSessionsRemoved() {
+        byte[] container = UUIDGenerator.generateUUID().getBytes(StandardCharsets.UTF_8);
+        String digest = containerBlobStore.digest(container);
+        String otherSessionId = "v1_service-uuid_" + UUIDGenerator.generateUUID();
+        sessionService.update(createAsicSession(sessionId, container));
+        sessionService.update(createAsicSession(otherSessionId, container));
+
+        sessionService.removeBySessionId(sessionId);
+
+        assertArrayEquals(container, containerBlobStore.get(digest));
+        sessionService.removeBySessionId(otherSessionId);
+        assertFalse(ignite.cache(CacheName.CONTAINER_BLOB.name()).containsKey(digest));
+    }
+
+    @Test
+    void update_WhenContainerChanged_ReleasesPreviousContainer() {
+        byte[] container = UUIDGenerator.generateUUID().getBytes(StandardCharsets.UTF_8);
+        byte[] changedContainer = UUIDGenerator.generateUUID().getBytes(StandardCharsets.UTF_8);
+        sessionService.update(createAsicSession(sessionId, container));
+        AsicContainerSession session = (AsicContainerSession) sessionService.getContainerBySessionId(sessionId);
+
+        session.setContainer(changedContainer);
+        sessionService.update(session);
+
+        assertFalse(ignite.cache(CacheName.CONTAINER_BLOB.name()).containsKey(containerBlobStore.digest(container)));
+        AsicContainerSession updatedSession = (AsicContainerSession) sessionService.getContainerBySessionId(sessionId);
+        assertArrayEquals(changedContainer, updatedSession.getContainer());
+    }
+
+    @Test
+    void update_WhenSessionNotChangedSinceRead_UpdatesSessionWithNextVersion() {
+        sessionService.update(createSession());
+        Session session = sessionService.getContainerBySessionId(sessionId);
+        long version = session.getVersion();
+
+        session.addCertificateSession("certificate2", CertificateSession.builder().sessionCode("sid-session-code-2").build());
+        boolean updated = sessionService.update(session, version);
+
+        assertTrue(updated);
+        Session updatedSession = sessionService.getContainerBySessionId(sessionId);
+        assertEquals(version + 1, updatedSession.getVersion());
+        assertNotNull(updatedSession.getCertificateSession("certificate2"));
+    }
+
+    @Test
+    void update_WhenSessionChangedSinceRead_ReturnsFalseAndKeepsStoredSession() {
+        sessionService.update(createSession());
+        Session session = sessionService.getContainerBySessionId(sessionId);
+        Session concurrentSession = sessionService.getContainerBySessionId(sessionId);
+        sessionService.update(concurrentSession, concurrentSession.getVersion());
+
+        session.addCertificateSession("certificate2", CertificateSession.builder().sessionCode("sid-session-code-2").build());
+        boolean updated = sessionService.update(session, session.getVersion());
+
+        assertFalse(updated);
+        assertNull(sessionService.getContainerBySessionId(sessionId).getCertificateSession("certificate2"));
+    }
+
+    @Test
+    void update_WhenCertificateAddedSinceRead_ReturnsFalse() {
+        sessionService.update(createSession());
+        Session session = sessionService.getContainerBySessionId(sessionId);
+        sessionService.addCertificate(sessionId, DOCUMENT_NUMBER, readCertificate());
+
+        assertFalse(sessionService.update(session, session.getVersion()));
+        assertNotNull(sessionService.getContainerBySessionId(sessionId).getCertificate(DOCUMENT_NUMBER));
+    }
+
+    @Test
+    void update_WhenStatusUpdatedSinceRead_KeepsUpdatedStatus() {
+        Session originalSession = createSession();
+        // Status written by a SiGa node whose clock is ahead
+        originalSession.getSignatureSession(SIGNATURE_ID).setSessionStatus(SessionStatus.builder()
+                .processingStatusTimestamp(LocalDateTime.now().plusMinutes(1))
+                .build());
+        sessionService.update(originalSession);
+        Session session = sessionService.getContainerBySessionId(sessionId);
+        sessionService.updateSignatureSessionStatus(sessionId, SIGNATURE_ID, SessionStatusUpdate.builder()
+                .processingStatus(ProcessingStatus.RESULT)
+                .status("SIGNATURE")
+                .build());
+
+        session.addCertificateSession("certificate2", CertificateSession.builder().sessionCode("sid-session-code-2").build());
+        assertTrue(sessionService.update(session, session.getVersion()));
+
+        Session updatedSession = sessionService.getContainerBySessionId(sessionId);
+        assertEquals(ProcessingStatus.RESULT, updatedSession.getSignatureSessionStatus(SIGNATURE_ID).getProcessingStatus());
+        assertEquals("SIGNATURE", updatedSession.getSignatureSessionStatus(SIGNATURE_ID).getStatus());
+        assertNotNull(updatedSession.getCertificateSession("certificate2"));
+    }
+
+    @Test
+    void update_WhenSigningSessionClearedAfterStatusUpdatedSinceRead_KeepsSigningSessionCleared() {
+        sessionService.update(createSession());
+        Session session = sessionService.getContainerBySessionId(sessionId);
+        sessionService.updateSignatureSessionStatus(sessionId, SIGNATURE_ID, SessionStatusUpdate.builder()
+                .processingStatus(ProcessingStatus.EXCEPTION)
+                .build());
+
+        sessionService.update(session, currentSession -> currentSession.clearSigningSession(SIGNATURE_ID));
+
+        assertNull(sessionService.getContainerBySessionId(sessionId).getSignatureSession(SIGNATURE_ID));
+        assertFalse(sessionService.updateSignatureSessionStatus(sessionId, SIGNATURE_ID, SessionStatusUpdate.builder()
+                .processingStatus(ProcessingStatus.RESULT)
+                .build()));
+    }
+
+    @Test
+    void update_WhenChangeGivenAndSessionChangedSinceRead_AppliesChangeToSessionReadAgain() {
+        sessionService.update(createSession());
+        Session session = sessionService.getContainerBySessionId(sessionId);
+        Session concurrentSession = sessionService.getContainerBySessionId(sessionId);
+        sessionService.update(concurrentSession, currentSession -> currentSession.addCertificateSession("certificate2",
+                CertificateSession.builder().sessionCode("sid-session-code-2").build()));
+
+        Session updatedSession = sessionService.update(session, currentSession -> currentSession.addCertificateSession("certificate3",
+                CertificateSession.builder().sessionCode("sid-session-code-3").build()));
+
+        assertNotSame(session, updatedSession);
+        Session storedSession = sessionService.getContainerBySessionId(sessionId);
+        assertNotNull(storedSession.getCertificateSession("certificate2"));
+        assertNotNull(storedSession.getCertificateSession("certificate3"));
+        assertEquals(concurrentSession.getVersion() + 1, storedSession.getVersion());
+    }
+
+    @Test
+    void update_WhenAsicSessionChangedSinceRead_ReleasesContainerStoredForFailedUpdate() {
+        byte[] container = UUIDGenerator.generateUUID().getBytes(StandardCharsets.UTF_8);
+        byte[] changedContainer = UUIDGenerator.generateUUID().getBytes(StandardCharsets.UTF_8);
+        sessionService.update(createAsicSession(sessionId, container));
+        AsicContainerSession session = (AsicContainerSession) sessionService.getContainerBySessionId(sessionId);
+        Session concurrentSession = sessionService.getContainerBySessionId(sessionId);
+        sessionService.update(concurrentSession, concurrentSession.getVersion());
+
+        session.setContainer(changedContainer);
+        assertFalse(sessionService.update(session, session.getVersion()));
+
+        assertFalse(ignite.cache(CacheName.CONTAINER_BLOB.name()).containsKey(containerBlobStore.digest(changedContainer)));
+        AsicContainerSession storedSession = (AsicContainerSession) sessionService.getContainerBySessionId(sessionId);
+        assertArrayEquals(container, storedSession.getContainer());
+    }
+
+    @Test
+    void update_WhenConcurrentUpdatesStoreSameContainer_KeepsContainerOfWrittenSession() {
+        byte[] container = UUIDGenerator.generateUUID().getBytes(StandardCharsets.UTF_8);
+        byte[] changedContainer = UUIDGenerator.generateUUID().getBytes(StandardCharsets.UTF_8);
+        sessionService.update(createAsicSession(sessionId, container));
+        AsicContainerSession session = (AsicContainerSession) sessionService.getContainerBySessionId(sessionId);
+        AsicContainerSession concurrentSession = (AsicContainerSession) sessionService.getContainerBySessionId(sessionId);
+        concurrentSession.setContainer(changedContainer);
+        assertTrue(sessionService.update(concurrentSession, concurrentSession.getVersion()));
+
+        session.setContainer(changedContainer);
+        assertFalse(sessionService.update(session, session.getVersion()));
+
+        AsicContainerSession storedSession = (AsicContainerSession) sessionService.getContainerBySessionId(sessionId);
+        assertArrayEquals(changedContainer, storedSession.getContainer());
+        assertFalse(ignite.cache(CacheName.CONTAINER_BLOB.name()).containsKey(containerBlobStore.digest(container)));
+    }
+
+    @Test
+    void update_WhenBlindUpdatesStoreDifferentContainers_ReleasesContainerOfOverwrittenUpdate() {
+        byte[] container = UUIDGenerator.generateUUID().getBytes(StandardCharsets.UTF_8);
+        byte[] firstContainer = UUIDGenerator.generateUUID().getBytes(StandardCharsets.UTF_8);
+        byte[] secondContainer = UUIDGenerator.generateUUID().getBytes(StandardCharsets.UTF_8);
+        sessionService.update(createAsicSession(sessionId, container));
+        AsicContainerSession firstSession = (AsicContainerSession) sessionService.getContainerBySessionId(sessionId);
+        AsicContainerSession secondSession = (AsicContainerSession) sessionService.getContainerBySessionId(sessionId);
+
+        firstSession.setContainer(firstContainer);
+        sessionService.update(firstSession);
+        secondSession.setContainer(secondContainer);
+        sessionService.update(secondSession);
+
+        assertFalse(ignite.cache(CacheName.CONTAINER_BLOB.name()).containsKey(containerBlobStore.digest(container)));
+        assertFalse(ignite.cache(CacheName.CONTAINER_BLOB.name()).containsKey(containerBlobStore.digest(firstContainer)));
+        assertArrayEquals(secondContainer, containerBlobStore.get(containerBlobStore.digest(secondContainer)));
+    }
+
+    @Test
+    void releaseAsync_WhenLastReferenceReleased_RemovesContainer() {
+        byte[] container = UUIDGenerator.generateUUID().getBytes(StandardCharsets.UTF_8);
+        String digest = containerBlobStore.digest(container);
+        String reference = containerBlobStore.createReference(sessionId);
+        containerBlobStore.store(digest, reference, container);
+
+        containerBlobStore.releaseAsync(digest, reference);
+
+        await().atMost(5, TimeUnit.SECONDS)
+                .until(() -> !ignite.cache(CacheName.CONTAINER_BLOB.name()).containsKey(digest));
+    }
+
+    @Test
+    void releaseOrphanedReferences_WhenReferenceNotHeldBySession_RemovesContainer() {
+        properties.getContainerBlobSweep().setGracePeriod(Duration.ZERO);
+        byte[] container = UUIDGenerator.generateUUID().getBytes(StandardCharsets.UTF_8);
+        byte[] orphanedContainer = UUIDGenerator.generateUUID().getBytes(StandardCharsets.UTF_8);
+        String orphanedDigest = containerBlobStore.digest(orphanedContainer);
+        sessionService.update(createAsicSession(sessionId, container));
+        containerBlobStore.store(orphanedDigest, containerBlobStore.createReference(sessionId), orphanedContainer);
+
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> {
+            containerBlobStore.releaseOrphanedReferences();
+            assertFalse(ignite.cache(CacheName.CONTAINER_BLOB.name()).containsKey(orphanedDigest));
+        });
+
+        assertArrayEquals(container, containerBlobStore.get(containerBlobStore.digest(container)));
+    }
+
+    @Test
+    void getContainerBySessionId_WhenSessionStoredInLegacyFormat_ReadsLegacyFormat() {
+        X509Certificate certificate = readCertificate();
+        storeLegacyHashcodeSession(certificate);
+
+        Session session = sessionService.getContainerBySessionId(sessionId);
+
+        assertEquals("client", session.getClientName());
+        assertEquals(0, session.getVersion());
+        assertEquals(certificate, session.getCertificate(DOCUMENT_NUMBER));
+        SignatureSession signatureSession = session.getSignatureSession(SIGNATURE_ID);
+        assertEquals("mid-session-code", signatureSession.getSessionCode());
+        assertEquals(SigningType.MOBILE_ID, signatureSession.getSigningType());
+        assertEquals("data-files-hash", signatureSession.getDataFilesHash());
+        assertArrayEquals(new byte[]{4, 5, 6}, signatureSession.getDataToSign().getDataToSign());
+        SessionStatus signatureStatus = signatureSession.getSessionStatus();
+        assertEquals(ProcessingStatus.PROCESSING, signatureStatus.getProcessingStatus());
+        assertEquals(1, signatureStatus.getProcessingCounter());
+        assertEquals(LocalDateTime.of(2024, 1, 2, 3, 4, 5), signatureStatus.getProcessingStatusTimestamp());
+        CertificateSession certificateSession = session.getCertificateSession(CERTIFICATE_ID);
+        assertEquals("sid-session-code", certificateSession.getSessionCode());
+        assertEquals("relying-party", certificateSession.getRelyingPartyInfo().getName());
+    }
+
+    @Test
+    void getContainerBySessionId_WhenAsicSessionStoredInLegacyFormat_ReadsInlineContainer() {
+        byte[] container = "container".getBytes(StandardCharsets.UTF_8);
+        BinaryObjectBuilder containerSession = ignite.binary().builder(AsicContainerSession.class.getName());
+        containerSession.setField("containerName", "container.asice");
+        containerSession.setField("clientName", "client");
+        containerSession.setField("serviceName", "service");
+        containerSession.setField("serviceUuid", "service-uuid");
+        containerSession.setField("sessionId", sessionId);
+        containerSession.setField("container", container);
+        containerSession.setField("signatureIdHolder", new HashMap<>(Map.of("S0", 1)));
+        containerSession.setField("certificateHolder", new HashMap<>());
+        ignite.cache(CacheName.CONTAINER_SESSION.name()).withKeepBinary().put(sessionId, containerSession.build());
+
+        AsicContainerSession session = (AsicContainerSession) sessionService.getContainerBySessionId(sessionId);
+
+        assertArrayEquals(container, session.getContainer());
+        assertEquals(Map.of("S0", 1), session.getSignatureIdHolder());
+        sessionService.update(session);
+        assertArrayEquals(container, containerBlobStore.get(containerBlobStore.digest(container)));
+    }
+
+    @Test
+    void updateSignatureSessionStatus_WhenSessionStoredInLegacyFormat_UpdatesStatus() {
+        storeLegacyHashcodeSession(readCertificate());
+        assertTrue(sessionService.findSessionIdsBySignatureStatus((processingStatus, timestamp, counter) ->
+                timestamp == LocalDateTime.of(2024, 1, 2, 3, 4, 5).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())
+                .contains(sessionId));
+
+        boolean updated = sessionService.updateSignatureSessionStatus(sessionId, SIGNATURE_ID, SessionStatusUpdate.builder()
+                .processingStatus(ProcessingStatus.EXCEPTION)
+                .statusError(StatusError.builder().errorCode("INTERNAL_SERVER_ERROR").errorMessage("error").build())
+                .build());
+
+        assertTrue(updated);
+        SessionStatus sessionStatus = sessionService.getContainerBySessionId(sessionId).getSignatureSessionStatus(SIGNATURE_ID);
+        assertEquals(ProcessingStatus.EXCEPTION, sessionStatus.getProcessingStatus());
+        assertEquals(2, sessionStatus.getProcessingCounter());
+        assertEquals("INTERNAL_SERVER_ERROR", sessionStatus.getStatusError().getErrorCode());
+    }
+
+    /**
+     * Stores a session in the layout written by reflective Ignite serialization, before format versions were introduced.
+     */
+    private void storeLegacyHashcodeSession(X509Certificate certificate) {
+        BinaryObjectBuilder containerSession = ignite.binary().builder(HashcodeContainerSession.class.getName());
+        containerSession.setField("clientName", "client");
+        containerSession.setField("serviceName", "service");
+        containerSession.setField("serviceUuid", "service-uuid");
+        containerSession.setField("sessionId", sessionId);
+        containerSession.setField("dataFiles", new ArrayList<>());
+        containerSession.setField("signatures", new ArrayList<>());
+        containerSession.setField("certificateHolder", new HashMap<>(Map.of(DOCUMENT_NUMBER, certificate)));
+
+        BinaryObjectBuilder signatureSession = ignite.binary().builder(SignatureSession.class.getName());
+        signatureSession.setField("sessionCode", "mid-session-code");
+        signatureSession.setField("signature", null, byte[].class);
+        signatureSession.setField("sessionStatus", createLegacySessionStatus(), Object.class);
+        signatureSession.setField("dataToSignSerialized", SerializationUtils.serialize(
+                new DataToSign(new byte[]{4, 5, 6}, new TestSignatureFinalizer())));
+        signatureSession.setField("signingType", SigningType.MOBILE_ID, Object.class);
+        signatureSession.setField("dataFilesHash", "data-files-hash");
+        signatureSession.setField("relyingPartyInfo", null, Object.class);
+
+        BinaryObjectBuilder certificateSession = ignite.binary().builder(CertificateSession.class.getName());
+        certificateSession.setField("relyingPartyInfo", RelyingPartyInfo.builder().name("relying-party").uuid("uuid").build(), Object.class);
+        certificateSession.setField("sessionCode", "sid-session-code");
+        certificateSession.setField("documentNumber", null, String.class);
+        certificateSession.setField("sessionStatus", createLegacySessionStatus(), Object.class);
+
+        ignite.cache(CacheName.CONTAINER_SESSION.name()).withKeepBinary().put(sessionId, containerSession.build());
+        ignite.cache(CacheName.SIGNATURE_SESSION.name()).withKeepBinary()
+                .put(sessionId, new HashMap<>(Map.of(SIGNATURE_ID, signatureSession.build())));
+        ignite.cache(CacheName.CERTIFICATE_SESSION.name()).withKeepBinary()
+                .put(sessionId, new HashMap<>(Map.of(CERTIFICATE_ID, certificateSession.build())));
+    }
+
+    private static BinaryObject createLegacySessionStatus() {
+        BinaryObjectBuilder sessionStatus = ignite.binary().builder(SessionStatus.class.getName());
+        sessionStatus.setField("status", null, String.class);
+        sessionStatus.setField("statusError", null, Object.class);
+        sessionStatus.setField("processingStatus", ignite.binary().buildEnum(ProcessingStatus.class.getName(), ProcessingStatus.PROCESSING.ordinal()));
+        sessionStatus.setField("processingCounter", 1);
+        sessionStatus.setField("processingStatusTimestamp", LocalDateTime.of(2024, 1, 2, 3, 4, 5), Object.class);
+        return sessionStatus.build();
+    }
+
+    private static AsicContainerSession createAsicSession(String sessionId, byte[] container) {
+        return AsicContainerSession.builder()
+                .sessionId(sessionId)
+                .containerName("container.asice")
+                .clientName("client")
+                .serviceName("service")
+                .serviceUuid("service-uuid")
+                .container(container)
+                .build();
+    }
+
+    private Session createSession() {
+        HashcodeContainerSession session = HashcodeContainerSession.builder()
+                .sessionId(sessionId)
+                .clientName("client")
+                .serviceName("service")
+                .serviceUuid("service-uuid")
+                .dataFiles(List.of())
+                .build();
+        session.addSignatureSession(SIGNATURE_ID, SignatureSession.builder()
+                .sessionCode("mid-session-code")
+                .signingType(SigningType.MOBILE_ID)
+                .dataFilesHash("data-files-hash")
+                .dataToSign(new DataToSign(new byte[]{4, 5, 6}, new TestSignatureFinalizer()))
+                .build());
+        session.addCertificateSession(CERTIFICATE_ID, CertificateSession.builder()
+                .sessionCode("sid-session-code")
+                .build());
+        return session;
+    }
+
+    @SneakyThrows
+    private static X509Certificate readCertificate() {
+        try (InputStream inputStream = SessionServiceTest.class.getResourceAsStream("/smart-id.cer")) {
+            byte[] certificate = Base64.getMimeDecoder().decode(inputStream.readAllBytes());
+            return (X509Certificate) CertificateFactory.getInstance("X.509")
+                    .generateCertificate(new ByteArrayInputStream(certificate));
+        }
+    }
+
+    private static class TestSignatureFinalizer extends SignatureFinalizer {
+
+        TestSignatureFinalizer() {
+            this(new SignatureParameters());
+        }
+
+        TestSignatureFinalizer(SignatureParameters signatureParameters) {
+            super(List.of(new DataFile(new byte[]{1}, "test.txt", "text/plain")), signatureParameters,
+                    Configuration.of(Configuration.Mode.TEST));
+        }
+
+        @Override
+        public Signature finalizeSignature(byte[] signatureValue) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Signature createSignature(DSSDocument signedSignatureDocument) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public byte[] getDataToBeSigned() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
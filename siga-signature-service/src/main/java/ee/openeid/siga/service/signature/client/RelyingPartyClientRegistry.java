@@ -0,0 +1,188 @@
+package ee.openeid.siga.service.signature.client;
+
+import ee.openeid.siga.common.model.RelyingPartyInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLContextSpi;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds reusable API clients of relying parties, which share one SSL context built from the trust store of the API.
+ * <p>
+ * The trust store is loaded once and reloaded when its last modification time changes, which is checked at most once
+ * per check interval. Reloading the trust store replaces the SSL context and all clients created with it.
+ * <p>
+ * The shared SSL context always returns the same socket factory, so HTTPS connections opened by the clients are kept
+ * alive and reused by the JDK connection cache instead of being handshaken again for every request.
+ *
+ * @param <C> type of the API client
+ */
+@Slf4j
+public abstract class RelyingPartyClientRegistry<C> {
+    private final long trustStoreCheckIntervalNanos;
+    private volatile TrustedClients<C> trustedClients;
+
+    protected RelyingPartyClientRegistry(Duration trustStoreCheckInterval) {
+        this.trustStoreCheckIntervalNanos = trustStoreCheckInterval.toNanos();
+    }
+
+    public C getClient(RelyingPartyInfo relyingPartyInfo) {
+        TrustedClients<C> current = getTrustedClients();
+        return current.clients().computeIfAbsent(new RelyingParty(relyingPartyInfo.getName(), relyingPartyInfo.getUuid()),
+                relyingParty -> createClient(current.sslContext(), relyingPartyInfo));
+    }
+
+    protected abstract Resource getTrustStore();
+
+    protected abstract String getTrustStorePassword();
+
+    protected abstract C createClient(SSLContext trustSslContext, RelyingPartyInfo relyingPartyInfo);
+
+    private TrustedClients<C> getTrustedClients() {
+        TrustedClients<C> current = trustedClients;
+        if (current != null && System.nanoTime() - current.checkedAt() < trustStoreCheckIntervalNanos) {
+            return current;
+        }
+        synchronized (this) {
+            current = trustedClients;
+            long now = System.nanoTime();
+            if (current == null) {
+                trustedClients = loadTrustedClients(getTrustStore(), now);
+            } else if (now - current.checkedAt() >= trustStoreCheckIntervalNanos) {
+                long lastModified = getLastModified(current.trustStore());
+                if (lastModified == current.lastModified()) {
+                    trustedClients = current.checked(now);
+                } else {
+                    log.info("Trust store {} has been modified. Reloading trust store", current.trustStore().getDescription());
+                    trustedClients = loadTrustedClients(current.trustStore(), now);
+                }
+            }
+            return trustedClients;
+        }
+    }
+
+    private TrustedClients<C> loadTrustedClients(Resource trustStore, long checkedAt) {
+        long lastModified = getLastModified(trustStore);
+        return new TrustedClients<>(trustStore, lastModified, checkedAt, createSslContext(loadTrustStore(trustStore)),
+                new ConcurrentHashMap<>());
+    }
+
+    private KeyStore loadTrustStore(Resource trustStore) {
+        try (InputStream is = trustStore.getInputStream()) {
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(is, getTrustStorePassword().toCharArray());
+            return keyStore;
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static SSLContext createSslContext(KeyStore trustStore) {
+        try {
+            TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            trustManagerFactory.init(trustStore);
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(null, trustManagerFactory.getTrustManagers(), null);
+            return new SharedSocketFactorySslContext(sslContext);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static long getLastModified(Resource trustStore) {
+        try {
+            return trustStore.lastModified();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private record RelyingParty(String name, String uuid) {
+    }
+
+    private record TrustedClients<C>(Resource trustStore, long lastModified, long checkedAt, SSLContext sslContext,
+                                     Map<RelyingParty, C> clients) {
+
+        TrustedClients<C> checked(long checkedAt) {
+            return new TrustedClients<>(trustStore, lastModified, checkedAt, sslContext, clients);
+        }
+    }
+
+    private static class SharedSocketFactorySslContext extends SSLContext {
+
+        SharedSocketFactorySslContext(SSLContext sslContext) {
+            super(new SharedSocketFactorySslContextSpi(sslContext), sslContext.getProvider(), sslContext.getProtocol());
+        }
+    }
+
+    private static class SharedSocketFactorySslContextSpi extends SSLContextSpi {
+        private final SSLContext sslContext;
+        private final SSLSocketFactory socketFactory;
+
+        SharedSocketFactorySslContextSpi(SSLContext sslContext) {
+            this.sslContext = sslContext;
+            this.socketFactory = sslContext.getSocketFactory();
+        }
+
+        @Override
+        protected void engineInit(KeyManager[] keyManagers, TrustManager[] trustManagers, SecureRandom secureRandom) {
+            throw new UnsupportedOperationException("Shared SSL context is already initialized");
+        }
+
+        @Override
+        protected SSLSocketFactory engineGetSocketFactory() {
+            return socketFactory;
+        }
+
+        @Override
+        protected SSLServerSocketFactory engineGetServerSocketFactory() {
+            return sslContext.getServerSocketFactory();
+        }
+
+        @Override
+        protected SSLEngine engineCreateSSLEngine() {
+            return sslContext.createSSLEngine();
+        }
+
+        @Override
+        protected SSLEngine engineCreateSSLEngine(String host, int port) {
+            return sslContext.createSSLEngine(host, port);
+        }
+
+        @Override
+        protected SSLSessionContext engineGetServerSessionContext() {
+            return sslContext.getServerSessionContext();
+        }
+
+        @Override
+        protected SSLSessionContext engineGetClientSessionContext() {
+            return sslContext.getClientSessionContext();
+        }
+
+        @Override
+        protected SSLParameters engineGetDefaultSSLParameters() {
+            return sslContext.getDefaultSSLParameters();
+        }
+
+        @Override
+        protected SSLParameters engineGetSupportedSSLParameters() {
+            return sslContext.getSupportedSSLParameters();
+        }
+    }
+}
@@ -23,7 +23,9 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Slf4j
@@ -120,9 +122,13 @@ public class SivaClient {
             signatureFile.setSignature(new String(Base64.getEncoder().encode(signatureWrapper.getSignature())));
 
             List<SivaDataFile> sivaDataFiles = new ArrayList<>();
+            Map<String, String> hashAlgorithms = getDataFileHashAlgorithms(signatureWrapper.getDataFiles());
             dataFiles.forEach(dataFile -> {
                 String hash;
-                String hashAlgorithm = getDataFileHashAlgorithm(signatureWrapper.getDataFiles(), dataFile);
+                String hashAlgorithm = hashAlgorithms.get(dataFile.getFileName());
+                if (hashAlgorithm == null) {
+                    throw new InvalidHashAlgorithmException("Container contains invalid hash algorithms");
+                }
                 if (DigestAlgorithm.SHA256.name().equals(hashAlgorithm)) {
                     hash = dataFile.getFileHashSha256();
                 } else {
@@ -140,17 +146,18 @@ public class SivaClient {
         return request;
     }
 
-    private String getDataFileHashAlgorithm(List<SignatureHashcodeDataFile> signatureDataFiles, HashcodeDataFile
-            dataFile) {
+    /**
+     * @return supported hash algorithms of the signed data files by file name
+     */
+    private Map<String, String> getDataFileHashAlgorithms(List<SignatureHashcodeDataFile> signatureDataFiles) {
+        Map<String, String> hashAlgorithms = new HashMap<>();
         for (SignatureHashcodeDataFile signatureDataFile : signatureDataFiles) {
-            if (signatureDataFile.getFileName().equals(dataFile.getFileName())) {
-                String hashAlgorithm = signatureDataFile.getHashAlgo();
-                if (DigestAlgorithm.SHA256.name().equals(hashAlgorithm) || DigestAlgorithm.SHA512.name().equals(hashAlgorithm)) {
-                    return hashAlgorithm;
-                }
+            String hashAlgorithm = signatureDataFile.getHashAlgo();
+            if (DigestAlgorithm.SHA256.name().equals(hashAlgorithm) || DigestAlgorithm.SHA512.name().equals(hashAlgorithm)) {
+                hashAlgorithms.putIfAbsent(signatureDataFile.getFileName(), hashAlgorithm);
             }
         }
-        throw new InvalidHashAlgorithmException("Container contains invalid hash algorithms");
+        return hashAlgorithms;
     }
 
     private SivaRequestValidationError parseErrorResponse(HttpStatusException e) {
@@ -0,0 +1,21 @@
+package ee.openeid.siga.service.signature.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "siga.status-polling")
+public class StatusPollingProperties {
+    private boolean virtualThreads = false;
+    private int maxConcurrentPolls = 1000;
+    private int maxConcurrentPollsPerRelyingParty = 250;
+    private Duration throttledPollDelay = Duration.ofMillis(500);
+    private int maxRetries = 3;
+    private Duration retryInitialBackoff = Duration.ofMillis(200);
+    private Duration retryMaxBackoff = Duration.ofMillis(5000);
+    private Duration timerTick = Duration.ofMillis(10);
+    private int timerWheelSize = 512;
+    private Duration handOverTimeout = Duration.ofSeconds(5);
+}
@@ -8,21 +8,24 @@ import ee.openeid.siga.common.exception.SignatureCreationException;
 import ee.openeid.siga.common.model.DataToSignWrapper;
 import ee.openeid.siga.common.model.Result;
 import ee.openeid.siga.common.model.SigningType;
+import ee.openeid.siga.common.session.DataFilesFingerprint;
 import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.common.session.SessionStatus;
 import ee.openeid.siga.common.session.SignatureSession;
 import ee.openeid.siga.common.util.UUIDGenerator;
 import ee.openeid.siga.service.signature.configuration.MobileIdClientConfigurationProperties;
 import ee.openeid.siga.service.signature.configuration.SessionStatusReprocessingProperties;
 import ee.openeid.siga.service.signature.configuration.SmartIdClientConfigurationProperties;
+import ee.openeid.siga.service.signature.container.status.StatusPoller;
 import ee.openeid.siga.service.signature.mobileid.MobileIdApiClient;
 import ee.openeid.siga.service.signature.smartid.SmartIdApiClient;
+import ee.openeid.siga.session.SessionLockService;
 import ee.openeid.siga.session.SessionService;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.Delegate;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.ignite.Ignite;
 import org.digidoc4j.*;
 import org.digidoc4j.exceptions.CertificateValidationException;
 import org.digidoc4j.exceptions.NetworkException;
@@ -30,8 +33,8 @@ import org.digidoc4j.exceptions.OCSPRequestFailedException;
 import org.digidoc4j.exceptions.TechnicalException;
 import org.digidoc4j.impl.ServiceAccessListener;
 import org.digidoc4j.impl.ServiceAccessScope;
+import org.digidoc4j.impl.SignatureFinalizer;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.Base64;
 import java.util.function.Predicate;
@@ -62,8 +65,8 @@ public abstract class ContainerSigningService {
     private SigaEventLogger sigaEventLogger;
     private MobileIdApiClient mobileIdApiClient;
     private SmartIdApiClient smartIdApiClient;
-    private ThreadPoolTaskExecutor taskExecutor;
-    private Ignite ignite;
+    private StatusPoller statusPoller;
+    private SessionLockService sessionLockService;
 
     public DataToSignWrapper createDataToSign(String containerId, SignatureParameters signatureParameters) {
         Session sessionHolder = getSession(containerId);
@@ -78,8 +81,7 @@ public abstract class ContainerSigningService {
                 .dataFilesHash(generateDataFilesHash(sessionHolder))
                 .build();
 
-        sessionHolder.addSignatureSession(generatedSignatureId, signatureSession);
-        sessionService.update(sessionHolder);
+        sessionService.update(sessionHolder, session -> session.addSignatureSession(generatedSignatureId, signatureSession));
 
         return DataToSignWrapper.builder()
                 .dataToSign(dataToSign)
@@ -95,14 +97,52 @@ public abstract class ContainerSigningService {
         byte[] base64Decoded = Base64.getDecoder().decode(signatureValue.getBytes());
         Signature signature = finalizeSignature(sessionHolder, signatureId, base64Decoded);
 
-        addSignatureToSession(sessionHolder, signature, signatureId);
-        sessionService.update(sessionHolder);
+        sessionService.update(sessionHolder, session -> addFinalizedSignatureToSession(session, sessionHolder, signature, signatureId));
         return Result.OK;
     }
 
+    /**
+     * Retries the failed status poll of the signature or certificate session with backoff, unless the session has
+     * been removed or has reached the maximum number of processing attempts.
+     */
+    void retryStatusPolling(String statusSessionId, SessionStatus sessionStatus) {
+        if (sessionStatus != null && sessionStatus.getProcessingCounter() <= reprocessingProperties.getMaxProcessingAttempts()) {
+            statusPoller.retry(statusSessionId);
+        }
+    }
+
+    /**
+     * Removes the signing session, adding the finalized signature to the session if given. The session is
+     * updated only if it has not been changed since it was read, otherwise the change is applied to the session
+     * read again.
+     */
+    void completeSigningSession(Session session, String signatureId, Signature signature) {
+        sessionService.update(session, currentSession -> {
+            if (signature != null) {
+                addFinalizedSignatureToSession(currentSession, session, signature, signatureId);
+            }
+            currentSession.removeSigningSession(signatureId);
+        });
+    }
+
+    /**
+     * Signature finalized with the session it was read from is added to a session read again only if the signing
+     * session has not been finished and the data files have not been changed in the meantime.
+     */
+    private void addFinalizedSignatureToSession(Session session, Session finalizingSession, Signature signature, String signatureId) {
+        if (session != finalizingSession) {
+            SignatureSession signatureSession = session.getSignatureSession(signatureId);
+            if (signatureSession == null || !isDataFilesHashUnchanged(session, signatureSession.getDataFilesHash())) {
+                throw new InvalidSessionDataException(UNABLE_TO_FINALIZE_SIGNATURE + ". Session was changed during signature finalization. Repeat signing process");
+            }
+        }
+        addSignatureToSession(session, signature, signatureId);
+    }
+
     protected Signature finalizeSignature(Session session, String signatureId, byte[] base64Decoded) {
         validateContainerDataFilesUnchanged(session, signatureId);
-        DataToSign dataToSign = session.getSignatureSession(signatureId).getDataToSign();
+        DataToSign dataToSign = session.getSignatureSession(signatureId)
+                .getDataToSign(parameters -> buildSignatureFinalizer(session, parameters));
         SigaEvent startEvent = sigaEventLogger.logStartEvent(FINALIZE_SIGNATURE).addEventParameter(SIGNATURE_ID, dataToSign.getSignatureParameters().getSignatureId());
 
         Signature signature;
@@ -138,9 +178,12 @@ public abstract class ContainerSigningService {
             throw new IllegalStateException("Trying to finalize signature without container data files hash in session for data to sign");
         }
 
-        if (!generateDataFilesHash(session).equals(signatureSession.getDataFilesHash())) {
-            session.clearSigningSession(signatureId);
-            sessionService.update(session);
+        if (!isDataFilesHashUnchanged(session, signatureSession.getDataFilesHash())) {
+            sessionService.update(session, currentSession -> {
+                if (currentSession.getSignatureSession(signatureId) != null) {
+                    currentSession.clearSigningSession(signatureId);
+                }
+            });
             throw new InvalidSessionDataException(UNABLE_TO_FINALIZE_SIGNATURE + ". Container data files have been changed after signing was initiated. Repeat signing process");
         }
     }
@@ -223,11 +266,37 @@ public abstract class ContainerSigningService {
 
     protected abstract DataToSign buildDataToSign(Session session, SignatureParameters signatureParameters);
 
+    /**
+     * Rebuilds the finalizer of data to sign that has been read from session storage.
+     */
+    protected abstract SignatureFinalizer buildSignatureFinalizer(Session session, SignatureParameters signatureParameters);
+
     protected abstract Session getSession(String containerId);
 
     protected abstract void addSignatureToSession(Session sessionHolder, Signature signature, String signatureId);
 
     protected abstract void verifySigningObjectExistence(Session session);
 
+    /**
+     * @return order independent fingerprint of the container data files, kept with the session as data files are
+     * added and removed, so that unchanged data files are not read again when finalizing a signature
+     */
     public abstract String generateDataFilesHash(Session session);
+
+    /**
+     * @return hash of the container data files in the format used before the data files fingerprint, which signing
+     * sessions started by SiGa nodes of an earlier version hold
+     */
+    protected abstract String generateLegacyDataFilesHash(Session session);
+
+    /**
+     * Signing sessions started by SiGa nodes of an earlier version hold the data files hash in the legacy format,
+     * which is compared with the legacy hash of the data files, so that these signing sessions can be finalized
+     * during a deployment.
+     */
+    private boolean isDataFilesHashUnchanged(Session session, String dataFilesHash) {
+        return DataFilesFingerprint.isFingerprint(dataFilesHash)
+                ? generateDataFilesHash(session).equals(dataFilesHash)
+                : generateLegacyDataFilesHash(session).equals(dataFilesHash);
+    }
 }
@@ -16,10 +16,12 @@ import ee.openeid.siga.common.util.UUIDGenerator;
 import ee.openeid.siga.service.signature.mobileid.InitMidSignatureResponse;
 import ee.openeid.siga.service.signature.mobileid.MobileIdSessionStatus;
 import ee.openeid.siga.service.signature.mobileid.MobileIdStatusResponse;
+import ee.openeid.siga.session.SessionLock;
+import ee.openeid.siga.session.SessionService;
+import ee.openeid.siga.session.SessionStatusUpdate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.EnumUtils;
-import org.apache.ignite.IgniteSemaphore;
 import org.digidoc4j.DataToSign;
 import org.digidoc4j.Signature;
 import org.digidoc4j.SignatureParameters;
@@ -28,16 +30,13 @@ import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.security.cert.X509Certificate;
 import java.time.Duration;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.Optional;
 
 import static ee.openeid.siga.common.exception.ErrorResponseCode.INTERNAL_SERVER_ERROR;
 import static ee.openeid.siga.common.model.SigningType.MOBILE_ID;
 import static ee.openeid.siga.common.session.ProcessingStatus.EXCEPTION;
 import static ee.openeid.siga.common.session.ProcessingStatus.RESULT;
 import static ee.openeid.siga.service.signature.container.ContainerSigningService.UNABLE_TO_FINALIZE_SIGNATURE;
-import static java.util.concurrent.CompletableFuture.delayedExecutor;
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -71,10 +70,10 @@ public class MobileIdSigningDelegate {
                 .dataFilesHash(containerSigningService.generateDataFilesHash(session))
                 .build();
 
-        session.addSignatureSession(generatedSignatureId, signatureSession);
+        containerSigningService.getSessionService().update(session,
+                currentSession -> currentSession.addSignatureSession(generatedSignatureId, signatureSession));
         pollMobileIdSignatureStatus(session.getSessionId(), generatedSignatureId,
                 containerSigningService.getMobileIdConfigurationProperties().getStatusPollingDelay());
-        containerSigningService.getSessionService().update(session);
 
         return SigningChallenge.builder()
                 .challengeId(initMidSignatureResponse.getChallengeId())
@@ -83,6 +82,13 @@ public class MobileIdSigningDelegate {
     }
 
     public String getMobileIdSignatureStatus(String containerId, String signatureId) {
+        SessionService sessionService = containerSigningService.getSessionService();
+        SignatureSession signatureSessionStatus = sessionService.getSignatureSessionStatus(sessionService.getSessionId(containerId), signatureId);
+        if (signatureSessionStatus != null && signatureSessionStatus.getSessionStatus().getProcessingStatus() != RESULT) {
+            ensureSigningTypeIsMobileId(signatureSessionStatus);
+            return getUnfinishedSignatureStatus(signatureSessionStatus.getSessionStatus());
+        }
+
         Session session = containerSigningService.getSession(containerId);
         if (session == null || session.getSignatureSessionStatus(signatureId) == null) {
             throw new InvalidSessionDataException(UNABLE_TO_FINALIZE_SIGNATURE + ". No data to sign with signature Id: " + signatureId);
@@ -91,57 +97,64 @@ public class MobileIdSigningDelegate {
         ensureSigningTypeIsMobileId(signatureSession);
         SessionStatus sessionStatus = signatureSession.getSessionStatus();
         String status = sessionStatus.getStatus();
-        StatusError statusError = sessionStatus.getStatusError();
 
         if (sessionStatus.getProcessingStatus() == RESULT) {
+            Signature signature = null;
             try {
                 if (MobileIdSessionStatus.SIGNATURE.name().equals(status)) {
-                    Signature signature = containerSigningService.finalizeSignature(session, signatureId, signatureSession.getSignature());
-                    containerSigningService.addSignatureToSession(session, signature, signatureId);
+                    signature = containerSigningService.finalizeSignature(session, signatureId, signatureSession.getSignature());
                 }
             } finally {
-                session.removeSigningSession(signatureId);
-                containerSigningService.getSessionService().update(session);
+                containerSigningService.completeSigningSession(session, signatureId, signature);
             }
             return status;
         } else {
-            int maxProcessingAttempts = containerSigningService.getReprocessingProperties().getMaxProcessingAttempts();
-            boolean isMaxPollingAttempts = sessionStatus.getProcessingCounter() >= maxProcessingAttempts;
-            if (isMaxPollingAttempts) {
-                ErrorResponseCode errorResponseCode = EnumUtils.getEnum(ErrorResponseCode.class, statusError.getErrorCode(), INTERNAL_SERVER_ERROR);
-                throw new SigaApiException(errorResponseCode, statusError.getErrorMessage());
-            } else {
-                return MobileIdSessionStatus.OUTSTANDING_TRANSACTION.name();
-            }
+            return getUnfinishedSignatureStatus(sessionStatus);
+        }
+    }
+
+    private String getUnfinishedSignatureStatus(SessionStatus sessionStatus) {
+        int maxProcessingAttempts = containerSigningService.getReprocessingProperties().getMaxProcessingAttempts();
+        boolean isMaxPollingAttempts = sessionStatus.getProcessingCounter() >= maxProcessingAttempts;
+        if (isMaxPollingAttempts) {
+            StatusError statusError = sessionStatus.getStatusError();
+            ErrorResponseCode errorResponseCode = EnumUtils.getEnum(ErrorResponseCode.class, statusError.getErrorCode(), INTERNAL_SERVER_ERROR);
+            throw new SigaApiException(errorResponseCode, statusError.getErrorMessage());
+        } else {
+            return MobileIdSessionStatus.OUTSTANDING_TRANSACTION.name();
         }
     }
 
     public void pollMobileIdSignatureStatus(String sessionId, String signatureId, Duration pollingDelay) {
         Runnable pollingRunnable = () -> {
-            // If semaphore is not acquired it will be re-processed by SessionStatusReprocessingService
-            IgniteSemaphore semaphore = containerSigningService.getIgnite().semaphore(signatureId, 1, true, true);
-            if (semaphore.tryAcquire()) {
-                try (semaphore) {
+            // If lock is not acquired it will be re-processed by SessionStatusReprocessingService
+            Optional<SessionLock> lock = containerSigningService.getSessionLockService().tryLock(signatureId);
+            if (lock.isPresent()) {
+                try (SessionLock ignored = lock.get()) {
                     pollSignatureStatus(sessionId, signatureId);
                 } catch (Exception ex) {
-                    setPollingException(sessionId, signatureId, ex);
+                    if (containerSigningService.getStatusPoller().isStopping()) {
+                        log.info("Status polling interrupted for hand-over. Signature id: {}", signatureId);
+                    } else {
+                        setPollingException(sessionId, signatureId, ex);
+                        retryPolling(sessionId, signatureId);
+                    }
                 } finally {
-                    // Semaphore release conditions 1) Normal execution 2) Exception occurs 3) Ignite node leaves topology
+                    // Lock release conditions 1) Normal execution 2) Exception occurs 3) Node holding the lock leaves the cluster
                     containerSigningService.getSigaEventLogger().logEvents();
                     log.debug("Status polling unlocked for signature id: {}", signatureId);
                 }
             } else {
-                log.debug("Status polling semaphore not acquired for signature id: {}", signatureId);
+                log.debug("Status polling lock not acquired for signature id: {}", signatureId);
             }
         };
         DelegatingSecurityContextRunnable delegatingRunnable = new DelegatingSecurityContextRunnable(pollingRunnable);
-        CompletableFuture.runAsync(delegatingRunnable, delayedExecutor(pollingDelay.toMillis(), MILLISECONDS, containerSigningService.getTaskExecutor()));
+        containerSigningService.getStatusPoller().schedule(sessionId, signatureId, delegatingRunnable, pollingDelay);
     }
 
     private void pollSignatureStatus(String sessionId, String signatureId) {
         log.debug("Status polling locked for signature id: {}", signatureId);
-        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId);
-        SignatureSession signatureSession = session.getSignatureSession(signatureId);
+        SignatureSession signatureSession = containerSigningService.getSessionService().getSignatureSessionStatus(sessionId, signatureId);
         if (signatureSession == null) {
             log.warn("Unable to poll signature status. Container {} signature session {} is expired!", sessionId, signatureId);
             return;
@@ -149,48 +162,37 @@ public class MobileIdSigningDelegate {
         RelyingPartyInfo relyingPartyInfo = signatureSession.getRelyingPartyInfo();
         String sessionCode = signatureSession.getSessionCode();
         MobileIdStatusResponse statusResponse = containerSigningService.getMobileIdApiClient().getSignatureStatus(relyingPartyInfo, sessionCode);
-
-        try (IgniteSemaphore containerSemaphore = containerSigningService.getIgnite().semaphore(sessionId, 1, true, true)) { // TODO: SIGA-424
-            if (containerSemaphore.tryAcquire(5, TimeUnit.SECONDS)) {
-                processMobileIdStatusResponse(sessionId, signatureId, statusResponse);
-            } else {
-                log.error("Unprocessed MobileId signature status response due to SIGA-424. Container session id: {}, Signature session id: {}",
-                        sessionId, signatureId);
-            }
-        }
+        processMobileIdStatusResponse(sessionId, signatureId, statusResponse);
     }
 
     private void processMobileIdStatusResponse(String sessionId, String signatureId, MobileIdStatusResponse mobileIdStatusResponse) {
         log.debug("Processing MobileId response for signature: {}", signatureId);
-        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId);
-        if (session == null) {
-            log.warn("Unable to process signature status response. Container session expired: {}", sessionId);
-            return;
-        }
-        SignatureSession signatureSession = session.getSignatureSession(signatureId);
-        if (signatureSession != null && signatureSession.getDataToSign() != null) {
-            signatureSession.setSignature(mobileIdStatusResponse.getSignature());
-            signatureSession.setPollingStatus(RESULT);
-            signatureSession.getSessionStatus().setStatusError(null);
-            MobileIdSessionStatus mobileIdSessionStatus = mobileIdStatusResponse.getStatus();
-            SessionStatus sessionStatus = signatureSession.getSessionStatus();
-            sessionStatus.setStatus(mobileIdSessionStatus.name());
-            containerSigningService.getSessionService().update(session);
+        SessionStatusUpdate statusUpdate = SessionStatusUpdate.builder()
+                .processingStatus(RESULT)
+                .status(mobileIdStatusResponse.getStatus().name())
+                .signature(mobileIdStatusResponse.getSignature())
+                .build();
+        if (!containerSigningService.getSessionService().updateSignatureSessionStatus(sessionId, signatureId, statusUpdate)) {
+            log.warn("Signature session expired! Container session id: {}, Signature session id: {}", sessionId, signatureId);
         }
     }
 
     private void setPollingException(String sessionId, String signatureId, Exception ex) {
         log.error("MobileId status polling exception. Session id: {}, Signature id: {}",
                 sessionId, signatureId, ex);
-        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId);
-        SignatureSession signatureSession = session.getSignatureSession(signatureId);
-        SessionStatus sessionStatus = signatureSession.getSessionStatus();
-        sessionStatus.setProcessingStatus(EXCEPTION);
-        sessionStatus.setStatusError(StatusError.builder()
-                .errorCode(INTERNAL_SERVER_ERROR.name()) // TODO: Exception to error code map
-                .errorMessage(ex.getMessage())
-                .build());
-        containerSigningService.getSessionService().update(session);
+        SessionStatusUpdate statusUpdate = SessionStatusUpdate.builder()
+                .processingStatus(EXCEPTION)
+                .statusError(StatusError.builder()
+                        .errorCode(INTERNAL_SERVER_ERROR.name()) // TODO: Exception to error code map
+                        .errorMessage(ex.getMessage())
+                        .build())
+                .build();
+        containerSigningService.getSessionService().updateSignatureSessionStatus(sessionId, signatureId, statusUpdate);
+    }
+
+    private void retryPolling(String sessionId, String signatureId) {
+        SignatureSession signatureSession = containerSigningService.getSessionService().getSignatureSessionStatus(sessionId, signatureId);
+        containerSigningService.retryStatusPolling(signatureId, signatureSession == null ? null : signatureSession.getSessionStatus());
     }
 
     private void ensureSigningTypeIsMobileId(SignatureSession signatureSession) {
@@ -18,11 +18,13 @@ import ee.openeid.siga.common.util.UUIDGenerator;
 import ee.openeid.siga.service.signature.smartid.InitSmartIdSignatureResponse;
 import ee.openeid.siga.service.signature.smartid.SmartIdSessionStatus;
 import ee.openeid.siga.service.signature.smartid.SmartIdStatusResponse;
+import ee.openeid.siga.session.SessionLock;
+import ee.openeid.siga.session.SessionService;
+import ee.openeid.siga.session.SessionStatusUpdate;
 import ee.sk.smartid.SmartIdCertificate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.EnumUtils;
-import org.apache.ignite.IgniteSemaphore;
 import org.digidoc4j.DataToSign;
 import org.digidoc4j.Signature;
 import org.digidoc4j.SignatureParameters;
@@ -31,8 +33,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.security.cert.X509Certificate;
 import java.time.Duration;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.Optional;
 
 import static ee.openeid.siga.common.exception.ErrorResponseCode.INTERNAL_SERVER_ERROR;
 import static ee.openeid.siga.common.exception.ErrorResponseCode.SMARTID_EXCEPTION;
@@ -40,8 +41,6 @@ import static ee.openeid.siga.common.model.SigningType.SMART_ID;
 import static ee.openeid.siga.common.session.ProcessingStatus.EXCEPTION;
 import static ee.openeid.siga.common.session.ProcessingStatus.RESULT;
 import static ee.openeid.siga.service.signature.container.ContainerSigningService.UNABLE_TO_FINALIZE_SIGNATURE;
-import static java.util.concurrent.CompletableFuture.delayedExecutor;
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -80,11 +79,12 @@ public class SmartIdSigningDelegate {
                 .dataFilesHash(containerSigningService.generateDataFilesHash(session))
                 .build();
 
-        session.addSignatureSession(generatedSignatureId, signatureSession);
-        session.clearCertificate(smartIdInformation.getDocumentNumber());
+        containerSigningService.getSessionService().update(session, currentSession -> {
+            currentSession.addSignatureSession(generatedSignatureId, signatureSession);
+            currentSession.clearCertificate(smartIdInformation.getDocumentNumber());
+        });
         pollSmartIdSignatureStatus(session.getSessionId(), generatedSignatureId,
                 containerSigningService.getSmartIdConfigurationProperties().getStatusPollingDelay());
-        containerSigningService.getSessionService().update(session);
 
         return SigningChallenge.builder()
                 .challengeId(initSmartIdSignatureResponse.getChallengeId())
@@ -98,17 +98,24 @@ public class SmartIdSigningDelegate {
         RelyingPartyInfo relyingPartyInfo = getRelyingPartyInfo();
         String smartIdSessionId = containerSigningService.getSmartIdApiClient().initiateCertificateChoice(relyingPartyInfo, smartIdInformation);
         String generatedCertificateId = UUIDGenerator.generateUUID();
-        session.addCertificateSession(generatedCertificateId, CertificateSession.builder()
+        CertificateSession certificateSession = CertificateSession.builder()
                 .relyingPartyInfo(relyingPartyInfo)
                 .sessionCode(smartIdSessionId)
-                .build());
+                .build();
+        containerSigningService.getSessionService().update(session,
+                currentSession -> currentSession.addCertificateSession(generatedCertificateId, certificateSession));
         pollSmartIdCertificateStatus(session.getSessionId(), generatedCertificateId,
                 containerSigningService.getSmartIdConfigurationProperties().getStatusPollingDelay());
-        containerSigningService.getSessionService().update(session);
         return generatedCertificateId;
     }
 
     public CertificateStatus getSmartIdCertificateStatus(String containerId, String certificateId) {
+        SessionService sessionService = containerSigningService.getSessionService();
+        CertificateSession certificateSessionStatus = sessionService.getCertificateSessionStatus(sessionService.getSessionId(containerId), certificateId);
+        if (certificateSessionStatus != null && certificateSessionStatus.getSessionStatus().getProcessingStatus() != RESULT) {
+            return getUnfinishedCertificateStatus(certificateSessionStatus);
+        }
+
         Session session = containerSigningService.getSession(containerId);
         if (session == null || session.getCertificateSession(certificateId) == null) {
             throw new InvalidSessionDataException("No session found for certificate Id: " + certificateId);
@@ -116,96 +123,102 @@ public class SmartIdSigningDelegate {
         CertificateSession certificateSession = session.getCertificateSession(certificateId);
         SessionStatus sessionStatus = certificateSession.getSessionStatus();
         String status = sessionStatus.getStatus();
-        StatusError statusError = sessionStatus.getStatusError();
         if (sessionStatus.getProcessingStatus() == RESULT) {
-            session.removeCertificateSession(certificateId);
-            containerSigningService.getSessionService().update(session);
+            containerSigningService.getSessionService().update(session,
+                    currentSession -> currentSession.removeCertificateSession(certificateId));
             return CertificateStatus.builder()
                     .status(status)
                     .documentNumber(certificateSession.getDocumentNumber())
                     .build();
         } else {
-            int maxProcessingAttempts = containerSigningService.getReprocessingProperties().getMaxProcessingAttempts();
-            if (sessionStatus.getProcessingCounter() >= maxProcessingAttempts) {
-                ErrorResponseCode errorResponseCode = EnumUtils.getEnum(ErrorResponseCode.class, statusError.getErrorCode(), INTERNAL_SERVER_ERROR);
-                throw new SigaApiException(errorResponseCode, statusError.getErrorMessage());
-            } else {
-                return CertificateStatus.builder()
-                        .status(SmartIdSessionStatus.RUNNING.getSigaCertificateMessage())
-                        .documentNumber(certificateSession.getDocumentNumber())
-                        .build();
-            }
+            return getUnfinishedCertificateStatus(certificateSession);
+        }
+    }
+
+    private CertificateStatus getUnfinishedCertificateStatus(CertificateSession certificateSession) {
+        SessionStatus sessionStatus = certificateSession.getSessionStatus();
+        int maxProcessingAttempts = containerSigningService.getReprocessingProperties().getMaxProcessingAttempts();
+        if (sessionStatus.getProcessingCounter() >= maxProcessingAttempts) {
+            StatusError statusError = sessionStatus.getStatusError();
+            ErrorResponseCode errorResponseCode = EnumUtils.getEnum(ErrorResponseCode.class, statusError.getErrorCode(), INTERNAL_SERVER_ERROR);
+            throw new SigaApiException(errorResponseCode, statusError.getErrorMessage());
+        } else {
+            return CertificateStatus.builder()
+                    .status(SmartIdSessionStatus.RUNNING.getSigaCertificateMessage())
+                    .documentNumber(certificateSession.getDocumentNumber())
+                    .build();
         }
     }
 
     public void pollSmartIdCertificateStatus(String sessionId, String certificateId, Duration pollingDelay) {
         Runnable pollingRunnable = () -> {
-            // If semaphore is not acquired it will be re-processed by SessionStatusReprocessingService
-            IgniteSemaphore semaphore = containerSigningService.getIgnite().semaphore(certificateId, 1, true, true);
-            if (semaphore.tryAcquire()) {
-                try (semaphore) {
+            // If lock is not acquired it will be re-processed by SessionStatusReprocessingService
+            Optional<SessionLock> lock = containerSigningService.getSessionLockService().tryLock(certificateId);
+            if (lock.isPresent()) {
+                try (SessionLock ignored = lock.get()) {
                     pollCertificateStatus(sessionId, certificateId);
                 } catch (Exception ex) {
-                    setPollingException(sessionId, certificateId, ex);
+                    if (containerSigningService.getStatusPoller().isStopping()) {
+                        log.info("Status polling interrupted for hand-over. Certificate id: {}", certificateId);
+                    } else {
+                        setCertificatePollingException(sessionId, certificateId, ex);
+                        retryCertificatePolling(sessionId, certificateId);
+                    }
                 } finally {
-                    // Semaphore release conditions 1) Normal execution 2) Exception occurs 3) Ignite node leaves topology
+                    // Lock release conditions 1) Normal execution 2) Exception occurs 3) Node holding the lock leaves the cluster
                     containerSigningService.getSigaEventLogger().logEvents();
                     log.debug("Status polling unlocked for certificate id: {}", certificateId);
                 }
             } else {
-                log.debug("Status polling semaphore not acquired for certificate id: {}", certificateId);
+                log.debug("Status polling lock not acquired for certificate id: {}", certificateId);
             }
         };
         DelegatingSecurityContextRunnable delegatingRunnable = new DelegatingSecurityContextRunnable(pollingRunnable);
-        CompletableFuture.runAsync(delegatingRunnable, delayedExecutor(pollingDelay.toMillis(), MILLISECONDS, containerSigningService.getTaskExecutor()));
+        containerSigningService.getStatusPoller().schedule(sessionId, certificateId, delegatingRunnable, pollingDelay);
     }
 
     private void pollCertificateStatus(String sessionId, String certificateId) {
         log.debug("Status polling locked for certificate id: {}", certificateId);
-        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId);
-        CertificateSession certificateSession = session.getCertificateSession(certificateId);
+        CertificateSession certificateSession = containerSigningService.getSessionService().getCertificateSessionStatus(sessionId, certificateId);
+        if (certificateSession == null) {
+            log.warn("Unable to poll certificate status. Container {} certificate session {} is expired!", sessionId, certificateId);
+            return;
+        }
         RelyingPartyInfo relyingPartyInfo = certificateSession.getRelyingPartyInfo();
         SmartIdStatusResponse statusResponse = containerSigningService.getSmartIdApiClient()
                 .getCertificateStatus(relyingPartyInfo, certificateSession.getSessionCode());
-
-        try (IgniteSemaphore containerSemaphore = containerSigningService.getIgnite().semaphore(sessionId, 1, true, true)) { // TODO: SIGA-424
-            if (containerSemaphore.tryAcquire(5, TimeUnit.SECONDS)) {
-                processSmartIdCertificateStatusResponse(sessionId, certificateId, statusResponse);
-            } else {
-                log.error("Unprocessed SmartId certificate status response due to SIGA-424. Container session id: {}, Certificate session id: {}",
-                        sessionId, certificateId);
-            }
-        }
+        processSmartIdCertificateStatusResponse(sessionId, certificateId, statusResponse);
     }
 
     private void processSmartIdCertificateStatusResponse(String sessionId, String certificateId, SmartIdStatusResponse statusResponse) {
-        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId);
-        if (session == null) {
-            log.warn("Unable to process certificate status response. Container session expired: {}", sessionId);
-            return;
-        }
-        CertificateSession certificateSession = session.getCertificateSession(certificateId);
-
-        if (certificateSession != null) {
-            certificateSession.setPollingStatus(RESULT);
-            SessionStatus sessionStatus = certificateSession.getSessionStatus();
-            if (statusResponse.getStatus() == SmartIdSessionStatus.OK) {
-                SmartIdCertificate smartIdCertificate = statusResponse.getSmartIdCertificate();
-                if (smartIdCertificate == null) {
-                    sessionStatus.setStatusError(SMARTID_EXCEPTION.name(), "No certificate found from Smart-id response");
-                } else {
-                    session.addCertificate(smartIdCertificate.getDocumentNumber(), smartIdCertificate.getCertificate());
-                    certificateSession.setDocumentNumber(statusResponse.getSmartIdCertificate().getDocumentNumber());
-                }
+        SessionStatusUpdate.SessionStatusUpdateBuilder statusUpdate = SessionStatusUpdate.builder()
+                .processingStatus(RESULT)
+                .status(statusResponse.getStatus().getSigaCertificateMessage());
+        if (statusResponse.getStatus() == SmartIdSessionStatus.OK) {
+            SmartIdCertificate smartIdCertificate = statusResponse.getSmartIdCertificate();
+            if (smartIdCertificate == null) {
+                statusUpdate.statusError(StatusError.builder()
+                        .errorCode(SMARTID_EXCEPTION.name())
+                        .errorMessage("No certificate found from Smart-id response")
+                        .build());
+            } else {
+                statusUpdate.documentNumber(smartIdCertificate.getDocumentNumber())
+                        .certificate(smartIdCertificate.getCertificate());
             }
-            sessionStatus.setStatus(statusResponse.getStatus().getSigaCertificateMessage());
-            containerSigningService.getSessionService().update(session);
-        } else {
+        }
+        if (!containerSigningService.getSessionService().updateCertificateSessionStatus(sessionId, certificateId, statusUpdate.build())) {
             log.warn("Certificate session expired! Container session id: {}, Certificate session id: {}", sessionId, certificateId);
         }
     }
 
     public String getSmartIdSignatureStatus(String containerId, String signatureId) {
+        SessionService sessionService = containerSigningService.getSessionService();
+        SignatureSession signatureSessionStatus = sessionService.getSignatureSessionStatus(sessionService.getSessionId(containerId), signatureId);
+        if (signatureSessionStatus != null && signatureSessionStatus.getSessionStatus().getProcessingStatus() != RESULT) {
+            ensureSigningTypeIsSmartId(signatureSessionStatus);
+            return getUnfinishedSignatureStatus(signatureSessionStatus.getSessionStatus());
+        }
+
         Session session = containerSigningService.getSession(containerId);
         if (session == null || session.getSignatureSessionStatus(signatureId) == null) {
             throw new InvalidSessionDataException(UNABLE_TO_FINALIZE_SIGNATURE + ". No data to sign with signature Id: " + signatureId);
@@ -214,55 +227,62 @@ public class SmartIdSigningDelegate {
         ensureSigningTypeIsSmartId(signatureSession);
         SessionStatus sessionStatus = signatureSession.getSessionStatus();
         String status = sessionStatus.getStatus();
-        StatusError statusError = sessionStatus.getStatusError();
         if (sessionStatus.getProcessingStatus() == RESULT) {
+            Signature signature = null;
             try {
                 if (SmartIdSessionStatus.OK.getSigaSigningMessage().equals(status)) {
-                    Signature signature = containerSigningService.finalizeSignature(session, signatureId, signatureSession.getSignature());
-                    containerSigningService.addSignatureToSession(session, signature, signatureId);
+                    signature = containerSigningService.finalizeSignature(session, signatureId, signatureSession.getSignature());
                 }
             } finally {
-                session.removeSigningSession(signatureId);
-                containerSigningService.getSessionService().update(session);
+                containerSigningService.completeSigningSession(session, signatureId, signature);
             }
             return status;
         } else {
-            int maxProcessingAttempts = containerSigningService.getReprocessingProperties().getMaxProcessingAttempts();
-            if (sessionStatus.getProcessingCounter() >= maxProcessingAttempts) {
-                ErrorResponseCode errorResponseCode = EnumUtils.getEnum(ErrorResponseCode.class, statusError.getErrorCode(), INTERNAL_SERVER_ERROR);
-                throw new SigaApiException(errorResponseCode, statusError.getErrorMessage());
-            } else {
-                return SmartIdSessionStatus.RUNNING.getSigaSigningMessage();
-            }
+            return getUnfinishedSignatureStatus(sessionStatus);
+        }
+    }
+
+    private String getUnfinishedSignatureStatus(SessionStatus sessionStatus) {
+        int maxProcessingAttempts = containerSigningService.getReprocessingProperties().getMaxProcessingAttempts();
+        if (sessionStatus.getProcessingCounter() >= maxProcessingAttempts) {
+            StatusError statusError = sessionStatus.getStatusError();
+            ErrorResponseCode errorResponseCode = EnumUtils.getEnum(ErrorResponseCode.class, statusError.getErrorCode(), INTERNAL_SERVER_ERROR);
+            throw new SigaApiException(errorResponseCode, statusError.getErrorMessage());
+        } else {
+            return SmartIdSessionStatus.RUNNING.getSigaSigningMessage();
         }
     }
 
     public void pollSmartIdSignatureStatus(String sessionId, String signatureId, Duration pollingDelay) {
         Runnable pollingRunnable = () -> {
-            // If semaphore is not acquired it will be re-processed by SessionStatusReprocessingService
-            IgniteSemaphore signatureSemaphore = containerSigningService.getIgnite().semaphore(signatureId, 1, true, true);
-            if (signatureSemaphore.tryAcquire()) {
-                try (signatureSemaphore) {
+            // If lock is not acquired it will be re-processed by SessionStatusReprocessingService
+            Optional<SessionLock> lock = containerSigningService.getSessionLockService().tryLock(signatureId);
+            if (lock.isPresent()) {
+                try (SessionLock ignored = lock.get()) {
                     pollSignatureStatus(sessionId, signatureId);
                 } catch (Exception ex) {
-                    setPollingException(sessionId, signatureId, ex);
+                    if (containerSigningService.getStatusPoller().isStopping()) {
+                        log.info("Status polling interrupted for hand-over. Signature id: {}", signatureId);
+                    } else {
+                        setSignaturePollingException(sessionId, signatureId, ex);
+                        retrySignaturePolling(sessionId, signatureId);
+                    }
                 } finally {
-                    // Semaphore release conditions 1) Normal execution 2) Exception occurs 3) Ignite node leaves topology
+                    // Lock release conditions 1) Normal execution 2) Exception occurs 3) Node holding the lock leaves the cluster
                     containerSigningService.getSigaEventLogger().logEvents();
                     log.debug("Status polling unlocked for signature id: {}", signatureId);
                 }
             } else {
-                log.debug("Status polling semaphore not acquired for signature id: {}", signatureId);
+                log.debug("Status polling lock not acquired for signature id: {}", signatureId);
             }
         };
         DelegatingSecurityContextRunnable delegatingRunnable = new DelegatingSecurityContextRunnable(pollingRunnable);
-        CompletableFuture.runAsync(delegatingRunnable, delayedExecutor(pollingDelay.toMillis(), MILLISECONDS, containerSigningService.getTaskExecutor()));
+        containerSigningService.getStatusPoller().schedule(sessionId, signatureId, delegatingRunnable, pollingDelay);
     }
 
     private void pollSignatureStatus(String sessionId, String signatureId) {
         log.debug("Status polling locked for signature id: {}", signatureId);
-        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId);
-        SignatureSession signatureSession = session.getSignatureSession(signatureId);
+        SignatureSession signatureSession = containerSigningService.getSessionService().getSignatureSessionStatus(sessionId, signatureId);
         if (signatureSession == null) {
             log.warn("Unable to poll signature status. Container {} signature session {} is expired!", sessionId, signatureId);
             return;
@@ -270,50 +290,51 @@ public class SmartIdSigningDelegate {
         RelyingPartyInfo relyingPartyInfo = signatureSession.getRelyingPartyInfo();
         String sessionCode = signatureSession.getSessionCode();
         SmartIdStatusResponse statusResponse = containerSigningService.getSmartIdApiClient().getSignatureStatus(relyingPartyInfo, sessionCode);
-
-        try (IgniteSemaphore containerSemaphore = containerSigningService.getIgnite().semaphore(sessionId, 1, true, true)) { // TODO: SIGA-424
-            if (containerSemaphore.tryAcquire(5, TimeUnit.SECONDS)) {
-                processSmartIdSignatureStatusResponse(sessionId, signatureId, statusResponse);
-            } else {
-                log.error("Unprocessed SmartId signature status response due to SIGA-424. Container session id: {}, Signature session id: {}",
-                        sessionId, signatureId);
-            }
-        }
+        processSmartIdSignatureStatusResponse(sessionId, signatureId, statusResponse);
     }
 
     private void processSmartIdSignatureStatusResponse(String sessionId, String signatureId, SmartIdStatusResponse sessionResponse) {
         log.debug("Processing response for signature: {}", signatureId);
-        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId);
-        if (session == null) {
-            log.warn("Unable to process signature status response. Container session expired: {}", sessionId);
-            return;
-        }
-        SignatureSession signatureSession = session.getSignatureSession(signatureId);
-        if (signatureSession != null && signatureSession.getDataToSign() != null) {
-            signatureSession.setPollingStatus(RESULT);
-            signatureSession.setSignature(sessionResponse.getSignature());
-            SmartIdSessionStatus sidStatus = sessionResponse.getStatus();
-            SessionStatus sessionStatus = signatureSession.getSessionStatus();
-            sessionStatus.setStatus(sidStatus.getSigaSigningMessage());
-            sessionStatus.setStatusError(null);
-            containerSigningService.getSessionService().update(session);
-        } else {
+        SessionStatusUpdate statusUpdate = SessionStatusUpdate.builder()
+                .processingStatus(RESULT)
+                .status(sessionResponse.getStatus().getSigaSigningMessage())
+                .signature(sessionResponse.getSignature())
+                .build();
+        if (!containerSigningService.getSessionService().updateSignatureSessionStatus(sessionId, signatureId, statusUpdate)) {
             log.warn("Signature session expired! Container session id: {}, Signature session id: {}", sessionId, signatureId);
         }
     }
 
-    private void setPollingException(String sessionId, String statusSessionId, Exception ex) {
+    private void setSignaturePollingException(String sessionId, String signatureId, Exception ex) {
         log.error("SmartId status polling exception. Container session id: {}, Status session id: {}",
-                sessionId, statusSessionId, ex);
-        Session session = containerSigningService.getSessionService().getContainerBySessionId(sessionId);
-        SignatureSession signatureSession = session.getSignatureSession(statusSessionId);
-        SessionStatus sessionStatus = signatureSession.getSessionStatus();
-        sessionStatus.setProcessingStatus(EXCEPTION);
-        sessionStatus.setStatusError(StatusError.builder()
-                .errorCode(INTERNAL_SERVER_ERROR.name()) // TODO: Exception to error code map
-                .errorMessage(ex.getMessage())
-                .build());
-        containerSigningService.getSessionService().update(session);
+                sessionId, signatureId, ex);
+        containerSigningService.getSessionService().updateSignatureSessionStatus(sessionId, signatureId, createPollingExceptionUpdate(ex));
+    }
+
+    private void setCertificatePollingException(String sessionId, String certificateId, Exception ex) {
+        log.error("SmartId status polling exception. Container session id: {}, Status session id: {}",
+                sessionId, certificateId, ex);
+        containerSigningService.getSessionService().updateCertificateSessionStatus(sessionId, certificateId, createPollingExceptionUpdate(ex));
+    }
+
+    private void retrySignaturePolling(String sessionId, String signatureId) {
+        SignatureSession signatureSession = containerSigningService.getSessionService().getSignatureSessionStatus(sessionId, signatureId);
+        containerSigningService.retryStatusPolling(signatureId, signatureSession == null ? null : signatureSession.getSessionStatus());
+    }
+
+    private void retryCertificatePolling(String sessionId, String certificateId) {
+        CertificateSession certificateSession = containerSigningService.getSessionService().getCertificateSessionStatus(sessionId, certificateId);
+        containerSigningService.retryStatusPolling(certificateId, certificateSession == null ? null : certificateSession.getSessionStatus());
+    }
+
+    private static SessionStatusUpdate createPollingExceptionUpdate(Exception ex) {
+        return SessionStatusUpdate.builder()
+                .processingStatus(EXCEPTION)
+                .statusError(StatusError.builder()
+                        .errorCode(INTERNAL_SERVER_ERROR.name()) // TODO: Exception to error code map
+                        .errorMessage(ex.getMessage())
+                        .build())
+                .build();
     }
 
     private void ensureSigningTypeIsSmartId(SignatureSession signatureSession) {
@@ -12,6 +12,7 @@ import ee.openeid.siga.common.model.Signature;
 import ee.openeid.siga.common.session.AsicContainerSession;
 import ee.openeid.siga.common.session.Session;
 import ee.openeid.siga.common.util.UUIDGenerator;
+import ee.openeid.siga.service.signature.container.status.StatusPoller;
 import ee.openeid.siga.service.signature.session.AsicSessionHolder;
 import ee.openeid.siga.service.signature.util.ContainerUtil;
 import ee.openeid.siga.session.SessionService;
@@ -41,6 +42,7 @@ import static org.digidoc4j.Container.DocumentType.ASICE;
 public class AsicContainerService implements AsicSessionHolder {
     private final SessionService sessionService;
     private final Configuration configuration;
+    private final StatusPoller statusPoller;
 
     public String createContainer(String containerName, List<DataFile> dataFiles) {
         ContainerBuilder containerBuilder = ContainerBuilder.
@@ -55,7 +57,7 @@ public class AsicContainerService implements AsicSessionHolder {
         Container container = containerBuilder.build();
         String containerId = generateContainerId();
         Session session = transformContainerToSession(containerName, containerId, container);
-        sessionService.update(session);
+        sessionService.create(session);
         return containerId;
     }
 
@@ -71,7 +73,7 @@ public class AsicContainerService implements AsicSessionHolder {
         }
         String containerId = generateContainerId();
         Session session = transformContainerToSession(containerName, containerId, container);
-        sessionService.update(session);
+        sessionService.create(session);
         return containerId;
     }
 
@@ -122,24 +124,39 @@ public class AsicContainerService implements AsicSessionHolder {
         return dataFiles.stream().map(this::transformDataFile).collect(Collectors.toList());
     }
 
+    /**
+     * Data files are added to the session only if it has not been changed since it was read, otherwise they are
+     * added again to the container of the session read again.
+     */
     public Result addDataFiles(String containerId, List<DataFile> dataFiles) {
-        AsicContainerSession sessionHolder = getSessionHolder(containerId);
-        Container container = ContainerUtil.createContainer(sessionHolder.getContainer(), configuration);
+        sessionService.update(getSessionHolder(containerId),
+                session -> addDataFilesToSession((AsicContainerSession) session, dataFiles));
+        return Result.OK;
+    }
+
+    public Result removeDataFile(String containerId, String datafileName) {
+        sessionService.update(getSessionHolder(containerId),
+                session -> removeDataFileFromSession((AsicContainerSession) session, datafileName));
+        return Result.OK;
+    }
+
+    private void addDataFilesToSession(AsicContainerSession session, List<DataFile> dataFiles) {
+        Container container = ContainerUtil.createContainer(session.getContainer(), configuration);
         validateIfSessionMutable(container);
 
-        dataFiles.forEach(dataFile -> addDataFileToContainer(container, dataFile));
+        String dataFilesFingerprint = getDataFilesFingerprint(session, container);
+        for (DataFile dataFile : dataFiles) {
+            dataFilesFingerprint = ContainerUtil.addToDataFilesFingerprint(dataFilesFingerprint, addDataFileToContainer(container, dataFile));
+        }
 
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         container.save(outputStream);
-        sessionHolder.setContainer(outputStream.toByteArray());
-        sessionService.update(sessionHolder);
-        return Result.OK;
+        session.setContainer(outputStream.toByteArray());
+        session.setDataFilesFingerprint(dataFilesFingerprint);
     }
 
-    public Result removeDataFile(String containerId, String datafileName) {
-        AsicContainerSession sessionHolder = getSessionHolder(containerId);
-
-        Container container = ContainerUtil.createContainer(sessionHolder.getContainer(), configuration);
+    private void removeDataFileFromSession(AsicContainerSession session, String datafileName) {
+        Container container = ContainerUtil.createContainer(session.getContainer(), configuration);
         validateIfSessionMutable(container);
         Optional<org.digidoc4j.DataFile> dataFile = container.getDataFiles().stream()
                 .filter(df -> df.getName().equals(datafileName))
@@ -147,32 +164,42 @@ public class AsicContainerService implements AsicSessionHolder {
         if (dataFile.isEmpty()) {
             throw new ResourceNotFoundException("Data file named " + datafileName + " not found");
         }
+        String dataFilesFingerprint = getDataFilesFingerprint(session, container);
         container.removeDataFile(dataFile.get());
 
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         container.save(outputStream);
-        sessionHolder.setContainer(outputStream.toByteArray());
-        sessionService.update(sessionHolder);
-
-        return Result.OK;
+        session.setContainer(outputStream.toByteArray());
+        session.setDataFilesFingerprint(ContainerUtil.removeFromDataFilesFingerprint(dataFilesFingerprint, dataFile.get()));
     }
 
     public String closeSession(String containerId) {
-        sessionService.removeByContainerId(containerId);
+        String sessionId = sessionService.getSessionId(containerId);
+        sessionService.removeBySessionId(sessionId);
+        statusPoller.cancel(sessionId);
         return Result.OK.name();
     }
 
-    private void addDataFileToContainer(Container container, DataFile dataFile) {
+    private org.digidoc4j.DataFile addDataFileToContainer(Container container, DataFile dataFile) {
         try {
             org.digidoc4j.DataFile digidoc4jDataFile = new org.digidoc4j.DataFile();
             DSSDocument dssDocument = new InMemoryDocument(Base64.getDecoder().decode(dataFile.getContent().getBytes()), dataFile.getFileName());
             digidoc4jDataFile.setDocument(dssDocument);
             container.addDataFile(digidoc4jDataFile);
+            return digidoc4jDataFile;
         } catch (org.digidoc4j.exceptions.DuplicateDataFileException e) {
             throw new DuplicateDataFileException("Duplicate data files not allowed: " + dataFile.getFileName());
         }
     }
 
+    /**
+     * Sessions stored by earlier versions have no data files fingerprint, it is calculated from the container then.
+     */
+    private static String getDataFilesFingerprint(AsicContainerSession session, Container container) {
+        String dataFilesFingerprint = session.getDataFilesFingerprint();
+        return dataFilesFingerprint != null ? dataFilesFingerprint : ContainerUtil.calculateDataFilesFingerprint(container);
+    }
+
     private void validateIfSessionMutable(Container container) {
         if (!container.getSignatures().isEmpty()) {
             throw new InvalidSessionDataException("Unable to add/remove data file. Container contains signature(s)");
@@ -207,6 +234,7 @@ public class AsicContainerService implements AsicSessionHolder {
                 .serviceName(authenticatedUser.getServiceName())
                 .serviceUuid(authenticatedUser.getServiceUuid())
                 .container(outputStream.toByteArray())
+                .dataFilesFingerprint(ContainerUtil.calculateDataFilesFingerprint(container))
                 .build();
         container.getSignatures().forEach(signature ->
                 sessionHolder.addSignatureId(UUIDGenerator.generateUUID(), Arrays.hashCode(signature.getAdESSignature()))
@@ -13,7 +13,9 @@ import org.digidoc4j.DataToSign;
 import org.digidoc4j.DigestAlgorithm;
 import org.digidoc4j.Signature;
 import org.digidoc4j.SignatureBuilder;
+import org.digidoc4j.SignatureFinalizerBuilder;
 import org.digidoc4j.SignatureParameters;
+import org.digidoc4j.impl.SignatureFinalizer;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
@@ -36,6 +38,13 @@ public class AsicContainerSigningService extends ContainerSigningService impleme
         return signatureBuilder.buildDataToSign();
     }
 
+    @Override
+    protected SignatureFinalizer buildSignatureFinalizer(Session session, SignatureParameters signatureParameters) {
+        AsicContainerSession asicContainerSession = (AsicContainerSession) session;
+        Container container = ContainerUtil.createContainer(asicContainerSession.getContainer(), configuration);
+        return SignatureFinalizerBuilder.aFinalizer(container, signatureParameters);
+    }
+
     @Override
     protected Session getSession(String containerId) {
         return getSessionHolder(containerId);
@@ -66,6 +75,16 @@ public class AsicContainerSigningService extends ContainerSigningService impleme
 
     @Override
     public String generateDataFilesHash(Session session) {
+        AsicContainerSession asicContainerSession = (AsicContainerSession) session;
+        if (asicContainerSession.getDataFilesFingerprint() == null) {
+            Container container = ContainerUtil.createContainer(asicContainerSession.getContainer(), configuration);
+            asicContainerSession.setDataFilesFingerprint(ContainerUtil.calculateDataFilesFingerprint(container));
+        }
+        return asicContainerSession.getDataFilesFingerprint();
+    }
+
+    @Override
+    protected String generateLegacyDataFilesHash(Session session) {
         Container container = ContainerUtil.createContainer(((AsicContainerSession) session).getContainer(), configuration);
         String joinedDataFiles = container.getDataFiles().stream()
                 .sorted(Comparator.comparing(DataFile::getName))
@@ -8,13 +8,18 @@ import ee.openeid.siga.common.exception.ResourceNotFoundException;
 import ee.openeid.siga.common.model.HashcodeDataFile;
 import ee.openeid.siga.common.model.HashcodeSignatureWrapper;
 import ee.openeid.siga.common.model.Result;
+import ee.openeid.siga.common.model.SerializedContainer;
 import ee.openeid.siga.common.model.Signature;
 import ee.openeid.siga.common.session.HashcodeContainerSession;
 import ee.openeid.siga.common.util.UUIDGenerator;
+import ee.openeid.siga.service.signature.container.status.StatusPoller;
 import ee.openeid.siga.service.signature.hashcode.HashcodeContainer;
+import ee.openeid.siga.service.signature.util.ContainerUtil;
 import ee.openeid.siga.service.signature.session.HashcodeSessionHolder;
 import ee.openeid.siga.session.SessionService;
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
 import eu.europa.esig.dss.model.MimeType;
+import eu.europa.esig.dss.spi.DSSUtils;
 import lombok.RequiredArgsConstructor;
 import org.digidoc4j.Configuration;
 import org.digidoc4j.DetachedXadesSignatureBuilder;
@@ -25,14 +30,18 @@ import org.springframework.stereotype.Service;
 import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class HashcodeContainerService implements HashcodeSessionHolder {
     private final SessionService sessionService;
     private final Configuration configuration;
+    private final StatusPoller statusPoller;
 
     public String createContainer(List<HashcodeDataFile> dataFiles) {
 
@@ -43,7 +52,7 @@ public class HashcodeContainerService implements HashcodeSessionHolder {
         });
 
         String containerId = generateContainerId();
-        sessionService.update(transformContainerToSession(containerId, hashcodeContainer));
+        sessionService.create(transformContainerToSession(containerId, hashcodeContainer));
         return containerId;
     }
 
@@ -52,12 +61,29 @@ public class HashcodeContainerService implements HashcodeSessionHolder {
         SigaUserDetails sigaUserDetails = (SigaUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         HashcodeContainer hashcodeContainer = new HashcodeContainer(sigaUserDetails.getServiceType());
         hashcodeContainer.open(Base64.getDecoder().decode(container.getBytes()));
-        sessionService.update(transformContainerToSession(containerId, hashcodeContainer));
+        hashcodeContainer.getSignatures().forEach(this::addSignatureSummary);
+        sessionService.create(transformContainerToSession(containerId, hashcodeContainer));
         return containerId;
     }
 
     public String getContainer(String containerId) {
+        byte[] container = getSerializedContainer(containerId).getContainer();
+        return new String(Base64.getEncoder().encode(container));
+    }
+
+    /**
+     * Serializes the container only once per session version. The serialized container is cached separately from
+     * the session for a short time, so that repeated downloads of an unchanged container return the same bytes
+     * and entity tag without rewriting the session.
+     */
+    public SerializedContainer getSerializedContainer(String containerId) {
         HashcodeContainerSession sessionHolder = getSessionHolder(containerId);
+        String sessionId = sessionHolder.getSessionId();
+        long version = sessionHolder.getVersion();
+        SerializedContainer serializedContainer = sessionService.getSerializedContainer(sessionId, version);
+        if (serializedContainer != null) {
+            return serializedContainer;
+        }
 
         HashcodeContainer hashcodeContainer = new HashcodeContainer();
         sessionHolder.getSignatures().forEach(signatureWrapper -> hashcodeContainer.getSignatures().add(signatureWrapper));
@@ -66,13 +92,14 @@ public class HashcodeContainerService implements HashcodeSessionHolder {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         hashcodeContainer.save(outputStream);
         byte[] container = outputStream.toByteArray();
-
-        return new String(Base64.getEncoder().encode(container));
+        String eTag = HexFormat.of().formatHex(DSSUtils.digest(DigestAlgorithm.SHA256, container));
+        return sessionService.putSerializedContainer(sessionId, version, new SerializedContainer(container, eTag));
     }
 
-
     public Result closeSession(String containerId) {
-        sessionService.removeByContainerId(containerId);
+        String sessionId = sessionService.getSessionId(containerId);
+        sessionService.removeBySessionId(sessionId);
+        statusPoller.cancel(sessionId);
         return Result.OK;
     }
 
@@ -100,35 +127,76 @@ public class HashcodeContainerService implements HashcodeSessionHolder {
         return sessionHolder.getDataFiles();
     }
 
+    /**
+     * Data files are added to the session only if it has not been changed since it was read, otherwise they are
+     * validated and added again to the session read again.
+     */
     public Result addDataFiles(String containerId, List<HashcodeDataFile> dataFiles) {
-        HashcodeContainerSession sessionHolder = getSessionHolder(containerId);
-        validateIfSessionMutable(sessionHolder);
-        dataFiles.forEach(dataFile -> {
-            validateNotDuplicateFile(dataFile, sessionHolder);
-            updateMimeTypeIfNotSet(dataFile);
-        });
-        sessionHolder.getDataFiles().addAll(dataFiles);
-        sessionService.update(sessionHolder);
+        dataFiles.forEach(HashcodeContainerService::updateMimeTypeIfNotSet);
+        sessionService.update(getSessionHolder(containerId),
+                session -> addDataFilesToSession((HashcodeContainerSession) session, dataFiles));
         return Result.OK;
     }
 
     public Result removeDataFile(String containerId, String datafileName) {
-        HashcodeContainerSession sessionHolder = getSessionHolder(containerId);
-        validateIfSessionMutable(sessionHolder);
-        if (sessionHolder.getDataFiles().stream().noneMatch(dataFile -> dataFile.getFileName().equals(datafileName))) {
+        sessionService.update(getSessionHolder(containerId),
+                session -> removeDataFileFromSession((HashcodeContainerSession) session, datafileName));
+        return Result.OK;
+    }
+
+    private void addDataFilesToSession(HashcodeContainerSession session, List<HashcodeDataFile> dataFiles) {
+        validateIfSessionMutable(session);
+        Set<String> existingFileNames = session.getDataFiles().stream()
+                .map(HashcodeDataFile::getFileName)
+                .collect(Collectors.toSet());
+        dataFiles.forEach(dataFile -> validateNotDuplicateFile(dataFile, existingFileNames));
+        session.addDataFiles(dataFiles);
+    }
+
+    private void removeDataFileFromSession(HashcodeContainerSession session, String datafileName) {
+        validateIfSessionMutable(session);
+        if (!session.removeDataFile(datafileName)) {
             throw new ResourceNotFoundException("Data file named " + datafileName + " not found");
         }
-        sessionHolder.getDataFiles().removeIf(dataFile -> dataFile.getFileName().equals(datafileName));
-        sessionService.update(sessionHolder);
-        return Result.OK;
     }
 
+    /**
+     * Uses the signature summary stored with the signature, the signature is parsed only if the summary is missing.
+     */
     public Signature transformSignature(HashcodeSignatureWrapper signatureWrapper) {
+        if (!signatureWrapper.hasSummary()) {
+            return transformSignature(signatureWrapper.getGeneratedSignatureId(), openSignature(signatureWrapper));
+        }
         Signature signature = new Signature();
+        signature.setId(signatureWrapper.getId());
+        signature.setGeneratedSignatureId(signatureWrapper.getGeneratedSignatureId());
+        signature.setSignatureProfile(signatureWrapper.getSignatureProfile());
+        signature.setSignerInfo(signatureWrapper.getSignerInfo());
+        return signature;
+    }
+
+    private void addSignatureSummary(HashcodeSignatureWrapper signatureWrapper) {
+        try {
+            ContainerUtil.addSignatureSummary(signatureWrapper, openSignature(signatureWrapper));
+        } catch (RuntimeException e) {
+            // Uploading does not validate signatures. Signature is left without summary, so that the failure is
+            // reported when the signatures are listed, same as before the summary was stored
+        }
+    }
+
+    private static Signature transformSignature(String generatedSignatureId, org.digidoc4j.Signature dd4jSignature) {
+        Signature signature = new Signature();
+        signature.setId(dd4jSignature.getId());
+        signature.setGeneratedSignatureId(generatedSignatureId);
+        signature.setSignatureProfile(dd4jSignature.getProfile().name());
+        signature.setSignerInfo(dd4jSignature.getSigningCertificate().getSubjectName());
+        return signature;
+    }
+
+    private org.digidoc4j.Signature openSignature(HashcodeSignatureWrapper signatureWrapper) {
         DetachedXadesSignatureBuilder builder = DetachedXadesSignatureBuilder.withConfiguration(configuration);
-        org.digidoc4j.Signature dd4jSignature;
         try {
-            dd4jSignature = builder.openAdESSignature(signatureWrapper.getSignature());
+            return builder.openAdESSignature(signatureWrapper.getSignature());
         } catch (DigiDoc4JException e) {
             throw new InvalidSignatureException(e.getMessage());
         } catch (IllegalArgumentException e) {
@@ -139,11 +207,6 @@ public class HashcodeContainerService implements HashcodeSessionHolder {
             //  This might need a revisit after DD4J/DSS has been updated.
             throw new InvalidSignatureException("Failed to parse detached XAdES signature: " + e.getMessage());
         }
-        signature.setId(dd4jSignature.getId());
-        signature.setGeneratedSignatureId(signatureWrapper.getGeneratedSignatureId());
-        signature.setSignatureProfile(dd4jSignature.getProfile().name());
-        signature.setSignerInfo(dd4jSignature.getSigningCertificate().getSubjectName());
-        return signature;
     }
 
     private void validateIfSessionMutable(HashcodeContainerSession session) {
@@ -166,13 +229,13 @@ public class HashcodeContainerService implements HashcodeSessionHolder {
                 .build();
     }
 
-    private void validateNotDuplicateFile(HashcodeDataFile dataFileToAdd, HashcodeContainerSession sessionHolder) {
-        sessionHolder.getDataFiles().stream()
-                .filter(dataFile -> dataFile.getFileName().equals(dataFileToAdd.getFileName()))
-                .findFirst()
-                .ifPresent(dataFile -> {
-                    throw new DuplicateDataFileException("Duplicate data files not allowed: " + dataFile.getFileName());
-                });
+    /**
+     * Adds the name of the data file to the given names, so that duplicates within the same request are found too.
+     */
+    private void validateNotDuplicateFile(HashcodeDataFile dataFileToAdd, Set<String> existingFileNames) {
+        if (!existingFileNames.add(dataFileToAdd.getFileName())) {
+            throw new DuplicateDataFileException("Duplicate data files not allowed: " + dataFileToAdd.getFileName());
+        }
     }
 
     private static void updateMimeTypeIfNotSet(HashcodeDataFile dataFile) {
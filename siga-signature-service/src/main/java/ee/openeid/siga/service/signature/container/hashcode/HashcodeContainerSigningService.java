@@ -15,13 +15,17 @@ import ee.openeid.siga.service.signature.util.ContainerUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.digidoc4j.Container;
+import org.digidoc4j.DataFile;
 import org.digidoc4j.DataToSign;
 import org.digidoc4j.DetachedXadesSignatureBuilder;
 import org.digidoc4j.DigestAlgorithm;
 import org.digidoc4j.DigestDataFile;
 import org.digidoc4j.Signature;
+import org.digidoc4j.SignatureFinalizerBuilder;
 import org.digidoc4j.SignatureParameters;
 import org.digidoc4j.exceptions.TechnicalException;
+import org.digidoc4j.impl.SignatureFinalizer;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
@@ -42,6 +46,14 @@ public class HashcodeContainerSigningService extends ContainerSigningService imp
         return signatureBuilder.buildDataToSign();
     }
 
+    @Override
+    protected SignatureFinalizer buildSignatureFinalizer(Session session, SignatureParameters signatureParameters) {
+        List<DataFile> dataFiles = ((HashcodeContainerSession) session).getDataFiles().stream()
+                .map(dataFile -> convertDataFile(dataFile, signatureParameters.getSignatureDigestAlgorithm()))
+                .collect(Collectors.toList());
+        return SignatureFinalizerBuilder.aFinalizer(dataFiles, signatureParameters, configuration, Container.DocumentType.ASICE);
+    }
+
     @Override
     protected Session getSession(String containerId) {
         return getSessionHolder(containerId);
@@ -50,6 +62,7 @@ public class HashcodeContainerSigningService extends ContainerSigningService imp
     @Override
     protected void addSignatureToSession(Session sessionHolder, Signature signature, String signatureId) {
         HashcodeSignatureWrapper signatureWrapper = createSignatureWrapper(signatureId, signature.getAdESSignature());
+        ContainerUtil.addSignatureSummary(signatureWrapper, signature);
         HashcodeContainerSession hashcodeContainerSession = (HashcodeContainerSession) sessionHolder;
         hashcodeContainerSession.getSignatures().add(signatureWrapper);
         hashcodeContainerSession.clearSigningSession(signatureId);
@@ -64,6 +77,11 @@ public class HashcodeContainerSigningService extends ContainerSigningService imp
 
     @Override
     public String generateDataFilesHash(Session session) {
+        return ((HashcodeContainerSession) session).getDataFilesFingerprint();
+    }
+
+    @Override
+    protected String generateLegacyDataFilesHash(Session session) {
         String joinedDataFiles = ((HashcodeContainerSession) session).getDataFiles().stream()
                 .sorted(Comparator.comparing(HashcodeDataFile::getFileName))
                 .map(dataFile -> dataFile.getFileName() + dataFile.getFileHashSha256())
@@ -129,9 +147,11 @@ public class HashcodeContainerSigningService extends ContainerSigningService imp
     }
 
     private DigestDataFile convertDataFile(HashcodeDataFile hashcodeDataFile) {
-        String fileName = hashcodeDataFile.getFileName();
-        DigestAlgorithm digestAlgorithm = determineDigestAlgorithm();
+        return convertDataFile(hashcodeDataFile, determineDigestAlgorithm());
+    }
 
+    private DigestDataFile convertDataFile(HashcodeDataFile hashcodeDataFile, DigestAlgorithm digestAlgorithm) {
+        String fileName = hashcodeDataFile.getFileName();
         String mimeType = hashcodeDataFile.getMimeType();
         return new DigestDataFile(fileName, digestAlgorithm, getDigest(hashcodeDataFile, digestAlgorithm), mimeType);
     }
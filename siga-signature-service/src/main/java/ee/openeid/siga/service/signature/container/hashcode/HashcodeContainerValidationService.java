@@ -14,12 +14,12 @@ import ee.openeid.siga.webapp.json.SignatureScope;
 import ee.openeid.siga.webapp.json.ValidationConclusion;
 import ee.openeid.siga.webapp.json.Warning;
 import lombok.RequiredArgsConstructor;
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 
 import java.util.Base64;
 import java.util.List;
-import java.util.function.Predicate;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -80,18 +80,19 @@ public class HashcodeContainerValidationService implements HashcodeSessionHolder
     }
 
     private static void validateHashcodeContainerDataFileSizes(final ValidationConclusion validationConclusion, List<HashcodeDataFile> hashcodeDataFiles) {
-        hashcodeDataFiles.forEach(hashcodeDataFile -> {
-            if (hashcodeDataFile.getFileSize() == null || hashcodeDataFile.getFileSize() > 0) {
-                return;
-            }
-
-            final String fileName = hashcodeDataFile.getFileName();
-            final Predicate<SignatureScope> dataFileMatcher = signatureScope -> StringUtils.equals(signatureScope.getName(), fileName);
+        final List<String> emptyFileNames = hashcodeDataFiles.stream()
+                .filter(hashcodeDataFile -> hashcodeDataFile.getFileSize() != null && hashcodeDataFile.getFileSize() <= 0)
+                .map(HashcodeDataFile::getFileName)
+                .toList();
+        if (emptyFileNames.isEmpty()) {
+            return;
+        }
 
-            validationConclusion.getSignatures().forEach(signature -> {
-                if (signature.getSignatureScopes().stream().noneMatch(dataFileMatcher)) {
-                    return;
-                }
+        validationConclusion.getSignatures().forEach(signature -> {
+            final Set<String> signedFileNames = signature.getSignatureScopes().stream()
+                    .map(SignatureScope::getName)
+                    .collect(Collectors.toSet());
+            emptyFileNames.stream().filter(signedFileNames::contains).forEach(fileName -> {
                 Warning warning = new Warning();
                 warning.setContent(String.format("Data file '%s' is empty", fileName));
                 signature.getWarnings().add(warning);
@@ -2,53 +2,105 @@ package ee.openeid.siga.service.signature.container.status;
 
 import ee.openeid.siga.common.model.SigningType;
 import ee.openeid.siga.common.session.CertificateSession;
+import ee.openeid.siga.common.session.ProcessingStatus;
 import ee.openeid.siga.common.session.Session;
 import ee.openeid.siga.common.session.SessionStatus;
 import ee.openeid.siga.common.session.SignatureSession;
 import ee.openeid.siga.service.signature.configuration.SessionStatusReprocessingProperties;
 import ee.openeid.siga.service.signature.container.ContainerSigningService;
-import ee.openeid.siga.session.CacheName;
+import ee.openeid.siga.service.signature.container.status.StatusReprocessingQueue.DueStatusSession;
 import ee.openeid.siga.session.SessionService;
+import ee.openeid.siga.session.SessionStatusPredicate;
+import ee.openeid.siga.session.StatusPollHandOver;
+import ee.openeid.siga.session.UnfinishedStatusSession;
+import ee.openeid.siga.session.UnfinishedStatusSessions;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.ignite.Ignite;
-import org.apache.ignite.binary.BinaryObject;
-import org.apache.ignite.cache.query.QueryCursor;
-import org.apache.ignite.cache.query.ScanQuery;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import static java.time.Duration.ZERO;
 
+/**
+ * Reprocesses MID and Smart-ID status requests that have failed or have not finished in time.
+ * <p>
+ * Unfinished signature and certificate sessions are not searched for by scanning all sessions. Instead, changes of
+ * sessions with unfinished status sessions are received from {@link SessionService} and kept in queues ordered by
+ * the time their status times out. Scheduled runs only take the due status sessions from the queues and check their
+ * current status before reprocessing them. Reprocessed status sessions are checked again after the processing timeout,
+ * in case their status is not changed by the reprocessing.
+ * <p>
+ * Every SiGa node receives and queues all changes, but reprocesses only the sessions assigned to it by
+ * {@link SessionService#isAssignedToLocalNode(String)}. Due status sessions of other nodes are checked again after
+ * the processing timeout, so that they are taken over when their node leaves the cluster. Changes are not filtered by
+ * assignment on the Ignite server nodes, because the assignment changes with the topology and the filter of the
+ * continuous query cannot be changed without registering the query again, which could lose changes in between. So the
+ * queues of every node grow with the number of unfinished status sessions of the whole cluster.
+ * <p>
+ * On shutdown, status polls in flight are handed over to the SiGa nodes the sessions will be assigned to, if there are
+ * any, which adopt the polls at their original due time. Otherwise shutdown waits for the polls to finish.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 @EnableConfigurationProperties(SessionStatusReprocessingProperties.class)
-public class SessionStatusReprocessingService {
-    private final ThreadPoolTaskExecutor taskExecutor;
-    private final Ignite ignite;
+public class SessionStatusReprocessingService implements MeterBinder {
+    private static final String METRIC_NAME = "siga.status.reprocessing";
+
+    private final StatusPoller statusPoller;
     private final ContainerSigningServiceSelector containerSigningServiceSelector;
     private final SessionService sessionService;
     private final SessionStatusReprocessingProperties reprocessingProperties;
+    private final ThreadPoolTaskExecutor taskExecutor;
+    private final StatusReprocessingQueue signatureStatusQueue = new StatusReprocessingQueue();
+    private final StatusReprocessingQueue certificateStatusQueue = new StatusReprocessingQueue();
+    private final ReprocessingRuns signatureRuns = new ReprocessingRuns();
+    private final ReprocessingRuns certificateRuns = new ReprocessingRuns();
+    private Runnable signatureSessionsListenerRemoval;
+    private Runnable certificateSessionsListenerRemoval;
+    private Runnable handedOverPollsListenerRemoval;
+
+    @PostConstruct
+    public void listenUnfinishedSessions() {
+        signatureSessionsListenerRemoval = sessionService.listenUnfinishedSignatureSessions(
+                unfinishedSessions -> enqueue(signatureStatusQueue, unfinishedSessions));
+        certificateSessionsListenerRemoval = sessionService.listenUnfinishedCertificateSessions(
+                unfinishedSessions -> enqueue(certificateStatusQueue, unfinishedSessions));
+        handedOverPollsListenerRemoval = sessionService.listenHandedOverStatusPolls(
+                polls -> taskExecutor.execute(() -> adoptStatusPolls(polls)));
+    }
 
     @Scheduled(fixedRateString = "${siga.status-reprocessing.fixed-rate:5000}", initialDelayString = "${siga.status-reprocessing.initial-delay:5000}")
     public void processFailedStatusRequests() {
         SignatureStatusRequestFilter filter = new SignatureStatusRequestFilter(
                 reprocessingProperties.getMaxProcessingAttempts(),
                 reprocessingProperties.getProcessingTimeout(), reprocessingProperties.getExceptionTimeout());
-        ScanQuery<String, Map<String, BinaryObject>> query = new ScanQuery<>(filter);
-        try (QueryCursor<String> queryCursor = ignite.getOrCreateCache(CacheName.SIGNATURE_SESSION.name())
-                .withKeepBinary()
-                .query(query, new SessionIdQueryTransformer())) {
-            queryCursor.forEach(sessionId -> processFailedContainerSession(filter, sessionId));
-        }
+        pollDueSessionIds(signatureStatusQueue, signatureRuns, filter, (sessionId, signatureId) -> {
+            SignatureSession signatureSession = sessionService.getSignatureSessionStatus(sessionId, signatureId);
+            return signatureSession == null ? null : signatureSession.getSessionStatus();
+        }).forEach(sessionId -> reprocess(sessionId, () -> processFailedContainerSession(filter, sessionId)));
     }
 
     void processFailedContainerSession(SignatureStatusRequestFilter filter, String sessionId) {
@@ -81,12 +133,10 @@ public class SessionStatusReprocessingService {
         CertificateStatusRequestFilter filter = new CertificateStatusRequestFilter(
                 reprocessingProperties.getMaxProcessingAttempts(),
                 reprocessingProperties.getProcessingTimeout(), reprocessingProperties.getExceptionTimeout());
-        ScanQuery<String, Map<String, BinaryObject>> query = new ScanQuery<>(filter);
-        try (QueryCursor<String> queryCursor = ignite.getOrCreateCache(CacheName.CERTIFICATE_SESSION.name())
-                .withKeepBinary()
-                .query(query, new SessionIdQueryTransformer())) {
-            queryCursor.forEach(sessionId -> processFailedCertificateStatusRequest(filter, sessionId));
-        }
+        pollDueSessionIds(certificateStatusQueue, certificateRuns, filter, (sessionId, certificateId) -> {
+            CertificateSession certificateSession = sessionService.getCertificateSessionStatus(sessionId, certificateId);
+            return certificateSession == null ? null : certificateSession.getSessionStatus();
+        }).forEach(sessionId -> reprocess(sessionId, () -> processFailedCertificateStatusRequest(filter, sessionId)));
     }
 
     void processFailedCertificateStatusRequest(CertificateStatusRequestFilter filter, String sessionId) {
@@ -109,27 +159,165 @@ public class SessionStatusReprocessingService {
         });
     }
 
+    void adoptStatusPolls(List<StatusPollHandOver> polls) {
+        polls.stream()
+                .collect(Collectors.groupingBy(StatusPollHandOver::getSessionId))
+                .forEach((sessionId, sessionPolls) -> reprocess(sessionId, () -> adoptStatusPolls(sessionId, sessionPolls)));
+    }
+
+    private void adoptStatusPolls(String sessionId, List<StatusPollHandOver> polls) {
+        Session session = sessionService.getContainerBySessionId(sessionId);
+        ContainerSigningService containerSigningService = session == null ? null : containerSigningServiceSelector
+                .getContainerSigningServiceFor(session);
+
+        if (containerSigningService == null) {
+            log.warn("No compatible service found for adopting status polls of session: {}", sessionId);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (StatusPollHandOver poll : polls) {
+            String statusSessionId = poll.getStatusSessionId();
+            Duration delay = Duration.ofMillis(Math.max(0, poll.getDueTime() - now));
+            SignatureSession signatureSession = session.getSignatureSessions().get(statusSessionId);
+            CertificateSession certificateSession = session.getCertificateSessions().get(statusSessionId);
+            if (signatureSession != null && isUnfinished(signatureSession.getSessionStatus())) {
+                log.info("Adopting handed over signature status poll: {}", statusSessionId);
+                if (signatureSession.getSigningType() == SigningType.SMART_ID) {
+                    containerSigningService.pollSmartIdSignatureStatus(sessionId, statusSessionId, delay);
+                } else if (signatureSession.getSigningType() == SigningType.MOBILE_ID) {
+                    containerSigningService.pollMobileIdSignatureStatus(sessionId, statusSessionId, delay);
+                }
+            } else if (certificateSession != null && isUnfinished(certificateSession.getSessionStatus())) {
+                log.info("Adopting handed over certificate status poll: {}", statusSessionId);
+                containerSigningService.pollSmartIdCertificateStatus(sessionId, statusSessionId, delay);
+            }
+        }
+    }
+
+    private static boolean isUnfinished(SessionStatus status) {
+        return status != null && status.getProcessingStatus() != ProcessingStatus.RESULT;
+    }
+
+    private void enqueue(StatusReprocessingQueue queue, UnfinishedStatusSessions unfinishedSessions) {
+        Map<String, Long> dueTimes = new HashMap<>();
+        for (UnfinishedStatusSession statusSession : unfinishedSessions.getStatusSessions()) {
+            if (statusSession.getProcessingCounter() <= reprocessingProperties.getMaxProcessingAttempts()) {
+                dueTimes.put(statusSession.getStatusSessionId(),
+                        getDueTime(statusSession.getProcessingStatus(), statusSession.getProcessingStatusTimestamp()));
+            }
+        }
+        queue.replace(unfinishedSessions.getSessionId(), dueTimes);
+    }
+
+    /**
+     * Takes the due status sessions from the queue and returns IDs of sessions having a status session that matches
+     * the filter. Status sessions that are unfinished but not yet due are put back into the queue.
+     */
+    private Set<String> pollDueSessionIds(StatusReprocessingQueue queue, ReprocessingRuns runs, SessionStatusPredicate filter,
+                                          BiFunction<String, String, SessionStatus> statusReader) {
+        long startTime = System.nanoTime();
+        long now = System.currentTimeMillis();
+        Set<String> sessionIds = new LinkedHashSet<>();
+        for (DueStatusSession dueStatusSession : queue.pollDue(now)) {
+            String sessionId = dueStatusSession.sessionId();
+            String statusSessionId = dueStatusSession.statusSessionId();
+            try {
+                if (!sessionService.isAssignedToLocalNode(sessionId)) {
+                    queue.scheduleIfAbsent(sessionId, statusSessionId, now + reprocessingProperties.getProcessingTimeout().toMillis());
+                    continue;
+                }
+                SessionStatus status = statusReader.apply(sessionId, statusSessionId);
+                if (status == null || status.getProcessingStatus() == ProcessingStatus.RESULT
+                        || status.getProcessingCounter() > reprocessingProperties.getMaxProcessingAttempts()) {
+                    continue;
+                }
+                if (filter.test(status.getProcessingStatus(), status.getProcessingStatusTimestampMillis(), status.getProcessingCounter())) {
+                    sessionIds.add(sessionId);
+                    queue.scheduleIfAbsent(sessionId, statusSessionId, now + reprocessingProperties.getProcessingTimeout().toMillis());
+                } else {
+                    queue.scheduleIfAbsent(sessionId, statusSessionId,
+                            getDueTime(status.getProcessingStatus(), status.getProcessingStatusTimestampMillis()));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Unable to read status of session: {}, status session: {}", sessionId, statusSessionId, e);
+                queue.scheduleIfAbsent(sessionId, statusSessionId, now + reprocessingProperties.getProcessingTimeout().toMillis());
+            }
+        }
+        runs.record(System.nanoTime() - startTime, sessionIds.size());
+        return sessionIds;
+    }
+
+    private long getDueTime(ProcessingStatus processingStatus, long processingStatusTimestamp) {
+        return processingStatusTimestamp + 1 + (processingStatus == ProcessingStatus.EXCEPTION
+                ? reprocessingProperties.getExceptionTimeout().toMillis()
+                : reprocessingProperties.getProcessingTimeout().toMillis());
+    }
+
+    private static void reprocess(String sessionId, Runnable reprocessing) {
+        try {
+            reprocessing.run();
+        } catch (RuntimeException e) {
+            log.warn("Unable to reprocess session: {}", sessionId, e);
+        }
+    }
+
+    private void stopListeningUnfinishedSessions() {
+        if (signatureSessionsListenerRemoval != null) {
+            signatureSessionsListenerRemoval.run();
+        }
+        if (certificateSessionsListenerRemoval != null) {
+            certificateSessionsListenerRemoval.run();
+        }
+        if (handedOverPollsListenerRemoval != null) {
+            handedOverPollsListenerRemoval.run();
+        }
+    }
+
     @PreDestroy
     @SneakyThrows
     public void onDestroy() {
+        stopListeningUnfinishedSessions();
+        if (sessionService.isStatusPollHandOverAvailable()) {
+            List<StatusPollHandOver> polls = statusPoller.handOver();
+            if (!polls.isEmpty()) {
+                sessionService.handOverStatusPolls(polls);
+            }
+            log.info("Handed over {} status polling jobs. Continuing shutdown!", polls.size());
+            return;
+        }
         long timeout = 300;
         long currentCount = 0;
         log.info("Graceful shutdown in progress!");
-        while (taskExecutor.getActiveCount() != 0 && currentCount++ <= timeout) {
-            log.info("Nr. of active status polling jobs left: {}. Timeout in: {}", taskExecutor.getActiveCount(),
+        while (statusPoller.getInFlightPollCount() != 0 && currentCount++ <= timeout) {
+            log.info("Nr. of active status polling jobs left: {}. Timeout in: {}", statusPoller.getInFlightPollCount(),
                     timeout - currentCount);
             Thread.sleep(1000);
         }
         log.info("Continuing shutdown!");
     }
 
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(METRIC_NAME + ".pending", signatureStatusQueue, StatusReprocessingQueue::size)
+                .description("Number of unfinished status sessions waiting for reprocessing")
+                .tag("type", "signature")
+                .register(registry);
+        Gauge.builder(METRIC_NAME + ".pending", certificateStatusQueue, StatusReprocessingQueue::size)
+                .description("Number of unfinished status sessions waiting for reprocessing")
+                .tag("type", "certificate")
+                .register(registry);
+        signatureRuns.bindTo(registry, "signature");
+        certificateRuns.bindTo(registry, "certificate");
+    }
+
     private static Predicate<Map.Entry<String, SignatureSession>> applySignatureStatusRequestFilter(
             SignatureStatusRequestFilter filter) {
         return s -> {
             SignatureSession signatureSession = s.getValue();
             SessionStatus sessionStatus = signatureSession.getSessionStatus();
             return SignatureStatusRequestFilter.isApplyFilter(filter, sessionStatus.getProcessingStatus(),
-                    sessionStatus.getProcessingStatusTimestamp(),
+                    sessionStatus.getProcessingStatusTimestampMillis(),
                     sessionStatus.getProcessingCounter());
         };
     }
@@ -140,8 +328,34 @@ public class SessionStatusReprocessingService {
             CertificateSession certificateSession = s.getValue();
             SessionStatus sessionStatus = certificateSession.getSessionStatus();
             return CertificateStatusRequestFilter.isApplyFilter(filter, sessionStatus.getProcessingStatus(),
-                    sessionStatus.getProcessingStatusTimestamp(),
+                    sessionStatus.getProcessingStatusTimestampMillis(),
                     sessionStatus.getProcessingCounter());
         };
     }
+
+    private static class ReprocessingRuns {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder timeNanos = new LongAdder();
+        private final LongAdder foundSessions = new LongAdder();
+
+        void record(long runTimeNanos, int foundSessionCount) {
+            count.increment();
+            timeNanos.add(runTimeNanos);
+            foundSessions.add(foundSessionCount);
+        }
+
+        void bindTo(MeterRegistry registry, String type) {
+            FunctionTimer.builder(METRIC_NAME + ".run", this,
+                            runs -> runs.count.sum(),
+                            runs -> runs.timeNanos.sum(),
+                            TimeUnit.NANOSECONDS)
+                    .description("Time spent on finding due status sessions to reprocess")
+                    .tag("type", type)
+                    .register(registry);
+            FunctionCounter.builder(METRIC_NAME + ".found", foundSessions, LongAdder::sum)
+                    .description("Number of sessions found for reprocessing on this node")
+                    .tag("type", type)
+                    .register(registry);
+        }
+    }
 }
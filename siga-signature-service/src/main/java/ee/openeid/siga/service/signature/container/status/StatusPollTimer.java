@@ -0,0 +1,173 @@
+package ee.openeid.siga.service.signature.container.status;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashed timing wheel running delayed tasks of {@link StatusPoller} on a single thread.
+ * <p>
+ * Scheduling and cancelling a task is constant time. Every tick the thread runs the due tasks of one bucket of the
+ * wheel; tasks due after more than one rotation of the wheel stay in their bucket for the remaining rounds. Tasks are
+ * run with an accuracy of one tick, so they must be short and hand any blocking work over to another executor.
+ */
+@Slf4j
+class StatusPollTimer {
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tickNanos;
+    private final List<Timeout>[] wheel;
+    private final int mask;
+    private final Queue<Timeout> scheduledTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Thread worker;
+    private final long startTime;
+    private volatile boolean stopped;
+    private long tick;
+
+    @SuppressWarnings("unchecked")
+    StatusPollTimer(String threadName, Duration tickDuration, int wheelSize) {
+        if (tickDuration.isNegative() || tickDuration.isZero()) {
+            throw new IllegalArgumentException("Timer tick duration must be positive");
+        }
+        int bucketCount = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickNanos = tickDuration.toNanos();
+        this.wheel = new List[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+        this.mask = bucketCount - 1;
+        this.startTime = System.nanoTime();
+        this.worker = new Thread(this::run, threadName);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * @throws RejectedExecutionException if the timer is stopped
+     */
+    Timeout schedule(Runnable task, long delayMillis) {
+        if (stopped) {
+            throw new RejectedExecutionException("Status poll timer is stopped");
+        }
+        long deadline = System.nanoTime() - startTime + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        Timeout timeout = new Timeout(task, deadline);
+        pendingCount.incrementAndGet();
+        scheduledTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * @return number of tasks scheduled, but not yet run or cancelled
+     */
+    int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    void stop() {
+        stopped = true;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (!stopped) {
+            if (!waitForNextTick()) {
+                break;
+            }
+            transferScheduledTimeouts();
+            expireTimeouts(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private boolean waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        long sleepNanos;
+        while ((sleepNanos = deadline - (System.nanoTime() - startTime)) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void transferScheduledTimeouts() {
+        Timeout timeout;
+        while ((timeout = scheduledTimeouts.poll()) != null) {
+            if (timeout.state.get() == CANCELLED) {
+                continue;
+            }
+            long dueTick = Math.max(tick, timeout.deadline / tickNanos);
+            timeout.remainingRounds = (dueTick - tick) / wheel.length;
+            wheel[(int) (dueTick & mask)].add(timeout);
+        }
+    }
+
+    private void expireTimeouts(List<Timeout> bucket) {
+        int kept = 0;
+        for (int i = 0; i < bucket.size(); i++) {
+            Timeout timeout = bucket.get(i);
+            if (timeout.state.get() == CANCELLED) {
+                continue;
+            }
+            if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+                bucket.set(kept++, timeout);
+            } else if (timeout.state.compareAndSet(PENDING, EXPIRED)) {
+                pendingCount.decrementAndGet();
+                runTask(timeout.task);
+            }
+        }
+        bucket.subList(kept, bucket.size()).clear();
+    }
+
+    private static void runTask(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            log.warn("Status poll timer task failed", e);
+        }
+    }
+
+    class Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private long remainingRounds;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * @return time left until the task is due, or zero if it is already due
+         */
+        long getDelayMillis() {
+            return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - (System.nanoTime() - startTime)));
+        }
+
+        /**
+         * @return {@code true} if the task was cancelled before it was run
+         */
+        boolean cancel() {
+            if (state.compareAndSet(PENDING, CANCELLED)) {
+                pendingCount.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
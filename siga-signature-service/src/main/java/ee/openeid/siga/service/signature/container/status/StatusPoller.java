@@ -0,0 +1,355 @@
+package ee.openeid.siga.service.signature.container.status;
+
+import ee.openeid.siga.service.signature.configuration.StatusPollingProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import ee.openeid.siga.session.StatusPollHandOver;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Schedules the MID and Smart-ID status polls of all signing sessions in progress on this SiGa node.
+ * <p>
+ * A poll is identified by its signature or certificate ID and is scheduled only once until it has finished. When a
+ * poll is due, it is started on {@link StatusPollingExecutor} if both the number of running polls and the number of
+ * running polls of the relying party, i.e. the service of the session, are below their limits. Otherwise the poll is
+ * deferred by the scheduler, without occupying a polling thread while waiting.
+ * <p>
+ * Delays are kept in a {@link StatusPollTimer}. A poll that failed with a transient error can be retried with
+ * exponential backoff and jitter, instead of waiting for {@link SessionStatusReprocessingService}. Scheduled polls of a
+ * session are cancelled when the session is closed.
+ * <p>
+ * When the node shuts down, polls in flight are handed over to other SiGa nodes instead of waiting for them to finish,
+ * see {@link #handOver()}.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(StatusPollingProperties.class)
+public class StatusPoller implements MeterBinder {
+    private static final String METRIC_NAME = "siga.status.polling";
+
+    private final StatusPollingExecutor statusPollingExecutor;
+    private final int maxConcurrentPolls;
+    private final int maxConcurrentPollsPerRelyingParty;
+    private final long throttledPollDelayMillis;
+    private final int maxRetries;
+    private final long retryInitialBackoffMillis;
+    private final long retryMaxBackoffMillis;
+    private final Duration handOverTimeout;
+    private final StatusPollTimer timer;
+    private final Set<String> inFlightPolls = ConcurrentHashMap.newKeySet();
+    private final Map<String, Map<String, StatusPollTimer.Timeout>> scheduledPollsBySession = new ConcurrentHashMap<>();
+    private final Set<String> retriedPolls = ConcurrentHashMap.newKeySet();
+    private final Map<String, RunningPoll> runningPollsById = new ConcurrentHashMap<>();
+    private final Queue<StatusPollHandOver> stoppedPolls = new ConcurrentLinkedQueue<>();
+    private final Map<String, Integer> runningPollsByRelyingParty = new ConcurrentHashMap<>();
+    private final AtomicInteger runningPolls = new AtomicInteger();
+    private final LongAdder completedPolls = new LongAdder();
+    private final LongAdder pollTimeNanos = new LongAdder();
+    private final LongAdder throttledPolls = new LongAdder();
+    private final LongAdder retriedPollCount = new LongAdder();
+    private volatile boolean stopping;
+
+    public StatusPoller(StatusPollingExecutor statusPollingExecutor, StatusPollingProperties statusPollingProperties) {
+        this.statusPollingExecutor = statusPollingExecutor;
+        this.maxConcurrentPolls = statusPollingProperties.getMaxConcurrentPolls();
+        this.maxConcurrentPollsPerRelyingParty = statusPollingProperties.getMaxConcurrentPollsPerRelyingParty();
+        this.throttledPollDelayMillis = statusPollingProperties.getThrottledPollDelay().toMillis();
+        this.maxRetries = statusPollingProperties.getMaxRetries();
+        this.retryInitialBackoffMillis = statusPollingProperties.getRetryInitialBackoff().toMillis();
+        this.retryMaxBackoffMillis = statusPollingProperties.getRetryMaxBackoff().toMillis();
+        this.handOverTimeout = statusPollingProperties.getHandOverTimeout();
+        this.timer = new StatusPollTimer("siga-status-poller", statusPollingProperties.getTimerTick(),
+                statusPollingProperties.getTimerWheelSize());
+    }
+
+    @PreDestroy
+    public void stop() {
+        timer.stop();
+    }
+
+    /**
+     * Schedules the poll, unless a poll with the same ID is already scheduled or running on this node or the node is
+     * handing its polls over.
+     */
+    public void schedule(String sessionId, String pollId, Runnable poll, Duration delay) {
+        if (stopping) {
+            log.debug("Status poll not scheduled for id: {}. Status polls are handed over", pollId);
+            return;
+        }
+        if (!inFlightPolls.add(pollId)) {
+            log.debug("Status poll already in flight for id: {}", pollId);
+            return;
+        }
+        schedule(new Poll(pollId, sessionId, getServiceUuid(sessionId), poll, 0), delay.toMillis());
+    }
+
+    /**
+     * Runs the poll with the given ID again after it has finished, if called by the running poll itself. The retry is
+     * delayed by exponential backoff with jitter. Polls that have been retried more than the configured number of
+     * times are left to {@link SessionStatusReprocessingService}.
+     */
+    public void retry(String pollId) {
+        if (inFlightPolls.contains(pollId)) {
+            retriedPolls.add(pollId);
+        }
+    }
+
+    /**
+     * Cancels polls of the session that are scheduled, but not yet running.
+     */
+    public void cancel(String sessionId) {
+        Map<String, StatusPollTimer.Timeout> scheduledPolls = scheduledPollsBySession.remove(sessionId);
+        if (scheduledPolls == null) {
+            return;
+        }
+        scheduledPolls.forEach((pollId, timeout) -> {
+            if (timeout.cancel()) {
+                inFlightPolls.remove(pollId);
+                log.debug("Status poll cancelled for id: {}", pollId);
+            }
+        });
+    }
+
+    /**
+     * Stops accepting polls and returns the polls in flight on this node, so that they can be handed over to another
+     * node. Scheduled polls are cancelled. Running polls are interrupted and waited for up to the hand-over timeout,
+     * so that their signing locks are released before they are handed over. Interrupting does not unblock every
+     * request to the MID and Smart-ID services, so only running polls that have finished are returned, as due
+     * immediately. Polls still running would hold their signing locks when taken over by another node, they are left
+     * to {@link SessionStatusReprocessingService} instead.
+     */
+    public List<StatusPollHandOver> handOver() throws InterruptedException {
+        stopping = true;
+        long now = System.currentTimeMillis();
+        List<StatusPollHandOver> polls = new ArrayList<>();
+        for (String sessionId : scheduledPollsBySession.keySet()) {
+            Map<String, StatusPollTimer.Timeout> scheduledPolls = scheduledPollsBySession.remove(sessionId);
+            if (scheduledPolls != null) {
+                scheduledPolls.forEach((pollId, timeout) -> {
+                    if (timeout.cancel()) {
+                        inFlightPolls.remove(pollId);
+                        polls.add(new StatusPollHandOver(sessionId, pollId, now + timeout.getDelayMillis()));
+                    }
+                });
+            }
+        }
+        Map<String, RunningPoll> runningPolls = Map.copyOf(runningPollsById);
+        runningPolls.values().forEach(RunningPoll::interrupt);
+        long deadline = System.nanoTime() + handOverTimeout.toNanos();
+        while (!runningPollsById.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        runningPolls.forEach((pollId, runningPoll) -> {
+            if (runningPollsById.containsKey(pollId)) {
+                log.warn("Status poll not handed over for id: {}. Poll did not finish in {} ms", pollId, handOverTimeout.toMillis());
+            } else {
+                polls.add(new StatusPollHandOver(runningPoll.sessionId(), pollId, now));
+            }
+        });
+        StatusPollHandOver stoppedPoll;
+        while ((stoppedPoll = stoppedPolls.poll()) != null) {
+            polls.add(stoppedPoll);
+        }
+        return polls;
+    }
+
+    /**
+     * @return {@code true} if the node is handing its polls over and polls running on this node may be interrupted
+     */
+    public boolean isStopping() {
+        return stopping;
+    }
+
+    /**
+     * @return number of polls scheduled or running on this node
+     */
+    public int getInFlightPollCount() {
+        return inFlightPolls.size();
+    }
+
+    /**
+     * The poll is scheduled while its session entry is locked, so that it is not removed by {@link #start(Poll)} before
+     * it has been added.
+     */
+    private void schedule(Poll poll, long delayMillis) {
+        try {
+            scheduledPollsBySession.compute(poll.sessionId(), (id, scheduledPolls) -> {
+                Map<String, StatusPollTimer.Timeout> polls = scheduledPolls == null ? new ConcurrentHashMap<>() : scheduledPolls;
+                polls.put(poll.id(), timer.schedule(() -> start(poll), delayMillis));
+                return polls;
+            });
+        } catch (RejectedExecutionException e) {
+            inFlightPolls.remove(poll.id());
+            log.warn("Status poll not scheduled for id: {}. Status poller is stopped", poll.id());
+        }
+    }
+
+    private void start(Poll poll) {
+        scheduledPollsBySession.computeIfPresent(poll.sessionId(), (id, scheduledPolls) -> {
+            scheduledPolls.remove(poll.id());
+            return scheduledPolls.isEmpty() ? null : scheduledPolls;
+        });
+        if (stopping) {
+            stop(poll);
+            return;
+        }
+        if (!tryAcquire(poll.relyingParty())) {
+            throttledPolls.increment();
+            schedule(poll, throttledPollDelayMillis);
+            return;
+        }
+        long startTime = System.nanoTime();
+        try {
+            statusPollingExecutor.execute(() -> {
+                RunningPoll runningPoll = new RunningPoll(poll.sessionId(), Thread.currentThread());
+                runningPollsById.put(poll.id(), runningPoll);
+                try {
+                    poll.task().run();
+                } finally {
+                    runningPoll.finish();
+                    runningPollsById.remove(poll.id());
+                    complete(poll, startTime);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Status poll rejected for id: {}. Retrying in {} ms: {}", poll.id(), throttledPollDelayMillis, e.getMessage());
+            release(poll.relyingParty());
+            throttledPolls.increment();
+            schedule(poll, throttledPollDelayMillis);
+        }
+    }
+
+    private void complete(Poll poll, long startTime) {
+        release(poll.relyingParty());
+        completedPolls.increment();
+        pollTimeNanos.add(System.nanoTime() - startTime);
+        if (retriedPolls.remove(poll.id()) && poll.retries() < maxRetries && !stopping) {
+            Poll retry = new Poll(poll.id(), poll.sessionId(), poll.relyingParty(), poll.task(), poll.retries() + 1);
+            long backoffMillis = getRetryBackoffMillis(retry.retries());
+            log.debug("Retrying status poll for id: {} in {} ms", poll.id(), backoffMillis);
+            retriedPollCount.increment();
+            schedule(retry, backoffMillis);
+        } else {
+            inFlightPolls.remove(poll.id());
+        }
+    }
+
+    private void stop(Poll poll) {
+        inFlightPolls.remove(poll.id());
+        stoppedPolls.add(new StatusPollHandOver(poll.sessionId(), poll.id(), System.currentTimeMillis()));
+    }
+
+    /**
+     * Exponential backoff with equal jitter: a random delay between the half and the whole of the exponential delay.
+     */
+    private long getRetryBackoffMillis(int retry) {
+        long exponentialBackoffMillis = retryInitialBackoffMillis << Math.min(retry - 1, 30);
+        long backoffMillis = Math.min(retryMaxBackoffMillis, exponentialBackoffMillis < 0 ? Long.MAX_VALUE : exponentialBackoffMillis);
+        long halfBackoffMillis = backoffMillis / 2;
+        return halfBackoffMillis + ThreadLocalRandom.current().nextLong(backoffMillis - halfBackoffMillis + 1);
+    }
+
+    private boolean tryAcquire(String relyingParty) {
+        if (runningPolls.incrementAndGet() > maxConcurrentPolls) {
+            runningPolls.decrementAndGet();
+            return false;
+        }
+        boolean[] acquired = new boolean[1];
+        runningPollsByRelyingParty.compute(relyingParty, (key, count) -> {
+            int runningCount = count == null ? 0 : count;
+            acquired[0] = runningCount < maxConcurrentPollsPerRelyingParty;
+            return acquired[0] ? runningCount + 1 : count;
+        });
+        if (!acquired[0]) {
+            runningPolls.decrementAndGet();
+        }
+        return acquired[0];
+    }
+
+    private void release(String relyingParty) {
+        runningPollsByRelyingParty.computeIfPresent(relyingParty, (key, count) -> count > 1 ? count - 1 : null);
+        runningPolls.decrementAndGet();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(METRIC_NAME + ".in.flight", inFlightPolls, Set::size)
+                .description("Number of status polls scheduled or running on this node")
+                .register(registry);
+        Gauge.builder(METRIC_NAME + ".timers.pending", timer, StatusPollTimer::getPendingCount)
+                .description("Number of delayed status polls and retries waiting in the timer on this node")
+                .register(registry);
+        Gauge.builder(METRIC_NAME + ".running", runningPolls, AtomicInteger::get)
+                .description("Number of status polls running on this node")
+                .register(registry);
+        FunctionTimer.builder(METRIC_NAME + ".poll", this,
+                        poller -> poller.completedPolls.sum(),
+                        poller -> poller.pollTimeNanos.sum(),
+                        TimeUnit.NANOSECONDS)
+                .description("Time spent on completed status polls")
+                .register(registry);
+        FunctionCounter.builder(METRIC_NAME + ".throttled", throttledPolls, LongAdder::sum)
+                .description("Number of times a due status poll was deferred because of concurrency limits")
+                .register(registry);
+        FunctionCounter.builder(METRIC_NAME + ".retried", retriedPollCount, LongAdder::sum)
+                .description("Number of status polls retried with backoff after a transient error")
+                .register(registry);
+    }
+
+    private static String getServiceUuid(String sessionId) {
+        int serviceUuidStart = sessionId.indexOf('_') + 1;
+        int serviceUuidEnd = sessionId.lastIndexOf('_');
+        return serviceUuidStart < serviceUuidEnd ? sessionId.substring(serviceUuidStart, serviceUuidEnd) : sessionId;
+    }
+
+    private record Poll(String id, String sessionId, String relyingParty, Runnable task, int retries) {
+    }
+
+    /**
+     * Thread of a running poll. The thread is interrupted only until the poll has finished, so that a task running
+     * later on the same pooled thread is never interrupted by {@link #handOver()}.
+     */
+    private static final class RunningPoll {
+        private final String sessionId;
+        private Thread thread;
+
+        RunningPoll(String sessionId, Thread thread) {
+            this.sessionId = sessionId;
+            this.thread = thread;
+        }
+
+        String sessionId() {
+            return sessionId;
+        }
+
+        synchronized void interrupt() {
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+
+        synchronized void finish() {
+            thread = null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ee.openeid.siga.service.signature.container.status;
+
+import ee.openeid.siga.service.signature.configuration.StatusPollingProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Executes MID and Smart-ID status polls started by {@link StatusPoller}.
+ * <p>
+ * Polls run on the shared application task executor by default, where every long-poll occupies a pool thread until
+ * the status response arrives. With {@code siga.status-polling.virtual-threads} enabled, every poll runs on its own
+ * virtual thread instead, which requires Java 21 or newer.
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(StatusPollingProperties.class)
+public class StatusPollingExecutor {
+    private final Executor executor;
+
+    public StatusPollingExecutor(ThreadPoolTaskExecutor taskExecutor, StatusPollingProperties statusPollingProperties) {
+        this.executor = statusPollingProperties.isVirtualThreads() ? createVirtualThreadExecutor() : taskExecutor;
+    }
+
+    public void execute(Runnable poll) {
+        executor.execute(poll);
+    }
+
+    private static Executor createVirtualThreadExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("siga-status-polling-");
+        try {
+            executor.setVirtualThreads(true);
+        } catch (UnsupportedOperationException e) {
+            throw new IllegalStateException("Status polling on virtual threads requires Java 21 or newer", e);
+        }
+        log.info("Status polling runs on virtual threads");
+        return executor;
+    }
+}
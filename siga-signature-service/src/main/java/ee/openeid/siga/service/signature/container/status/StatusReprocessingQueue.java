@@ -0,0 +1,89 @@
+package ee.openeid.siga.service.signature.container.status;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Signature or certificate sessions waiting for their status to be reprocessed, ordered by the time they are due.
+ * <p>
+ * Each status session has at most one due time. Replaced due times are left in the priority queue and skipped when
+ * polled, until the queue is compacted.
+ */
+class StatusReprocessingQueue {
+    private static final int MIN_COMPACTION_SIZE = 1024;
+
+    private final Map<String, Map<String, Long>> dueTimesBySession = new HashMap<>();
+    private final PriorityQueue<DueStatusSession> queue = new PriorityQueue<>(Comparator.comparingLong(DueStatusSession::dueTime));
+    private int size;
+
+    /**
+     * Replaces due times of all status sessions of the session. Empty due times remove the session from the queue.
+     */
+    synchronized void replace(String sessionId, Map<String, Long> dueTimes) {
+        Map<String, Long> replaced = dueTimes.isEmpty()
+                ? dueTimesBySession.remove(sessionId)
+                : dueTimesBySession.put(sessionId, new HashMap<>(dueTimes));
+        size += dueTimes.size() - (replaced == null ? 0 : replaced.size());
+        dueTimes.forEach((statusSessionId, dueTime) -> queue.add(new DueStatusSession(sessionId, statusSessionId, dueTime)));
+        compactIfNeeded();
+    }
+
+    /**
+     * Schedules the status session, unless it has been scheduled since it was polled.
+     */
+    synchronized void scheduleIfAbsent(String sessionId, String statusSessionId, long dueTime) {
+        if (dueTimesBySession.computeIfAbsent(sessionId, id -> new HashMap<>()).putIfAbsent(statusSessionId, dueTime) == null) {
+            size++;
+            queue.add(new DueStatusSession(sessionId, statusSessionId, dueTime));
+            compactIfNeeded();
+        }
+    }
+
+    /**
+     * Removes and returns status sessions due at the given time.
+     */
+    synchronized List<DueStatusSession> pollDue(long time) {
+        List<DueStatusSession> due = new ArrayList<>();
+        while (!queue.isEmpty() && queue.peek().dueTime() <= time) {
+            DueStatusSession dueStatusSession = queue.poll();
+            if (remove(dueStatusSession)) {
+                due.add(dueStatusSession);
+            }
+        }
+        return due;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private boolean remove(DueStatusSession dueStatusSession) {
+        Map<String, Long> dueTimes = dueTimesBySession.get(dueStatusSession.sessionId());
+        Long dueTime = dueTimes == null ? null : dueTimes.get(dueStatusSession.statusSessionId());
+        if (dueTime == null || dueTime != dueStatusSession.dueTime()) {
+            return false;
+        }
+        dueTimes.remove(dueStatusSession.statusSessionId());
+        if (dueTimes.isEmpty()) {
+            dueTimesBySession.remove(dueStatusSession.sessionId());
+        }
+        size--;
+        return true;
+    }
+
+    private void compactIfNeeded() {
+        if (queue.size() < MIN_COMPACTION_SIZE || queue.size() < 2 * size) {
+            return;
+        }
+        queue.clear();
+        dueTimesBySession.forEach((sessionId, dueTimes) -> dueTimes.forEach((statusSessionId, dueTime) ->
+                queue.add(new DueStatusSession(sessionId, statusSessionId, dueTime))));
+    }
+
+    record DueStatusSession(String sessionId, String statusSessionId, long dueTime) {
+    }
+}
@@ -8,11 +8,8 @@ import ee.openeid.siga.common.model.HashcodeSignatureWrapper;
 import ee.openeid.siga.common.model.ServiceType;
 import ee.openeid.siga.common.util.UUIDGenerator;
 import ee.openeid.siga.service.signature.util.ContainerUtil;
-import eu.europa.esig.dss.model.DSSDocument;
 import eu.europa.esig.dss.model.DSSException;
-import eu.europa.esig.dss.model.DigestDocument;
 import eu.europa.esig.dss.model.InMemoryDocument;
-import eu.europa.esig.dss.model.MimeType;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.apache.commons.compress.utils.SeekableInMemoryByteChannel;
@@ -26,11 +23,9 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 import static ee.openeid.siga.service.signature.hashcode.HashcodeContainerCreator.SIGNATURE_FILE_PREFIX;
 import static ee.openeid.siga.service.signature.hashcode.HashcodeContainerCreator.ZIP_ENTRY_MIMETYPE;
@@ -39,6 +34,7 @@ public class HashcodeContainer {
     private static final int MAX_FILE_SIZE = 500000;
     private static final String META_INF_DIRECTORY = "META-INF";
     private List<HashcodeDataFile> dataFiles = new ArrayList<>();
+    private Map<String, HashcodeDataFile> dataFilesByName = new HashMap<>();
     private List<HashcodeSignatureWrapper> signatures = new ArrayList<>();
     private Map<String, ManifestEntry> manifest;
     private ServiceType serviceType;
@@ -85,6 +81,7 @@ public class HashcodeContainer {
         if (!signatures.isEmpty())
             throw new SignatureExistsException("Unable to add data file when signature exists");
         dataFiles.add(dataFile);
+        dataFilesByName.put(dataFile.getFileName(), dataFile);
     }
 
     private void validateManifest() {
@@ -111,21 +108,11 @@ public class HashcodeContainer {
     }
 
     private void compareManifestFileNamesAgainstHashcodeFileNames() {
-        if (!getHashcodeFileNames().equals(getManifestFileNames())) {
+        if (!dataFilesByName.keySet().equals(manifest.keySet())) {
             throw new InvalidContainerException("Manifest does not contain same file names as hashcode files");
         }
     }
 
-    private Set<String> getHashcodeFileNames() {
-        return dataFiles.stream()
-                .map(HashcodeDataFile::getFileName)
-                .collect(Collectors.toUnmodifiableSet());
-    }
-
-    private Set<String> getManifestFileNames() {
-        return manifest.keySet();
-    }
-
     private boolean isValidFileName(String fileName) {
         if (fileName.contains("/")) {
             return false;
@@ -136,7 +123,7 @@ public class HashcodeContainer {
     private void createHashcodeContainer(OutputStream outputStream) {
         HashcodeContainerCreator hashcodeContainerCreator = new HashcodeContainerCreator(outputStream);
         hashcodeContainerCreator.writeMimeType();
-        hashcodeContainerCreator.writeManifest(convertDataFiles());
+        hashcodeContainerCreator.writeManifest(dataFiles);
         hashcodeContainerCreator.writeHashcodeFiles(dataFiles);
         hashcodeContainerCreator.writeSignatures(signatures);
 
@@ -194,23 +181,22 @@ public class HashcodeContainer {
         if (manifest == null) {
             return;
         }
-        dataFiles.forEach(dataFile ->
-                manifest.forEach((s, manifestEntry) -> {
-                    if (dataFile.getFileName().equals(manifestEntry.getFileName())) {
-                        dataFile.setMimeType(manifestEntry.getMimeType());
-                    }
-                }));
-
+        manifest.values().forEach(manifestEntry -> {
+            HashcodeDataFile dataFile = dataFilesByName.get(manifestEntry.getFileName());
+            if (dataFile != null) {
+                dataFile.setMimeType(manifestEntry.getMimeType());
+            }
+        });
     }
 
     private void addDataFileEntries(Map<String, HashcodesEntry> entries, String entryName) {
         entries.forEach((file, hashcodesEntry) -> {
-            Optional<HashcodeDataFile> existingDataFile = dataFiles.stream().filter(dataFile -> dataFile.getFileName().equals(file)).findAny();
-            if (existingDataFile.isPresent()) {
+            HashcodeDataFile existingDataFile = dataFilesByName.get(file);
+            if (existingDataFile != null) {
                 if (HashcodesDataFile.HASHCODES_SHA256.equals(entryName)) {
-                    existingDataFile.get().setFileHashSha256(hashcodesEntry.getHash());
+                    existingDataFile.setFileHashSha256(hashcodesEntry.getHash());
                 } else if (HashcodesDataFile.HASHCODES_SHA512.equals(entryName)) {
-                    existingDataFile.get().setFileHashSha512(hashcodesEntry.getHash());
+                    existingDataFile.setFileHashSha512(hashcodesEntry.getHash());
                 }
             } else {
                 HashcodeDataFile hashcodeDataFile = new HashcodeDataFile();
@@ -222,6 +208,7 @@ public class HashcodeContainer {
                     hashcodeDataFile.setFileHashSha512(hashcodesEntry.getHash());
                 }
                 dataFiles.add(hashcodeDataFile);
+                dataFilesByName.put(file, hashcodeDataFile);
             }
         });
     }
@@ -232,16 +219,4 @@ public class HashcodeContainer {
         }
     }
 
-    private List<org.digidoc4j.DataFile> convertDataFiles() {
-        return dataFiles.stream().map(d -> {
-            DSSDocument dssDocument = new DigestDocument();
-            dssDocument.setMimeType(d.getMimeType() != null ? MimeType.fromMimeTypeString(d.getMimeType()) : MimeType.BINARY);
-            dssDocument.setName(d.getFileName());
-            org.digidoc4j.DataFile dataFile = new org.digidoc4j.DataFile();
-            dataFile.setDocument(dssDocument);
-            return dataFile;
-
-        }).collect(Collectors.toList());
-    }
-
 }
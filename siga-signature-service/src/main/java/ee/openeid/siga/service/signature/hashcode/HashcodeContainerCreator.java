@@ -4,7 +4,6 @@ import ee.openeid.siga.common.exception.TechnicalException;
 import ee.openeid.siga.common.model.HashcodeDataFile;
 import ee.openeid.siga.common.model.HashcodeSignatureWrapper;
 import eu.europa.esig.dss.model.MimeType;
-import org.digidoc4j.Container;
 import org.digidoc4j.DigestAlgorithm;
 import org.digidoc4j.impl.asic.manifest.AsicManifest;
 
@@ -21,6 +20,9 @@ class HashcodeContainerCreator {
     static final String SIGNATURE_FILE_PREFIX = "META-INF/signatures";
     static final String ZIP_ENTRY_MIMETYPE = "mimetype";
     private static final String SIGNATURE_FILE_EXTENSION = ".xml";
+    private static final String MANIFEST = "manifest:manifest";
+    private static final String MANIFEST_FILE_ENTRY = "manifest:file-entry";
+    private static final String MANIFEST_NAMESPACE = "urn:oasis:names:tc:opendocument:xmlns:manifest:1.0";
     private final ZipOutputStream zipOutputStream;
 
     HashcodeContainerCreator(OutputStream outputStream) {
@@ -47,11 +49,10 @@ class HashcodeContainerCreator {
 
     private void writeHashcodeFile(List<HashcodeDataFile> dataFiles, DigestAlgorithm digestAlgorithm, String entryName) {
         HashcodesDataFile hashcodesDataFile = new HashcodesDataFile(digestAlgorithm);
-        hashcodesDataFile.generateHashcodeFile(dataFiles);
         new EntryCallback(new ZipEntry(entryName)) {
             @Override
-            void doWithEntryStream(OutputStream stream) {
-                hashcodesDataFile.writeTo(stream);
+            void doWithEntryStream(OutputStream stream) throws IOException {
+                hashcodesDataFile.writeTo(stream, dataFiles);
             }
         }.write();
     }
@@ -78,17 +79,40 @@ class HashcodeContainerCreator {
         }
     }
 
-    void writeManifest(List<org.digidoc4j.DataFile> dataFiles) {
-        final AsicManifest asicManifest = new AsicManifest(Container.DocumentType.ASICE.name());
-        asicManifest.addFileEntries(dataFiles);
+    /**
+     * Writes the manifest the same way as {@link AsicManifest} of an ASiC-E container would.
+     */
+    void writeManifest(List<HashcodeDataFile> dataFiles) {
         new EntryCallback(new ZipEntry(AsicManifest.XML_PATH)) {
             @Override
-            void doWithEntryStream(OutputStream stream) {
-                asicManifest.writeTo(stream);
+            void doWithEntryStream(OutputStream stream) throws IOException {
+                XmlEntryWriter writer = new XmlEntryWriter(stream)
+                        .writeDeclaration(true)
+                        .startElement(MANIFEST)
+                        .attribute("xmlns:manifest", MANIFEST_NAMESPACE)
+                        .attribute("manifest:version", "1.2")
+                        .closeStartElement();
+                writeManifestEntry(writer, "/", MimeType.ASICE.getMimeTypeString());
+                for (HashcodeDataFile dataFile : dataFiles) {
+                    writeManifestEntry(writer, dataFile.getFileName(), getMimeType(dataFile));
+                }
+                writer.endElement(MANIFEST).flush();
             }
         }.write();
     }
 
+    private static void writeManifestEntry(XmlEntryWriter writer, String fullPath, String mediaType) throws IOException {
+        writer.startElement(MANIFEST_FILE_ENTRY)
+                .attribute("manifest:full-path", fullPath)
+                .attribute("manifest:media-type", mediaType)
+                .endEmptyElement();
+    }
+
+    private static String getMimeType(HashcodeDataFile dataFile) {
+        MimeType mimeType = dataFile.getMimeType() != null ? MimeType.fromMimeTypeString(dataFile.getMimeType()) : MimeType.BINARY;
+        return mimeType.getMimeTypeString();
+    }
+
     private class BytesEntryCallback extends EntryCallback {
 
         private final byte[] data;
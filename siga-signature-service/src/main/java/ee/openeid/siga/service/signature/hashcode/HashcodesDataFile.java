@@ -1,19 +1,10 @@
 package ee.openeid.siga.service.signature.hashcode;
 
 import ee.openeid.siga.common.model.HashcodeDataFile;
-import ee.openeid.siga.common.exception.TechnicalException;
 import lombok.extern.slf4j.Slf4j;
 import org.digidoc4j.DigestAlgorithm;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.ls.DOMImplementationLS;
-import org.w3c.dom.ls.LSOutput;
-import org.w3c.dom.ls.LSSerializer;
 
-import javax.xml.XMLConstants;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.util.List;
 
@@ -23,48 +14,38 @@ public class HashcodesDataFile {
     public static final String HASHCODES_SHA256 = "META-INF/hashcodes-sha256.xml";
     public static final String HASHCODES_SHA512 = "META-INF/hashcodes-sha512.xml";
     public static final String HASHCODES_PREFIX = "META-INF/hashcodes-";
-    private Document dom;
-    private Element rootElement;
+    private static final String HASHCODES = "hashcodes";
+    private static final String FILE_ENTRY = "file-entry";
     private DigestAlgorithm digestAlgorithm;
 
     public HashcodesDataFile(DigestAlgorithm digestAlgorithm) {
         this.digestAlgorithm = digestAlgorithm;
     }
 
-    public void generateHashcodeFile(List<HashcodeDataFile> dataFiles) {
+    public void writeTo(OutputStream outputStream, List<HashcodeDataFile> dataFiles) throws IOException {
         log.debug("Writing hashcode files");
-        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-        try {
-            documentBuilderFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, Boolean.TRUE);
-            DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-            dom = documentBuilder.newDocument();
-            rootElement = dom.createElement("hashcodes");
-
-            dataFiles.forEach(this::addFileEntry);
-            dom.appendChild(rootElement);
-
-        } catch (ParserConfigurationException e) {
-            throw new TechnicalException("Error creating hashcodes file");
+        XmlEntryWriter writer = new XmlEntryWriter(outputStream)
+                .writeDeclaration(false)
+                .startElement(HASHCODES);
+        if (dataFiles.isEmpty()) {
+            writer.endEmptyElement();
+        } else {
+            writer.closeStartElement();
+            for (HashcodeDataFile dataFile : dataFiles) {
+                writeFileEntry(writer, dataFile);
+            }
+            writer.endElement(HASHCODES);
         }
+        writer.flush();
     }
 
-    private void addFileEntry(HashcodeDataFile dataFile) {
-        Element child = dom.createElement("file-entry");
-        child.setAttribute("full-path", dataFile.getFileName());
+    private void writeFileEntry(XmlEntryWriter writer, HashcodeDataFile dataFile) throws IOException {
+        writer.startElement(FILE_ENTRY).attribute("full-path", dataFile.getFileName());
         if (DigestAlgorithm.SHA256 == digestAlgorithm) {
-            child.setAttribute("hash", dataFile.getFileHashSha256());
+            writer.attribute("hash", dataFile.getFileHashSha256());
         } else if (DigestAlgorithm.SHA512 == digestAlgorithm) {
-            child.setAttribute("hash", dataFile.getFileHashSha512());
+            writer.attribute("hash", dataFile.getFileHashSha512());
         }
-        child.setAttribute("size", dataFile.getFileSize().toString());
-        rootElement.appendChild(child);
-    }
-
-    public void writeTo(OutputStream outputStream) {
-        DOMImplementationLS implementation = (DOMImplementationLS) dom.getImplementation();
-        LSOutput lsOutput = implementation.createLSOutput();
-        lsOutput.setByteStream(outputStream);
-        LSSerializer writer = implementation.createLSSerializer();
-        writer.write(dom, lsOutput);
+        writer.attribute("size", dataFile.getFileSize().toString()).endEmptyElement();
     }
 }
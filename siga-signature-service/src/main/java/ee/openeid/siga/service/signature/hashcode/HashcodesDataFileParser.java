@@ -3,16 +3,15 @@ package ee.openeid.siga.service.signature.hashcode;
 import ee.openeid.siga.common.exception.DuplicateDataFileException;
 import ee.openeid.siga.common.exception.InvalidContainerException;
 import ee.openeid.siga.common.util.Base64Util;
-import eu.europa.esig.dss.DomUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.w3c.dom.Element;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
 
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class HashcodesDataFileParser {
+    private static final String FILE_ENTRY = "file-entry";
 
     private byte[] hashcodesDataFile;
     private Map<String, HashcodesEntry> entries = new LinkedHashMap<>();
@@ -28,22 +27,28 @@ public class HashcodesDataFileParser {
     }
 
     private void loadHashcodesEntries() {
-        Element root = DomUtils.buildDOM(hashcodesDataFile).getDocumentElement();
-        Node child = root.getFirstChild();
-        while (child != null) {
-            String nodeName = child.getLocalName();
-            if ("file-entry".equals(nodeName)) {
-                addFileEntry(child);
+        XMLStreamReader reader = XmlStreams.createReader(hashcodesDataFile);
+        try {
+            int depth = 0;
+            while (reader.hasNext()) {
+                int event = XmlStreams.next(reader);
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if (++depth == 2 && FILE_ENTRY.equals(reader.getLocalName())) {
+                        addFileEntry(reader);
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
             }
-            child = child.getNextSibling();
+        } finally {
+            XmlStreams.close(reader);
         }
     }
 
-    private void addFileEntry(Node child) {
-        NamedNodeMap attributes = child.getAttributes();
-        String filePath = attributes.getNamedItem("full-path").getTextContent();
-        String hash = attributes.getNamedItem("hash").getTextContent();
-        String size = attributes.getNamedItem("size").getTextContent();
+    private void addFileEntry(XMLStreamReader reader) {
+        String filePath = reader.getAttributeValue(null, "full-path");
+        String hash = reader.getAttributeValue(null, "hash");
+        String size = reader.getAttributeValue(null, "size");
         validateParameters(filePath, hash, size);
         HashcodesEntry hashcodesEntry = new HashcodesEntry(hash, Integer.parseInt(size));
         entries.put(filePath, hashcodesEntry);
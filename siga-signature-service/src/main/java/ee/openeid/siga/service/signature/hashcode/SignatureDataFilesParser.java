@@ -1,18 +1,26 @@
 package ee.openeid.siga.service.signature.hashcode;
 
 import ee.openeid.siga.common.exception.DuplicateDataFileException;
-import eu.europa.esig.dss.DomUtils;
 import eu.europa.esig.dss.enumerations.DigestAlgorithm;
 import org.apache.commons.collections4.map.LinkedMap;
-import org.w3c.dom.Element;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
 
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
+/**
+ * Reads the data file references of a XAdES signature.
+ * <p>
+ * The signature is streamed only until the end of its {@code SignedInfo} element. The reference to the signed
+ * properties of the signature is not a data file reference and is left out.
+ */
 public class SignatureDataFilesParser {
+    private static final String SIGNED_INFO = "SignedInfo";
+    private static final String REFERENCE = "Reference";
+    private static final String DIGEST_METHOD = "DigestMethod";
+    private static final String SIGNED_PROPERTIES_TYPE = "http://uri.etsi.org/01903#SignedProperties";
 
     private byte[] signature;
     private LinkedMap<String, String> entries = new LinkedMap<>();
@@ -28,43 +36,49 @@ public class SignatureDataFilesParser {
     }
 
     private void loadDataFileEntries() {
-        Element root = DomUtils.buildDOM(signature).getDocumentElement();
-        Node child = root.getFirstChild();
-        addReferenceEntries(child);
-        entries.remove(entries.lastKey());
-    }
-
-    private void addReferenceEntries(Node child) {
-        while (child != null) {
-            String nodeName = child.getLocalName();
-            if ("Reference".equals(nodeName)) {
-                addFileEntry(child);
-            } else {
-                addReferenceEntries(child.getFirstChild());
+        XMLStreamReader reader = XmlStreams.createReader(signature);
+        try {
+            boolean signedInfo = false;
+            String fileName = null;
+            String digestAlgorithm = "";
+            while (reader.hasNext()) {
+                int event = XmlStreams.next(reader);
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String nodeName = reader.getLocalName();
+                    if (SIGNED_INFO.equals(nodeName)) {
+                        signedInfo = true;
+                    } else if (signedInfo && REFERENCE.equals(nodeName)) {
+                        fileName = getFileName(reader);
+                        digestAlgorithm = "";
+                    } else if (fileName != null && DIGEST_METHOD.equals(nodeName)) {
+                        digestAlgorithm = getDigestAlgorithm(reader);
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String nodeName = reader.getLocalName();
+                    if (SIGNED_INFO.equals(nodeName)) {
+                        return;
+                    } else if (fileName != null && REFERENCE.equals(nodeName)) {
+                        entries.put(fileName, digestAlgorithm);
+                        fileName = null;
+                    }
+                }
             }
-            child = child.getNextSibling();
+        } finally {
+            XmlStreams.close(reader);
         }
     }
 
-    private void addFileEntry(Node child) {
-        NamedNodeMap attributes = child.getAttributes();
-        String fileName = URLDecoder.decode(attributes.getNamedItem("URI").getTextContent(), StandardCharsets.UTF_8);
-        validateNotDuplicateFile(fileName);
-        child = child.getFirstChild();
-        String digestAlgorithm = "";
-        while (child != null) {
-            String nodeName = child.getLocalName();
-            if ("DigestMethod".equals(nodeName)) {
-                digestAlgorithm = getDigestAlgorithm(child);
-            }
-            child = child.getNextSibling();
+    private String getFileName(XMLStreamReader reader) {
+        if (SIGNED_PROPERTIES_TYPE.equals(reader.getAttributeValue(null, "Type"))) {
+            return null;
         }
-        entries.put(fileName, digestAlgorithm);
+        String fileName = URLDecoder.decode(reader.getAttributeValue(null, "URI"), StandardCharsets.UTF_8);
+        validateNotDuplicateFile(fileName);
+        return fileName;
     }
 
-    private String getDigestAlgorithm(Node child) {
-        NamedNodeMap digestMethodAttributes = child.getAttributes();
-        String algorithm = digestMethodAttributes.getNamedItem("Algorithm").getTextContent();
+    private String getDigestAlgorithm(XMLStreamReader reader) {
+        String algorithm = reader.getAttributeValue(null, "Algorithm");
         return DigestAlgorithm.forXML(algorithm).getName();
     }
 
@@ -0,0 +1,111 @@
+package ee.openeid.siga.service.signature.hashcode;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the XML files of hashcode containers directly into the container entry stream.
+ * <p>
+ * Only declarations, elements and attributes are supported. Attribute values are escaped the same way as by the DOM
+ * serializer of the JDK: markup characters and control characters are written as references, as are characters
+ * outside the Basic Multilingual Plane. The output is therefore byte-compatible with files serialized from a DOM.
+ */
+final class XmlEntryWriter {
+    private final Writer writer;
+
+    XmlEntryWriter(OutputStream outputStream) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param notStandalone whether to declare the document as not standalone, as done by the JDK transformer, but
+     *                      not by the JDK DOM serializer
+     */
+    XmlEntryWriter writeDeclaration(boolean notStandalone) throws IOException {
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"");
+        if (notStandalone) {
+            writer.write(" standalone=\"no\"");
+        }
+        writer.write("?>");
+        return this;
+    }
+
+    XmlEntryWriter startElement(String name) throws IOException {
+        writer.write('<');
+        writer.write(name);
+        return this;
+    }
+
+    XmlEntryWriter attribute(String name, String value) throws IOException {
+        writer.write(' ');
+        writer.write(name);
+        writer.write("=\"");
+        if (value != null) {
+            writeEscaped(value);
+        }
+        writer.write('"');
+        return this;
+    }
+
+    /**
+     * Closes the start tag of an element that has child elements.
+     */
+    XmlEntryWriter closeStartElement() throws IOException {
+        writer.write('>');
+        return this;
+    }
+
+    /**
+     * Closes the start tag of an element that has no child elements.
+     */
+    XmlEntryWriter endEmptyElement() throws IOException {
+        writer.write("/>");
+        return this;
+    }
+
+    XmlEntryWriter endElement(String name) throws IOException {
+        writer.write("</");
+        writer.write(name);
+        writer.write('>');
+        return this;
+    }
+
+    /**
+     * Flushes the written XML to the entry stream without closing it.
+     */
+    void flush() throws IOException {
+        writer.flush();
+    }
+
+    private void writeEscaped(String value) throws IOException {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> writer.write("&amp;");
+                case '<' -> writer.write("&lt;");
+                case '>' -> writer.write("&gt;");
+                case '"' -> writer.write("&quot;");
+                default -> {
+                    if (c < 0x20) {
+                        writeCharacterReference(c);
+                    } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                        writeCharacterReference(Character.toCodePoint(c, value.charAt(++i)));
+                    } else {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeCharacterReference(int codePoint) throws IOException {
+        writer.write("&#");
+        writer.write(Integer.toString(codePoint));
+        writer.write(';');
+    }
+}
@@ -0,0 +1,62 @@
+package ee.openeid.siga.service.signature.hashcode;
+
+import eu.europa.esig.dss.model.DSSException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+
+/**
+ * Streaming access to the XML files of hashcode containers.
+ * <p>
+ * Readers are created by a shared factory that does not resolve DTDs or external entities. Documents with a DOCTYPE
+ * declaration are rejected the same way as by {@link eu.europa.esig.dss.DomUtils#buildDOM(byte[])}.
+ */
+final class XmlStreams {
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private XmlStreams() {
+    }
+
+    static XMLStreamReader createReader(byte[] xml) {
+        try {
+            return INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(xml));
+        } catch (XMLStreamException e) {
+            throw new DSSException("Unable to parse XML", e);
+        }
+    }
+
+    /**
+     * @return next parsing event of the reader
+     * @throws DSSException if the document is not well-formed or has a DOCTYPE declaration
+     */
+    static int next(XMLStreamReader reader) {
+        try {
+            int event = reader.next();
+            if (event == XMLStreamConstants.DTD) {
+                throw new DSSException("DOCTYPE is not allowed");
+            }
+            return event;
+        } catch (XMLStreamException e) {
+            throw new DSSException("Unable to parse XML", e);
+        }
+    }
+
+    static void close(XMLStreamReader reader) {
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new DSSException("Unable to close XML reader", e);
+        }
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
@@ -7,6 +7,7 @@ import ee.openeid.siga.common.exception.MobileIdApiException;
 import ee.openeid.siga.common.model.MobileIdInformation;
 import ee.openeid.siga.common.model.RelyingPartyInfo;
 import ee.openeid.siga.common.model.Result;
+import ee.openeid.siga.service.signature.client.RelyingPartyClientRegistry;
 import ee.openeid.siga.service.signature.configuration.MobileIdClientConfigurationProperties;
 import ee.sk.mid.MidClient;
 import ee.sk.mid.MidHashToSign;
@@ -24,13 +25,14 @@ import org.digidoc4j.DataToSign;
 import org.glassfish.jersey.client.ClientConfig;
 import org.glassfish.jersey.client.ClientProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Component;
 
 import jakarta.ws.rs.ServerErrorException;
-import java.io.InputStream;
-import java.security.KeyStore;
+import javax.net.ssl.SSLContext;
 import java.security.cert.X509Certificate;
+import java.time.Duration;
 import java.util.Base64;
 import java.util.Map;
 
@@ -41,7 +43,7 @@ import static java.lang.String.format;
 @RequiredArgsConstructor
 @EnableConfigurationProperties(MobileIdClientConfigurationProperties.class)
 public class MobileIdApiClient {
-
+    private static final Duration TRUST_STORE_CHECK_INTERVAL = Duration.ofSeconds(30);
     private static final Map<Class<?>, MobileIdSessionStatus> errorMap = Map.of(
             MidMissingOrInvalidParameterException.class, MobileIdSessionStatus.INTERNAL_ERROR,
             MidSessionNotFoundException.class, MobileIdSessionStatus.INTERNAL_ERROR,
@@ -56,6 +58,7 @@ public class MobileIdApiClient {
 
     private final MobileIdClientConfigurationProperties configurationProperties;
     private final ResourceLoader resourceLoader;
+    private final MidClientRegistry midClientRegistry = new MidClientRegistry();
 
     @SigaEventLog(eventName = SigaEventName.MID_GET_MOBILE_CERTIFICATE,
             logStaticParameters = {@LogParam(name = SigaEventName.EventParam.REQUEST_URL, value = "${siga.midrest.url}")})
@@ -155,13 +158,7 @@ public class MobileIdApiClient {
     }
 
     private MidClient createMidRestClient(RelyingPartyInfo relyingPartyInfo) {
-        return MidClient.newBuilder().withHostUrl(configurationProperties.getUrl())
-                .withTrustStore(getMidTruststore())
-                .withLongPollingTimeoutSeconds((int) configurationProperties.getLongPollingTimeout().toSeconds())
-                .withNetworkConnectionConfig(clientConfig())
-                .withRelyingPartyName(relyingPartyInfo.getName())
-                .withRelyingPartyUUID(relyingPartyInfo.getUuid())
-                .build();
+        return midClientRegistry.getClient(relyingPartyInfo);
     }
 
     private ClientConfig clientConfig() {
@@ -171,14 +168,31 @@ public class MobileIdApiClient {
         return clientConfig;
     }
 
-    private KeyStore getMidTruststore() {
-        try {
-            KeyStore keyStore = KeyStore.getInstance("PKCS12");
-            InputStream is = resourceLoader.getResource(configurationProperties.getTruststorePath()).getInputStream();
-            keyStore.load(is, configurationProperties.getTruststorePassword().toCharArray());
-            return keyStore;
-        } catch (Exception e) {
-            throw new IllegalArgumentException(e);
+    private class MidClientRegistry extends RelyingPartyClientRegistry<MidClient> {
+
+        MidClientRegistry() {
+            super(TRUST_STORE_CHECK_INTERVAL);
+        }
+
+        @Override
+        protected Resource getTrustStore() {
+            return resourceLoader.getResource(configurationProperties.getTruststorePath());
+        }
+
+        @Override
+        protected String getTrustStorePassword() {
+            return configurationProperties.getTruststorePassword();
+        }
+
+        @Override
+        protected MidClient createClient(SSLContext trustSslContext, RelyingPartyInfo relyingPartyInfo) {
+            return MidClient.newBuilder().withHostUrl(configurationProperties.getUrl())
+                    .withTrustSslContext(trustSslContext)
+                    .withLongPollingTimeoutSeconds((int) configurationProperties.getLongPollingTimeout().toSeconds())
+                    .withNetworkConnectionConfig(clientConfig())
+                    .withRelyingPartyName(relyingPartyInfo.getName())
+                    .withRelyingPartyUUID(relyingPartyInfo.getUuid())
+                    .build();
         }
     }
 
@@ -11,6 +11,7 @@ import ee.openeid.siga.common.model.RelyingPartyInfo;
 import ee.openeid.siga.common.model.SmartIdInformation;
 import ee.openeid.siga.common.util.CertificateUtil;
 import ee.openeid.siga.common.util.TokenGenerator;
+import ee.openeid.siga.service.signature.client.RelyingPartyClientRegistry;
 import ee.openeid.siga.service.signature.configuration.SmartIdClientConfigurationProperties;
 import ee.sk.smartid.HashType;
 import ee.sk.smartid.SignableHash;
@@ -39,14 +40,15 @@ import org.digidoc4j.DataToSign;
 import org.glassfish.jersey.client.ClientConfig;
 import org.glassfish.jersey.client.ClientProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Component;
 
 import jakarta.ws.rs.ClientErrorException;
 import jakarta.ws.rs.ServerErrorException;
-import java.io.InputStream;
-import java.security.KeyStore;
+import javax.net.ssl.SSLContext;
 import java.security.cert.X509Certificate;
+import java.time.Duration;
 import java.util.Base64;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -68,6 +70,7 @@ public class SmartIdApiClient {
     private static final String SMART_ID_SERVICE_PERSON_SHOULD_VIEW_PORTAL = "Person should view app or self-service portal now";
     private static final String PERSON_SEMANTICS_IDENTIFIER = "PNO";
     private static final String MINIMUM_CERTIFICATE_LEVEL = "QSCD";
+    private static final Duration TRUST_STORE_CHECK_INTERVAL = Duration.ofSeconds(30);
     private static final Map<String, SmartIdSessionStatus> errorMap;
 
     static {
@@ -88,6 +91,7 @@ public class SmartIdApiClient {
 
     private final ResourceLoader resourceLoader;
     private final SmartIdClientConfigurationProperties smartIdClientConfigurationProperties;
+    private final SmartIdClientRegistry smartIdClientRegistry = new SmartIdClientRegistry();
 
     @SigaEventLog(eventName = SigaEventName.SMART_ID_CERTIFICATE_CHOICE,
             logParameters = {@Param(index = 0, fields = {@XPath(name = "relying_party_name", xpath = "name")})},
@@ -239,14 +243,7 @@ public class SmartIdApiClient {
     }
 
     private SmartIdClient createSmartIdClient(RelyingPartyInfo relyingPartyInfo) {
-        SmartIdClient client = new SmartIdClient();
-        client.setTrustStore(getSidTruststore());
-        client.setHostUrl(smartIdClientConfigurationProperties.getUrl());
-        client.setSessionStatusResponseSocketOpenTime(TimeUnit.MILLISECONDS, smartIdClientConfigurationProperties.getSessionStatusResponseSocketOpenTime().toMillis());
-        client.setNetworkConnectionConfig(clientConfig());
-        client.setRelyingPartyName(relyingPartyInfo.getName());
-        client.setRelyingPartyUUID(relyingPartyInfo.getUuid());
-        return client;
+        return smartIdClientRegistry.getClient(relyingPartyInfo);
     }
 
     private ClientConfig clientConfig() {
@@ -256,14 +253,34 @@ public class SmartIdApiClient {
         return clientConfig;
     }
 
-    private KeyStore getSidTruststore() {
-        try {
-            KeyStore keyStore = KeyStore.getInstance("PKCS12");
-            InputStream is = resourceLoader.getResource(smartIdClientConfigurationProperties.getTruststorePath()).getInputStream();
-            keyStore.load(is, smartIdClientConfigurationProperties.getTruststorePassword().toCharArray());
-            return keyStore;
-        } catch (Exception e) {
-            throw new IllegalArgumentException(e);
+    private class SmartIdClientRegistry extends RelyingPartyClientRegistry<SmartIdClient> {
+
+        SmartIdClientRegistry() {
+            super(TRUST_STORE_CHECK_INTERVAL);
+        }
+
+        @Override
+        protected Resource getTrustStore() {
+            return resourceLoader.getResource(smartIdClientConfigurationProperties.getTruststorePath());
+        }
+
+        @Override
+        protected String getTrustStorePassword() {
+            return smartIdClientConfigurationProperties.getTruststorePassword();
+        }
+
+        @Override
+        protected SmartIdClient createClient(SSLContext trustSslContext, RelyingPartyInfo relyingPartyInfo) {
+            SmartIdClient client = new SmartIdClient();
+            client.setTrustSslContext(trustSslContext);
+            client.setHostUrl(smartIdClientConfigurationProperties.getUrl());
+            client.setSessionStatusResponseSocketOpenTime(TimeUnit.MILLISECONDS, smartIdClientConfigurationProperties.getSessionStatusResponseSocketOpenTime().toMillis());
+            client.setNetworkConnectionConfig(clientConfig());
+            client.setRelyingPartyName(relyingPartyInfo.getName());
+            client.setRelyingPartyUUID(relyingPartyInfo.getUuid());
+            // Creates the connector of the client up front, as it is created lazily without synchronization
+            client.getSmartIdConnector();
+            return client;
         }
     }
 
@@ -2,11 +2,15 @@ package ee.openeid.siga.service.signature.util;
 
 import ee.openeid.siga.common.model.HashcodeSignatureWrapper;
 import ee.openeid.siga.common.model.SignatureHashcodeDataFile;
+import ee.openeid.siga.common.session.DataFilesFingerprint;
 import org.digidoc4j.Configuration;
 import org.digidoc4j.Container;
 import org.digidoc4j.ContainerBuilder;
+import org.digidoc4j.DataFile;
+import org.digidoc4j.Signature;
 
 import java.io.ByteArrayInputStream;
+import java.util.Base64;
 import java.util.Map;
 
 public class ContainerUtil {
@@ -24,6 +28,31 @@ public class ContainerUtil {
         });
     }
 
+    public static void addSignatureSummary(HashcodeSignatureWrapper wrapper, Signature signature) {
+        wrapper.setId(signature.getId());
+        wrapper.setSignatureProfile(signature.getProfile().name());
+        wrapper.setSignerInfo(signature.getSigningCertificate().getSubjectName());
+    }
+
+    /**
+     * Calculates the fingerprint of all data files of the container, reading the content of every data file.
+     */
+    public static String calculateDataFilesFingerprint(Container container) {
+        String fingerprint = DataFilesFingerprint.EMPTY;
+        for (DataFile dataFile : container.getDataFiles()) {
+            fingerprint = addToDataFilesFingerprint(fingerprint, dataFile);
+        }
+        return fingerprint;
+    }
+
+    public static String addToDataFilesFingerprint(String fingerprint, DataFile dataFile) {
+        return DataFilesFingerprint.add(fingerprint, dataFile.getName(), Base64.getEncoder().encodeToString(dataFile.calculateDigest()));
+    }
+
+    public static String removeFromDataFilesFingerprint(String fingerprint, DataFile dataFile) {
+        return DataFilesFingerprint.remove(fingerprint, dataFile.getName(), Base64.getEncoder().encodeToString(dataFile.calculateDigest()));
+    }
+
     public static Container createContainer(byte[] container, Configuration configuration) {
         return ContainerBuilder
                 .aContainer(Container.DocumentType.ASICE)
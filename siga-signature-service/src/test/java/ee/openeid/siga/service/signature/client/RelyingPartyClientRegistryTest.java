@@ -0,0 +1,146 @@
+package ee.openeid.siga.service.signature.client;
+
+import ee.openeid.siga.common.model.RelyingPartyInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RelyingPartyClientRegistryTest {
+    private static final RelyingPartyInfo RELYING_PARTY = RelyingPartyInfo.builder().name("RP1").uuid("uuid1").build();
+    private static final RelyingPartyInfo OTHER_RELYING_PARTY = RelyingPartyInfo.builder().name("RP2").uuid("uuid2").build();
+
+    @TempDir
+    private Path tempDir;
+    private Path trustStorePath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        trustStorePath = tempDir.resolve("sid_truststore.p12");
+        try (InputStream trustStore = getClass().getClassLoader().getResourceAsStream("sid_truststore.p12")) {
+            Files.copy(trustStore, trustStorePath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Test
+    void getClient_ReusesClientOfSameRelyingParty() {
+        TestClientRegistry registry = new TestClientRegistry(Duration.ofMinutes(1));
+
+        TestClient client = registry.getClient(RELYING_PARTY);
+
+        assertSame(client, registry.getClient(RelyingPartyInfo.builder().name("RP1").uuid("uuid1").build()));
+        assertEquals(1, registry.createdClients.get());
+        assertEquals(1, registry.trustStoreLoads.get());
+    }
+
+    @Test
+    void getClient_SharesSslContextBetweenRelyingParties() {
+        TestClientRegistry registry = new TestClientRegistry(Duration.ofMinutes(1));
+
+        TestClient client = registry.getClient(RELYING_PARTY);
+        TestClient otherClient = registry.getClient(OTHER_RELYING_PARTY);
+
+        assertNotSame(client, otherClient);
+        assertSame(client.sslContext(), otherClient.sslContext());
+        assertSame(client.sslContext().getSocketFactory(), otherClient.sslContext().getSocketFactory());
+        assertEquals(1, registry.trustStoreLoads.get());
+    }
+
+    @Test
+    void getClient_WhenTrustStoreNotModified_DoesNotReloadTrustStore() {
+        TestClientRegistry registry = new TestClientRegistry(Duration.ZERO);
+
+        TestClient client = registry.getClient(RELYING_PARTY);
+
+        assertSame(client, registry.getClient(RELYING_PARTY));
+        assertEquals(1, registry.trustStoreLoads.get());
+    }
+
+    @Test
+    void getClient_WhenTrustStoreModified_ReloadsTrustStoreAndRecreatesClients() throws IOException {
+        TestClientRegistry registry = new TestClientRegistry(Duration.ZERO);
+        TestClient client = registry.getClient(RELYING_PARTY);
+
+        Files.setLastModifiedTime(trustStorePath, FileTime.from(Instant.now().plusSeconds(60)));
+        TestClient reloadedClient = registry.getClient(RELYING_PARTY);
+
+        assertNotSame(client, reloadedClient);
+        assertNotSame(client.sslContext(), reloadedClient.sslContext());
+        assertEquals(2, registry.trustStoreLoads.get());
+    }
+
+    @Test
+    void getClient_WhenTrustStoreModifiedWithinCheckInterval_KeepsClients() throws IOException {
+        TestClientRegistry registry = new TestClientRegistry(Duration.ofMinutes(1));
+        TestClient client = registry.getClient(RELYING_PARTY);
+
+        Files.setLastModifiedTime(trustStorePath, FileTime.from(Instant.now().plusSeconds(60)));
+
+        assertSame(client, registry.getClient(RELYING_PARTY));
+        assertEquals(1, registry.trustStoreLoads.get());
+    }
+
+    @Test
+    void getClient_WhenTrustStorePasswordInvalid_Throws() {
+        TestClientRegistry registry = new TestClientRegistry(Duration.ofMinutes(1), "invalid");
+
+        assertThrows(IllegalArgumentException.class, () -> registry.getClient(RELYING_PARTY));
+    }
+
+    private record TestClient(SSLContext sslContext, RelyingPartyInfo relyingPartyInfo) {
+    }
+
+    private class TestClientRegistry extends RelyingPartyClientRegistry<TestClient> {
+        private final String trustStorePassword;
+        private final AtomicInteger trustStoreLoads = new AtomicInteger();
+        private final AtomicInteger createdClients = new AtomicInteger();
+
+        TestClientRegistry(Duration trustStoreCheckInterval) {
+            this(trustStoreCheckInterval, "changeIt");
+        }
+
+        TestClientRegistry(Duration trustStoreCheckInterval, String trustStorePassword) {
+            super(trustStoreCheckInterval);
+            this.trustStorePassword = trustStorePassword;
+        }
+
+        @Override
+        protected Resource getTrustStore() {
+            return new FileSystemResource(trustStorePath) {
+                @Override
+                public InputStream getInputStream() throws IOException {
+                    trustStoreLoads.incrementAndGet();
+                    return super.getInputStream();
+                }
+            };
+        }
+
+        @Override
+        protected String getTrustStorePassword() {
+            return trustStorePassword;
+        }
+
+        @Override
+        protected TestClient createClient(SSLContext trustSslContext, RelyingPartyInfo relyingPartyInfo) {
+            createdClients.incrementAndGet();
+            return new TestClient(trustSslContext, relyingPartyInfo);
+        }
+    }
+}
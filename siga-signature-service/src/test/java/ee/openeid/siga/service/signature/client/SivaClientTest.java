@@ -6,7 +6,9 @@ import ee.openeid.siga.common.exception.InvalidContainerException;
 import ee.openeid.siga.common.exception.InvalidHashAlgorithmException;
 import ee.openeid.siga.common.exception.InvalidSignatureException;
 import ee.openeid.siga.common.exception.TechnicalException;
+import ee.openeid.siga.common.model.HashcodeDataFile;
 import ee.openeid.siga.common.model.HashcodeSignatureWrapper;
+import ee.openeid.siga.common.model.SignatureHashcodeDataFile;
 import ee.openeid.siga.service.signature.test.RequestUtil;
 import ee.openeid.siga.webapp.json.ValidationConclusion;
 import org.apache.commons.lang3.ArrayUtils;
@@ -15,6 +17,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.NullSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -89,6 +92,62 @@ class SivaClientTest {
         assertEquals("Container contains invalid hash algorithms", caughtException.getMessage());
     }
 
+    @Test
+    void hashcodeRequestUsesHashOfAlgorithmSignedForEachFile() throws IOException, URISyntaxException {
+        List<HashcodeDataFile> dataFiles = RequestUtil.createHashcodeDataFiles();
+        HashcodeSignatureWrapper signatureWrapper = createSignatureWrapper(
+                createSignatureDataFile("second datafile.txt", "SHA512"),
+                createSignatureDataFile("first datafile.txt", "SHA256"));
+
+        List<SivaDataFile> sivaDataFiles = validateAndCaptureRequest(List.of(signatureWrapper), dataFiles)
+                .getSignatureFiles().get(0).getDatafiles();
+
+        assertEquals(2, sivaDataFiles.size());
+        assertSivaDataFile(sivaDataFiles.get(0), "first datafile.txt", "SHA256", dataFiles.get(0).getFileHashSha256());
+        assertSivaDataFile(sivaDataFiles.get(1), "second datafile.txt", "SHA512", dataFiles.get(1).getFileHashSha512());
+    }
+
+    @Test
+    void hashcodeRequestUsesFirstSupportedAlgorithmSignedForFile() throws IOException, URISyntaxException {
+        List<HashcodeDataFile> dataFiles = RequestUtil.createHashcodeDataFileListWithOneFile();
+        HashcodeSignatureWrapper signatureWrapper = createSignatureWrapper(
+                createSignatureDataFile("test.txt", "SHA1"),
+                createSignatureDataFile("test.txt", "SHA512"),
+                createSignatureDataFile("test.txt", "SHA256"));
+
+        List<SivaDataFile> sivaDataFiles = validateAndCaptureRequest(List.of(signatureWrapper), dataFiles)
+                .getSignatureFiles().get(0).getDatafiles();
+
+        assertEquals(1, sivaDataFiles.size());
+        assertSivaDataFile(sivaDataFiles.get(0), "test.txt", "SHA512", dataFiles.get(0).getFileHashSha512());
+    }
+
+    @Test
+    void hashcodeRequestUsesAlgorithmsOfEachSignature() throws IOException, URISyntaxException {
+        List<HashcodeDataFile> dataFiles = RequestUtil.createHashcodeDataFileListWithOneFile();
+        HashcodeSignatureWrapper sha256SignatureWrapper = createSignatureWrapper(createSignatureDataFile("test.txt", "SHA256"));
+        HashcodeSignatureWrapper sha512SignatureWrapper = createSignatureWrapper(createSignatureDataFile("test.txt", "SHA512"));
+
+        List<SignatureFile> signatureFiles = validateAndCaptureRequest(List.of(sha256SignatureWrapper, sha512SignatureWrapper), dataFiles)
+                .getSignatureFiles();
+
+        assertEquals(2, signatureFiles.size());
+        assertSivaDataFile(signatureFiles.get(0).getDatafiles().get(0), "test.txt", "SHA256", dataFiles.get(0).getFileHashSha256());
+        assertSivaDataFile(signatureFiles.get(1).getDatafiles().get(0), "test.txt", "SHA512", dataFiles.get(0).getFileHashSha512());
+    }
+
+    @Test
+    void hashcodeRequestWithFileNotSignedBySignatureThrows() {
+        List<HashcodeDataFile> dataFiles = RequestUtil.createHashcodeDataFiles();
+        HashcodeSignatureWrapper signatureWrapper = createSignatureWrapper(createSignatureDataFile("first datafile.txt", "SHA256"));
+
+        InvalidHashAlgorithmException caughtException = assertThrows(
+            InvalidHashAlgorithmException.class, () -> sivaClient.validateHashcodeContainer(List.of(signatureWrapper), dataFiles)
+        );
+        assertEquals("Container contains invalid hash algorithms", caughtException.getMessage());
+        Mockito.verifyNoInteractions(httpClient);
+    }
+
     @Test
     void sivaDocumentMalformed() {
         String body = "{\"requestErrors\": [{\n" +
@@ -124,4 +183,35 @@ class SivaClientTest {
         );
         assertEquals("Signature malformed", caughtException.getMessage());
     }
+
+    private SivaHashcodeValidationRequest validateAndCaptureRequest(List<HashcodeSignatureWrapper> signatureWrappers,
+                                                                   List<HashcodeDataFile> dataFiles) {
+        when(httpClient.post(Mockito.eq("/validateHashcode"), Mockito.any(), Mockito.eq(ValidationResponse.class)))
+                .thenReturn(RequestUtil.createValidationResponse());
+        sivaClient.validateHashcodeContainer(signatureWrappers, dataFiles);
+
+        ArgumentCaptor<SivaHashcodeValidationRequest> requestCaptor = ArgumentCaptor.forClass(SivaHashcodeValidationRequest.class);
+        Mockito.verify(httpClient).post(Mockito.eq("/validateHashcode"), requestCaptor.capture(), Mockito.eq(ValidationResponse.class));
+        return requestCaptor.getValue();
+    }
+
+    private static HashcodeSignatureWrapper createSignatureWrapper(SignatureHashcodeDataFile... signatureDataFiles) {
+        HashcodeSignatureWrapper signatureWrapper = new HashcodeSignatureWrapper();
+        signatureWrapper.setSignature("signature".getBytes(StandardCharsets.UTF_8));
+        signatureWrapper.getDataFiles().addAll(List.of(signatureDataFiles));
+        return signatureWrapper;
+    }
+
+    private static SignatureHashcodeDataFile createSignatureDataFile(String fileName, String hashAlgorithm) {
+        SignatureHashcodeDataFile signatureDataFile = new SignatureHashcodeDataFile();
+        signatureDataFile.setFileName(fileName);
+        signatureDataFile.setHashAlgo(hashAlgorithm);
+        return signatureDataFile;
+    }
+
+    private static void assertSivaDataFile(SivaDataFile sivaDataFile, String fileName, String hashAlgorithm, String hash) {
+        assertEquals(fileName, sivaDataFile.getFilename());
+        assertEquals(hashAlgorithm, sivaDataFile.getHashAlgo());
+        assertEquals(hash, sivaDataFile.getHash());
+    }
 }
@@ -3,7 +3,9 @@ package ee.openeid.siga.service.signature.container;
 import ee.openeid.siga.common.auth.SigaUserDetails;
 import ee.openeid.siga.common.exception.InvalidSessionDataException;
 import ee.openeid.siga.common.model.*;
+import ee.openeid.siga.common.session.CertificateSession;
 import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.common.session.SessionStatus;
 import ee.openeid.siga.common.session.SignatureSession;
 import ee.openeid.siga.service.signature.mobileid.InitMidSignatureResponse;
 import ee.openeid.siga.service.signature.mobileid.MobileIdApiClient;
@@ -15,6 +17,7 @@ import ee.openeid.siga.service.signature.smartid.SmartIdSessionStatus;
 import ee.openeid.siga.service.signature.smartid.SmartIdStatusResponse;
 import ee.openeid.siga.service.signature.test.RequestUtil;
 import ee.openeid.siga.session.SessionService;
+import ee.openeid.siga.session.SessionStatusUpdate;
 import ee.sk.smartid.SmartIdCertificate;
 import lombok.SneakyThrows;
 import org.digidoc4j.DataToSign;
@@ -25,6 +28,7 @@ import org.digidoc4j.signers.PKCS12SignatureToken;
 import org.hamcrest.MatcherAssert;
 import org.junit.jupiter.api.BeforeEach;
 import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.springframework.security.core.Authentication;
@@ -34,6 +38,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.Base64;
+import java.util.function.Consumer;
 
 import static ee.openeid.siga.service.signature.test.RequestUtil.*;
 import static java.time.Duration.ZERO;
@@ -71,6 +76,15 @@ public abstract class ContainerSigningServiceTest {
         SecurityContextHolder.setContext(securityContext);
     }
 
+    @BeforeEach
+    public void setUpVersionedSessionUpdates() {
+        Mockito.lenient().when(sessionService.update(any(Session.class), ArgumentMatchers.<Consumer<Session>>any())).thenAnswer(invocation -> {
+            Session session = invocation.getArgument(0);
+            invocation.<Consumer<Session>>getArgument(1).accept(session);
+            return session;
+        });
+    }
+
     protected void assertCreateDataToSignSuccessful() {
         DataToSign dataToSign = getSigningService().createDataToSign(CONTAINER_ID, createSignatureParameters(pkcs12Esteid2018SignatureToken.getCertificate())).getDataToSign();
         assertEquals(DigestAlgorithm.SHA512, dataToSign.getDigestAlgorithm());
@@ -156,7 +170,6 @@ public abstract class ContainerSigningServiceTest {
         Mockito.when(SecurityContextHolder.getContext().getAuthentication().getPrincipal()).thenReturn(createDefaultUserDetails());
         Session session = getSessionHolder();
         Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(session);
-        Mockito.when(sessionService.getContainerBySessionId(CONTAINER_SESSION_ID)).thenReturn(session);
         SignatureParameters signatureParameters = createSignatureParameters(pkcs12Esteid2018SignatureToken.getCertificate());
         DataToSign dataToSign = getSigningService().buildDataToSign(session, signatureParameters);
         byte[] signatureRaw = pkcs12Esteid2018SignatureToken.sign(DigestAlgorithm.SHA512, dataToSign.getDataToSign());
@@ -174,12 +187,15 @@ public abstract class ContainerSigningServiceTest {
                         .dataFilesHash(getSigningService().generateDataFilesHash(session))
                         .build());
 
+        mockSessionStatusUpdates(session);
+
         getSigningService().pollMobileIdSignatureStatus(session.getSessionId(), dataToSign.getSignatureParameters().getSignatureId(), ZERO);
 
         await().atMost(FIVE_SECONDS)
                 .untilAsserted(() -> assertEquals("SIGNATURE",
                         getSigningService().getMobileIdSignatureStatus(CONTAINER_ID, dataToSign.getSignatureParameters().getSignatureId())));
-        Mockito.verify(sessionService, Mockito.times(2)).update(session);
+        Mockito.verify(sessionService, Mockito.times(1)).updateSignatureSessionStatus(eq(CONTAINER_SESSION_ID), eq(dataToSign.getSignatureParameters().getSignatureId()), any());
+        Mockito.verify(sessionService, Mockito.times(1)).update(eq(session), ArgumentMatchers.<Consumer<Session>>any());
         Mockito.verify(containerSigningService, Mockito.times(1)).finalizeSignature(eq(session), anyString(), any());
     }
 
@@ -189,7 +205,7 @@ public abstract class ContainerSigningServiceTest {
         Mockito.when(SecurityContextHolder.getContext().getAuthentication().getPrincipal()).thenReturn(createDefaultUserDetails());
         String certificateSessionId = getSigningService().initSmartIdCertificateChoice(CONTAINER_ID, smartIdInformation);
         ArgumentCaptor<Session> sessionCaptor = ArgumentCaptor.forClass(Session.class);
-        Mockito.verify(sessionService, Mockito.times(1)).update(sessionCaptor.capture());
+        Mockito.verify(sessionService, Mockito.times(1)).update(sessionCaptor.capture(), ArgumentMatchers.<Consumer<Session>>any());
         Session updatedSession = sessionCaptor.getValue();
         MatcherAssert.assertThat(updatedSession.getSessionId(), equalTo(CONTAINER_SESSION_ID));
         assertEquals(36, certificateSessionId.length());
@@ -199,7 +215,6 @@ public abstract class ContainerSigningServiceTest {
     protected void assertSuccessfulCertificateChoiceProcessing() {
         Session session = getSessionHolder();
         Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(session);
-        Mockito.when(sessionService.getContainerBySessionId(CONTAINER_SESSION_ID)).thenReturn(session);
         SmartIdCertificate smartIdCertificate = new SmartIdCertificate();
         smartIdCertificate.setCertificate(pkcs12Esteid2018SignatureToken.getCertificate());
         smartIdCertificate.setDocumentNumber(DOCUMENT_NUMBER);
@@ -208,6 +223,7 @@ public abstract class ContainerSigningServiceTest {
                 .smartIdCertificate(smartIdCertificate)
                 .build();
         Mockito.when(smartIdApiClient.getCertificateStatus(any(), any())).thenReturn(statusResponse);
+        mockSessionStatusUpdates(session);
 
         getSigningService().pollSmartIdCertificateStatus(session.getSessionId(), CERTIFICATE_ID, ZERO);
 
@@ -216,7 +232,11 @@ public abstract class ContainerSigningServiceTest {
             assertEquals(SmartIdSessionStatus.OK.getSigaCertificateMessage(), certificateStatus.getStatus());
             assertEquals(DOCUMENT_NUMBER, certificateStatus.getDocumentNumber());
         });
-        Mockito.verify(sessionService, Mockito.times(2)).update(session);
+        Mockito.verify(sessionService, Mockito.times(1)).updateCertificateSessionStatus(eq(CONTAINER_SESSION_ID), eq(CERTIFICATE_ID),
+                argThat(statusUpdate -> pkcs12Esteid2018SignatureToken.getCertificate().equals(statusUpdate.getCertificate())));
+        Mockito.verify(sessionService, Mockito.never()).getContainerBySessionId(any());
+        Mockito.verify(sessionService, Mockito.times(1)).update(eq(session), ArgumentMatchers.<Consumer<Session>>any());
+        assertEquals(pkcs12Esteid2018SignatureToken.getCertificate(), session.getCertificate(DOCUMENT_NUMBER));
     }
 
     protected void assertSuccessfulSmartIdSigningWithoutSessionCert() {
@@ -269,6 +289,7 @@ public abstract class ContainerSigningServiceTest {
                 .signature(signature)
                 .build();
         Mockito.when(smartIdApiClient.getSignatureStatus(any(), any())).thenReturn(statusResponse);
+        mockSessionStatusUpdates(sessionHolder);
         getSigningService().pollSmartIdSignatureStatus(sessionHolder.getSessionId(), dataToSign.getSignatureParameters().getSignatureId(), ZERO);
 
         await().atMost(FIVE_SECONDS)
@@ -276,12 +297,69 @@ public abstract class ContainerSigningServiceTest {
                         getSigningService().getSmartIdSignatureStatus(CONTAINER_ID, dataToSign.getSignatureParameters().getSignatureId())));
 
         ArgumentCaptor<Session> sessionCaptor = ArgumentCaptor.forClass(Session.class);
-        Mockito.verify(sessionService, Mockito.times(3)).update(sessionCaptor.capture());
+        Mockito.verify(sessionService, Mockito.times(1)).updateSignatureSessionStatus(eq(CONTAINER_SESSION_ID), eq(dataToSign.getSignatureParameters().getSignatureId()), any());
+        Mockito.verify(sessionService, Mockito.times(2)).update(sessionCaptor.capture(), ArgumentMatchers.<Consumer<Session>>any());
         Session updatedSession = sessionCaptor.getValue();
         MatcherAssert.assertThat(updatedSession, equalTo(sessionHolder));
         Mockito.verify(containerSigningService, Mockito.times(1)).finalizeSignature(eq(sessionHolder), anyString(), any());
     }
 
+    protected void assertUnfinishedMobileIdSignatureStatusReadWithoutLoadingSession() {
+        Mockito.when(sessionService.getSessionId(CONTAINER_ID)).thenReturn(CONTAINER_SESSION_ID);
+        Mockito.when(sessionService.getSignatureSessionStatus(CONTAINER_SESSION_ID, SIG_ID))
+                .thenReturn(SignatureSession.builder().signingType(SigningType.MOBILE_ID).build());
+
+        assertEquals(MobileIdSessionStatus.OUTSTANDING_TRANSACTION.name(), getSigningService().getMobileIdSignatureStatus(CONTAINER_ID, SIG_ID));
+        Mockito.verify(sessionService, Mockito.never()).getContainer(any());
+    }
+
+    protected void assertUnfinishedSmartIdCertificateStatusReadWithoutLoadingSession() {
+        Mockito.when(sessionService.getSessionId(CONTAINER_ID)).thenReturn(CONTAINER_SESSION_ID);
+        Mockito.when(sessionService.getCertificateSessionStatus(CONTAINER_SESSION_ID, CERTIFICATE_ID))
+                .thenReturn(CertificateSession.builder().build());
+
+        CertificateStatus certificateStatus = getSigningService().getSmartIdCertificateStatus(CONTAINER_ID, CERTIFICATE_ID);
+
+        assertEquals(SmartIdSessionStatus.RUNNING.getSigaCertificateMessage(), certificateStatus.getStatus());
+        Mockito.verify(sessionService, Mockito.never()).getContainer(any());
+    }
+
+    private void mockSessionStatusUpdates(Session session) {
+        Mockito.lenient().when(sessionService.updateSignatureSessionStatus(eq(session.getSessionId()), anyString(), any())).thenAnswer(invocation -> {
+            SignatureSession signatureSession = session.getSignatureSession(invocation.getArgument(1));
+            SessionStatusUpdate statusUpdate = invocation.getArgument(2);
+            applyStatusUpdate(signatureSession.getSessionStatus(), statusUpdate);
+            if (statusUpdate.getSignature() != null) {
+                signatureSession.setSignature(statusUpdate.getSignature());
+            }
+            return true;
+        });
+        Mockito.lenient().when(sessionService.updateCertificateSessionStatus(eq(session.getSessionId()), anyString(), any())).thenAnswer(invocation -> {
+            CertificateSession certificateSession = session.getCertificateSession(invocation.getArgument(1));
+            SessionStatusUpdate statusUpdate = invocation.getArgument(2);
+            applyStatusUpdate(certificateSession.getSessionStatus(), statusUpdate);
+            if (statusUpdate.getDocumentNumber() != null) {
+                certificateSession.setDocumentNumber(statusUpdate.getDocumentNumber());
+            }
+            if (statusUpdate.getCertificate() != null) {
+                session.addCertificate(statusUpdate.getDocumentNumber(), statusUpdate.getCertificate());
+            }
+            return true;
+        });
+        Mockito.lenient().when(sessionService.getSignatureSessionStatus(eq(session.getSessionId()), anyString()))
+                .thenAnswer(invocation -> session.getSignatureSession(invocation.getArgument(1)));
+        Mockito.lenient().when(sessionService.getCertificateSessionStatus(eq(session.getSessionId()), anyString()))
+                .thenAnswer(invocation -> session.getCertificateSession(invocation.getArgument(1)));
+    }
+
+    private static void applyStatusUpdate(SessionStatus sessionStatus, SessionStatusUpdate statusUpdate) {
+        sessionStatus.setProcessingStatus(statusUpdate.getProcessingStatus());
+        sessionStatus.setStatusError(statusUpdate.getStatusError());
+        if (statusUpdate.getStatus() != null) {
+            sessionStatus.setStatus(statusUpdate.getStatus());
+        }
+    }
+
     protected void assertGeneratesOrderAgnosticDataFilesHash() {
         Session session1 = getSimpleSessionHolderBuilder()
                 .addDataFile("datafile1.txt", "data1")
@@ -348,19 +426,32 @@ public abstract class ContainerSigningServiceTest {
                 .build();
         session.addSignatureSession(SIG_ID, signatureSession);
 
-        ArgumentCaptor<Session> sessionCaptor = ArgumentCaptor.forClass(Session.class);
-        Mockito.doNothing().when(sessionService).update(sessionCaptor.capture());
-
         InvalidSessionDataException e = assertThrows(InvalidSessionDataException.class, () -> {
             getSigningService().finalizeSignature(session, SIG_ID, "b64".getBytes());
         });
 
         MatcherAssert.assertThat(e.getMessage(), equalTo("Unable to finalize signature. Container data files have been changed after signing was initiated. Repeat signing process"));
+        ArgumentCaptor<Session> sessionCaptor = ArgumentCaptor.forClass(Session.class);
+        Mockito.verify(sessionService).update(sessionCaptor.capture(), ArgumentMatchers.<Consumer<Session>>any());
         Session updatedSession = sessionCaptor.getValue();
         assertEquals(CONTAINER_SESSION_ID, updatedSession.getSessionId());
         assertNull(updatedSession.getSignatureSession(SIG_ID));
     }
 
+    protected void assertValidateContainerDataFilesUnchangedWithLegacyHashKeepsSigningSession() {
+        Session session = getSimpleSessionHolderBuilder()
+                .addDataFile("datafile.txt", "data")
+                .build();
+        SignatureSession signatureSession = SignatureSession.builder()
+                .dataFilesHash(getSigningService().generateLegacyDataFilesHash(session))
+                .build();
+        session.addSignatureSession(SIG_ID, signatureSession);
+
+        getSigningService().validateContainerDataFilesUnchanged(session, SIG_ID);
+
+        Mockito.verify(sessionService, Mockito.never()).update(any(Session.class), ArgumentMatchers.<Consumer<Session>>any());
+    }
+
     private SigaUserDetails createDefaultUserDetails() {
         return SigaUserDetails.builder()
                 .clientName("Client_name")
@@ -19,7 +19,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import static ee.openeid.siga.service.signature.mobileid.MobileIdSessionStatus.OUTSTANDING_TRANSACTION;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -42,6 +41,7 @@ class MobileIdSigningDelegateTest {
         SessionStatusReprocessingProperties reprocessingProperties = new SessionStatusReprocessingProperties();
         HashcodeContainerSession session = createHashcodeContainerSession();
         when(containerSigningService.getSession(CONTAINER_ID)).thenReturn(session);
+        when(containerSigningService.getSessionService()).thenReturn(sessionService);
         when(containerSigningService.getReprocessingProperties()).thenReturn(reprocessingProperties);
 
         String signatureStatus = mobileIdSigningDelegate.getMobileIdSignatureStatus(CONTAINER_ID, SIGNATURE_ID);
@@ -64,10 +64,8 @@ class MobileIdSigningDelegateTest {
         String signatureStatus = mobileIdSigningDelegate.getMobileIdSignatureStatus(CONTAINER_ID, SIGNATURE_ID);
 
         assertEquals(SmartIdSessionStatus.OK.getSigaSigningMessage(), signatureStatus);
-        assertNull(session.getSignatureSession(SIGNATURE_ID));
         verify(containerSigningService).finalizeSignature(session, SIGNATURE_ID, signature);
-        verify(containerSigningService).addSignatureToSession(session, this.signature, SIGNATURE_ID);
-        verify(sessionService).update(session);
+        verify(containerSigningService).completeSigningSession(session, SIGNATURE_ID, this.signature);
     }
 
     @Test
@@ -78,6 +76,7 @@ class MobileIdSigningDelegateTest {
         sessionStatus.setProcessingCounter(10);
         sessionStatus.setStatusError("INTERNAL_SERVER_ERROR", "error");
         when(containerSigningService.getSession(CONTAINER_ID)).thenReturn(session);
+        when(containerSigningService.getSessionService()).thenReturn(sessionService);
         when(containerSigningService.getReprocessingProperties()).thenReturn(reprocessingProperties);
 
         SigaApiException caughtException = assertThrows(
@@ -93,6 +92,7 @@ class MobileIdSigningDelegateTest {
         HashcodeContainerSession session = createHashcodeContainerSession();
         session.getSignatureSession(SIGNATURE_ID).setSigningType(SigningType.SMART_ID);
         when(containerSigningService.getSession(CONTAINER_ID)).thenReturn(session);
+        when(containerSigningService.getSessionService()).thenReturn(sessionService);
 
         InvalidSessionDataException caughtException = assertThrows(
                 InvalidSessionDataException.class, () -> mobileIdSigningDelegate.getMobileIdSignatureStatus(CONTAINER_ID, SIGNATURE_ID)
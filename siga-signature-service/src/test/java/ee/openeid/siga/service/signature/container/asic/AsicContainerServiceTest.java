@@ -10,6 +10,8 @@ import ee.openeid.siga.common.model.DataFile;
 import ee.openeid.siga.common.model.Result;
 import ee.openeid.siga.common.model.Signature;
 import ee.openeid.siga.common.session.AsicContainerSession;
+import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.service.signature.container.status.StatusPoller;
 import ee.openeid.siga.service.signature.test.RequestUtil;
 import ee.openeid.siga.service.signature.test.TestUtil;
 import ee.openeid.siga.session.SessionService;
@@ -20,6 +22,7 @@ import org.digidoc4j.ContainerBuilder;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -39,6 +42,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import static ee.openeid.siga.service.signature.test.RequestUtil.*;
 import static org.digidoc4j.Container.DocumentType.ASICE;
@@ -57,6 +61,9 @@ class AsicContainerServiceTest {
     @Mock
     private SessionService sessionService;
 
+    @Mock
+    private StatusPoller statusPoller;
+
     @Spy
     private Configuration configuration = Configuration.of(Configuration.Mode.TEST);
 
@@ -73,6 +80,11 @@ class AsicContainerServiceTest {
         SecurityContextHolder.setContext(securityContext);
         Mockito.lenient().doReturn(CONTAINER_ID).when(containerService).generateContainerId();
         Mockito.lenient().when(sessionService.getSessionId(CONTAINER_ID)).thenReturn(CONTAINER_SESSION_ID);
+        Mockito.lenient().when(sessionService.update(any(Session.class), ArgumentMatchers.<Consumer<Session>>any())).thenAnswer(invocation -> {
+            Session session = invocation.getArgument(0);
+            invocation.<Consumer<Session>>getArgument(1).accept(session);
+            return session;
+        });
     }
 
     @Test
@@ -220,6 +232,8 @@ class AsicContainerServiceTest {
     void successfulCloseSession() {
         String result = containerService.closeSession(CONTAINER_ID);
         assertEquals(Result.OK.name(), result);
+        Mockito.verify(sessionService).removeBySessionId(CONTAINER_SESSION_ID);
+        Mockito.verify(statusPoller).cancel(CONTAINER_SESSION_ID);
     }
 
     @Test
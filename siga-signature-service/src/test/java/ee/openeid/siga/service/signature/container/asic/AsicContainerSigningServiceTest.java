@@ -14,14 +14,17 @@ import ee.openeid.siga.common.session.SignatureSession;
 import ee.openeid.siga.service.signature.configuration.MobileIdClientConfigurationProperties;
 import ee.openeid.siga.service.signature.configuration.SessionStatusReprocessingProperties;
 import ee.openeid.siga.service.signature.configuration.SmartIdClientConfigurationProperties;
+import ee.openeid.siga.service.signature.configuration.StatusPollingProperties;
 import ee.openeid.siga.service.signature.container.ContainerSigningService;
 import ee.openeid.siga.service.signature.container.ContainerSigningServiceTest;
 import ee.openeid.siga.service.signature.container.MobileIdSigningDelegate;
 import ee.openeid.siga.service.signature.container.SmartIdSigningDelegate;
+import ee.openeid.siga.service.signature.container.status.StatusPoller;
+import ee.openeid.siga.service.signature.container.status.StatusPollingExecutor;
 import ee.openeid.siga.service.signature.test.RequestUtil;
+import ee.openeid.siga.session.SessionLock;
+import ee.openeid.siga.session.SessionLockService;
 import ee.openeid.siga.service.signature.test.TestUtil;
-import org.apache.ignite.Ignite;
-import org.apache.ignite.IgniteSemaphore;
 import org.digidoc4j.*;
 import org.digidoc4j.signers.PKCS12SignatureToken;
 import org.junit.jupiter.api.BeforeEach;
@@ -40,6 +43,7 @@ import java.net.URISyntaxException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static ee.openeid.siga.service.signature.test.RequestUtil.*;
 import static org.digidoc4j.Container.DocumentType.ASICE;
@@ -60,12 +64,14 @@ class AsicContainerSigningServiceTest extends ContainerSigningServiceTest {
 
     @Mock
     private SigaEventLogger sigaEventLogger;
+    private final ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+    private final StatusPollingProperties statusPollingProperties = new StatusPollingProperties();
     @Spy
-    private ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+    private StatusPoller statusPoller = new StatusPoller(new StatusPollingExecutor(taskExecutor, statusPollingProperties), statusPollingProperties);
     @Mock
-    private Ignite ignite;
+    private SessionLockService sessionLockService;
     @Mock
-    private IgniteSemaphore igniteSemaphore;
+    private SessionLock sessionLock;
     @Mock
     private MobileIdClientConfigurationProperties mobileIdConfigurationProperties;
     @Mock
@@ -87,9 +93,7 @@ class AsicContainerSigningServiceTest extends ContainerSigningServiceTest {
         taskExecutor.initialize();
         Mockito.lenient().when(mobileIdConfigurationProperties.getStatusPollingDelay()).thenReturn(Duration.ofSeconds(0));
         Mockito.lenient().when(smartIdConfigurationProperties.getStatusPollingDelay()).thenReturn(Duration.ofSeconds(0));
-        Mockito.lenient().when(igniteSemaphore.tryAcquire()).thenReturn(true);
-        Mockito.lenient().when(igniteSemaphore.tryAcquire(anyLong(), any())).thenReturn(true);
-        Mockito.lenient().when(ignite.semaphore(anyString(), anyInt(), anyBoolean(), anyBoolean())).thenReturn(igniteSemaphore);
+        Mockito.lenient().when(sessionLockService.tryLock(anyString())).thenReturn(Optional.of(sessionLock));
     }
 
     @Test
@@ -219,6 +223,18 @@ class AsicContainerSigningServiceTest extends ContainerSigningServiceTest {
         assertSuccessfulSmartIdSignatureProcessing(signingService);
     }
 
+    @Test
+    void unfinishedMobileIdSignatureStatusIsReadWithoutLoadingSession() {
+        Mockito.when(reprocessingProperties.getMaxProcessingAttempts()).thenReturn(10);
+        assertUnfinishedMobileIdSignatureStatusReadWithoutLoadingSession();
+    }
+
+    @Test
+    void unfinishedSmartIdCertificateStatusIsReadWithoutLoadingSession() {
+        Mockito.when(reprocessingProperties.getMaxProcessingAttempts()).thenReturn(10);
+        assertUnfinishedSmartIdCertificateStatusReadWithoutLoadingSession();
+    }
+
     @Test
     void containerWithEmptyDataFilesInSessionInitSmartIdSigning() throws IOException, URISyntaxException {
         AsicContainerSession sessionHolder = RequestUtil.createAsicSessionHolder();
@@ -273,6 +289,11 @@ class AsicContainerSigningServiceTest extends ContainerSigningServiceTest {
         assertFinalizeSignatureWithContainerDataFilesChangedClearsDataToSign();
     }
 
+    @Test
+    void validateContainerDataFilesUnchangedWithLegacyHashKeepsSigningSession() {
+        assertValidateContainerDataFilesUnchangedWithLegacyHashKeepsSigningSession();
+    }
+
     @Override
     protected ContainerSigningService getSigningService() {
         return signingService;
@@ -307,7 +328,6 @@ class AsicContainerSigningServiceTest extends ContainerSigningServiceTest {
                         .dataFilesHash(signingService.generateDataFilesHash(session))
                         .build());
         Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(session);
-        Mockito.when(sessionService.getContainerBySessionId(CONTAINER_SESSION_ID)).thenReturn(session);
         return session;
     }
 
@@ -323,7 +343,6 @@ class AsicContainerSigningServiceTest extends ContainerSigningServiceTest {
                         .dataFilesHash(signingService.generateDataFilesHash(session))
                         .build());
         Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(session);
-        Mockito.when(sessionService.getContainerBySessionId(CONTAINER_SESSION_ID)).thenReturn(session);
         return session;
     }
 
@@ -5,9 +5,13 @@ import ee.openeid.siga.common.exception.DuplicateDataFileException;
 import ee.openeid.siga.common.exception.InvalidSessionDataException;
 import ee.openeid.siga.common.exception.ResourceNotFoundException;
 import ee.openeid.siga.common.model.HashcodeDataFile;
+import ee.openeid.siga.common.model.HashcodeSignatureWrapper;
 import ee.openeid.siga.common.model.Result;
+import ee.openeid.siga.common.model.SerializedContainer;
 import ee.openeid.siga.common.model.Signature;
 import ee.openeid.siga.common.session.HashcodeContainerSession;
+import ee.openeid.siga.common.session.Session;
+import ee.openeid.siga.service.signature.container.status.StatusPoller;
 import ee.openeid.siga.service.signature.test.RequestUtil;
 import ee.openeid.siga.service.signature.test.TestUtil;
 import ee.openeid.siga.session.SessionService;
@@ -35,7 +39,9 @@ import static ee.openeid.siga.service.signature.test.RequestUtil.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 
@@ -49,6 +55,9 @@ class HashcodeContainerServiceTest {
     @Mock
     private SessionService sessionService;
 
+    @Mock
+    private StatusPoller statusPoller;
+
     @Spy
     private Configuration configuration = Configuration.of(Configuration.Mode.TEST);
 
@@ -65,6 +74,11 @@ class HashcodeContainerServiceTest {
         SecurityContextHolder.setContext(securityContext);
         Mockito.lenient().doReturn(CONTAINER_ID).when(containerService).generateContainerId();
         Mockito.lenient().when(sessionService.getSessionId(CONTAINER_ID)).thenReturn(CONTAINER_SESSION_ID);
+        Mockito.lenient().when(sessionService.update(any(Session.class), ArgumentMatchers.<Consumer<Session>>any())).thenAnswer(invocation -> {
+            Session session = invocation.getArgument(0);
+            invocation.<Consumer<Session>>getArgument(1).accept(session);
+            return session;
+        });
     }
 
     @Test
@@ -73,7 +87,7 @@ class HashcodeContainerServiceTest {
         String containerId = containerService.createContainer(hashcodeDataFiles);
         assertFalse(StringUtils.isBlank(containerId));
 
-        verifySessionServiceUpdateCalled(containerId, session -> {
+        verifySessionServiceCreateCalled(containerId, session -> {
             assertNotNull(session.getDataFiles());
             assertEquals(hashcodeDataFiles.size(), session.getDataFiles().size());
             for (int i = 0; i < hashcodeDataFiles.size(); ++i) {
@@ -89,7 +103,7 @@ class HashcodeContainerServiceTest {
         String containerId = containerService.createContainer(hashcodeDataFiles);
         assertFalse(StringUtils.isBlank(containerId));
 
-        verifySessionServiceUpdateCalled(containerId, session -> {
+        verifySessionServiceCreateCalled(containerId, session -> {
             assertEquals(MimeType.BINARY.getMimeTypeString(), session.getDataFiles().get(0).getMimeType());
         });
     }
@@ -108,6 +122,45 @@ class HashcodeContainerServiceTest {
         assertFalse(StringUtils.isBlank(container));
     }
 
+    @Test
+    void getSerializedContainer_WhenContainerCached_ReturnsCachedContainer() throws IOException, URISyntaxException {
+        HashcodeContainerSession session = RequestUtil.createHashcodeSessionHolder();
+        SerializedContainer cachedContainer = new SerializedContainer(new byte[]{1, 2, 3}, "etag");
+        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.getSerializedContainer(session.getSessionId(), session.getVersion())).thenReturn(cachedContainer);
+
+        SerializedContainer serializedContainer = containerService.getSerializedContainer(CONTAINER_ID);
+        assertSame(cachedContainer, serializedContainer);
+        Mockito.verify(sessionService, Mockito.never()).putSerializedContainer(any(), Mockito.anyLong(), any());
+        Mockito.verify(sessionService, Mockito.never()).update(any(), Mockito.anyLong());
+    }
+
+    @Test
+    void getSerializedContainer_WhenContainerNotCached_CachesSerializedContainerForSessionVersion() throws IOException, URISyntaxException {
+        HashcodeContainerSession session = RequestUtil.createHashcodeSessionHolder();
+        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.putSerializedContainer(eq(session.getSessionId()), eq(session.getVersion()), any()))
+                .thenAnswer(invocation -> invocation.getArgument(2));
+
+        SerializedContainer serializedContainer = containerService.getSerializedContainer(CONTAINER_ID);
+        assertTrue(serializedContainer.getContainer().length > 0);
+        assertEquals(64, serializedContainer.getETag().length());
+        Mockito.verify(sessionService).putSerializedContainer(session.getSessionId(), session.getVersion(), serializedContainer);
+        Mockito.verify(sessionService, Mockito.never()).update(any(), Mockito.anyLong());
+    }
+
+    @Test
+    void getSerializedContainer_WhenContainerCachedConcurrently_ReturnsContainerCachedFirst() throws IOException, URISyntaxException {
+        HashcodeContainerSession session = RequestUtil.createHashcodeSessionHolder();
+        SerializedContainer cachedContainer = new SerializedContainer(new byte[]{1, 2, 3}, "etag");
+        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        Mockito.when(sessionService.putSerializedContainer(eq(session.getSessionId()), eq(session.getVersion()), any()))
+                .thenReturn(cachedContainer);
+
+        SerializedContainer serializedContainer = containerService.getSerializedContainer(CONTAINER_ID);
+        assertSame(cachedContainer, serializedContainer);
+    }
+
     @Test
     void successfulGetDataFiles() throws IOException, URISyntaxException {
         Mockito.when(sessionService.getContainer(any())).thenReturn(RequestUtil.createHashcodeSessionHolder());
@@ -128,6 +181,36 @@ class HashcodeContainerServiceTest {
         assertEquals("SERIALNUMBER=PNOEE-38001085718, GIVENNAME=JAAK-KRISTJAN, SURNAME=JÕEORG, CN=\"JÕEORG,JAAK-KRISTJAN,38001085718\", C=EE", signatures.get(0).getSignerInfo());
     }
 
+    @Test
+    void uploadContainer_StoresSignatureSummary() throws IOException, URISyntaxException {
+        String container = new String(Base64.getEncoder().encode(TestUtil.getFileInputStream(SIGNED_HASHCODE).readAllBytes()));
+        String containerId = containerService.uploadContainer(container);
+
+        verifySessionServiceCreateCalled(containerId, session -> {
+            HashcodeSignatureWrapper signatureWrapper = session.getSignatures().get(0);
+            assertTrue(signatureWrapper.hasSummary());
+            assertEquals("id-a9fae00496ae203a6a8b92adbe762bd3", signatureWrapper.getId());
+            assertEquals("LT", signatureWrapper.getSignatureProfile());
+        });
+    }
+
+    @Test
+    void transformSignature_WhenSummaryStored_DoesNotParseSignature() {
+        HashcodeSignatureWrapper signatureWrapper = new HashcodeSignatureWrapper();
+        signatureWrapper.setGeneratedSignatureId("generatedSignatureId");
+        signatureWrapper.setSignature("not a signature".getBytes());
+        signatureWrapper.setId("S0");
+        signatureWrapper.setSignatureProfile("LT");
+        signatureWrapper.setSignerInfo("CN=signer");
+
+        Signature signature = containerService.transformSignature(signatureWrapper);
+
+        assertEquals("S0", signature.getId());
+        assertEquals("generatedSignatureId", signature.getGeneratedSignatureId());
+        assertEquals("LT", signature.getSignatureProfile());
+        assertEquals("CN=signer", signature.getSignerInfo());
+    }
+
     @Test
     void successfulGetSignature() throws IOException, URISyntaxException {
         HashcodeContainerSession session = createHashcodeSessionHolder();
@@ -184,6 +267,8 @@ class HashcodeContainerServiceTest {
     void successfulCloseSession() {
         Result result = containerService.closeSession(CONTAINER_ID);
         assertEquals(Result.OK, result);
+        Mockito.verify(sessionService).removeBySessionId(CONTAINER_SESSION_ID);
+        Mockito.verify(statusPoller).cancel(CONTAINER_SESSION_ID);
     }
 
     @Test
@@ -228,9 +313,54 @@ class HashcodeContainerServiceTest {
         assertEquals("Duplicate data files not allowed: test.txt", caughtException.getMessage());
     }
 
-    private void verifySessionServiceUpdateCalled(String expectedContainerId, Consumer<HashcodeContainerSession> sessionValidator) {
+    @Test
+    void addDataFilesWithDuplicateFileNamesThrows() throws IOException, URISyntaxException {
+        HashcodeContainerSession session = createHashcodeSessionHolder();
+        session.getSignatures().clear();
+        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        List<HashcodeDataFile> dataFiles = createHashcodeDataFileListWithOneFile("test1.txt");
+        dataFiles.addAll(createHashcodeDataFileListWithOneFile("test1.txt"));
+
+        DuplicateDataFileException caughtException = assertThrows(
+            DuplicateDataFileException.class, () -> containerService.addDataFiles(CONTAINER_ID, dataFiles)
+        );
+        assertEquals("Duplicate data files not allowed: test1.txt", caughtException.getMessage());
+        assertEquals(List.of("test.txt"), getDataFileNames(session));
+    }
+
+    @Test
+    void addDataFilesKeepsDataFilesInOrder() throws IOException, URISyntaxException {
+        HashcodeContainerSession session = createHashcodeSessionHolder();
+        session.getSignatures().clear();
+        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+        List<HashcodeDataFile> dataFiles = createHashcodeDataFileListWithOneFile("test2.txt");
+        dataFiles.addAll(createHashcodeDataFileListWithOneFile("test1.txt"));
+
+        containerService.addDataFiles(CONTAINER_ID, dataFiles);
+
+        assertEquals(List.of("test.txt", "test2.txt", "test1.txt"), getDataFileNames(session));
+    }
+
+    @Test
+    void removeDataFileKeepsOtherDataFilesInOrder() throws IOException, URISyntaxException {
+        HashcodeContainerSession session = createHashcodeSessionHolder();
+        session.getSignatures().clear();
+        session.addDataFiles(createHashcodeDataFileListWithOneFile("test1.txt"));
+        session.addDataFiles(createHashcodeDataFileListWithOneFile("test2.txt"));
+        Mockito.when(sessionService.getContainer(any())).thenReturn(session);
+
+        containerService.removeDataFile(CONTAINER_ID, "test1.txt");
+
+        assertEquals(List.of("test.txt", "test2.txt"), getDataFileNames(session));
+    }
+
+    private static List<String> getDataFileNames(HashcodeContainerSession session) {
+        return session.getDataFiles().stream().map(HashcodeDataFile::getFileName).toList();
+    }
+
+    private void verifySessionServiceCreateCalled(String expectedContainerId, Consumer<HashcodeContainerSession> sessionValidator) {
         ArgumentCaptor<HashcodeContainerSession> sessionCaptor = ArgumentCaptor.forClass(HashcodeContainerSession.class);
-        Mockito.verify(sessionService, Mockito.times(1)).update(sessionCaptor.capture());
+        Mockito.verify(sessionService, Mockito.times(1)).create(sessionCaptor.capture());
         Mockito.verify(sessionService, Mockito.times(1)).getSessionId(eq(expectedContainerId));
         HashcodeContainerSession updatedSession = sessionCaptor.getValue();
         Mockito.verifyNoMoreInteractions(sessionService);
@@ -14,14 +14,17 @@ import ee.openeid.siga.common.session.SignatureSession;
 import ee.openeid.siga.service.signature.configuration.MobileIdClientConfigurationProperties;
 import ee.openeid.siga.service.signature.configuration.SessionStatusReprocessingProperties;
 import ee.openeid.siga.service.signature.configuration.SmartIdClientConfigurationProperties;
+import ee.openeid.siga.service.signature.configuration.StatusPollingProperties;
 import ee.openeid.siga.service.signature.container.ContainerSigningService;
 import ee.openeid.siga.service.signature.container.ContainerSigningServiceTest;
 import ee.openeid.siga.service.signature.container.MobileIdSigningDelegate;
 import ee.openeid.siga.service.signature.container.SmartIdSigningDelegate;
+import ee.openeid.siga.service.signature.container.status.StatusPoller;
+import ee.openeid.siga.service.signature.container.status.StatusPollingExecutor;
 import ee.openeid.siga.service.signature.test.RequestUtil;
+import ee.openeid.siga.session.SessionLock;
+import ee.openeid.siga.session.SessionLockService;
 import org.apache.commons.codec.digest.DigestUtils;
-import org.apache.ignite.Ignite;
-import org.apache.ignite.IgniteSemaphore;
 import org.digidoc4j.Configuration;
 import org.digidoc4j.DataToSign;
 import org.junit.jupiter.api.BeforeEach;
@@ -40,6 +43,7 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static ee.openeid.siga.service.signature.test.RequestUtil.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -62,12 +66,14 @@ class HashcodeContainerSigningServiceTest extends ContainerSigningServiceTest {
     private Authentication authentication;
     @Mock
     private SecurityContext securityContext;
+    private final ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+    private final StatusPollingProperties statusPollingProperties = new StatusPollingProperties();
     @Spy
-    private ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+    private StatusPoller statusPoller = new StatusPoller(new StatusPollingExecutor(taskExecutor, statusPollingProperties), statusPollingProperties);
     @Mock
-    private Ignite ignite;
+    private SessionLockService sessionLockService;
     @Mock
-    private IgniteSemaphore igniteSemaphore;
+    private SessionLock sessionLock;
     @Mock
     private MobileIdClientConfigurationProperties mobileIdConfigurationProperties;
     @Mock
@@ -86,9 +92,7 @@ class HashcodeContainerSigningServiceTest extends ContainerSigningServiceTest {
         Mockito.lenient().when(sigaEventLogger.logEndEventFor(any())).thenReturn(SigaEvent.builder().timestamp(0L).build());
         Mockito.lenient().when(sessionService.getContainer(CONTAINER_ID)).thenReturn(RequestUtil.createHashcodeSessionHolder());
         taskExecutor.initialize();
-        Mockito.lenient().when(igniteSemaphore.tryAcquire()).thenReturn(true);
-        Mockito.lenient().when(igniteSemaphore.tryAcquire(anyLong(), any())).thenReturn(true);
-        Mockito.lenient().when(ignite.semaphore(anyString(),anyInt(),anyBoolean(), anyBoolean())).thenReturn(igniteSemaphore);
+        Mockito.lenient().when(sessionLockService.tryLock(anyString())).thenReturn(Optional.of(sessionLock));
     }
 
     @Test
@@ -215,6 +219,18 @@ class HashcodeContainerSigningServiceTest extends ContainerSigningServiceTest {
         assertSuccessfulSmartIdSignatureProcessing(signingService);
     }
 
+    @Test
+    void unfinishedMobileIdSignatureStatusIsReadWithoutLoadingSession() {
+        Mockito.when(reprocessingProperties.getMaxProcessingAttempts()).thenReturn(10);
+        assertUnfinishedMobileIdSignatureStatusReadWithoutLoadingSession();
+    }
+
+    @Test
+    void unfinishedSmartIdCertificateStatusIsReadWithoutLoadingSession() {
+        Mockito.when(reprocessingProperties.getMaxProcessingAttempts()).thenReturn(10);
+        assertUnfinishedSmartIdCertificateStatusReadWithoutLoadingSession();
+    }
+
     @Test
     void emptyDataFilesInSessionInitSmartIdSigning() throws IOException, URISyntaxException {
         HashcodeContainerSession sessionHolder = RequestUtil.createHashcodeSessionHolder();
@@ -269,6 +285,11 @@ class HashcodeContainerSigningServiceTest extends ContainerSigningServiceTest {
         assertFinalizeSignatureWithContainerDataFilesChangedClearsDataToSign();
     }
 
+    @Test
+    void validateContainerDataFilesUnchangedWithLegacyHashKeepsSigningSession() {
+        assertValidateContainerDataFilesUnchangedWithLegacyHashKeepsSigningSession();
+    }
+
     @Override
     protected ContainerSigningService getSigningService() {
         return signingService;
@@ -303,7 +324,6 @@ class HashcodeContainerSigningServiceTest extends ContainerSigningServiceTest {
                         .dataFilesHash(signingService.generateDataFilesHash(session))
                         .build());
         Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(session);
-        Mockito.when(sessionService.getContainerBySessionId(CONTAINER_SESSION_ID)).thenReturn(session);
         return session;
     }
 
@@ -319,7 +339,6 @@ class HashcodeContainerSigningServiceTest extends ContainerSigningServiceTest {
                         .dataFilesHash(signingService.generateDataFilesHash(session))
                         .build());
         Mockito.when(sessionService.getContainer(CONTAINER_ID)).thenReturn(session);
-        Mockito.when(sessionService.getContainerBySessionId(CONTAINER_SESSION_ID)).thenReturn(session);
         return session;
     }
 
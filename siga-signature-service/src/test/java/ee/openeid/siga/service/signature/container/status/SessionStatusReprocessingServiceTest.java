@@ -100,6 +100,7 @@ import static org.springframework.boot.test.context.SpringBootTest.WebEnvironmen
         "siga.status-reprocessing.initial-delay=0",
         "siga.status-reprocessing.exception-timeout=0",
         "siga.status-reprocessing.max-processing-attempts=3",
+        "siga.status-polling.max-retries=0",
 })
 public class SessionStatusReprocessingServiceTest {
     private static final WireMockServer mockServer = new WireMockServer(WireMockConfiguration.wireMockConfig()
@@ -0,0 +1,78 @@
+package ee.openeid.siga.service.signature.container.status;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatusPollTimerTest {
+    private final StatusPollTimer timer = new StatusPollTimer("siga-status-poll-timer-test", Duration.ofMillis(1), 8);
+
+    @AfterEach
+    void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    void schedule_RunsTasksInDueOrderIncludingTasksDueAfterSeveralRotations() throws Exception {
+        List<Integer> runOrder = new CopyOnWriteArrayList<>();
+        CountDownLatch allRun = new CountDownLatch(3);
+
+        timer.schedule(() -> record(runOrder, allRun, 3), 60);
+        timer.schedule(() -> record(runOrder, allRun, 1), 5);
+        timer.schedule(() -> record(runOrder, allRun, 2), 25);
+
+        assertTrue(allRun.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1, 2, 3), runOrder);
+        assertEquals(0, timer.getPendingCount());
+    }
+
+    @Test
+    void schedule_RunsTaskNotBeforeDelay() throws Exception {
+        CountDownLatch run = new CountDownLatch(1);
+        long startTime = System.nanoTime();
+
+        timer.schedule(run::countDown, 30);
+
+        assertTrue(run.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) >= 30);
+    }
+
+    @Test
+    void cancel_WhenTaskPending_TaskIsNotRun() throws Exception {
+        CountDownLatch cancelledRun = new CountDownLatch(1);
+        CountDownLatch laterRun = new CountDownLatch(1);
+
+        StatusPollTimer.Timeout timeout = timer.schedule(cancelledRun::countDown, 20);
+        timer.schedule(laterRun::countDown, 40);
+        assertTrue(timeout.cancel());
+
+        assertEquals(1, timer.getPendingCount());
+        assertTrue(laterRun.await(5, TimeUnit.SECONDS));
+        assertFalse(cancelledRun.await(0, TimeUnit.MILLISECONDS));
+        assertFalse(timeout.cancel());
+    }
+
+    @Test
+    void schedule_WhenStopped_ThrowsException() {
+        timer.stop();
+
+        assertThrows(RejectedExecutionException.class, () -> timer.schedule(() -> {
+        }, 0));
+    }
+
+    private static void record(List<Integer> runOrder, CountDownLatch allRun, int task) {
+        runOrder.add(task);
+        allRun.countDown();
+    }
+}
@@ -0,0 +1,246 @@
+package ee.openeid.siga.service.signature.container.status;
+
+import ee.openeid.siga.service.signature.configuration.StatusPollingProperties;
+import ee.openeid.siga.session.StatusPollHandOver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatusPollerTest {
+    private static final String SESSION_ID = "v1_service1_container1";
+    private static final String OTHER_SERVICE_SESSION_ID = "v1_service2_container2";
+
+    private final ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+    private final StatusPollingProperties statusPollingProperties = new StatusPollingProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private StatusPoller statusPoller;
+
+    @BeforeEach
+    void setUp() {
+        taskExecutor.setCorePoolSize(4);
+        taskExecutor.initialize();
+        statusPollingProperties.setThrottledPollDelay(Duration.ofMillis(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        statusPoller.stop();
+        taskExecutor.shutdown();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void schedule_RunsPollWithSecurityContextOfCaller() throws Exception {
+        createStatusPoller();
+        Authentication authentication = new TestingAuthenticationToken("service", null);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        CompletableFuture<Authentication> pollAuthentication = new CompletableFuture<>();
+
+        statusPoller.schedule(SESSION_ID, "signature1", new DelegatingSecurityContextRunnable(() -> pollAuthentication.complete(
+                SecurityContextHolder.getContext().getAuthentication())), Duration.ofMillis(50));
+
+        assertSame(authentication, pollAuthentication.get(5, TimeUnit.SECONDS));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> statusPoller.getInFlightPollCount() == 0);
+        assertEquals(1, meterRegistry.get("siga.status.polling.poll").functionTimer().count());
+    }
+
+    @Test
+    void schedule_WhenPollWithSameIdInFlight_IgnoresPoll() throws Exception {
+        createStatusPoller();
+        CountDownLatch pollReleased = new CountDownLatch(1);
+        AtomicInteger pollCount = new AtomicInteger();
+
+        statusPoller.schedule(SESSION_ID, "signature1", () -> {
+            pollCount.incrementAndGet();
+            awaitQuietly(pollReleased);
+        }, Duration.ZERO);
+        statusPoller.schedule(SESSION_ID, "signature1", pollCount::incrementAndGet, Duration.ZERO);
+
+        assertEquals(1, statusPoller.getInFlightPollCount());
+        pollReleased.countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> statusPoller.getInFlightPollCount() == 0);
+        assertEquals(1, pollCount.get());
+    }
+
+    @Test
+    void schedule_WhenRelyingPartyLimitReached_DefersPollOfSameRelyingPartyOnly() throws Exception {
+        statusPollingProperties.setMaxConcurrentPollsPerRelyingParty(1);
+        createStatusPoller();
+        CountDownLatch firstPollStarted = new CountDownLatch(1);
+        CountDownLatch firstPollReleased = new CountDownLatch(1);
+        CountDownLatch otherRelyingPartyPolled = new CountDownLatch(1);
+        CountDownLatch secondPollStarted = new CountDownLatch(1);
+
+        statusPoller.schedule(SESSION_ID, "signature1", () -> {
+            firstPollStarted.countDown();
+            awaitQuietly(firstPollReleased);
+        }, Duration.ZERO);
+        assertTrue(firstPollStarted.await(5, TimeUnit.SECONDS));
+        statusPoller.schedule(SESSION_ID, "signature2", secondPollStarted::countDown, Duration.ZERO);
+        statusPoller.schedule(OTHER_SERVICE_SESSION_ID, "signature3", otherRelyingPartyPolled::countDown, Duration.ZERO);
+
+        assertTrue(otherRelyingPartyPolled.await(5, TimeUnit.SECONDS));
+        assertFalse(secondPollStarted.await(100, TimeUnit.MILLISECONDS));
+        firstPollReleased.countDown();
+        assertTrue(secondPollStarted.await(5, TimeUnit.SECONDS));
+        assertTrue(meterRegistry.get("siga.status.polling.throttled").functionCounter().count() > 0);
+    }
+
+    @Test
+    void schedule_WhenGlobalLimitReached_DefersPollUntilRunningPollFinishes() throws Exception {
+        statusPollingProperties.setMaxConcurrentPolls(1);
+        createStatusPoller();
+        CountDownLatch firstPollStarted = new CountDownLatch(1);
+        CountDownLatch firstPollReleased = new CountDownLatch(1);
+        CountDownLatch secondPollStarted = new CountDownLatch(1);
+
+        statusPoller.schedule(SESSION_ID, "signature1", () -> {
+            firstPollStarted.countDown();
+            awaitQuietly(firstPollReleased);
+        }, Duration.ZERO);
+        assertTrue(firstPollStarted.await(5, TimeUnit.SECONDS));
+        statusPoller.schedule(OTHER_SERVICE_SESSION_ID, "signature2", secondPollStarted::countDown, Duration.ZERO);
+
+        assertFalse(secondPollStarted.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(1, meterRegistry.get("siga.status.polling.running").gauge().value());
+        assertEquals(2, meterRegistry.get("siga.status.polling.in.flight").gauge().value());
+        firstPollReleased.countDown();
+        assertTrue(secondPollStarted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void retry_WhenPollFails_RunsPollAgainWithBackoffUntilMaxRetries() {
+        statusPollingProperties.setMaxRetries(2);
+        statusPollingProperties.setRetryInitialBackoff(Duration.ofMillis(20));
+        createStatusPoller();
+        AtomicInteger pollCount = new AtomicInteger();
+
+        statusPoller.schedule(SESSION_ID, "signature1", () -> {
+            pollCount.incrementAndGet();
+            statusPoller.retry("signature1");
+        }, Duration.ZERO);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> statusPoller.getInFlightPollCount() == 0);
+        assertEquals(3, pollCount.get());
+        assertEquals(2, meterRegistry.get("siga.status.polling.retried").functionCounter().count());
+    }
+
+    @Test
+    void cancel_CancelsScheduledPollsOfSessionOnly() throws Exception {
+        createStatusPoller();
+        AtomicInteger pollCount = new AtomicInteger();
+        CountDownLatch otherSessionPolled = new CountDownLatch(1);
+
+        statusPoller.schedule(SESSION_ID, "signature1", pollCount::incrementAndGet, Duration.ofMillis(200));
+        statusPoller.schedule(SESSION_ID, "certificate1", pollCount::incrementAndGet, Duration.ofMillis(200));
+        statusPoller.schedule(OTHER_SERVICE_SESSION_ID, "signature2", otherSessionPolled::countDown, Duration.ofMillis(200));
+        assertEquals(3, meterRegistry.get("siga.status.polling.timers.pending").gauge().value());
+
+        statusPoller.cancel(SESSION_ID);
+
+        assertEquals(1, statusPoller.getInFlightPollCount());
+        assertEquals(1, meterRegistry.get("siga.status.polling.timers.pending").gauge().value());
+        assertTrue(otherSessionPolled.await(5, TimeUnit.SECONDS));
+        assertEquals(0, pollCount.get());
+    }
+
+    @Test
+    void handOver_CancelsScheduledAndInterruptsRunningPolls() throws Exception {
+        createStatusPoller();
+        CountDownLatch runningPollStarted = new CountDownLatch(1);
+        AtomicInteger pollCount = new AtomicInteger();
+
+        statusPoller.schedule(SESSION_ID, "signature1", () -> {
+            runningPollStarted.countDown();
+            awaitQuietly(new CountDownLatch(1));
+        }, Duration.ZERO);
+        assertTrue(runningPollStarted.await(5, TimeUnit.SECONDS));
+        long scheduledDueTime = System.currentTimeMillis() + 60_000;
+        statusPoller.schedule(OTHER_SERVICE_SESSION_ID, "signature2", pollCount::incrementAndGet, Duration.ofMinutes(1));
+
+        Map<String, StatusPollHandOver> polls = statusPoller.handOver().stream()
+                .collect(Collectors.toMap(StatusPollHandOver::getStatusSessionId, Function.identity()));
+        statusPoller.schedule(SESSION_ID, "signature3", pollCount::incrementAndGet, Duration.ZERO);
+
+        assertTrue(statusPoller.isStopping());
+        assertEquals(2, polls.size());
+        assertEquals(SESSION_ID, polls.get("signature1").getSessionId());
+        assertTrue(polls.get("signature1").getDueTime() <= System.currentTimeMillis());
+        assertEquals(OTHER_SERVICE_SESSION_ID, polls.get("signature2").getSessionId());
+        assertTrue(Math.abs(polls.get("signature2").getDueTime() - scheduledDueTime) < 1000);
+        assertEquals(0, statusPoller.getInFlightPollCount());
+        assertEquals(0, pollCount.get());
+    }
+
+    @Test
+    void handOver_WhenRunningPollDoesNotFinish_DoesNotHandOverPoll() throws Exception {
+        statusPollingProperties.setHandOverTimeout(Duration.ofMillis(100));
+        createStatusPoller();
+        CountDownLatch runningPollStarted = new CountDownLatch(1);
+        CountDownLatch pollReleased = new CountDownLatch(1);
+
+        statusPoller.schedule(SESSION_ID, "signature1", () -> {
+            runningPollStarted.countDown();
+            awaitUninterruptibly(pollReleased);
+        }, Duration.ZERO);
+        assertTrue(runningPollStarted.await(5, TimeUnit.SECONDS));
+
+        List<StatusPollHandOver> polls = statusPoller.handOver();
+        pollReleased.countDown();
+
+        assertTrue(polls.isEmpty());
+        await().atMost(5, TimeUnit.SECONDS).until(() -> statusPoller.getInFlightPollCount() == 0);
+    }
+
+    private void createStatusPoller() {
+        statusPoller = new StatusPoller(new StatusPollingExecutor(taskExecutor, statusPollingProperties), statusPollingProperties);
+        statusPoller.bindTo(meterRegistry);
+    }
+
+    /**
+     * Like a request blocked in a socket read, which is not unblocked by interrupting the thread.
+     */
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (latch.getCount() > 0) {
+            try {
+                latch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ee.openeid.siga.service.signature.container.status;
+
+import ee.openeid.siga.service.signature.configuration.StatusPollingProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatusPollingExecutorTest {
+    private final ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+    private final StatusPollingProperties statusPollingProperties = new StatusPollingProperties();
+
+    @BeforeEach
+    void setUp() {
+        taskExecutor.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskExecutor.shutdown();
+    }
+
+    @Test
+    void execute_WhenVirtualThreadsDisabled_RunsPollOnTaskExecutor() throws Exception {
+        StatusPollingExecutor executor = new StatusPollingExecutor(taskExecutor, statusPollingProperties);
+        CompletableFuture<String> threadName = new CompletableFuture<>();
+
+        executor.execute(() -> threadName.complete(Thread.currentThread().getName()));
+
+        assertTrue(threadName.get(5, TimeUnit.SECONDS).startsWith(taskExecutor.getThreadNamePrefix()));
+    }
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    void constructor_WhenVirtualThreadsEnabledBeforeJava21_Throws() {
+        statusPollingProperties.setVirtualThreads(true);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> new StatusPollingExecutor(taskExecutor, statusPollingProperties));
+
+        assertEquals("Status polling on virtual threads requires Java 21 or newer", exception.getMessage());
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void execute_WhenVirtualThreadsEnabled_RunsPollOnVirtualThread() throws Exception {
+        statusPollingProperties.setVirtualThreads(true);
+        StatusPollingExecutor executor = new StatusPollingExecutor(taskExecutor, statusPollingProperties);
+        CompletableFuture<Boolean> virtualThread = new CompletableFuture<>();
+
+        executor.execute(() -> virtualThread.complete(isVirtual(Thread.currentThread())));
+
+        assertTrue(virtualThread.get(5, TimeUnit.SECONDS));
+    }
+
+    private static boolean isVirtual(Thread thread) {
+        try {
+            return (boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+}
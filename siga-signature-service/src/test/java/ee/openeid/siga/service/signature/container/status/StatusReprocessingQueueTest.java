@@ -0,0 +1,64 @@
+package ee.openeid.siga.service.signature.container.status;
+
+import ee.openeid.siga.service.signature.container.status.StatusReprocessingQueue.DueStatusSession;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StatusReprocessingQueueTest {
+    private static final String SESSION_ID = "v1_service1_container1";
+    private static final String OTHER_SESSION_ID = "v1_service1_container2";
+
+    private final StatusReprocessingQueue queue = new StatusReprocessingQueue();
+
+    @Test
+    void pollDue_ReturnsOnlyDueStatusSessionsInDueTimeOrder() {
+        queue.replace(SESSION_ID, Map.of("signature1", 300L, "signature2", 100L));
+        queue.replace(OTHER_SESSION_ID, Map.of("signature3", 200L));
+
+        assertEquals(List.of(
+                new DueStatusSession(SESSION_ID, "signature2", 100L),
+                new DueStatusSession(OTHER_SESSION_ID, "signature3", 200L)), queue.pollDue(200L));
+        assertEquals(1, queue.size());
+        assertEquals(List.of(), queue.pollDue(200L));
+    }
+
+    @Test
+    void replace_ReplacesDueTimesOfAllStatusSessionsOfSession() {
+        queue.replace(SESSION_ID, Map.of("signature1", 100L, "signature2", 100L));
+
+        queue.replace(SESSION_ID, Map.of("signature1", 200L));
+
+        assertEquals(1, queue.size());
+        assertEquals(List.of(), queue.pollDue(100L));
+        assertEquals(List.of(new DueStatusSession(SESSION_ID, "signature1", 200L)), queue.pollDue(200L));
+    }
+
+    @Test
+    void replace_WhenNoDueTimes_RemovesSession() {
+        queue.replace(SESSION_ID, Map.of("signature1", 100L));
+
+        queue.replace(SESSION_ID, Map.of());
+
+        assertEquals(0, queue.size());
+        assertEquals(List.of(), queue.pollDue(Long.MAX_VALUE));
+    }
+
+    @Test
+    void scheduleIfAbsent_WhenScheduledSincePolled_KeepsScheduledDueTime() {
+        queue.replace(SESSION_ID, Map.of("signature1", 100L));
+        queue.pollDue(100L);
+        queue.replace(SESSION_ID, Map.of("signature1", 500L));
+
+        queue.scheduleIfAbsent(SESSION_ID, "signature1", 200L);
+        queue.scheduleIfAbsent(SESSION_ID, "signature2", 300L);
+
+        assertEquals(2, queue.size());
+        assertEquals(List.of(
+                new DueStatusSession(SESSION_ID, "signature2", 300L),
+                new DueStatusSession(SESSION_ID, "signature1", 500L)), queue.pollDue(500L));
+    }
+}
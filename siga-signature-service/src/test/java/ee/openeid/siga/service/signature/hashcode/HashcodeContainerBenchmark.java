@@ -0,0 +1,141 @@
+package ee.openeid.siga.service.signature.hashcode;
+
+import ee.openeid.siga.common.client.HttpPostClient;
+import ee.openeid.siga.common.model.HashcodeDataFile;
+import ee.openeid.siga.common.model.HashcodeSignatureWrapper;
+import ee.openeid.siga.common.model.SignatureHashcodeDataFile;
+import ee.openeid.siga.common.session.HashcodeContainerSession;
+import ee.openeid.siga.service.signature.client.SivaClient;
+import ee.openeid.siga.service.signature.client.ValidationResponse;
+import ee.openeid.siga.service.signature.test.RequestUtil;
+import ee.openeid.siga.webapp.json.ValidationConclusion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling benchmark of the hashcode container operations that depend on the number of data files.
+ * <p>
+ * Not run by the tests, run {@link #main(String[])} with the test classpath. Opened containers have at most 3000
+ * files, as the hashcodes files of larger containers exceed the maximum size of a container entry.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashcodeContainerBenchmark {
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HashcodeContainerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    @Benchmark
+    public List<HashcodeDataFile> open(OpenState state) {
+        HashcodeContainer hashcodeContainer = new HashcodeContainer();
+        hashcodeContainer.open(state.container);
+        return hashcodeContainer.getDataFiles();
+    }
+
+    @Benchmark
+    public ValidationConclusion validateWithSiva(DataFilesState state) {
+        return state.sivaClient.validateHashcodeContainer(state.signatures, state.dataFiles);
+    }
+
+    @Benchmark
+    public boolean addAndRemoveSessionDataFile(DataFilesState state) {
+        state.session.addDataFiles(List.of(state.dataFileToAdd));
+        return state.session.removeDataFile(state.dataFileToAdd.getFileName());
+    }
+
+    @State(Scope.Benchmark)
+    public static class OpenState {
+        @Param({"10", "100", "1000", "3000"})
+        int fileCount;
+        byte[] container;
+
+        @Setup
+        public void setUp() {
+            HashcodeContainer hashcodeContainer = new HashcodeContainer();
+            createDataFiles(fileCount).forEach(hashcodeContainer::addDataFile);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            hashcodeContainer.save(outputStream);
+            container = outputStream.toByteArray();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class DataFilesState {
+        @Param({"10", "100", "1000", "10000", "50000"})
+        int fileCount;
+        List<HashcodeDataFile> dataFiles;
+        List<HashcodeSignatureWrapper> signatures;
+        SivaClient sivaClient;
+        HashcodeContainerSession session;
+        HashcodeDataFile dataFileToAdd;
+
+        @Setup
+        public void setUp() {
+            dataFiles = createDataFiles(fileCount);
+            signatures = List.of(createSignature(dataFiles));
+            ValidationResponse validationResponse = RequestUtil.createValidationResponse();
+            sivaClient = new SivaClient(new HttpPostClient() {
+                @Override
+                public <T> T post(String path, Object request, Class<T> responseType) {
+                    return responseType.cast(validationResponse);
+                }
+            });
+            session = HashcodeContainerSession.builder()
+                    .sessionId("v1_service-uuid_container-id")
+                    .clientName("client")
+                    .serviceName("service")
+                    .serviceUuid("service-uuid")
+                    .dataFiles(new ArrayList<>(dataFiles))
+                    .build();
+            dataFileToAdd = RequestUtil.createHashcodeDataFileFrom("added.txt", "text/plain", (byte) 1);
+        }
+    }
+
+    private static List<HashcodeDataFile> createDataFiles(int fileCount) {
+        List<HashcodeDataFile> dataFiles = new ArrayList<>(fileCount);
+        for (int i = 0; i < fileCount; ++i) {
+            byte[] content = ByteBuffer.allocate(Integer.BYTES).putInt(i).array();
+            dataFiles.add(RequestUtil.createHashcodeDataFileFrom("file" + i + ".txt", "text/plain", content));
+        }
+        return dataFiles;
+    }
+
+    /**
+     * Signs the files in reverse order, so that looking up a file among the signed files by position is the worst case.
+     */
+    private static HashcodeSignatureWrapper createSignature(List<HashcodeDataFile> dataFiles) {
+        HashcodeSignatureWrapper signature = new HashcodeSignatureWrapper();
+        signature.setSignature(new byte[]{1});
+        for (int i = dataFiles.size() - 1; i >= 0; --i) {
+            SignatureHashcodeDataFile signatureDataFile = new SignatureHashcodeDataFile();
+            signatureDataFile.setFileName(dataFiles.get(i).getFileName());
+            signatureDataFile.setHashAlgo("SHA256");
+            signature.getDataFiles().add(signatureDataFile);
+        }
+        return signature;
+    }
+}
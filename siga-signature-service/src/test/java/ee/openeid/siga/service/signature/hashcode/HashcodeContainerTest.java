@@ -17,6 +17,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static ee.openeid.siga.service.signature.test.RequestUtil.ADDITIONAL_MANIFEST_FILENAME;
 import static ee.openeid.siga.service.signature.test.RequestUtil.ADDITIONAL_SHA256_FILENAME;
@@ -154,6 +157,32 @@ class HashcodeContainerTest {
         assertEquals("Hashcode container is missing SHA256 hash", caughtException.getMessage());
     }
 
+    @Test
+    void openedContainerDataFilesHaveHashesAndMimeTypesOfSameFileName() throws IOException {
+        HashcodeContainer hashcodeContainer = new HashcodeContainer();
+        for (int i = 100; i > 0; --i) {
+            String mimeType = i % 2 == 0 ? "text/plain" : "application/pdf";
+            hashcodeContainer.addDataFile(RequestUtil.createHashcodeDataFileFrom("file" + i + ".txt", mimeType, (byte) i));
+        }
+        Map<String, HashcodeDataFile> savedDataFiles = hashcodeContainer.getDataFiles().stream()
+                .collect(Collectors.toMap(HashcodeDataFile::getFileName, Function.identity()));
+
+        HashcodeContainer openedContainer = new HashcodeContainer();
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            hashcodeContainer.save(outputStream);
+            openedContainer.open(outputStream.toByteArray());
+        }
+
+        assertEquals(100, openedContainer.getDataFiles().size());
+        openedContainer.getDataFiles().forEach(dataFile -> {
+            HashcodeDataFile savedDataFile = savedDataFiles.get(dataFile.getFileName());
+            assertEquals(savedDataFile.getFileHashSha256(), dataFile.getFileHashSha256());
+            assertEquals(savedDataFile.getFileHashSha512(), dataFile.getFileHashSha512());
+            assertEquals(savedDataFile.getFileSize(), dataFile.getFileSize());
+            assertEquals(savedDataFile.getMimeType(), dataFile.getMimeType());
+        });
+    }
+
     @Test
     void hashcodeDataFileContainsDuplicateFileNames() throws URISyntaxException, IOException {
         HashcodeContainer hashcodeContainer = new HashcodeContainer();
@@ -0,0 +1,75 @@
+package ee.openeid.siga.service.signature.hashcode;
+
+import ee.openeid.siga.common.exception.DuplicateDataFileException;
+import eu.europa.esig.dss.model.DSSException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SignatureDataFilesParserTest {
+    private static final String SHA256 = "http://www.w3.org/2001/04/xmlenc#sha256";
+    private static final String SHA512 = "http://www.w3.org/2001/04/xmlenc#sha512";
+
+    @Test
+    void getEntries_ReturnsDataFileReferencesOfSignedInfoOnly() {
+        SignatureDataFilesParser parser = new SignatureDataFilesParser(createSignature(
+                reference("test.txt", SHA256) + reference("test%201.txt", SHA512)
+                        + signedPropertiesReference(),
+                "<ds:Object><ds:Manifest>" + reference("other.txt", SHA256) + "</ds:Manifest></ds:Object>"));
+
+        Map<String, String> entries = parser.getEntries();
+
+        assertEquals(List.of("test.txt", "test 1.txt"), List.copyOf(entries.keySet()));
+        assertEquals("SHA256", entries.get("test.txt"));
+        assertEquals("SHA512", entries.get("test 1.txt"));
+    }
+
+    @Test
+    void getEntries_WhenSignedPropertiesReferenceFirst_ReturnsDataFileReferences() {
+        SignatureDataFilesParser parser = new SignatureDataFilesParser(createSignature(
+                signedPropertiesReference() + reference("test.txt", SHA256), ""));
+
+        assertEquals(Map.of("test.txt", "SHA256"), parser.getEntries());
+    }
+
+    @Test
+    void getEntries_WhenDuplicateReference_ThrowsException() {
+        byte[] signature = createSignature(reference("test.txt", SHA256) + reference("test.txt", SHA256), "");
+
+        DuplicateDataFileException exception = assertThrows(DuplicateDataFileException.class,
+                () -> new SignatureDataFilesParser(signature));
+        assertEquals("Signature contains duplicate data file: test.txt", exception.getMessage());
+    }
+
+    @Test
+    void getEntries_WhenDoctypeDeclared_ThrowsException() {
+        byte[] signature = ("<!DOCTYPE Signature [<!ENTITY file \"test.txt\">]>"
+                + new String(createSignature(reference("test.txt", SHA256), ""), StandardCharsets.UTF_8))
+                .getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(DSSException.class, () -> new SignatureDataFilesParser(signature));
+    }
+
+    private static byte[] createSignature(String references, String objects) {
+        return ("<ds:Signature xmlns:ds=\"http://www.w3.org/2000/09/xmldsig#\" Id=\"S0\"><ds:SignedInfo>"
+                + "<ds:CanonicalizationMethod Algorithm=\"http://www.w3.org/2001/10/xml-exc-c14n#\"/>"
+                + references + "</ds:SignedInfo><ds:SignatureValue>AA==</ds:SignatureValue>" + objects
+                + "</ds:Signature>").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String reference(String uri, String digestAlgorithm) {
+        return "<ds:Reference URI=\"" + uri + "\"><ds:DigestMethod Algorithm=\"" + digestAlgorithm + "\"/>"
+                + "<ds:DigestValue>AA==</ds:DigestValue></ds:Reference>";
+    }
+
+    private static String signedPropertiesReference() {
+        return "<ds:Reference Type=\"http://uri.etsi.org/01903#SignedProperties\" URI=\"#xades-S0\"><ds:Transforms>"
+                + "<ds:Transform Algorithm=\"http://www.w3.org/2001/10/xml-exc-c14n#\"/></ds:Transforms>"
+                + "<ds:DigestMethod Algorithm=\"" + SHA256 + "\"/><ds:DigestValue>AA==</ds:DigestValue></ds:Reference>";
+    }
+}
@@ -0,0 +1,54 @@
+package ee.openeid.siga.service.signature.hashcode;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.ls.DOMImplementationLS;
+import org.w3c.dom.ls.LSOutput;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class XmlEntryWriterTest {
+    private static final List<String> FILE_NAMES = List.of("a&b<c>d\"e'f.txt", "tab\tnew\nline\rfile.txt",
+            "control\u0001.txt", "õäöü šž.txt", "emoji😀.txt", "");
+
+    @Test
+    void attribute_EscapesValueSameAsDomSerializer() throws Exception {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        Element root = document.createElement("hashcodes");
+        FILE_NAMES.forEach(fileName -> {
+            Element fileEntry = document.createElement("file-entry");
+            fileEntry.setAttribute("full-path", fileName);
+            root.appendChild(fileEntry);
+        });
+        document.appendChild(root);
+        DOMImplementationLS implementation = (DOMImplementationLS) document.getImplementation();
+        LSOutput lsOutput = implementation.createLSOutput();
+        ByteArrayOutputStream domOutput = new ByteArrayOutputStream();
+        lsOutput.setByteStream(domOutput);
+        implementation.createLSSerializer().write(document, lsOutput);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        XmlEntryWriter writer = new XmlEntryWriter(output).writeDeclaration(false).startElement("hashcodes").closeStartElement();
+        for (String fileName : FILE_NAMES) {
+            writer.startElement("file-entry").attribute("full-path", fileName).endEmptyElement();
+        }
+        writer.endElement("hashcodes").flush();
+
+        assertArrayEquals(domOutput.toByteArray(), output.toByteArray());
+    }
+
+    @Test
+    void writeDeclaration_WhenNotStandalone_DeclaresStandaloneNo() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        new XmlEntryWriter(output).writeDeclaration(true).startElement("root").endEmptyElement().flush();
+
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?><root/>", output.toString());
+    }
+}
@@ -0,0 +1,198 @@
+package ee.openeid.siga.service.signature.hashcode;
+
+import ee.openeid.siga.common.exception.DuplicateDataFileException;
+import ee.openeid.siga.common.exception.InvalidContainerException;
+import ee.openeid.siga.common.model.HashcodeDataFile;
+import ee.openeid.siga.common.util.Base64Util;
+import ee.openeid.siga.service.signature.test.RequestUtil;
+import ee.openeid.siga.service.signature.test.TestUtil;
+import eu.europa.esig.dss.DomUtils;
+import eu.europa.esig.dss.enumerations.DigestAlgorithm;
+import org.apache.commons.collections4.map.LinkedMap;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming parsers of hashcodes files and signature references with the DOM parsers they replaced.
+ * <p>
+ * Not run by the tests, run {@link #main(String[])} with the test classpath. Allocation per operation is reported
+ * by the GC profiler as {@code gc.alloc.rate.norm}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XmlParserBenchmark {
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(XmlParserBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    @Benchmark
+    public Map<String, HashcodesEntry> parseHashcodesWithStax(HashcodesState state) {
+        return new HashcodesDataFileParser(state.hashcodesDataFile).getEntries();
+    }
+
+    @Benchmark
+    public Map<String, HashcodesEntry> parseHashcodesWithDom(HashcodesState state) {
+        return new DomHashcodesDataFileParser(state.hashcodesDataFile).getEntries();
+    }
+
+    @Benchmark
+    public Map<String, String> parseSignatureWithStax(SignatureState state) {
+        return new SignatureDataFilesParser(state.signature).getEntries();
+    }
+
+    @Benchmark
+    public Map<String, String> parseSignatureWithDom(SignatureState state) {
+        return new DomSignatureDataFilesParser(state.signature).getEntries();
+    }
+
+    @State(Scope.Benchmark)
+    public static class HashcodesState {
+        @Param({"10", "100", "1000", "3000"})
+        int fileCount;
+        byte[] hashcodesDataFile;
+
+        @Setup
+        public void setUp() throws IOException {
+            List<HashcodeDataFile> dataFiles = new ArrayList<>(fileCount);
+            for (int i = 0; i < fileCount; ++i) {
+                byte[] content = ByteBuffer.allocate(Integer.BYTES).putInt(i).array();
+                dataFiles.add(RequestUtil.createHashcodeDataFileFrom("file" + i + ".txt", "text/plain", content));
+            }
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            new HashcodesDataFile(org.digidoc4j.DigestAlgorithm.SHA512).writeTo(outputStream, dataFiles);
+            hashcodesDataFile = outputStream.toByteArray();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SignatureState {
+        @Param({RequestUtil.SIGNED_HASHCODE, RequestUtil.SIGNED_HASHCODE_SEVERAL_DATAFILES})
+        String container;
+        byte[] signature;
+
+        @Setup
+        public void setUp() throws IOException, URISyntaxException {
+            HashcodeContainer hashcodeContainer = new HashcodeContainer();
+            hashcodeContainer.open(TestUtil.getFile(container));
+            signature = hashcodeContainer.getSignatures().get(0).getSignature();
+        }
+    }
+
+    /**
+     * The DOM parser of hashcodes files replaced by {@link HashcodesDataFileParser}.
+     */
+    private static class DomHashcodesDataFileParser {
+        private final Map<String, HashcodesEntry> entries = new LinkedHashMap<>();
+
+        DomHashcodesDataFileParser(byte[] hashcodesDataFile) {
+            Element root = DomUtils.buildDOM(hashcodesDataFile).getDocumentElement();
+            Node child = root.getFirstChild();
+            while (child != null) {
+                if ("file-entry".equals(child.getLocalName())) {
+                    addFileEntry(child);
+                }
+                child = child.getNextSibling();
+            }
+        }
+
+        Map<String, HashcodesEntry> getEntries() {
+            return entries;
+        }
+
+        private void addFileEntry(Node child) {
+            NamedNodeMap attributes = child.getAttributes();
+            String filePath = attributes.getNamedItem("full-path").getTextContent();
+            String hash = attributes.getNamedItem("hash").getTextContent();
+            String size = attributes.getNamedItem("size").getTextContent();
+            if (!StringUtils.isNumeric(size) || Integer.parseInt(size) < 0) {
+                throw new InvalidContainerException("Hashcodes data file invalid file size");
+            }
+            if (!Base64Util.isValidBase64(hash) || (hash.length() != 44 && hash.length() != 88)) {
+                throw new InvalidContainerException("Invalid data file hash");
+            }
+            if (entries.containsKey(filePath)) {
+                throw new DuplicateDataFileException("Hashcodes data file contains duplicate entry: " + filePath);
+            }
+            entries.put(filePath, new HashcodesEntry(hash, Integer.parseInt(size)));
+        }
+    }
+
+    /**
+     * The DOM parser of signature references replaced by {@link SignatureDataFilesParser}.
+     */
+    private static class DomSignatureDataFilesParser {
+        private final LinkedMap<String, String> entries = new LinkedMap<>();
+
+        DomSignatureDataFilesParser(byte[] signature) {
+            Element root = DomUtils.buildDOM(signature).getDocumentElement();
+            addReferenceEntries(root.getFirstChild());
+            entries.remove(entries.lastKey());
+        }
+
+        Map<String, String> getEntries() {
+            return entries;
+        }
+
+        private void addReferenceEntries(Node child) {
+            while (child != null) {
+                if ("Reference".equals(child.getLocalName())) {
+                    addFileEntry(child);
+                } else {
+                    addReferenceEntries(child.getFirstChild());
+                }
+                child = child.getNextSibling();
+            }
+        }
+
+        private void addFileEntry(Node reference) {
+            String fileName = URLDecoder.decode(reference.getAttributes().getNamedItem("URI").getTextContent(), StandardCharsets.UTF_8);
+            if (entries.containsKey(fileName)) {
+                throw new DuplicateDataFileException("Signature contains duplicate data file: " + fileName);
+            }
+            String digestAlgorithm = "";
+            for (Node child = reference.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if ("DigestMethod".equals(child.getLocalName())) {
+                    String algorithm = child.getAttributes().getNamedItem("Algorithm").getTextContent();
+                    digestAlgorithm = DigestAlgorithm.forXML(algorithm).getName();
+                }
+            }
+            entries.put(fileName, digestAlgorithm);
+        }
+    }
+}
@@ -95,6 +95,21 @@ class MobileIdApiClientTest {
         assertEquals(certificate, response);
     }
 
+    @Test
+    void getCertificate_multipleRequests_loadsTruststoreOnce() throws Exception {
+        X509Certificate certificate = pkcs12Esteid2018SignatureToken.getCertificate();
+        stubCertificateRequestOkResponse("{" +
+                "\"result\": \"OK\"," +
+                "\"cert\": \"" + Base64.getEncoder().encodeToString(certificate.getEncoded()) + "\"" +
+                "}");
+
+        mobileIdApiClient.getCertificate(createRPInfo(), createDefaultMobileIdInformation());
+        X509Certificate response = mobileIdApiClient.getCertificate(createRPInfo(), createDefaultMobileIdInformation());
+
+        assertEquals(certificate, response);
+        Mockito.verify(resource, Mockito.times(1)).getInputStream();
+    }
+
     @Test
     void getCertificate_midRestReturnsNotFound() {
         stubCertificateRequestOkResponse("{\"result\": \"NOT_FOUND\"}");
@@ -133,10 +148,9 @@ class MobileIdApiClientTest {
         Stream.of(HttpStatus.values()).filter(HttpStatus::is5xxServerError).forEach(status -> {
             stubCertificateRequestErrorResponse(status.value());
             try {
-                Mockito.when(resource.getInputStream()).thenReturn(SmartIdApiClientTest.class.getClassLoader().getResource("mid_truststore.p12").openStream());
                 mobileIdApiClient.getCertificate(createRPInfo(), createDefaultMobileIdInformation());
                 fail("Should not reach here");
-            } catch (ClientException | IOException e) {
+            } catch (ClientException e) {
                 assertEquals("Mobile-ID service error", e.getMessage());
             }
             WireMock.reset();
@@ -157,10 +171,9 @@ class MobileIdApiClientTest {
         Stream.of(HttpStatus.values()).filter(HttpStatus::is5xxServerError).forEach(status -> {
             stubSigningInitiationErrorResponse(status.value());
             try {
-                Mockito.when(resource.getInputStream()).thenReturn(SmartIdApiClientTest.class.getClassLoader().getResource("mid_truststore.p12").openStream());
                 mobileIdApiClient.initMobileSigning(createRPInfo(), mockDataToSign(DEFAULT_MOCK_DATA_TO_SIGN), createDefaultMobileIdInformation());
                 fail("Should not reach here");
-            } catch (ClientException | IOException e) {
+            } catch (ClientException e) {
                 assertEquals("Mobile-ID service error", e.getMessage());
             }
             WireMock.reset();
@@ -303,11 +316,6 @@ class MobileIdApiClientTest {
     void getStatus_midRestReturns5XX() {
         Stream.of(HttpStatus.values()).filter(HttpStatus::is5xxServerError).forEach(status -> {
             stubGetStatusErrorResponse(status.value());
-            try {
-                Mockito.when(resource.getInputStream()).thenReturn(SmartIdApiClientTest.class.getClassLoader().getResource("mid_truststore.p12").openStream());
-            } catch (IOException e) {
-                throw new IllegalArgumentException(e);
-            }
             assertThrows(ServerErrorException.class, () -> mobileIdApiClient.getSignatureStatus(createRPInfo(), DEFAULT_MOCK_SESSION_CODE));
             WireMock.reset();
         });
@@ -0,0 +1,254 @@
+package ee.openeid.siga.service.signature.session;
+
+import ee.openeid.siga.common.model.SigningType;
+import ee.openeid.siga.common.session.AsicContainerSession;
+import ee.openeid.siga.common.session.CertificateSession;
+import ee.openeid.siga.common.session.ProcessingStatus;
+import ee.openeid.siga.common.session.SessionStatus;
+import ee.openeid.siga.common.session.SignatureSession;
+import ee.openeid.siga.service.signature.test.RequestUtil;
+import ee.openeid.siga.service.signature.test.TestUtil;
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.binary.BinaryObject;
+import org.apache.ignite.binary.BinaryObjectBuilder;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.apache.ignite.spi.discovery.tcp.ipfinder.vm.TcpDiscoveryVmIpFinder;
+import org.digidoc4j.Configuration;
+import org.digidoc4j.Container;
+import org.digidoc4j.ContainerBuilder;
+import org.digidoc4j.DataToSign;
+import org.digidoc4j.DigestAlgorithm;
+import org.digidoc4j.SignatureBuilder;
+import org.digidoc4j.SignatureProfile;
+import org.digidoc4j.signers.PKCS12SignatureToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.security.cert.X509Certificate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.digidoc4j.Container.DocumentType.ASICE;
+
+/**
+ * Compares the binary formats of sessions with the legacy format of the reflective Ignite serialization, in which
+ * data to sign and certificates are Java serialized and ASiC containers are stored inline.
+ * <p>
+ * Not run by the tests, run {@link #main(String[])} with the test classpath. Runs a standalone Ignite node for
+ * marshalling. Allocation per operation is reported by the GC profiler as {@code gc.alloc.rate.norm}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionSerializationBenchmark {
+    private static final String DOCUMENT_NUMBER = "PNOEE-123456789-QWER";
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SessionSerializationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    @Benchmark
+    public BinaryObject writeSignatureSession(SessionState state) {
+        return state.ignite.binary().toBinary(state.signatureSession);
+    }
+
+    @Benchmark
+    public BinaryObject writeLegacySignatureSession(SessionState state) {
+        return state.toLegacyBinary(state.signatureSession);
+    }
+
+    @Benchmark
+    public SignatureSession readSignatureSession(SessionState state) {
+        return state.signatureSessionBinary.deserialize();
+    }
+
+    @Benchmark
+    public SignatureSession readLegacySignatureSession(SessionState state) {
+        return state.legacySignatureSessionBinary.deserialize();
+    }
+
+    @Benchmark
+    public BinaryObject writeAsicContainerSession(SessionState state) {
+        return state.ignite.binary().toBinary(state.asicContainerSession);
+    }
+
+    @Benchmark
+    public BinaryObject writeLegacyAsicContainerSession(SessionState state) {
+        return state.toLegacyBinary(state.asicContainerSession);
+    }
+
+    @Benchmark
+    public AsicContainerSession readAsicContainerSession(SessionState state) {
+        return state.asicContainerSessionBinary.deserialize();
+    }
+
+    @Benchmark
+    public AsicContainerSession readLegacyAsicContainerSession(SessionState state) {
+        return state.legacyAsicContainerSessionBinary.deserialize();
+    }
+
+    @Benchmark
+    public BinaryObject writeCertificateSession(SessionState state) {
+        return state.ignite.binary().toBinary(state.certificateSession);
+    }
+
+    @Benchmark
+    public BinaryObject writeLegacyCertificateSession(SessionState state) {
+        return state.toLegacyBinary(state.certificateSession);
+    }
+
+    @Benchmark
+    public CertificateSession readCertificateSession(SessionState state) {
+        return state.certificateSessionBinary.deserialize();
+    }
+
+    @Benchmark
+    public CertificateSession readLegacyCertificateSession(SessionState state) {
+        return state.legacyCertificateSessionBinary.deserialize();
+    }
+
+    @State(Scope.Benchmark)
+    public static class SessionState {
+        Ignite ignite;
+        SignatureSession signatureSession;
+        AsicContainerSession asicContainerSession;
+        CertificateSession certificateSession;
+        BinaryObject signatureSessionBinary;
+        BinaryObject legacySignatureSessionBinary;
+        BinaryObject asicContainerSessionBinary;
+        BinaryObject legacyAsicContainerSessionBinary;
+        BinaryObject certificateSessionBinary;
+        BinaryObject legacyCertificateSessionBinary;
+
+        @Setup
+        public void setUp() throws IOException, URISyntaxException {
+            ignite = Ignition.start(new IgniteConfiguration()
+                    .setIgniteInstanceName("siga-session-serialization-benchmark")
+                    .setWorkDirectory(Files.createTempDirectory("ignite").toString())
+                    .setDiscoverySpi(new TcpDiscoverySpi()
+                            .setIpFinder(new TcpDiscoveryVmIpFinder().setAddresses(List.of("127.0.0.1:47500..47509")))));
+            X509Certificate certificate = new PKCS12SignatureToken("src/test/resources/p12/sign_ESTEID2018.p12",
+                    "1234".toCharArray()).getCertificate();
+            byte[] container = TestUtil.getFile(RequestUtil.VALID_ASICE);
+
+            signatureSession = SignatureSession.builder()
+                    .sessionCode("mid-session-code")
+                    .dataToSign(createDataToSign(container, certificate))
+                    .signingType(SigningType.MOBILE_ID)
+                    .dataFilesHash("data-files-hash")
+                    .relyingPartyInfo(RequestUtil.createRPInfoForMid())
+                    .build();
+            asicContainerSession = AsicContainerSession.builder()
+                    .sessionId(RequestUtil.CONTAINER_SESSION_ID)
+                    .clientName(RequestUtil.CLIENT_NAME)
+                    .serviceName(RequestUtil.SERVICE_NAME)
+                    .serviceUuid(RequestUtil.SERVICE_UUID)
+                    .containerName("test.asice")
+                    .container(container)
+                    .signatureIdHolder(new HashMap<>(Map.of("S0", 1)))
+                    .certificateHolder(new HashMap<>(Map.of(DOCUMENT_NUMBER, certificate)))
+                    .build();
+            certificateSession = CertificateSession.builder()
+                    .relyingPartyInfo(RequestUtil.createRPInfoForSmartId())
+                    .sessionCode("sid-session-code")
+                    .documentNumber(DOCUMENT_NUMBER)
+                    .build();
+
+            signatureSessionBinary = ignite.binary().toBinary(signatureSession);
+            legacySignatureSessionBinary = toLegacyBinary(signatureSession);
+            asicContainerSessionBinary = ignite.binary().toBinary(asicContainerSession);
+            legacyAsicContainerSessionBinary = toLegacyBinary(asicContainerSession);
+            certificateSessionBinary = ignite.binary().toBinary(certificateSession);
+            legacyCertificateSessionBinary = toLegacyBinary(certificateSession);
+        }
+
+        @TearDown
+        public void tearDown() {
+            ignite.close();
+        }
+
+        BinaryObject toLegacyBinary(SignatureSession session) {
+            BinaryObjectBuilder builder = ignite.binary().builder(SignatureSession.class.getName());
+            builder.setField("sessionCode", session.getSessionCode());
+            builder.setField("signature", session.getSignature(), byte[].class);
+            builder.setField("sessionStatus", toLegacyBinary(session.getSessionStatus()), Object.class);
+            builder.setField("dataToSignSerialized", SerializationUtils.serialize(session.getDataToSign()));
+            builder.setField("signingType", session.getSigningType(), Object.class);
+            builder.setField("dataFilesHash", session.getDataFilesHash());
+            builder.setField("relyingPartyInfo", session.getRelyingPartyInfo(), Object.class);
+            return builder.build();
+        }
+
+        BinaryObject toLegacyBinary(AsicContainerSession session) {
+            BinaryObjectBuilder builder = ignite.binary().builder(AsicContainerSession.class.getName());
+            builder.setField("containerName", session.getContainerName());
+            builder.setField("clientName", session.getClientName());
+            builder.setField("serviceName", session.getServiceName());
+            builder.setField("serviceUuid", session.getServiceUuid());
+            builder.setField("sessionId", session.getSessionId());
+            builder.setField("container", session.getContainer());
+            builder.setField("signatureIdHolder", new HashMap<>(session.getSignatureIdHolder()));
+            builder.setField("certificateHolder", new HashMap<>(session.getCertificateHolder()));
+            return builder.build();
+        }
+
+        BinaryObject toLegacyBinary(CertificateSession session) {
+            BinaryObjectBuilder builder = ignite.binary().builder(CertificateSession.class.getName());
+            builder.setField("relyingPartyInfo", session.getRelyingPartyInfo(), Object.class);
+            builder.setField("sessionCode", session.getSessionCode());
+            builder.setField("documentNumber", session.getDocumentNumber(), String.class);
+            builder.setField("sessionStatus", toLegacyBinary(session.getSessionStatus()), Object.class);
+            return builder.build();
+        }
+
+        private BinaryObject toLegacyBinary(SessionStatus sessionStatus) {
+            BinaryObjectBuilder builder = ignite.binary().builder(SessionStatus.class.getName());
+            builder.setField("status", sessionStatus.getStatus(), String.class);
+            builder.setField("statusError", sessionStatus.getStatusError(), Object.class);
+            builder.setField("processingStatus", ignite.binary().buildEnum(ProcessingStatus.class.getName(),
+                    sessionStatus.getProcessingStatus().ordinal()));
+            builder.setField("processingCounter", sessionStatus.getProcessingCounter());
+            builder.setField("processingStatusTimestamp", sessionStatus.getProcessingStatusTimestamp(), Object.class);
+            return builder.build();
+        }
+
+        private static DataToSign createDataToSign(byte[] containerBytes, X509Certificate certificate) {
+            Container container = ContainerBuilder.aContainer(ASICE)
+                    .withConfiguration(Configuration.of(Configuration.Mode.TEST))
+                    .fromStream(new ByteArrayInputStream(containerBytes))
+                    .build();
+            return SignatureBuilder.aSignature(container)
+                    .withSigningCertificate(certificate)
+                    .withSignatureProfile(SignatureProfile.LT)
+                    .withSignatureDigestAlgorithm(DigestAlgorithm.SHA256)
+                    .buildDataToSign();
+        }
+    }
+}
@@ -8,6 +8,7 @@ import ee.openeid.siga.common.event.SigaEventName;
 import ee.openeid.siga.common.event.XPath;
 import ee.openeid.siga.common.model.DataToSignWrapper;
 import ee.openeid.siga.common.model.Result;
+import ee.openeid.siga.common.model.SerializedContainer;
 import ee.openeid.siga.service.signature.container.hashcode.HashcodeContainerService;
 import ee.openeid.siga.service.signature.container.hashcode.HashcodeContainerSigningService;
 import ee.openeid.siga.service.signature.container.hashcode.HashcodeContainerValidationService;
@@ -46,6 +47,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.security.cert.X509Certificate;
 import java.util.Base64;
@@ -208,12 +210,15 @@ public class HashcodeContainerController {
 
     @SigaEventLog(eventName = SigaEventName.HC_GET_CONTAINER)
     @GetMapping(value = "/hashcodecontainers/{containerId}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public GetHashcodeContainerResponse getContainer(@PathVariable(value = "containerId") String containerId) {
+    public GetHashcodeContainerResponse getContainer(@PathVariable(value = "containerId") String containerId, WebRequest webRequest) {
         validator.validateContainerId(containerId);
 
-        String container = containerService.getContainer(containerId);
+        SerializedContainer container = containerService.getSerializedContainer(containerId);
+        if (webRequest.checkNotModified(container.getETag())) {
+            return null;
+        }
         GetHashcodeContainerResponse response = new GetHashcodeContainerResponse();
-        response.setContainer(container);
+        response.setContainer(Base64.getEncoder().encodeToString(container.getContainer()));
         return response;
     }
 
@@ -14,9 +14,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import java.util.Base64;
@@ -25,6 +28,8 @@ import java.util.List;
 import static java.lang.String.valueOf;
 import static java.time.Instant.now;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -70,6 +75,28 @@ public abstract class SigaBaseApplicationTests extends BaseTest {
                 .andExpect(status().is(400));
     }
 
+    @Test
+    public void hashcodeGetUnchangedContainerWithMatchingETag() throws Exception {
+        String containerId = uploadHashcodeContainer();
+        String eTag = getHashcodeContainerETag(containerId, null, status().isOk());
+        assertNotNull(eTag);
+
+        MvcResult result = getHashcodeContainerResult(containerId, eTag, status().isNotModified());
+        assertEquals(eTag, result.getResponse().getHeader(HttpHeaders.ETAG));
+        assertEquals(0, result.getResponse().getContentLength());
+    }
+
+    @Test
+    public void hashcodeGetChangedContainerWithPreviousETag() throws Exception {
+        String containerId = createHashcodeContainerWithBothHashes();
+        String eTag = getHashcodeContainerETag(containerId, null, status().isOk());
+        addHashcodeDataFile(containerId);
+
+        String changedETag = getHashcodeContainerETag(containerId, eTag, status().isOk());
+        assertNotEquals(eTag, changedETag);
+        getHashcodeContainerResult(containerId, changedETag, status().isNotModified());
+    }
+
     @Test
     public void remoteHashcodeSigningFlowWithBase64EncodedCertificate() throws Exception {
         String containerId = uploadHashcodeContainer();
@@ -116,4 +143,27 @@ public abstract class SigaBaseApplicationTests extends BaseTest {
                 ".*event_type=FINISH, event_name=OCSP_REQUEST, .* request_url=http://aia.demo.sk.ee/esteid2018, .* result=SUCCESS.*");
     }
 
+    private String getHashcodeContainerETag(String containerId, String ifNoneMatch, ResultMatcher resultMatcher) throws Exception {
+        return getHashcodeContainerResult(containerId, ifNoneMatch, resultMatcher).getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private MvcResult getHashcodeContainerResult(String containerId, String ifNoneMatch, ResultMatcher resultMatcher) throws Exception {
+        JSONObject request = new JSONObject();
+        String signature = HmacSignature.builder()
+                .macAlgorithm(DEFAULT_HMAC_ALGO)
+                .serviceUuid(getServiceUuid())
+                .timestamp(xAuthorizationTimestamp)
+                .requestMethod("GET")
+                .uri("/hashcodecontainers/" + containerId)
+                .payload(request.toString().getBytes())
+                .build().getSignature(getHmacSharedSecret());
+        MockHttpServletRequestBuilder builder = get("/hashcodecontainers/" + containerId);
+        if (ifNoneMatch != null) {
+            builder.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return mockMvc.perform(buildRequest(builder, signature, request, getServiceUuid()))
+                .andExpect(resultMatcher)
+                .andReturn();
+    }
+
 }